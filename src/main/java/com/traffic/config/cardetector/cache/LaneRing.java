@@ -0,0 +1,190 @@
+package com.traffic.config.cardetector.cache;
+
+import com.traffic.config.cardetector.model.VehicleData;
+import com.traffic.config.common.enums.DataType;
+import com.traffic.config.common.enums.VehicleDirection;
+
+import java.util.List;
+
+/**
+ * 单车道车辆记录环形缓冲
+ *
+ * 固定容量，按列保存基本类型字段，记录按时间戳升序排列；写满后覆盖最旧的记录。
+ * 时间范围查询在环上二分查找起止位置，只为命中的记录构造 VehicleData。
+ */
+class LaneRing {
+
+    // add 的结果
+    static final int APPENDED = 0;      // 新增一条记录
+    static final int OVERWROTE = 1;     // 覆盖了最旧的记录，记录数不变
+    static final int STALE = 2;         // 比写满的环中最旧的记录还旧，未写入
+    static final int RETIRED = 3;       // 车道已从缓存中移除，未写入
+
+    private static final int NONE = 0xFF;
+
+    private final int signalIp;
+    private final int laneNumber;
+    private final long[] timestamps;
+    private final String[] plates;
+    private final int[] plateIds;
+    // 数据类型(8位) | 方向(8位) | 排队长度(8位) | 速度(8位)，类型和方向为空时记为 NONE
+    private final int[] packed;
+    private final byte[] runDirections;
+
+    private int head;   // 最旧记录位置
+    private int size;
+    private boolean retired;
+    // 上次淘汰检查以来是否写入过，供缓存按二次机会淘汰
+    private volatile boolean referenced;
+
+    LaneRing(int signalIp, int laneNumber, int capacity) {
+        this.signalIp = signalIp;
+        this.laneNumber = laneNumber;
+        this.timestamps = new long[capacity];
+        this.plates = new String[capacity];
+        this.plateIds = new int[capacity];
+        this.packed = new int[capacity];
+        this.runDirections = new byte[capacity];
+    }
+
+    /**
+     * 追加一条记录；时间戳早于已有记录时向前插入到有序位置（乱序通常只差几条）
+     * @return APPENDED、OVERWROTE、STALE 或 RETIRED
+     */
+    synchronized int add(VehicleData data) {
+        if (retired) {
+            return RETIRED;
+        }
+        int capacity = timestamps.length;
+        long ts = data.getTimestampNanos();
+        int result = APPENDED;
+        if (size == capacity) {
+            if (ts < timestamps[head]) {
+                return STALE;
+            }
+            head = (head + 1) % capacity;
+            size--;
+            result = OVERWROTE;
+        }
+
+        int pos = size;
+        while (pos > 0 && timestamps[slot(pos - 1)] > ts) {
+            copy(slot(pos - 1), slot(pos));
+            pos--;
+        }
+        int index = slot(pos);
+        timestamps[index] = ts;
+        plates[index] = data.getLicensePlate();
+        plateIds[index] = data.getPlateId();
+        packed[index] = (data.getDataType() != null ? data.getDataType().getCode() & 0xFF : NONE) << 24
+                | (data.getDirection() != null ? data.getDirection().getCode() & 0xFF : NONE) << 16
+                | (data.getQueueLength() & 0xFF) << 8
+                | (data.getSpeed() & 0xFF);
+        runDirections[index] = (byte) data.getRunDirection();
+        size++;
+        referenced = true;
+        return result;
+    }
+
+    /**
+     * 将时间戳位于 [fromNanos, toNanos) 的记录按时间顺序加入 out
+     */
+    synchronized void collect(long fromNanos, long toNanos, List<VehicleData> out) {
+        int start = lowerBound(fromNanos);
+        int end = lowerBound(toNanos);
+        for (int i = start; i < end; i++) {
+            out.add(toVehicleData(slot(i)));
+        }
+    }
+
+    /**
+     * 最新的记录，为空时返回null
+     */
+    synchronized VehicleData latest() {
+        return size == 0 ? null : toVehicleData(slot(size - 1));
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 从缓存中移除时调用，此后的写入返回 RETIRED
+     * @return 移除前的记录数
+     */
+    synchronized int retire() {
+        int removed = size;
+        retired = true;
+        for (int i = 0; i < plates.length; i++) {
+            plates[i] = null;
+        }
+        head = 0;
+        size = 0;
+        return removed;
+    }
+
+    /**
+     * 返回上次调用以来是否写入过，并清除该标记
+     */
+    boolean testAndClearReferenced() {
+        boolean was = referenced;
+        referenced = false;
+        return was;
+    }
+
+    int getSignalIp() {
+        return signalIp;
+    }
+
+    int getLaneNumber() {
+        return laneNumber;
+    }
+
+    /**
+     * 第一个时间戳不小于 nanos 的逻辑位置
+     */
+    private int lowerBound(long nanos) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[slot(mid)] < nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int slot(int logical) {
+        int index = head + logical;
+        return index >= timestamps.length ? index - timestamps.length : index;
+    }
+
+    private void copy(int from, int to) {
+        timestamps[to] = timestamps[from];
+        plates[to] = plates[from];
+        plateIds[to] = plateIds[from];
+        packed[to] = packed[from];
+        runDirections[to] = runDirections[from];
+    }
+
+    private VehicleData toVehicleData(int index) {
+        int bits = packed[index];
+        VehicleData data = new VehicleData();
+        int type = bits >>> 24;
+        int direction = (bits >>> 16) & 0xFF;
+        data.setDataType(type != NONE ? DataType.fromCode(type) : null);
+        data.setSignalIpInt(signalIp);
+        data.setLaneNumber(laneNumber);
+        data.setLicensePlate(plates[index]);
+        data.setPlateId(plateIds[index]);
+        data.setDirection(direction != NONE ? VehicleDirection.fromCode(direction) : null);
+        data.setQueueLength((bits >>> 8) & 0xFF);
+        data.setSpeed(bits & 0xFF);
+        data.setRunDirection(runDirections[index] & 0xFF);
+        data.setTimestampNanos(timestamps[index]);
+        return data;
+    }
+}
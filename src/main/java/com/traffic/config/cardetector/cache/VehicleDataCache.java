@@ -1,69 +1,237 @@
 package com.traffic.config.cardetector.cache;
 
 import com.traffic.config.cardetector.model.VehicleData;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 车辆数据缓存
+ *
+ * 每个（信号机IP，车道）一个固定容量的环形缓冲，按时间有序保存最近的记录，
+ * 车道数受全局记录上限约束，超出时按创建顺序淘汰车道（期间写入过的车道获得一次二次机会，
+ * 近似最久未写入），内存占用因此有上界。记录总数由计数器维护，size() 不逐个锁车道环。
+ * 按车道和时间窗口查询时在各车道环内二分定位，不扫描全部数据。
+ */
 @Component
 public class VehicleDataCache implements DataCache<VehicleData> {
+    private static final Logger log = LoggerFactory.getLogger(VehicleDataCache.class);
+
+    // 每车道保留的最近记录数
+    @Value("${traffic.cache.lane-capacity:256}")
+    private int laneCapacity = 256;
 
-    private final ConcurrentMap<String, VehicleData> cache = new ConcurrentHashMap<>();
-    private final ConcurrentLinkedQueue<VehicleData> recentData = new ConcurrentLinkedQueue<>();
+    // 全局记录上限，决定最多缓存的车道数
+    @Value("${traffic.cache.max-records:65536}")
+    private int maxRecords = 65536;
 
-    // 最大缓存数量
-    private static final int MAX_RECENT_DATA = 1000;
+    private final ConcurrentMap<Long, LaneRing> lanes = new ConcurrentHashMap<>();
+    // 车道按创建顺序排列；车道的增删在其锁内进行，查询和写入记录不加锁
+    private final ArrayDeque<LaneRing> laneOrder = new ArrayDeque<>();
+    private final AtomicInteger records = new AtomicInteger();
+    private final AtomicLong overwritten = new AtomicLong();
+    private final AtomicLong staleDropped = new AtomicLong();
+    private final AtomicLong evictedLanes = new AtomicLong();
 
+    public VehicleDataCache() {
+    }
+
+    public VehicleDataCache(int laneCapacity, int maxRecords) {
+        this.laneCapacity = laneCapacity;
+        this.maxRecords = maxRecords;
+    }
+
+    /**
+     * 按记录中的信号机IP和车道写入，key 不参与存储
+     */
     @Override
     public void put(String key, VehicleData data) {
-        cache.put(key, data);
-
-        // 添加到最近数据队列
-        recentData.offer(data);
+        add(data);
+    }
 
-        // 保持队列大小
-        while (recentData.size() > MAX_RECENT_DATA) {
-            recentData.poll();
+    public void add(VehicleData data) {
+        long laneKey = laneKey(data.getSignalIpInt(), data.getLaneNumber());
+        while (true) {
+            LaneRing ring = lanes.get(laneKey);
+            if (ring == null) {
+                ring = createLane(laneKey, data);
+            }
+            switch (ring.add(data)) {
+                case LaneRing.APPENDED:
+                    records.incrementAndGet();
+                    return;
+                case LaneRing.OVERWROTE:
+                    overwritten.incrementAndGet();
+                    return;
+                case LaneRing.STALE:
+                    staleDropped.incrementAndGet();
+                    log.debug("车道 {}_{} 缓存已满且记录早于其中最旧的记录，丢弃: {}",
+                            DataUtil.formatIpv4(data.getSignalIpInt()), data.getLaneNumber(), data.getTimestampNanos());
+                    return;
+                default:
+                    // 车道刚被淘汰或移除，重新创建
+            }
         }
     }
 
+    /**
+     * @param key 车道键，格式为 "信号机IP_车道"
+     * @return 该车道最新的一条记录
+     */
     @Override
     public VehicleData get(String key) {
-        return cache.get(key);
+        LaneRing ring = lanes.get(parseLaneKey(key));
+        return ring != null ? ring.latest() : null;
     }
 
+    /**
+     * @param key 车道键，格式为 "信号机IP_车道"，移除该车道的全部记录
+     */
     @Override
     public void remove(String key) {
-        cache.remove(key);
+        synchronized (laneOrder) {
+            LaneRing ring = lanes.remove(parseLaneKey(key));
+            if (ring != null) {
+                laneOrder.remove(ring);
+                retire(ring);
+            }
+        }
     }
 
     @Override
     public void clear() {
-        cache.clear();
-        recentData.clear();
+        synchronized (laneOrder) {
+            for (LaneRing ring : laneOrder) {
+                retire(ring);
+            }
+            lanes.clear();
+            laneOrder.clear();
+        }
     }
 
+    /**
+     * 缓存中的记录总数
+     */
     @Override
     public int size() {
-        return cache.size();
+        return records.get();
     }
 
-    // 获取指定车道的最近车辆数据
+    // 获取指定车道的最近车辆数据（所有信号机）
     public List<VehicleData> getRecentDataByLane(int laneNumber) {
-        return recentData.stream()
-                .filter(data -> data.getLaneNumber() == laneNumber)
-                .collect(Collectors.toList());
+        List<VehicleData> result = new ArrayList<>();
+        for (LaneRing ring : lanes.values()) {
+            if (ring.getLaneNumber() == laneNumber) {
+                ring.collect(Long.MIN_VALUE, Long.MAX_VALUE, result);
+            }
+        }
+        result.sort(Comparator.comparingLong(VehicleData::getTimestampNanos));
+        return result;
+    }
+
+    // 获取指定信号机、车道在 [fromNanos, toNanos) 内的数据，按时间升序
+    public List<VehicleData> getDataByLane(int signalIp, int laneNumber, long fromNanos, long toNanos) {
+        List<VehicleData> result = new ArrayList<>();
+        LaneRing ring = lanes.get(laneKey(signalIp, laneNumber));
+        if (ring != null) {
+            ring.collect(fromNanos, toNanos, result);
+        }
+        return result;
     }
 
-    // 获取指定时间范围内的数据
+    // 获取指定时间之后的数据，按时间升序
     public List<VehicleData> getDataSince(LocalDateTime since) {
-        return recentData.stream()
-                .filter(data -> data.getTimestamp().isAfter(since))
-                .collect(Collectors.toList());
+        long fromNanos = NanoClock.toEpochNanos(since) + 1;
+        List<VehicleData> result = new ArrayList<>();
+        for (LaneRing ring : lanes.values()) {
+            ring.collect(fromNanos, Long.MAX_VALUE, result);
+        }
+        result.sort(Comparator.comparingLong(VehicleData::getTimestampNanos));
+        return result;
+    }
+
+    public static String laneKey(VehicleData data) {
+        return DataUtil.formatIpv4(data.getSignalIpInt()) + "_" + data.getLaneNumber();
+    }
+
+    private static long laneKey(int signalIp, int laneNumber) {
+        return ((long) signalIp << 32) | (laneNumber & 0xFFFFFFFFL);
     }
-}
 
+    private static long parseLaneKey(String key) {
+        int split = key != null ? key.lastIndexOf('_') : -1;
+        if (split <= 0) {
+            return -1L;
+        }
+        try {
+            int signalIp = DataUtil.parseIpv4(key.substring(0, split));
+            return laneKey(signalIp, Integer.parseInt(key.substring(split + 1)));
+        } catch (RuntimeException e) {
+            return -1L;
+        }
+    }
+
+    private LaneRing createLane(long laneKey, VehicleData data) {
+        synchronized (laneOrder) {
+            LaneRing ring = lanes.get(laneKey);
+            if (ring == null) {
+                ring = new LaneRing(data.getSignalIpInt(), data.getLaneNumber(), Math.max(1, laneCapacity));
+                lanes.put(laneKey, ring);
+                laneOrder.addLast(ring);
+                evictIfNeeded(ring);
+            }
+            return ring;
+        }
+    }
+
+    /**
+     * 车道数超过全局上限时从最早创建的车道开始淘汰（新建的车道除外），
+     * 上次检查以来写入过的车道移到队尾，每个车道至多跳过一次。调用方持有 laneOrder 锁
+     */
+    private void evictIfNeeded(LaneRing created) {
+        int maxLanes = Math.max(1, maxRecords / Math.max(1, laneCapacity));
+        for (int budget = laneOrder.size() * 2; laneOrder.size() > maxLanes && budget > 0; budget--) {
+            LaneRing oldest = laneOrder.pollFirst();
+            if (oldest == created || oldest.testAndClearReferenced()) {
+                laneOrder.addLast(oldest);
+                continue;
+            }
+            lanes.remove(laneKey(oldest.getSignalIp(), oldest.getLaneNumber()));
+            retire(oldest);
+            evictedLanes.incrementAndGet();
+            log.debug("车辆数据缓存车道数超过上限 {}，淘汰车道 {}_{}", maxLanes,
+                    DataUtil.formatIpv4(oldest.getSignalIp()), oldest.getLaneNumber());
+        }
+    }
+
+    private void retire(LaneRing ring) {
+        records.addAndGet(-ring.retire());
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("lanes", lanes.size());
+        result.put("records", size());
+        result.put("laneCapacity", laneCapacity);
+        result.put("maxRecords", maxRecords);
+        result.put("overwritten", overwritten.get());
+        result.put("staleDropped", staleDropped.get());
+        result.put("evictedLanes", evictedLanes.get());
+        return result;
+    }
+}
@@ -0,0 +1,397 @@
+package com.traffic.config.cardetector.capture;
+
+import com.traffic.config.util.NanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 检测器原始帧抓包日志
+ *
+ * 每个通过校验的帧都追加到预分配的内存映射分段文件中，写入只是内存拷贝，不产生逐帧系统调用或刷盘；
+ * 当前分段写满后切换到后台预先映射好的下一个分段，旧分段在后台刷盘并解除映射，超出保留数量的旧分段自动删除。
+ * 默认关闭，开启时须配置抓包目录。
+ *
+ * 分段文件格式（大端）：
+ * <pre>
+ *   文件头 16字节: magic(4) version(2) reserved(2) createdEpochNanos(8)
+ *   记录:          payloadLength(4) sourceIp(4) receiveNanos(8) payload(payloadLength)
+ * </pre>
+ * payloadLength 为0表示分段内有效数据结束。
+ */
+@Component
+public class FrameCaptureLog {
+    private static final Logger log = LoggerFactory.getLogger(FrameCaptureLog.class);
+
+    public static final int MAGIC = 0x54464350;     // "TFCP"
+    public static final short VERSION = 1;
+    public static final int FILE_HEADER_BYTES = 16;
+    public static final int RECORD_HEADER_BYTES = 16;
+    public static final String FILE_PREFIX = "capture-";
+    public static final String FILE_SUFFIX = ".bin";
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // 解除内存映射，不可用时由GC回收映射
+    private static final MethodHandle INVOKE_CLEANER = invokeCleaner();
+
+    @Value("${traffic.capture.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${traffic.capture.directory:}")
+    private String directory = "";
+
+    @Value("${traffic.capture.segment-bytes:67108864}")
+    private int segmentBytes = 64 * 1024 * 1024;
+
+    @Value("${traffic.capture.max-segments:16}")
+    private int maxSegments = 16;
+
+    private File captureDir;
+    private volatile Segment current;
+    private Future<Segment> standby;
+    private ExecutorService rotateExecutor;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rotations = new LongAdder();
+
+    public FrameCaptureLog() {
+    }
+
+    public FrameCaptureLog(String directory, int segmentBytes, int maxSegments) {
+        this.enabled = true;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxSegments = maxSegments;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("原始帧抓包已关闭");
+            return;
+        }
+        if (directory == null || directory.isBlank()) {
+            log.warn("原始帧抓包已开启但未配置 traffic.capture.directory，本次运行不抓包");
+            return;
+        }
+        try {
+            captureDir = new File(directory);
+            if (!captureDir.isDirectory() && !captureDir.mkdirs()) {
+                throw new IOException("无法创建目录 " + captureDir.getAbsolutePath());
+            }
+            rotateExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "FrameCapture-Rotate");
+                t.setDaemon(true);
+                return t;
+            });
+            current = createSegment();
+            standby = rotateExecutor.submit(this::createSegment);
+            rotateExecutor.submit(this::purgeOldSegments);
+            log.info("原始帧抓包已启动，目录: {}, 分段大小: {}字节, 保留分段数: {}",
+                    captureDir.getAbsolutePath(), segmentBytes, maxSegments);
+        } catch (IOException e) {
+            // 抓包失败不影响接入
+            log.error("原始帧抓包启动失败，本次运行不抓包", e);
+            current = null;
+        }
+    }
+
+    /**
+     * 追加一帧，读线程调用
+     * 数据切片即拆帧器输出的数据部分（不含长度和校验）
+     */
+    public void append(byte[] data, int offset, int length, int sourceIp, long receiveNanos) {
+        Segment segment = current;
+        if (segment == null) {
+            return;
+        }
+        int recordBytes = RECORD_HEADER_BYTES + length;
+        if (length <= 0 || recordBytes > segmentBytes - FILE_HEADER_BYTES - 4) {
+            dropped.increment();
+            return;
+        }
+
+        int position;
+        while (true) {
+            // 先登记写入者再预留，分段封存后不会再有新的写入者进入
+            segment.writers.incrementAndGet();
+            if ((position = segment.reserve(recordBytes)) >= 0) {
+                break;
+            }
+            segment.writers.decrementAndGet();
+            segment = rotate(segment);
+            if (segment == null) {
+                dropped.increment();
+                return;
+            }
+        }
+
+        try {
+            MappedByteBuffer buffer = segment.buffer;
+            buffer.putInt(position + 4, sourceIp);
+            buffer.putLong(position + 8, receiveNanos);
+            buffer.put(position + RECORD_HEADER_BYTES, data, offset, length);
+            // 长度最后写，读取端以长度为0判定结束
+            buffer.putInt(position, length);
+        } finally {
+            segment.writers.decrementAndGet();
+        }
+
+        records.increment();
+        bytes.add(recordBytes);
+    }
+
+    /**
+     * 切换分段，只有一个线程执行切换，其余线程拿到新分段后重试
+     */
+    private synchronized Segment rotate(Segment full) {
+        if (current != full) {
+            return current;
+        }
+        Segment next;
+        try {
+            next = standby != null ? standby.get() : createSegment();
+        } catch (Exception e) {
+            log.error("切换抓包分段失败，停止抓包", e);
+            current = null;
+            return null;
+        }
+        current = next;
+        rotations.increment();
+        full.seal();
+        rotateExecutor.submit(() -> retire(full));
+        standby = rotateExecutor.submit(this::createSegment);
+        rotateExecutor.submit(this::purgeOldSegments);
+        log.debug("抓包分段已切换: {}", next.file.getName());
+        return next;
+    }
+
+    private Segment createSegment() throws IOException {
+        int seq = sequence.getAndIncrement();
+        File file = new File(captureDir, String.format("%s%s-%04d%s",
+                FILE_PREFIX, LocalDateTime.now().format(FILE_TIME), seq, FILE_SUFFIX));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(segmentBytes);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, VERSION);
+            buffer.putShort(6, (short) 0);
+            buffer.putLong(8, NanoClock.epochNanos());
+            // 通道关闭后映射仍然有效
+            return new Segment(file, buffer, segmentBytes);
+        }
+    }
+
+    /**
+     * 等待已预留的写入完成后刷盘并解除映射，分段须已封存
+     */
+    private void retire(Segment segment) {
+        while (segment.writers.get() > 0) {
+            Thread.onSpinWait();
+        }
+        segment.buffer.force();
+        unmap(segment.buffer);
+        log.debug("抓包分段已封存: {}", segment.file.getName());
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(buffer);
+        } catch (Throwable e) {
+            log.debug("解除抓包分段映射失败，等待GC回收", e);
+        }
+    }
+
+    private static MethodHandle invokeCleaner() {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup()
+                    .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, ByteBuffer.class))
+                    .bindTo(field.get(null));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.debug("当前运行时不支持解除内存映射，旧分段由GC回收");
+            return null;
+        }
+    }
+
+    private void purgeOldSegments() {
+        File[] files = listSegments(captureDir);
+        Segment active = current;
+        for (int i = 0; i < files.length - maxSegments; i++) {
+            if (active != null && files[i].equals(active.file)) continue;
+            if (files[i].delete()) {
+                log.debug("删除过期抓包分段: {}", files[i].getName());
+            }
+        }
+    }
+
+    /**
+     * 按文件名（即创建顺序）排序的分段文件
+     */
+    public static File[] listSegments(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    /**
+     * 已完成、不再写入的分段，按创建顺序；正在写入的分段和预建的下一分段不包括在内
+     */
+    public File[] listSealedSegments() {
+        if (captureDir == null) {
+            return new File[0];
+        }
+        File[] files = listSegments(captureDir);
+        Segment active = current;
+        if (active == null) {
+            return files;
+        }
+        int sealed = 0;
+        while (sealed < files.length && files[sealed].getName().compareTo(active.file.getName()) < 0) {
+            sealed++;
+        }
+        return Arrays.copyOf(files, sealed);
+    }
+
+    /**
+     * 是否为抓包目录下正在写入或即将写入的分段
+     */
+    public boolean isLiveSegment(File file) throws IOException {
+        Segment active = current;
+        if (active == null || captureDir == null || file.getParentFile() == null) {
+            return false;
+        }
+        return file.getParentFile().getCanonicalFile().equals(captureDir.getCanonicalFile())
+                && file.getName().compareTo(active.file.getName()) >= 0;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        Segment segment = current;
+        current = null;
+        if (rotateExecutor != null) {
+            // 已提交的封存和清理任务继续执行完
+            rotateExecutor.shutdown();
+            try {
+                if (!rotateExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    log.warn("抓包后台任务未在5秒内结束");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (segment != null) {
+            segment.seal();
+            retire(segment);
+        }
+        if (standby != null && standby.isDone()) {
+            try {
+                unmap(standby.get().buffer);
+            } catch (Exception e) {
+                log.debug("预建抓包分段不可用", e);
+            }
+        }
+        log.info("原始帧抓包已停止，共记录 {} 帧", records.sum());
+    }
+
+    public boolean isEnabled() {
+        return current != null;
+    }
+
+    public File getCaptureDir() {
+        return captureDir;
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Segment segment = current;
+        result.put("enabled", segment != null);
+        result.put("records", records.sum());
+        result.put("bytes", bytes.sum());
+        result.put("dropped", dropped.sum());
+        result.put("rotations", rotations.sum());
+        if (segment != null) {
+            result.put("currentSegment", segment.file.getName());
+            result.put("currentSegmentUsed", Math.min(segment.position.get(), segment.capacity));
+        }
+        return result;
+    }
+
+    private static final class Segment {
+        final File file;
+        final MappedByteBuffer buffer;
+        final int capacity;
+        final AtomicInteger position = new AtomicInteger(FILE_HEADER_BYTES);
+        final AtomicInteger writers = new AtomicInteger();
+
+        Segment(File file, MappedByteBuffer buffer, int capacity) {
+            this.file = file;
+            this.buffer = buffer;
+            this.capacity = capacity;
+        }
+
+        /**
+         * 预留写入区间，分段剩余空间不足时返回-1
+         * 末尾至少保留4字节0作为结束标记
+         */
+        int reserve(int recordBytes) {
+            while (true) {
+                int pos = position.get();
+                if ((long) pos + recordBytes > capacity - 4) {
+                    return -1;
+                }
+                if (position.compareAndSet(pos, pos + recordBytes)) {
+                    return pos;
+                }
+            }
+        }
+
+        /**
+         * 封存后不再预留
+         */
+        void seal() {
+            position.set(capacity);
+        }
+    }
+}
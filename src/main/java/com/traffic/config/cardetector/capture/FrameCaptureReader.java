@@ -0,0 +1,111 @@
+package com.traffic.config.cardetector.capture;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 抓包文件顺序读取器
+ *
+ * 输入可以是单个分段文件、抓包目录（按创建顺序依次读取全部分段）或指定的分段列表。
+ * 每次 {@link #next()} 后通过 getter 读取当前记录，数据切片指向内部缓冲，下一次 next() 前有效。
+ */
+public class FrameCaptureReader implements Closeable {
+
+    private final File[] files;
+    private int fileIndex = -1;
+    private MappedByteBuffer buffer;
+    private int position;
+
+    private final byte[] payload = new byte[0xFFFF + 2];
+    private int payloadLength;
+    private int sourceIp;
+    private long receiveNanos;
+
+    public FrameCaptureReader(File source) throws IOException {
+        this(segmentsOf(source));
+    }
+
+    /**
+     * @param files 按顺序读取的分段文件
+     */
+    public FrameCaptureReader(File[] files) {
+        this.files = files.clone();
+    }
+
+    /**
+     * 单个分段文件或抓包目录下的全部分段
+     */
+    public static File[] segmentsOf(File source) throws IOException {
+        if (source.isDirectory()) {
+            return FrameCaptureLog.listSegments(source);
+        } else if (source.isFile()) {
+            return new File[]{source};
+        }
+        throw new IOException("抓包文件不存在: " + source.getAbsolutePath());
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return false 表示全部分段已读完
+     */
+    public boolean next() throws IOException {
+        while (true) {
+            if (buffer != null && position + FrameCaptureLog.RECORD_HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length > 0 && length <= payload.length
+                        && position + FrameCaptureLog.RECORD_HEADER_BYTES + length <= buffer.capacity()) {
+                    sourceIp = buffer.getInt(position + 4);
+                    receiveNanos = buffer.getLong(position + 8);
+                    buffer.get(position + FrameCaptureLog.RECORD_HEADER_BYTES, payload, 0, length);
+                    payloadLength = length;
+                    position += FrameCaptureLog.RECORD_HEADER_BYTES + length;
+                    return true;
+                }
+            }
+            // 当前分段结束，切换到下一个
+            if (!openNextFile()) {
+                return false;
+            }
+        }
+    }
+
+    private boolean openNextFile() throws IOException {
+        buffer = null;
+        while (++fileIndex < files.length) {
+            File file = files[fileIndex];
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                 FileChannel channel = raf.getChannel()) {
+                if (channel.size() < FrameCaptureLog.FILE_HEADER_BYTES) {
+                    continue;
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mapped.order(ByteOrder.BIG_ENDIAN);
+                if (mapped.getInt(0) != FrameCaptureLog.MAGIC) {
+                    throw new IOException("不是抓包文件: " + file.getName());
+                }
+                buffer = mapped;
+                position = FrameCaptureLog.FILE_HEADER_BYTES;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public byte[] getPayload() { return payload; }
+    public int getPayloadLength() { return payloadLength; }
+    public int getSourceIp() { return sourceIp; }
+    public long getReceiveNanos() { return receiveNanos; }
+    public int getFileCount() { return files.length; }
+
+    @Override
+    public void close() {
+        buffer = null;
+        fileIndex = files.length;
+    }
+}
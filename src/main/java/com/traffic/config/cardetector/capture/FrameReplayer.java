@@ -0,0 +1,312 @@
+package com.traffic.config.cardetector.capture;
+
+import com.traffic.config.cardetector.codec.FrameEncoder;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.manager.DataAccessManager;
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.core.TopLevelStateMachine;
+import com.traffic.config.statemachinev3.threading.SegmentStateMachineV3Service;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 抓包回放
+ *
+ * 按原始到达间隔（可按倍速压缩）或以最快速度，把抓包记录重新送入
+ * DataAccessManager.processMessage，或通过TCP发送到接入端口。
+ * 回放结束后等待接入队列和路段信箱处理完回放的帧，再报告吞吐量以及回放期间各路段的状态转换。
+ */
+@Component
+public class FrameReplayer {
+    private static final Logger log = LoggerFactory.getLogger(FrameReplayer.class);
+
+    /**
+     * 回放目标
+     */
+    public enum Target {
+        DISPATCH,   // 直接调用 DataAccessManager.processMessage
+        TCP         // 按源IP各建一条TCP连接发往接入端口
+    }
+
+    @Autowired
+    private DataAccessManager dataAccessManager;
+
+    @Autowired(required = false)
+    private TopLevelStateMachine topLevelStateMachine;
+
+    @Autowired(required = false)
+    private IngestDispatcher ingestDispatcher;
+
+    @Autowired(required = false)
+    private SegmentStateMachineV3Service segmentStateMachineService;
+
+    /** 回放结束后等待处理完毕的最长时间 */
+    private static final long DRAIN_TIMEOUT_MS = 10_000;
+    /** TCP回放时，接入端连续空闲该时长视为已读完连接中的数据 */
+    private static final long TCP_SETTLE_MS = 200;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean cancelled = false;
+    private volatile long progress = 0;
+
+    public FrameReplayer() {
+    }
+
+    public FrameReplayer(DataAccessManager dataAccessManager, TopLevelStateMachine topLevelStateMachine) {
+        this.dataAccessManager = dataAccessManager;
+        this.topLevelStateMachine = topLevelStateMachine;
+    }
+
+    /**
+     * 执行一次回放，阻塞到回放结束
+     *
+     * @param source 抓包分段文件或抓包目录
+     * @param speed  回放倍速，1为原速，小于等于0为最快速度
+     * @param target 回放目标
+     * @param host   TCP目标主机，仅 TCP 模式使用
+     * @param port   TCP目标端口，仅 TCP 模式使用
+     */
+    public Map<String, Object> replay(File source, double speed, Target target, String host, int port) throws IOException {
+        return replay(FrameCaptureReader.segmentsOf(source), source.getPath(), speed, target, host, port);
+    }
+
+    /**
+     * 按顺序回放指定的分段文件，阻塞到回放结束
+     *
+     * @param segments   抓包分段文件
+     * @param sourceName 报告中的来源名称
+     */
+    public Map<String, Object> replay(File[] segments, String sourceName, double speed, Target target,
+                                      String host, int port) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("已有回放正在进行");
+        }
+        cancelled = false;
+        progress = 0;
+        Map<Integer, Socket> sockets = new HashMap<>();
+        LocalDateTime startTime = LocalDateTime.now();
+
+        long frames = 0, bytes = 0, heartbeats = 0, errors = 0, maxLagNanos = 0, elapsedNanos;
+        long wallStart = System.nanoTime();
+        long firstCaptureNanos = 0;
+
+        boolean drained;
+        try (FrameCaptureReader reader = new FrameCaptureReader(segments)) {
+            log.info("开始回放 {}，分段数: {}, 倍速: {}, 目标: {}", sourceName, reader.getFileCount(),
+                    speed > 0 ? speed : "最快", target);
+
+            while (!cancelled && reader.next()) {
+                long captureNanos = reader.getReceiveNanos();
+                if (frames == 0) {
+                    firstCaptureNanos = captureNanos;
+                }
+
+                // 保持原始到达间隔
+                if (speed > 0) {
+                    long due = wallStart + (long) ((captureNanos - firstCaptureNanos) / speed);
+                    long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    } else if (-wait > maxLagNanos) {
+                        maxLagNanos = -wait;
+                    }
+                }
+
+                byte[] payload = reader.getPayload();
+                int length = reader.getPayloadLength();
+                try {
+                    if (target == Target.TCP) {
+                        sendTcp(sockets, host, port, reader.getSourceIp(), payload, length);
+                    } else {
+                        dispatch(payload, length, reader.getSourceIp());
+                    }
+                } catch (IOException e) {
+                    errors++;
+                    log.warn("回放第 {} 帧失败: {}", frames + 1, e.getMessage());
+                } catch (Exception e) {
+                    errors++;
+                    log.debug("回放第 {} 帧处理异常", frames + 1, e);
+                }
+
+                frames++;
+                bytes += length;
+                if (payload[0] == 0) heartbeats++;
+                progress = frames;
+            }
+            // 吞吐量按发送完成计时
+            elapsedNanos = System.nanoTime() - wallStart;
+            for (Socket socket : sockets.values()) {
+                closeQuietly(socket);
+            }
+            drained = awaitDrained(target);
+        } finally {
+            for (Socket socket : sockets.values()) {
+                closeQuietly(socket);
+            }
+            running.set(false);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("source", sourceName);
+        report.put("target", target.name());
+        report.put("speed", speed > 0 ? speed : "max");
+        report.put("cancelled", cancelled);
+        report.put("frames", frames);
+        report.put("heartbeats", heartbeats);
+        report.put("vehicleFrames", frames - heartbeats);
+        report.put("bytes", bytes);
+        report.put("errors", errors);
+        report.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        report.put("framesPerSecond", elapsedNanos > 0 ? frames * 1_000_000_000.0 / elapsedNanos : 0);
+        if (speed > 0) {
+            report.put("maxLagMs", TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+        }
+        report.put("connections", sockets.size());
+        report.put("drained", drained);
+        report.put("transitions", collectTransitions(startTime));
+
+        log.info("回放结束: {} 帧, 用时 {}ms, {} 帧/秒", frames, report.get("elapsedMs"),
+                String.format("%.0f", report.get("framesPerSecond")));
+        return report;
+    }
+
+    /**
+     * 送入数据访问管理器，接收时间取回放时刻，与原始间隔按倍速对应
+     */
+    private void dispatch(byte[] payload, int length, int sourceIp) {
+        ProtocolMessage message = new ProtocolMessage();
+        message.wrap(payload, 0, length, FrameEncoder.checksum(payload, 0, length), NanoClock.epochNanos(), sourceIp);
+        dataAccessManager.processMessage(message);
+    }
+
+    private void sendTcp(Map<Integer, Socket> sockets, String host, int port, int sourceIp,
+                         byte[] payload, int length) throws IOException {
+        Socket socket = sockets.get(sourceIp);
+        if (socket == null || socket.isClosed()) {
+            socket = new Socket(host, port);
+            socket.setTcpNoDelay(true);
+            startDrain(socket, sourceIp);
+            sockets.put(sourceIp, socket);
+        }
+        OutputStream out = socket.getOutputStream();
+        out.write(FrameEncoder.encode(payload, 0, length));
+    }
+
+    /**
+     * 丢弃服务端的心跳应答，避免接收缓冲写满阻塞服务端
+     */
+    private void startDrain(Socket socket, int sourceIp) {
+        Thread drain = new Thread(() -> {
+            byte[] discard = new byte[1024];
+            try {
+                InputStream in = socket.getInputStream();
+                while (in.read(discard) != -1) {
+                    // 丢弃
+                }
+            } catch (IOException ignored) {
+                // 连接关闭
+            }
+        }, "Replay-Drain-" + DataUtil.formatIpv4(sourceIp));
+        drain.setDaemon(true);
+        drain.start();
+    }
+
+    /**
+     * 等待回放的帧处理完毕：接入队列（TCP）清空、各路段信箱空闲，再读取状态转换
+     * TCP回放时连接中可能还有未读完的数据，要求接入端连续空闲一段时间
+     *
+     * @return 超时前处理完毕返回true
+     */
+    private boolean awaitDrained(Target target) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DRAIN_TIMEOUT_MS);
+        try {
+            if (target == Target.TCP && ingestDispatcher != null) {
+                long idleSince = 0;
+                while (true) {
+                    long now = System.nanoTime();
+                    if (!ingestDispatcher.isIdle()) {
+                        idleSince = 0;
+                    } else if (idleSince == 0) {
+                        idleSince = now;
+                    } else if (now - idleSince >= TimeUnit.MILLISECONDS.toNanos(TCP_SETTLE_MS)) {
+                        break;
+                    }
+                    if (now - deadline >= 0) {
+                        log.warn("回放结束后接入队列未在 {}ms 内处理完毕，状态转换统计可能不完整", DRAIN_TIMEOUT_MS);
+                        return false;
+                    }
+                    TimeUnit.MILLISECONDS.sleep(10);
+                }
+            }
+            if (segmentStateMachineService != null) {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (!segmentStateMachineService.awaitIdle(remaining, TimeUnit.NANOSECONDS)) {
+                    log.warn("回放结束后路段信箱未在 {}ms 内处理完毕，状态转换统计可能不完整", DRAIN_TIMEOUT_MS);
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private Map<String, Object> collectTransitions(LocalDateTime since) {
+        Map<String, Object> result = new TreeMap<>();
+        if (topLevelStateMachine == null) {
+            return result;
+        }
+        for (SegmentStateMachine segment : topLevelStateMachine.getSegmentStateMachines()) {
+            Map<String, Integer> counts = new TreeMap<>();
+            for (SegmentStateMachine.StateTransitionRecord record : segment.getTransitionHistory()) {
+                if (record.getTransitionTime().isBefore(since)) continue;
+                String key = record.getFromState() + "->" + record.getToState();
+                counts.merge(key, 1, Integer::sum);
+            }
+            if (!counts.isEmpty()) {
+                result.put("segment" + segment.getSegmentId(), counts);
+            }
+        }
+        return result;
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // 忽略
+        }
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public long getProgress() {
+        return progress;
+    }
+}
@@ -0,0 +1,199 @@
+package com.traffic.config.cardetector.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 检测器协议增量拆帧器
+ *
+ * 帧格式：0x7E | 长度(2字节) | 数据 | 异或校验 | 0x7D，0x7E/0x7D/0x5C 以 0x5C 转义。
+ * 长度为转义前“数据+校验”的字节数，长度字段本身也参与转义。
+ *
+ * - 直接在输入缓冲区内反转义（写指针始终不超过读指针），帧完整落在本次缓冲区内时不做任何拷贝
+ * - 跨缓冲区的半帧搬入内部暂存区，下次读入后继续
+ * - 反转义的同时累积异或，帧结束时一次性完成长度与校验验证
+ * - 帧内出现未转义的 0x7E 视为新帧开始，立即重新同步
+ *
+ * 每个连接独占一个实例，非线程安全；统计计数写入共享的 {@link FrameDecoderStats}。
+ */
+public class FrameDecoder {
+
+    public static final int START_BYTE = 0x7E;
+    public static final int END_BYTE = 0x7D;
+    public static final int ESCAPE_BYTE = 0x5C;
+
+    /** 长度字段(2) + 最大报文长度(0xFFFF) */
+    public static final int MAX_FRAME_SIZE = 0xFFFF + 2;
+
+    /**
+     * 帧回调，数据切片不含长度字段和校验字节，仅在回调期间有效
+     */
+    @FunctionalInterface
+    public interface FrameHandler {
+        void onFrame(byte[] buffer, int offset, int length) throws IOException;
+    }
+
+    private static final int HUNTING = 0;   // 查找开始字节
+    private static final int IN_FRAME = 1;  // 帧内
+    private static final int ESCAPED = 2;   // 帧内，上一字节为转义符
+
+    private final FrameDecoderStats stats;
+    private byte[] carry = new byte[256];   // 按需扩容，常见帧远小于上限
+
+    private int state = HUNTING;
+    private boolean skipping = false;   // 当前处于无效字节段中
+
+    // 当前帧的反转义目标：输入缓冲区本身或 carry
+    private byte[] target;
+    private int frameStart;
+    private int writePos;
+    private int xor;
+
+    public FrameDecoder(FrameDecoderStats stats) {
+        this.stats = stats != null ? stats : new FrameDecoderStats();
+    }
+
+    /**
+     * 解码缓冲区中全部可读字节，每得到一个合法帧回调一次
+     * 注意：解码过程会改写缓冲区内容（原地反转义），缓冲区必须基于数组
+     *
+     * @return 本次解出的合法帧数
+     */
+    public int decode(ByteBuffer in, FrameHandler handler) throws IOException {
+        byte[] array = in.array();
+        int base = in.arrayOffset();
+        int pos = base + in.position();
+        int limit = base + in.limit();
+        int frames = 0;
+
+        stats.addBytes(limit - pos);
+
+        while (pos < limit) {
+            int b = array[pos++] & 0xFF;
+
+            if (state == HUNTING) {
+                if (b == START_BYTE) {
+                    if (skipping) {
+                        skipping = false;
+                        stats.incrementResyncs();
+                    }
+                    beginFrame(array, pos);
+                } else {
+                    skipping = true;
+                    stats.incrementInvalidStartBytes();
+                }
+                continue;
+            }
+
+            if (state == ESCAPED) {
+                state = IN_FRAME;
+                append(b);
+            } else if (b == ESCAPE_BYTE) {
+                state = ESCAPED;
+            } else if (b == END_BYTE) {
+                state = HUNTING;
+                if (completeFrame(handler)) {
+                    frames++;
+                }
+            } else if (b == START_BYTE) {
+                // 帧未结束又出现开始字节：丢弃半帧，从此处重新开始
+                stats.incrementResyncs();
+                beginFrame(array, pos);
+            } else {
+                append(b);
+            }
+        }
+
+        // 半帧搬入暂存区，释放输入缓冲区
+        if (state != HUNTING && target == array) {
+            int length = writePos - frameStart;
+            ensureCarryCapacity(length, 0);
+            System.arraycopy(array, frameStart, carry, 0, length);
+            target = carry;
+            frameStart = 0;
+            writePos = length;
+        }
+
+        in.position(limit - base);
+        return frames;
+    }
+
+    private void beginFrame(byte[] array, int pos) {
+        state = IN_FRAME;
+        target = array;
+        frameStart = pos;
+        writePos = pos;
+        xor = 0;
+    }
+
+    private void append(int b) {
+        int length = writePos - frameStart;
+        if (length >= MAX_FRAME_SIZE) {
+            stats.incrementOversizedFrames();
+            state = HUNTING;
+            skipping = true;
+            return;
+        }
+        if (target == carry && length == carry.length) {
+            ensureCarryCapacity(length + 1, length);
+            target = carry;
+        }
+        // 长度字段不参与校验
+        if (length >= 2) {
+            xor ^= b;
+        }
+        target[writePos++] = (byte) b;
+    }
+
+    private void ensureCarryCapacity(int required, int preserved) {
+        if (carry.length < required) {
+            byte[] grown = new byte[Math.min(MAX_FRAME_SIZE, Math.max(required, carry.length * 2))];
+            System.arraycopy(carry, 0, grown, 0, preserved);
+            carry = grown;
+        }
+    }
+
+    private boolean completeFrame(FrameHandler handler) throws IOException {
+        int bodyLength = writePos - frameStart;
+        if (bodyLength < 3) { // 至少包含2字节长度 + 1字节校验
+            stats.incrementLengthMismatches();
+            return false;
+        }
+
+        int dataLength = ((target[frameStart] & 0xFF) << 8) | (target[frameStart + 1] & 0xFF);
+        if (bodyLength != dataLength + 2) {
+            stats.incrementLengthMismatches();
+            return false;
+        }
+
+        // 数据与校验字节整体异或为0即校验通过
+        if (xor != 0) {
+            stats.incrementChecksumFailures();
+            return false;
+        }
+
+        stats.incrementFrames();
+        handler.onFrame(target, frameStart + 2, dataLength - 1);
+        return true;
+    }
+
+    /**
+     * 丢弃未完成的半帧，回到查找开始字节状态
+     */
+    public void reset() {
+        state = HUNTING;
+        skipping = false;
+        target = null;
+    }
+
+    /**
+     * 是否有未完成的半帧
+     */
+    public boolean isInFrame() {
+        return state != HUNTING;
+    }
+
+    public FrameDecoderStats getStats() {
+        return stats;
+    }
+}
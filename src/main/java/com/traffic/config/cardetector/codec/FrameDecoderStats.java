@@ -0,0 +1,89 @@
+package com.traffic.config.cardetector.codec;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 拆帧统计
+ *
+ * Spring 管理的实例为全局汇总；按检测器划分的子统计以全局实例为父，计数同时累加到父统计。
+ */
+@Component
+public class FrameDecoderStats {
+
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder invalidStartBytes = new LongAdder();
+    private final LongAdder checksumFailures = new LongAdder();
+    private final LongAdder lengthMismatches = new LongAdder();
+    private final LongAdder oversizedFrames = new LongAdder();
+
+    private final FrameDecoderStats parent;
+
+    public FrameDecoderStats() {
+        this(null);
+    }
+
+    public FrameDecoderStats(FrameDecoderStats parent) {
+        this.parent = parent;
+    }
+
+    void incrementFrames() {
+        frames.increment();
+        if (parent != null) parent.incrementFrames();
+    }
+
+    void addBytes(long count) {
+        bytes.add(count);
+        if (parent != null) parent.addBytes(count);
+    }
+
+    void incrementResyncs() {
+        resyncs.increment();
+        if (parent != null) parent.incrementResyncs();
+    }
+
+    void incrementInvalidStartBytes() {
+        invalidStartBytes.increment();
+        if (parent != null) parent.incrementInvalidStartBytes();
+    }
+
+    void incrementChecksumFailures() {
+        checksumFailures.increment();
+        if (parent != null) parent.incrementChecksumFailures();
+    }
+
+    void incrementLengthMismatches() {
+        lengthMismatches.increment();
+        if (parent != null) parent.incrementLengthMismatches();
+    }
+
+    void incrementOversizedFrames() {
+        oversizedFrames.increment();
+        if (parent != null) parent.incrementOversizedFrames();
+    }
+
+    public long getFrames() { return frames.sum(); }
+    public long getBytes() { return bytes.sum(); }
+    public long getResyncs() { return resyncs.sum(); }
+    public long getInvalidStartBytes() { return invalidStartBytes.sum(); }
+    public long getChecksumFailures() { return checksumFailures.sum(); }
+    public long getLengthMismatches() { return lengthMismatches.sum(); }
+    public long getOversizedFrames() { return oversizedFrames.sum(); }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("frames", getFrames());
+        result.put("bytes", getBytes());
+        result.put("resyncs", getResyncs());
+        result.put("invalidStartBytes", getInvalidStartBytes());
+        result.put("checksumFailures", getChecksumFailures());
+        result.put("lengthMismatches", getLengthMismatches());
+        result.put("oversizedFrames", getOversizedFrames());
+        return result;
+    }
+}
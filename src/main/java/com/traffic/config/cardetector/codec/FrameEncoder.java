@@ -0,0 +1,78 @@
+package com.traffic.config.cardetector.codec;
+
+import static com.traffic.config.cardetector.codec.FrameDecoder.END_BYTE;
+import static com.traffic.config.cardetector.codec.FrameDecoder.ESCAPE_BYTE;
+import static com.traffic.config.cardetector.codec.FrameDecoder.START_BYTE;
+
+/**
+ * 检测器协议组帧，与 {@link FrameDecoder} 互逆
+ */
+public final class FrameEncoder {
+
+    private FrameEncoder() {
+    }
+
+    /**
+     * 组帧：计算校验、填写转义前长度，并对长度、数据和校验做转义
+     */
+    public static byte[] encode(byte[] data, int offset, int length) {
+        byte[] out = new byte[maxEncodedLength(length)];
+        int pos = encode(data, offset, length, out, 0);
+
+        byte[] frame = new byte[pos];
+        System.arraycopy(out, 0, frame, 0, pos);
+        return frame;
+    }
+
+    /**
+     * 组帧到调用方提供的缓冲区，供心跳应答等热点路径复用缓冲、避免分配
+     *
+     * @return 写入结束位置
+     */
+    public static int encode(byte[] data, int offset, int length, byte[] out, int outOffset) {
+        int bodyLength = length + 1;    // 数据 + 校验
+        byte checksum = checksum(data, offset, length);
+
+        int pos = outOffset;
+        out[pos++] = START_BYTE;
+        pos = put(out, pos, (byte) (bodyLength >> 8));
+        pos = put(out, pos, (byte) bodyLength);
+        for (int i = offset; i < offset + length; i++) {
+            pos = put(out, pos, data[i]);
+        }
+        pos = put(out, pos, checksum);
+        out[pos++] = END_BYTE;
+        return pos;
+    }
+
+    /**
+     * 校验字节：数据部分逐字节异或，长度字段不参与
+     */
+    public static byte checksum(byte[] data, int offset, int length) {
+        byte checksum = 0;
+        for (int i = offset; i < offset + length; i++) {
+            checksum ^= data[i];
+        }
+        return checksum;
+    }
+
+    /**
+     * 最坏情况（每字节都需转义）下的帧长度
+     */
+    public static int maxEncodedLength(int length) {
+        return 2 + (2 + length + 1) * 2;
+    }
+
+    public static byte[] encode(byte[] data) {
+        return encode(data, 0, data.length);
+    }
+
+    private static int put(byte[] out, int pos, byte b) {
+        int v = b & 0xFF;
+        if (v == START_BYTE || v == END_BYTE || v == ESCAPE_BYTE) {
+            out[pos++] = ESCAPE_BYTE;
+        }
+        out[pos++] = b;
+        return pos;
+    }
+}
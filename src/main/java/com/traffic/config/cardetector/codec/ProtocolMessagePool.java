@@ -0,0 +1,99 @@
+package com.traffic.config.cardetector.codec;
+
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 协议帧对象池
+ *
+ * 启动时预分配一整块缓冲区，按固定槽位切分给池中的 ProtocolMessage；拆帧器输出的数据
+ * 只拷贝一次到槽位中，之后解析器直接读取切片。池耗尽或帧超过槽位大小时退化为临时分配。
+ */
+@Component
+public class ProtocolMessagePool implements ProtocolMessage.Releaser {
+
+    @Value("${traffic.tcp.frame-pool.size:1024}")
+    private int poolSize = 1024;
+
+    @Value("${traffic.tcp.frame-pool.slot-bytes:256}")
+    private int slotBytes = 256;
+
+    private ArrayBlockingQueue<ProtocolMessage> free;
+    private byte[] slab;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder overflow = new LongAdder();
+
+    public ProtocolMessagePool() {
+    }
+
+    public ProtocolMessagePool(int poolSize, int slotBytes) {
+        this.poolSize = poolSize;
+        this.slotBytes = slotBytes;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        slab = new byte[poolSize * slotBytes];
+        free = new ArrayBlockingQueue<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            free.offer(new Slot(this, i * slotBytes));
+        }
+    }
+
+    /**
+     * 取出一帧并拷入数据切片
+     */
+    public ProtocolMessage acquire(byte[] source, int offset, int length, byte checksum, long receiveNanos, int clientIp) {
+        acquired.increment();
+        ProtocolMessage message = length <= slotBytes ? free.poll() : null;
+        if (message == null) {
+            overflow.increment();
+            byte[] data = new byte[length];
+            System.arraycopy(source, offset, data, 0, length);
+            message = new ProtocolMessage();
+            message.wrap(data, 0, length, checksum, receiveNanos, clientIp);
+            return message;
+        }
+
+        Slot slot = (Slot) message;
+        slot.leased.set(true);
+        System.arraycopy(source, offset, slab, slot.slotOffset, length);
+        slot.wrap(slab, slot.slotOffset, length, checksum, receiveNanos, clientIp);
+        return slot;
+    }
+
+    @Override
+    public void release(ProtocolMessage message) {
+        Slot slot = (Slot) message;
+        // 防止重复归还：并发归还同一帧时只有一个线程能把状态从借出改为空闲
+        if (slot.leased.compareAndSet(true, false)) {
+            free.offer(slot);
+        }
+    }
+
+    public int getPoolSize() { return poolSize; }
+    public int getAvailable() { return free.size(); }
+    public long getAcquired() { return acquired.sum(); }
+    public long getOverflow() { return overflow.sum(); }
+
+    /**
+     * 池内帧，固定占用 slab 中的一个槽位
+     */
+    private static final class Slot extends ProtocolMessage {
+        private final int slotOffset;
+        private final AtomicBoolean leased = new AtomicBoolean();
+
+        Slot(ProtocolMessagePool pool, int slotOffset) {
+            super(pool);
+            this.slotOffset = slotOffset;
+        }
+    }
+}
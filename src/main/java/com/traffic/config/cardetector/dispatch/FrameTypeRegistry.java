@@ -0,0 +1,114 @@
+package com.traffic.config.cardetector.dispatch;
+
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import com.traffic.config.cardetector.parser.DataParser;
+import com.traffic.config.cardetector.processor.DataProcessor;
+import com.traffic.config.exception.DataParseException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 帧类型分发表
+ *
+ * 以数据部分首字节（类型码）为下标的256项数组，直接定位该类型的处理器。
+ * 新的检测器记录类型只需注册解析器和处理器，不必修改热路径上的分支。
+ */
+public class FrameTypeRegistry {
+
+    /**
+     * 某一类型帧的处理器
+     */
+    public interface Handler {
+        void handle(ProtocolMessage message) throws DataParseException;
+
+        /**
+         * 处理 messages[from, to) 中连续的同类型帧，默认逐帧处理；
+         * 可批量解码的类型覆盖此方法，一次解析整批后再交给下游
+         */
+        default void handleBatch(ProtocolMessage[] messages, int from, int to) throws DataParseException {
+            for (int i = from; i < to; i++) {
+                handle(messages[i]);
+            }
+        }
+    }
+
+    private final AtomicReferenceArray<Handler> handlers = new AtomicReferenceArray<>(256);
+    private final LongAdder unknownFrames = new LongAdder();
+
+    /**
+     * 注册类型处理器，替换已有的同类型处理器
+     */
+    public void register(int type, Handler handler) {
+        handlers.set(checkType(type), handler);
+    }
+
+    /**
+     * 以通用解析器和处理器注册类型
+     */
+    public <T> void register(int type, DataParser<T> parser, DataProcessor<T> processor) {
+        register(type, message -> processor.process(parser.parse(message)));
+    }
+
+    public void unregister(int type) {
+        handlers.set(checkType(type), null);
+    }
+
+    public Handler getHandler(int type) {
+        return type >= 0 && type < 256 ? handlers.get(type) : null;
+    }
+
+    /**
+     * @return false 表示类型未注册
+     */
+    public boolean dispatch(ProtocolMessage message) throws DataParseException {
+        Handler handler = getHandler(message.getDataType());
+        if (handler == null) {
+            unknownFrames.increment();
+            return false;
+        }
+        handler.handle(message);
+        return true;
+    }
+
+    /**
+     * 处理 messages[from, to) 中连续的同类型帧
+     * @return false 表示类型未注册
+     */
+    public boolean dispatchBatch(int type, ProtocolMessage[] messages, int from, int to) throws DataParseException {
+        Handler handler = getHandler(type);
+        if (handler == null) {
+            unknownFrames.add(to - from);
+            return false;
+        }
+        handler.handleBatch(messages, from, to);
+        return true;
+    }
+
+    private static int checkType(int type) {
+        if (type < 0 || type > 255) {
+            throw new IllegalArgumentException("帧类型码超出范围: " + type);
+        }
+        return type;
+    }
+
+    public long getUnknownFrames() {
+        return unknownFrames.sum();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        StringBuilder types = new StringBuilder();
+        for (int i = 0; i < 256; i++) {
+            if (handlers.get(i) != null) {
+                if (types.length() > 0) types.append(',');
+                types.append(String.format("0x%02X", i));
+            }
+        }
+        result.put("registeredTypes", types.toString());
+        result.put("unknownFrames", getUnknownFrames());
+        return result;
+    }
+}
@@ -0,0 +1,189 @@
+package com.traffic.config.cardetector.dispatch;
+
+import com.traffic.config.cardetector.manager.DataAccessManager;
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接入分发器
+ *
+ * 读线程只负责拆帧、回复心跳并写入环形缓冲区；独立的分发线程批量取出后整批交给
+ * DataAccessManager.processBatch，处理完成后归还帧。
+ * 慢路段或阻塞的日志输出不再拖慢TCP读取，过载时可从队列深度和丢弃计数直接看到。
+ */
+@Component
+public class IngestDispatcher implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(IngestDispatcher.class);
+
+    @Value("${traffic.ingest.queue-capacity:4096}")
+    private int queueCapacity = 4096;
+
+    @Value("${traffic.ingest.overflow-policy:BLOCK}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    @Value("${traffic.heartbeat.fast-path:true}")
+    private boolean heartbeatFastPath = true;
+
+    @Value("${traffic.ingest.batch-size:64}")
+    private int batchSize = 64;
+
+    @Autowired
+    private DataAccessManager dataAccessManager;
+
+    private IngestRingBuffer ringBuffer;
+    private Thread thread;
+    private volatile boolean running = false;
+    private volatile long completed = 0;    // 分发线程处理完的帧数，只由分发线程写入
+    private long lastReportedDrops = 0;
+
+    public IngestDispatcher() {
+    }
+
+    public IngestDispatcher(DataAccessManager dataAccessManager, int queueCapacity, OverflowPolicy overflowPolicy) {
+        this.dataAccessManager = dataAccessManager;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @PostConstruct
+    public void start() {
+        overflowPolicy = effectivePolicy(overflowPolicy, heartbeatFastPath);
+        ringBuffer = new IngestRingBuffer(queueCapacity, overflowPolicy);
+        running = true;
+        thread = new Thread(this, "IngestDispatch");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("接入分发器已启动，队列容量: {}, 溢出策略: {}", queueCapacity, overflowPolicy);
+    }
+
+    /**
+     * 心跳快速路径开启时心跳在读线程直接应答，从不进入队列，DROP_OLDEST_HEARTBEAT 无心跳可丢，
+     * 实际等同于 DROP_NEWEST，会丢弃新到的车辆帧；此时告警并改用 BLOCK
+     */
+    static OverflowPolicy effectivePolicy(OverflowPolicy configured, boolean heartbeatFastPath) {
+        if (configured == OverflowPolicy.DROP_OLDEST_HEARTBEAT && heartbeatFastPath) {
+            log.warn("心跳快速路径已开启，队列中没有心跳帧，溢出策略 {} 等同于丢弃新到的车辆帧，改用 {}",
+                    configured, OverflowPolicy.BLOCK);
+            return OverflowPolicy.BLOCK;
+        }
+        return configured;
+    }
+
+    /**
+     * 由每连接独占的读线程调用，帧的所有权随之移交分发线程；BLOCK 策略下队列满时阻塞
+     *
+     * @return false 表示帧被丢弃
+     */
+    public boolean dispatch(ProtocolMessage message) {
+        return offer(message, true);
+    }
+
+    /**
+     * 由事件循环线程（NIO选择器、UDP接收）调用，任何策略下都不阻塞
+     *
+     * @return false 表示帧被丢弃
+     */
+    public boolean tryDispatch(ProtocolMessage message) {
+        return offer(message, false);
+    }
+
+    private boolean offer(ProtocolMessage message, boolean mayBlock) {
+        try {
+            return ringBuffer.offer(message, mayBlock);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            message.release();
+            return false;
+        }
+    }
+
+    @Override
+    public void run() {
+        ProtocolMessage[] batch = new ProtocolMessage[Math.max(1, batchSize)];
+        while (running || ringBuffer.size() > 0) {
+            int n;
+            try {
+                n = ringBuffer.drainTo(batch, 100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+                continue;
+            }
+            try {
+                dataAccessManager.processBatch(batch, n);
+            } catch (Exception e) {
+                log.error("分发检测器数据时发生错误", e);
+            } finally {
+                for (int i = 0; i < n; i++) {
+                    batch[i].release();
+                    batch[i] = null;
+                }
+                completed += n;
+            }
+        }
+    }
+
+    /**
+     * 有丢帧时定期告警
+     */
+    @Scheduled(fixedRate = 10000)
+    public void reportDrops() {
+        if (ringBuffer == null) return;
+        long drops = ringBuffer.getDroppedNewest() + ringBuffer.getDroppedHeartbeats();
+        if (drops > lastReportedDrops) {
+            log.warn("接入队列过载，近期丢弃 {} 帧，当前深度: {}/{}",
+                    drops - lastReportedDrops, ringBuffer.size(), ringBuffer.getCapacity());
+            lastReportedDrops = drops;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("接入分发器已停止");
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("depth", ringBuffer.size());
+        result.put("capacity", ringBuffer.getCapacity());
+        result.put("highWaterMark", ringBuffer.getHighWaterMark());
+        result.put("policy", ringBuffer.getPolicy().name());
+        result.put("published", ringBuffer.getPublished());
+        result.put("droppedNewest", ringBuffer.getDroppedNewest());
+        result.put("droppedHeartbeats", ringBuffer.getDroppedHeartbeats());
+        result.put("blockedOffers", ringBuffer.getBlockedOffers());
+        return result;
+    }
+
+    /**
+     * 已入队的帧全部处理完毕（入队后被挤出的心跳帧不再等待）
+     */
+    public boolean isIdle() {
+        return ringBuffer == null
+                || completed + ringBuffer.getDroppedHeartbeats() >= ringBuffer.getPublished();
+    }
+
+    public IngestRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+}
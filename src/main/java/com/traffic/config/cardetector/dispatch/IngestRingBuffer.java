@@ -0,0 +1,183 @@
+package com.traffic.config.cardetector.dispatch;
+
+import com.traffic.config.cardetector.model.ProtocolMessage;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 接入到分发之间的有界环形缓冲区
+ *
+ * 多个读线程写入、单个分发线程批量取出；槽位数组启动时预分配，运行期不产生节点对象。
+ * 队列满时按 {@link OverflowPolicy} 处理，被丢弃的帧由本类负责归还对象池。
+ * 事件循环线程（NIO选择器、UDP接收）以不可阻塞方式写入，BLOCK 策略下队列满时改为丢弃新帧，
+ * 避免一个慢分发拖住同一线程上的全部连接和心跳应答。
+ */
+public class IngestRingBuffer {
+
+    private final ProtocolMessage[] slots;
+    private final OverflowPolicy policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private int head;       // 下一个取出位置
+    private int tail;       // 下一个写入位置
+    private int count;
+    private volatile int highWaterMark;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder droppedNewest = new LongAdder();
+    private final LongAdder droppedHeartbeats = new LongAdder();
+    private final LongAdder blockedOffers = new LongAdder();
+
+    public IngestRingBuffer(int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.slots = new ProtocolMessage[capacity];
+        this.policy = policy != null ? policy : OverflowPolicy.BLOCK;
+    }
+
+    /**
+     * 写入一帧，BLOCK 策略下队列满时阻塞等待
+     *
+     * @return false 表示该帧被丢弃（已归还对象池）
+     */
+    public boolean offer(ProtocolMessage message) throws InterruptedException {
+        return offer(message, true);
+    }
+
+    /**
+     * 写入一帧
+     *
+     * @param mayBlock 为false时任何策略下都不阻塞，BLOCK 策略按 DROP_NEWEST 处理
+     * @return false 表示该帧被丢弃（已归还对象池）
+     */
+    public boolean offer(ProtocolMessage message, boolean mayBlock) throws InterruptedException {
+        ProtocolMessage evicted = null;
+        lock.lockInterruptibly();
+        try {
+            if (count == slots.length) {
+                switch (policy) {
+                    case BLOCK -> {
+                        if (!mayBlock) {
+                            droppedNewest.increment();
+                            return dropped(message);
+                        }
+                        blockedOffers.increment();
+                        while (count == slots.length) {
+                            notFull.await();
+                        }
+                    }
+                    case DROP_OLDEST_HEARTBEAT -> {
+                        evicted = removeOldestHeartbeat();
+                        if (evicted == null) {
+                            droppedNewest.increment();
+                            return dropped(message);
+                        }
+                        droppedHeartbeats.increment();
+                    }
+                    default -> {
+                        droppedNewest.increment();
+                        return dropped(message);
+                    }
+                }
+            }
+
+            slots[tail] = message;
+            tail = next(tail);
+            count++;
+            if (count > highWaterMark) {
+                highWaterMark = count;
+            }
+            published.increment();
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+            if (evicted != null) {
+                evicted.release();
+            }
+        }
+    }
+
+    /**
+     * 批量取出，队列为空时最多等待timeout
+     *
+     * @return 取出的帧数，超时返回0
+     */
+    public int drainTo(ProtocolMessage[] batch, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (count == 0) {
+                if (nanos <= 0L) {
+                    return 0;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            int n = Math.min(batch.length, count);
+            for (int i = 0; i < n; i++) {
+                batch[i] = slots[head];
+                slots[head] = null;
+                head = next(head);
+            }
+            count -= n;
+            notFull.signalAll();
+            return n;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ProtocolMessage removeOldestHeartbeat() {
+        for (int i = 0, index = head; i < count; i++, index = next(index)) {
+            if (slots[index].getDataType() == 0) {
+                ProtocolMessage heartbeat = slots[index];
+                // 后续元素前移一位，保持FIFO
+                for (int j = index, k = next(index); k != tail; j = k, k = next(k)) {
+                    slots[j] = slots[k];
+                }
+                tail = prev(tail);
+                slots[tail] = null;
+                count--;
+                return heartbeat;
+            }
+        }
+        return null;
+    }
+
+    private boolean dropped(ProtocolMessage message) {
+        message.release();
+        return false;
+    }
+
+    private int next(int index) {
+        return index + 1 == slots.length ? 0 : index + 1;
+    }
+
+    private int prev(int index) {
+        return index == 0 ? slots.length - 1 : index - 1;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() { return slots.length; }
+    public OverflowPolicy getPolicy() { return policy; }
+    public int getHighWaterMark() { return highWaterMark; }
+    public long getPublished() { return published.sum(); }
+    public long getDroppedNewest() { return droppedNewest.sum(); }
+    public long getDroppedHeartbeats() { return droppedHeartbeats.sum(); }
+    public long getBlockedOffers() { return blockedOffers.sum(); }
+}
@@ -0,0 +1,24 @@
+package com.traffic.config.cardetector.dispatch;
+
+/**
+ * 接入队列满时的处理策略
+ */
+public enum OverflowPolicy {
+    /**
+     * 仅适用于每连接一个线程的阻塞接入；事件循环线程写入时不会阻塞，队列满时丢弃新帧
+     */
+    BLOCK("阻塞读线程，直到队列有空位"),
+    /**
+     * 只在心跳快速路径关闭（心跳进入队列）时有意义；快速路径开启时等同于 DROP_NEWEST，启动时改用 BLOCK
+     */
+    DROP_OLDEST_HEARTBEAT("丢弃队列中最早的心跳帧，无心跳可丢时丢弃新帧"),
+    DROP_NEWEST("丢弃新到达的帧");
+
+    private final String description;
+
+    OverflowPolicy(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() { return description; }
+}
@@ -0,0 +1,162 @@
+package com.traffic.config.cardetector.heartbeat;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 检测器存活表
+ *
+ * 以信号机IPv4地址（int）为键的开放寻址表，槽位数组启动时预分配；
+ * 心跳线程更新时间戳、巡检线程扫描超时，全程CAS无锁，运行期不产生对象。
+ * 关联路段以位图保存，路段ID不受上限限制；位图只在新增关联时整体替换（写时复制），
+ * 车辆数据到达时的重复关联只做一次读取和位判断。
+ * 条目只增不删，容量按现场检测器数量配置。
+ */
+public class DetectorLivenessTable {
+
+    static final int EMPTY = 0;     // 0.0.0.0 不是合法的信号机地址
+
+    private static final int ALIVE = 0;
+    private static final int FAULTED = 1;
+
+    private final AtomicIntegerArray keys;
+    private final AtomicLongArray lastHeartbeatNanos;
+    private final AtomicReferenceArray<long[]> segmentMasks;     // 第n位表示关联路段n，数组创建后不再修改
+    private final AtomicIntegerArray states;
+    private final int mask;
+
+    public DetectorLivenessTable(int capacity) {
+        // 负载因子不超过0.5，探测链保持很短
+        int size = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.keys = new AtomicIntegerArray(size);
+        this.lastHeartbeatNanos = new AtomicLongArray(size);
+        this.segmentMasks = new AtomicReferenceArray<>(size);
+        this.states = new AtomicIntegerArray(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * 记录一次心跳
+     *
+     * @return true 表示该检测器此前处于故障状态，本次心跳使其恢复
+     */
+    public boolean recordHeartbeat(int ip, long nowNanos) {
+        int index = indexOf(ip, nowNanos);
+        if (index < 0) {
+            return false;
+        }
+        lastHeartbeatNanos.set(index, nowNanos);
+        return states.compareAndSet(index, FAULTED, ALIVE);
+    }
+
+    /**
+     * 记录检测器与路段的关联，由配置预置或由车辆数据学习得到
+     */
+    public void associateSegment(int ip, int segmentId, long nowNanos) {
+        if (segmentId <= 0) {
+            return;
+        }
+        int index = indexOf(ip, nowNanos);
+        if (index < 0) {
+            return;
+        }
+        int word = segmentId >>> 6;
+        long bit = 1L << segmentId;
+        long[] current;
+        while (!contains(current = segmentMasks.get(index), word, bit)) {
+            long[] updated = current == null
+                    ? new long[word + 1]
+                    : Arrays.copyOf(current, Math.max(current.length, word + 1));
+            updated[word] |= bit;
+            if (segmentMasks.compareAndSet(index, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean contains(long[] words, int word, long bit) {
+        return words != null && word < words.length && (words[word] & bit) != 0;
+    }
+
+    /**
+     * 标记为故障，只有一个巡检线程能标记成功
+     */
+    public boolean markFaulted(int index) {
+        return states.compareAndSet(index, ALIVE, FAULTED);
+    }
+
+    /**
+     * 只查找不插入，不存在时返回-1
+     */
+    public int find(int ip) {
+        if (ip == EMPTY) {
+            return -1;
+        }
+        int index = mix(ip) & mask;
+        for (int probe = 0; probe <= mask; probe++, index = (index + 1) & mask) {
+            int key = keys.get(index);
+            if (key == ip) {
+                return index;
+            }
+            if (key == EMPTY) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 查找或插入，表满时返回-1
+     */
+    private int indexOf(int ip, long nowNanos) {
+        if (ip == EMPTY) {
+            return -1;
+        }
+        int index = mix(ip) & mask;
+        for (int probe = 0; probe <= mask; probe++, index = (index + 1) & mask) {
+            int key = keys.get(index);
+            if (key == ip) {
+                return index;
+            }
+            if (key == EMPTY) {
+                if (keys.compareAndSet(index, EMPTY, ip)) {
+                    // 新条目从首次出现开始计时
+                    lastHeartbeatNanos.compareAndSet(index, 0L, nowNanos);
+                    return index;
+                }
+                if (keys.get(index) == ip) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int mix(int ip) {
+        int h = ip * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public int capacity() { return mask + 1; }
+    public int keyAt(int index) { return keys.get(index); }
+    public long lastHeartbeatAt(int index) { return lastHeartbeatNanos.get(index); }
+    /**
+     * 关联路段的快照
+     */
+    public BitSet segmentsAt(int index) {
+        long[] words = segmentMasks.get(index);
+        return words == null ? new BitSet() : BitSet.valueOf(words);
+    }
+    public boolean isFaulted(int index) { return states.get(index) == FAULTED; }
+
+    public int size() {
+        int n = 0;
+        for (int i = 0; i <= mask; i++) {
+            if (keys.get(i) != EMPTY) n++;
+        }
+        return n;
+    }
+}
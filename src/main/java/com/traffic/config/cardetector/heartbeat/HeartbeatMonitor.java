@@ -0,0 +1,226 @@
+package com.traffic.config.cardetector.heartbeat;
+
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.core.TopLevelStateMachine;
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.threading.SegmentStateMachineV3Service;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 检测器心跳监视
+ *
+ * 心跳帧在读线程上直接应答并写入存活表，不再进入分发队列；
+ * 巡检任务发现检测器超过心跳时限后，对其关联路段更新传感器状态并发送 SENSOR_FAULT 事件，
+ * 心跳恢复后传感器状态置回正常。检测器与路段的关联由 traffic.heartbeat.detectors 预置，
+ * 并由该检测器上报的车辆数据补充；预置的检测器从启动开始计时，从未上报过数据也会被判定故障。
+ */
+@Component
+public class HeartbeatMonitor {
+    private static final Logger log = LoggerFactory.getLogger(HeartbeatMonitor.class);
+
+    @Value("${traffic.heartbeat.fast-path:true}")
+    private boolean fastPath = true;
+
+    @Value("${traffic.heartbeat.timeout-seconds:30}")
+    private long timeoutSeconds = 30;
+
+    @Value("${traffic.heartbeat.max-detectors:256}")
+    private int maxDetectors = 256;
+
+    // 检测器与路段的预置关联，每项为 IP=路段ID[/路段ID...]，例如 192.168.1.101=1/2
+    @Value("${traffic.heartbeat.detectors:}")
+    private String[] detectors = new String[0];
+
+    @Autowired(required = false)
+    private TopLevelStateMachine topLevelStateMachine;
+
+    @Autowired(required = false)
+    private SegmentStateMachineV3Service segmentStateMachineService;
+
+    private DetectorLivenessTable table;
+
+    public HeartbeatMonitor() {
+    }
+
+    public HeartbeatMonitor(int maxDetectors, long timeoutSeconds, boolean fastPath) {
+        this.maxDetectors = maxDetectors;
+        this.fastPath = fastPath;
+        this.timeoutSeconds = timeoutSeconds;
+        init();
+    }
+
+    public HeartbeatMonitor(int maxDetectors, long timeoutSeconds, boolean fastPath,
+                            TopLevelStateMachine topLevelStateMachine,
+                            SegmentStateMachineV3Service segmentStateMachineService) {
+        this(maxDetectors, timeoutSeconds, fastPath);
+        this.topLevelStateMachine = topLevelStateMachine;
+        this.segmentStateMachineService = segmentStateMachineService;
+    }
+
+    @PostConstruct
+    public void init() {
+        table = new DetectorLivenessTable(maxDetectors);
+        int seeded = seedDetectors(detectors);
+        log.info("检测器心跳监视已启动，心跳时限: {}秒, 快速路径: {}, 预置检测器: {}个", timeoutSeconds, fastPath, seeded);
+    }
+
+    /**
+     * 预置检测器与路段的关联，格式错误的项告警后跳过
+     * @return 预置成功的检测器数
+     */
+    public int seedDetectors(String[] entries) {
+        if (entries == null) return 0;
+        long now = NanoClock.epochNanos();
+        int seeded = 0;
+        for (String entry : entries) {
+            if (entry == null || entry.isBlank()) continue;
+            String[] parts = entry.split("=", 2);
+            try {
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("缺少路段ID");
+                }
+                int ip = DataUtil.parseIpv4(parts[0]);
+                String[] segments = parts[1].split("/");
+                int[] segmentIds = new int[segments.length];
+                for (int i = 0; i < segments.length; i++) {
+                    segmentIds[i] = Integer.parseInt(segments[i].trim());
+                    if (segmentIds[i] <= 0) {
+                        throw new IllegalArgumentException("路段ID须大于0: " + segmentIds[i]);
+                    }
+                }
+                for (int segmentId : segmentIds) {
+                    table.associateSegment(ip, segmentId, now);
+                }
+                if (table.find(ip) < 0) {
+                    throw new IllegalArgumentException("检测器数量超过 max-detectors");
+                }
+                seeded++;
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略检测器预置项 '{}': {}", entry.trim(), e.getMessage());
+            }
+        }
+        return seeded;
+    }
+
+    /**
+     * 心跳快速路径，在读线程上调用，不分配对象
+     */
+    public void onHeartbeat(byte[] data, int offset, int length, long nowNanos) {
+        if (length < 5) {   // 1字节数据类型 + 4字节IP
+            return;
+        }
+        onHeartbeat(DataUtil.ipv4ToInt(data, offset + 1), nowNanos);
+    }
+
+    public void onHeartbeat(int signalIp, long nowNanos) {
+        if (table.recordHeartbeat(signalIp, nowNanos)) {
+            log.info("检测器 {} 心跳恢复", DataUtil.formatIpv4(signalIp));
+            updateSensorStatus(signalIp, SegmentVariables.SensorState.NORMAL, false);
+        }
+    }
+
+    /**
+     * 车辆数据到达时记录检测器所属路段
+     */
+    public void onVehicleData(int signalIp, int segmentId) {
+        table.associateSegment(signalIp, segmentId, NanoClock.epochNanos());
+    }
+
+    /**
+     * 巡检心跳时限
+     */
+    @Scheduled(fixedDelayString = "${traffic.heartbeat.check-interval-ms:1000}")
+    public void checkDeadlines() {
+        if (table == null || timeoutSeconds <= 0) return;
+
+        long now = NanoClock.epochNanos();
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        for (int i = 0; i < table.capacity(); i++) {
+            int ip = table.keyAt(i);
+            long last = table.lastHeartbeatAt(i);
+            if (ip == DetectorLivenessTable.EMPTY || last == 0L) {
+                continue;
+            }
+            if (now - last > timeoutNanos && table.markFaulted(i)) {
+                log.warn("检测器 {} 超过 {} 秒无心跳，判定为故障", DataUtil.formatIpv4(ip),
+                        TimeUnit.NANOSECONDS.toSeconds(now - last));
+                updateSensorStatus(ip, SegmentVariables.SensorState.FAILED, true);
+            }
+        }
+    }
+
+    private void updateSensorStatus(int signalIp, SegmentVariables.SensorState state, boolean raiseFault) {
+        if (topLevelStateMachine == null) return;
+
+        int index = table.find(signalIp);
+        BitSet segments = index < 0 ? new BitSet() : table.segmentsAt(index);
+        if (segments.isEmpty()) {
+            log.warn("检测器 {} 尚未关联任何路段，无法更新传感器状态", DataUtil.formatIpv4(signalIp));
+            return;
+        }
+
+        String sensorId = sensorId(signalIp);
+        for (int segmentId = segments.nextSetBit(1); segmentId > 0; segmentId = segments.nextSetBit(segmentId + 1)) {
+            SegmentStateMachine segment = topLevelStateMachine.getSegmentStateMachine(segmentId);
+            if (segment == null) continue;
+            // 巡检线程与路段滴答、信箱线程并发，变量更新须持路段处理锁
+            segment.updateVariables(v -> v.updateSensorStatus(sensorId, state));
+
+            if (raiseFault && segmentStateMachineService != null) {
+                Map<String, Object> eventData = new HashMap<>();
+                eventData.put("sensorId", sensorId);
+                eventData.put("sensorState", state);
+                if (!segmentStateMachineService.dispatchSegmentEvent(segmentId, SegmentEvent.SENSOR_FAULT, eventData)) {
+                    log.warn("路段 {} 传感器故障事件投递失败: {}", segmentId, sensorId);
+                }
+            }
+        }
+    }
+
+    public static String sensorId(int signalIp) {
+        return "detector-" + DataUtil.formatIpv4(signalIp);
+    }
+
+    public boolean isFastPath() {
+        return fastPath;
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        long now = NanoClock.epochNanos();
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (int i = 0; i < table.capacity(); i++) {
+            int ip = table.keyAt(i);
+            if (ip == DetectorLivenessTable.EMPTY) continue;
+
+            Map<String, Object> detector = new LinkedHashMap<>();
+            detector.put("signalIp", DataUtil.formatIpv4(ip));
+            detector.put("sinceLastHeartbeatMs", TimeUnit.NANOSECONDS.toMillis(now - table.lastHeartbeatAt(i)));
+            detector.put("faulted", table.isFaulted(i));
+            detector.put("segments", table.segmentsAt(i).stream().boxed().collect(Collectors.toList()));
+            result.add(detector);
+        }
+        return result;
+    }
+
+    public DetectorLivenessTable getTable() {
+        return table;
+    }
+}
@@ -1,77 +1,125 @@
 package com.traffic.config.cardetector.manager;
 
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketAddress;
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 检测器连接登记表
+ *
+ * 以端点ID为键，增删查均为O(1)：IPv4 端点为 地址 << 16 | 端口；IPv6 端点最高位置1，地址哈希折叠进第16~61位；
+ * 无法取得地址的端点及哈希冲突的端点分配合成ID。只有同一地址和端口的重连才替换旧连接，ID冲突不会关闭别的连接。
+ * 连接收到任何帧时刷新最后活动时间，收到心跳时另记最后心跳时间；
+ * 定时回收任务关闭超过空闲时限无数据的连接，避免断电检测器留下的半开连接长期占用线程和文件句柄。
+ */
 @Component
 public class ConnectionManager {
     private static final Logger log = LoggerFactory.getLogger(ConnectionManager.class);
 
-    private final ConcurrentMap<String, ClientConnection> connections = new ConcurrentHashMap<>();
-    private final AtomicLong connectionCounter = new AtomicLong(0);
+    /** IPv6 端点ID的标志位 */
+    static final long IPV6_FLAG = 1L << 63;
+    /** 合成端点ID的标志位（与 IPv6 标志同时置位） */
+    static final long SYNTHETIC_FLAG = 3L << 62;
 
-    public void addConnection(Socket socket) {
-        String remoteAddress = socket.getRemoteSocketAddress().toString();
+    private final ConcurrentMap<Long, ClientConnection> connections = new ConcurrentHashMap<>();
+    private final AtomicLong syntheticIds = new AtomicLong();
+    private final AtomicLong relocated = new AtomicLong();
 
-        // 关键改进：先清理相同地址的旧连接
-        cleanupStaleConnections(remoteAddress);
+    @Value("${traffic.tcp.idle-timeout-seconds:90}")
+    private long idleTimeoutSeconds = 90;
 
-        // 使用唯一ID避免冲突
-        String uniqueClientId = remoteAddress + "#" + connectionCounter.incrementAndGet();
-        ClientConnection connection = new ClientConnection(socket, LocalDateTime.now());
-        connections.put(uniqueClientId, connection);
+    public ConnectionManager() {
+    }
 
-        log.info("添加客户端连接: {} (唯一ID: {}), 当前连接数: {}", remoteAddress, uniqueClientId, connections.size());
+    public ConnectionManager(long idleTimeoutSeconds) {
+        this.idleTimeoutSeconds = idleTimeoutSeconds;
     }
 
-    private void cleanupStaleConnections(String remoteAddress) {
-        // 清理相同远程地址的所有旧连接
-        connections.entrySet().removeIf(entry -> {
-            if (entry.getKey().startsWith(remoteAddress + "#")) {
-                ClientConnection oldConn = entry.getValue();
-                try {
-                    if (!oldConn.getSocket().isClosed()) {
-                        oldConn.getSocket().close();
-                        log.info("清理旧连接: {}", entry.getKey());
-                    }
-                } catch (IOException e) {
-                    log.debug("清理旧连接时出错: {}", e.getMessage());
+    /**
+     * 注册连接，同一地址和端口的旧连接会被关闭替换
+     */
+    public ClientConnection addConnection(Socket socket) {
+        SocketAddress address = socket.getRemoteSocketAddress();
+        if (!(address instanceof InetSocketAddress) || ((InetSocketAddress) address).getAddress() == null) {
+            log.warn("客户端 {} 无法取得IP地址，使用合成端点ID登记", address);
+            return addConnection(socket, nextSyntheticId());
+        }
+        return addConnection(socket, endpointId(address));
+    }
+
+    ClientConnection addConnection(Socket socket, long endpointId) {
+        SocketAddress address = socket.getRemoteSocketAddress();
+        while (true) {
+            ClientConnection connection = new ClientConnection(endpointId, socket, LocalDateTime.now());
+            ClientConnection old = connections.putIfAbsent(endpointId, connection);
+            if (old == null) {
+                log.info("添加客户端连接: {}, 当前连接数: {}", connection.getRemoteAddress(), connections.size());
+                return connection;
+            }
+            if (old.getSocket() == socket) {
+                return old;
+            }
+            if (Objects.equals(old.getSocket().getRemoteSocketAddress(), address)) {
+                // 同一端点重连，旧连接已失效
+                if (connections.replace(endpointId, old, connection)) {
+                    closeSocket(old, "清理旧连接");
+                    log.info("添加客户端连接: {}, 当前连接数: {}", connection.getRemoteAddress(), connections.size());
+                    return connection;
                 }
-                return true;
+                continue;
             }
-            return false;
-        });
+            // 不同端点的ID冲突：不替换已有连接，新连接改用合成ID
+            log.warn("客户端 {} 的端点ID与 {} 冲突，改用合成端点ID登记", address, old.getRemoteAddress());
+            relocated.incrementAndGet();
+            endpointId = nextSyntheticId();
+        }
     }
 
-    public void removeConnection(Socket socket) {
-        String remoteAddress = socket.getRemoteSocketAddress().toString();
-        connections.entrySet().removeIf(entry -> {
-            if (entry.getValue().getSocket() == socket) {
-                log.info("移除客户端连接: {}, 当前连接数: {}", entry.getKey(), connections.size() - 1);
-                return true;
-            }
-            return false;
-        });
+    /**
+     * 移除连接，仅当登记的仍是该连接时移除，不会误删同一端点已替换的新连接
+     */
+    public void removeConnection(ClientConnection connection) {
+        if (connection != null && connections.remove(connection.getEndpointId(), connection)) {
+            log.info("移除客户端连接: {}, 当前连接数: {}", connection.getRemoteAddress(), connections.size());
+        }
+    }
+
+    public ClientConnection getConnection(long endpointId) {
+        return connections.get(endpointId);
     }
-//    public void addConnection(Socket socket) {
-//        String clientId = socket.getRemoteSocketAddress().toString();
-//        ClientConnection connection = new ClientConnection(socket, LocalDateTime.now());
-//        connections.put(clientId, connection);
-//        log.info("添加客户端连接: {}, 当前连接数: {}", clientId, connections.size());
-//    }
 
-//    public void removeConnection(Socket socket) {
-//        String clientId = socket.getRemoteSocketAddress().toString();
-//        connections.remove(clientId);
-//        log.info("移除客户端连接: {}, 当前连接数: {}", clientId, connections.size());
-//    }
+    /**
+     * 定时回收空闲连接
+     */
+    @Scheduled(fixedDelayString = "${traffic.tcp.reaper-interval-ms:10000}")
+    public void reapIdleConnections() {
+        if (idleTimeoutSeconds <= 0) return;
+
+        long now = NanoClock.epochNanos();
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(idleTimeoutSeconds);
+        for (ClientConnection connection : connections.values()) {
+            if (now - connection.getLastActivityNanos() > timeoutNanos
+                    && connections.remove(connection.getEndpointId(), connection)) {
+                log.warn("客户端 {} 超过 {} 秒无数据，关闭连接", connection.getRemoteAddress(), idleTimeoutSeconds);
+                closeSocket(connection, "回收空闲连接");
+            }
+        }
+    }
 
     public void closeAllConnections() {
         log.info("关闭所有客户端连接，总数: {}", connections.size());
@@ -91,25 +139,96 @@ public class ConnectionManager {
         return connections.size();
     }
 
-    public boolean hasConnection(String clientId) {
-        return connections.containsKey(clientId);
+    public boolean hasConnection(long endpointId) {
+        return connections.containsKey(endpointId);
+    }
+
+    private void closeSocket(ClientConnection connection, String reason) {
+        try {
+            if (!connection.getSocket().isClosed()) {
+                connection.getSocket().close();
+                log.info("{}: {}", reason, connection.getRemoteAddress());
+            }
+        } catch (IOException e) {
+            log.debug("{}时出错: {}", reason, e.getMessage());
+        }
+    }
+
+    public long getRelocatedConnections() {
+        return relocated.get();
+    }
+
+    private long nextSyntheticId() {
+        return SYNTHETIC_FLAG | syntheticIds.incrementAndGet();
+    }
+
+    /**
+     * 端点ID：IPv4地址占第16~47位、端口占低16位，高16位为0
+     */
+    public static long endpointId(int ip, int port) {
+        return ((ip & 0xFFFFFFFFL) << 16) | (port & 0xFFFF);
     }
 
-    private static class ClientConnection {
+    /**
+     * IPv6 端点ID：最高位为1，地址的64位FNV-1a哈希取46位放在第16~61位，端口占低16位
+     * 第62位保持为0，与合成ID区分
+     */
+    public static long endpointId(SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            InetSocketAddress inet = (InetSocketAddress) address;
+            InetAddress ip = inet.getAddress();
+            if (ip == null) {
+                return 0L;
+            }
+            byte[] bytes = ip.getAddress();
+            if (bytes.length == 4) {
+                return endpointId(DataUtil.ipv4ToInt(bytes, 0), inet.getPort());
+            }
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : bytes) {
+                hash = (hash ^ (b & 0xFF)) * 0x100000001b3L;
+            }
+            return IPV6_FLAG | ((hash & 0x3FFF_FFFF_FFFFL) << 16) | (inet.getPort() & 0xFFFF);
+        }
+        return 0L;
+    }
+
+    public static class ClientConnection {
+        private final long endpointId;
         private final Socket socket;
         private final LocalDateTime connectTime;
-        private volatile LocalDateTime lastHeartbeat;
+        private final String remoteAddress;
+        private volatile long lastActivityNanos;
+        private volatile long lastHeartbeatNanos;
 
-        public ClientConnection(Socket socket, LocalDateTime connectTime) {
+        public ClientConnection(long endpointId, Socket socket, LocalDateTime connectTime) {
+            this.endpointId = endpointId;
             this.socket = socket;
             this.connectTime = connectTime;
-            this.lastHeartbeat = connectTime;
+            this.remoteAddress = String.valueOf(socket.getRemoteSocketAddress());
+            this.lastActivityNanos = NanoClock.epochNanos();
+            this.lastHeartbeatNanos = lastActivityNanos;
         }
 
+        public long getEndpointId() { return endpointId; }
         public Socket getSocket() { return socket; }
         public LocalDateTime getConnectTime() { return connectTime; }
-        public LocalDateTime getLastHeartbeat() { return lastHeartbeat; }
-        public void updateLastHeartbeat() { this.lastHeartbeat = LocalDateTime.now(); }
+        public String getRemoteAddress() { return remoteAddress; }
+        public long getLastActivityNanos() { return lastActivityNanos; }
+        public long getLastHeartbeatNanos() { return lastHeartbeatNanos; }
+        public LocalDateTime getLastHeartbeat() { return NanoClock.toLocalDateTime(lastHeartbeatNanos); }
+
+        /**
+         * 收到任意帧
+         */
+        public void updateLastActivity(long nowNanos) { this.lastActivityNanos = nowNanos; }
+
+        /**
+         * 收到心跳帧
+         */
+        public void updateLastHeartbeat(long nowNanos) {
+            this.lastActivityNanos = nowNanos;
+            this.lastHeartbeatNanos = nowNanos;
+        }
     }
 }
-
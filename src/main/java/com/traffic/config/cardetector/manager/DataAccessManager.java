@@ -1,23 +1,32 @@
 package com.traffic.config.cardetector.manager;
 
+import com.traffic.config.cardetector.dispatch.FrameTypeRegistry;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
 import com.traffic.config.cardetector.model.ProtocolMessage;
 import com.traffic.config.cardetector.model.VehicleData;
+import com.traffic.config.cardetector.parser.DataParser;
 import com.traffic.config.cardetector.parser.VehicleDataParser;
-import com.traffic.config.entity.DetectPoint;
+import com.traffic.config.cardetector.processor.DataProcessor;
+import com.traffic.config.cardetector.routing.SegmentRoute;
+import com.traffic.config.cardetector.routing.SegmentRouter;
+import com.traffic.config.cardetector.routing.SegmentRoutingTable;
+import com.traffic.config.cardetector.stats.TrafficStatsEngine;
+import com.traffic.config.common.enums.DataType;
 import com.traffic.config.exception.DataParseException;
-import com.traffic.config.service.ConfigService;
-import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
 import com.traffic.config.statemachinev3.threading.SegmentStateMachineV3Service;
-import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import com.traffic.config.statemachinev3.variables.objects.PlateDictionary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Optional;
 
 @Component
 public class DataAccessManager {
+    private static final Logger log = LoggerFactory.getLogger(DataAccessManager.class);
 
     @Autowired
     private VehicleDataParser vehicleDataParser;
@@ -26,10 +35,55 @@ public class DataAccessManager {
     private SegmentStateMachineV3Service segmentStateMachineService;
 
     @Autowired
-    private ConfigService configService;
+    private HeartbeatMonitor heartbeatMonitor;
 
-    private int countRadar = 0;
-    private int countVideo = 0;
+    @Autowired
+    private IngestMetrics ingestMetrics;
+
+    @Autowired
+    private TrafficStatsEngine trafficStatsEngine;
+
+    @Autowired
+    private SegmentRouter segmentRouter;
+
+    private final PlateDictionary plateDictionary = PlateDictionary.getInstance();
+
+    // 帧类型码 -> 处理器
+    private final FrameTypeRegistry frameTypes = new FrameTypeRegistry();
+
+    // 每个处理线程复用的解析结果，车辆数据不会离开本次处理
+    private final ThreadLocal<VehicleData> reusableVehicleData = ThreadLocal.withInitial(VehicleData::new);
+    private final ThreadLocal<VehicleData[]> reusableVehicleBatch = ThreadLocal.withInitial(() -> new VehicleData[64]);
+
+    public DataAccessManager() {
+        frameTypes.register(DataType.HEARTBEAT.getCode(), this::handleHeartbeat);
+        frameTypes.register(DataType.NORMAL_DATA.getCode(), new FrameTypeRegistry.Handler() {
+            @Override
+            public void handle(ProtocolMessage message) throws DataParseException {
+                handleVehicleData(message);
+            }
+
+            @Override
+            public void handleBatch(ProtocolMessage[] messages, int from, int to) {
+                handleVehicleBatch(messages, from, to);
+            }
+        });
+    }
+
+    /**
+     * 注册新的检测器记录类型
+     */
+    public void registerFrameType(int type, FrameTypeRegistry.Handler handler) {
+        frameTypes.register(type, handler);
+    }
+
+    public <T> void registerFrameType(int type, DataParser<T> parser, DataProcessor<T> processor) {
+        frameTypes.register(type, parser, processor);
+    }
+
+    public FrameTypeRegistry getFrameTypes() {
+        return frameTypes;
+    }
 
     /*
     *  1. 要关联检测点与路段
@@ -42,136 +96,124 @@ public class DataAccessManager {
 //        System.out.println("来源IP: " + message.getClientAddress());
 //        System.out.println("数据长度: " + message.getDataLength());
 
-        try {
-            // 判断消息类型并解析
-            if (message.getData().length > 0) {
-                byte dataType = message.getData()[0];
-
-                if (dataType == 0x00) {
-                    // 心跳消息
-                    System.out.println("消息类型: 心跳消息");
-                    if (message.getData().length >= 5) {
-                        byte[] ipBytes = new byte[4];
-                        System.arraycopy(message.getData(), 1, ipBytes, 0, 4);
-                        String ip = String.format("%d.%d.%d.%d",
-                                ipBytes[0] & 0xFF, ipBytes[1] & 0xFF,
-                                ipBytes[2] & 0xFF, ipBytes[3] & 0xFF);
-                        System.out.println("信号机IP: " + ip);
-                    }
-
-                } else if (dataType == 0x01) {
-                    // 车辆数据
-                    //System.out.println("消息类型: 车辆数据");
-
-                    if (vehicleDataParser.canParse(message)) {
-                        VehicleData vehicleData = vehicleDataParser.parse(message);
-
+        // 按类型码查表分发
+        if (message.getLength() > 0) {
+            try {
+                if (!frameTypes.dispatch(message)) {
+                    reportUnknownType(message.getDataType());
+                }
+            } catch (Exception e) {
+                reportError(e);
+            }
+        }
+        //System.out.println("================\n");
+    }
 
-//
-//                        System.out.println("✓ 车辆数据解析成功");
-//
-//                        DetectPoint point = getDetectPointByIndex(vehicleData.getLaneNumber());
-//                        if(point == null){ return;}
-                        if(vehicleData.isValidLicensePlate()==false) {
-                            if(vehicleData.getDirection().getCode() == 1) countRadar++;
-                            return;
-                        }
-                        countVideo++;
-                        System.out.println("解析结果:");
-                        System.out.println("Radar: " + countRadar);
-                        System.out.println("Video: " + countVideo);
-//                        System.out.println("  数据类型: " + vehicleData.getDataType());
-//                        System.out.println("  信号机IP: " + vehicleData.getSignalIp());
-//                        System.out.println("  车道编号: " + vehicleData.getLaneNumber());
-//                        System.out.println("  车牌号: " + vehicleData.getLicensePlate());
-//                        System.out.println("  方向: " + vehicleData.getRunDirection());
-//                        System.out.println("  排队长度: " + vehicleData.getQueueLength() + "m");
-//                        System.out.println("  速度: " + vehicleData.getSpeed() + "km/h");
-//                        System.out.println("  时间戳: " + vehicleData.getTimestamp());
-                        SegmentEvent event = makeSegmentEvent(vehicleData.getLaneNumber(), vehicleData.getRunDirection());
-                        if(event == null){ return;}
-                        Map<String, Object> eventData = makeEventData(vehicleData.getLaneNumber(), vehicleData.getRunDirection(), vehicleData.getLicensePlate());
-                        if(eventData == null){ return;}
-                        int segmentId = vehicleData.getSegmentId();
-                        if(segmentId ==0) return;
-                        System.out.println("VehicleEvent:"+eventData.toString()+ " Event:"+event.toString());
-//                        segmentStateMachineService.processSegmentEventSync(segmentId, event, eventData);    // 必须同步处理，否则会造成等待区清空错误
-                    } else {
-                        System.out.println("⚠ 无法解析车辆数据");
+    /**
+     * 批量处理分发线程一次取出的帧
+     * 连续的同类型帧作为一组交给该类型处理器，车辆数据整组解码后再逐条处理，帧间顺序保持不变
+     */
+    public void processBatch(ProtocolMessage[] messages, int count) {
+        int from = 0;
+        while (from < count) {
+            int type = messages[from].getDataType();
+            int to = from + 1;
+            while (to < count && messages[to].getDataType() == type) {
+                to++;
+            }
+            if (type >= 0) {
+                try {
+                    if (!frameTypes.dispatchBatch(type, messages, from, to)) {
+                        reportUnknownType(type);
                     }
-
-                } else {
-                    System.out.println("消息类型: 未知 (0x" + String.format("%02X", dataType) + ")");
+                } catch (Exception e) {
+                    reportError(e);
                 }
             }
+            from = to;
+        }
+    }
 
-            // 显示原始数据
-            //System.out.println("原始数据: " + formatBytes(message.getData()));
+    // 以下均在单个分发线程上执行，逐帧日志只输出到debug级别，避免控制台I/O限制整条流水线的吞吐
 
-        } catch (DataParseException e) {
-            System.err.println("✗ 数据解析失败: " + e.getMessage());
-        } catch (Exception e) {
-            System.err.println("✗ 处理消息时出错: " + e.getMessage());
-            e.printStackTrace();
+    private void reportUnknownType(int type) {
+        if (log.isDebugEnabled()) {
+            log.debug("消息类型: 未知 (0x{})", String.format("%02X", type));
         }
-        //System.out.println("================\n");
-    }
-    //
-    private DetectPoint getDetectPointByIndex(int index){
-        if(configService==null) return null;
-        Optional<DetectPoint> point = configService.getDetectPointByIndex(index);
-        if(point.isPresent()) return point.get();
-        return null;
     }
-    // runDirection 1- 由远及近， 2- 由近及远
-    private SegmentEvent makeSegmentEvent(int point, int runDirection){
-        switch(point){
-            case 1, 3, 5, 7->{
-                if(runDirection==1) return SegmentEvent.VEHICLE_EXIT_DOWNSTREAM;
-                if(runDirection==2) return SegmentEvent.VEHICLE_ENTER_UPSTREAM;
-            }
-            case 2, 4, 6, 8->{
-                if(runDirection==2) return SegmentEvent.VEHICLE_ENTER_DOWNSTREAM;
-                if(runDirection==1) return SegmentEvent.VEHICLE_EXIT_UPSTREAM;
-            }
+
+    private void reportError(Exception e) {
+        if (e instanceof DataParseException) {
+            log.debug("数据解析失败: {}", e.getMessage());
+        } else {
+            log.error("处理消息时出错: {}", e.getMessage(), e);
         }
+    }
 
-        return null;
+    private void handleHeartbeat(ProtocolMessage message) {
+        // 心跳消息，仅在关闭快速路径时进入分发队列
+        heartbeatMonitor.onHeartbeat(message.getBuffer(), message.getOffset(), message.getLength(),
+                message.getReceiveNanos());
     }
-    // runDirection- 1 离开路段， 2- 进入路段
-    private Map<String, Object> makeEventData(int point, int runDirection, String carId){
-        Map<String, Object> eventData = new HashMap<>();
-        eventData.put("vehicleId", carId);
-        switch(point){
-            case 1, 3, 5, 7->{
-                if(runDirection==2)eventData.put("direction", SegmentVariables.Direction.UPSTREAM);
-                else if(runDirection==1)eventData.put("direction", SegmentVariables.Direction.DOWNSTREAM);
-                else return null;
-                return eventData;
-            }
-            case 2, 4, 6, 8->{
-                if(runDirection==2)eventData.put("direction", SegmentVariables.Direction.DOWNSTREAM);
-                else if(runDirection==1)eventData.put("direction", SegmentVariables.Direction.UPSTREAM);
-                else return null;
-                return eventData;
+
+    private void handleVehicleData(ProtocolMessage message) throws DataParseException {
+        processVehicleData(vehicleDataParser.parseInto(message, reusableVehicleData.get()));
+    }
+
+    private void handleVehicleBatch(ProtocolMessage[] messages, int from, int to) {
+        VehicleData[] records = reusableVehicleBatch.get();
+        if (records.length < to - from) {
+            records = Arrays.copyOf(records, Integer.highestOneBit(to - from) << 1);
+            reusableVehicleBatch.set(records);
+        }
+        int n = vehicleDataParser.parseBatch(messages, from, to, records);
+        for (int i = 0; i < n; i++) {
+            try {
+                processVehicleData(records[i]);
+            } catch (Exception e) {
+                reportError(e);
             }
         }
-
-        return null;
     }
-    private String formatBytes(byte[] bytes) {
-        if (bytes.length == 0) return "[]";
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        for (int i = 0; i < Math.min(bytes.length, 32); i++) {
-            if (i > 0) sb.append(", ");
-            sb.append(String.format("0x%02X", bytes[i] & 0xFF));
+
+    private void processVehicleData(VehicleData vehicleData) {
+        int signalIp = vehicleData.getSignalIpInt();
+        // 同一条数据只读取一次路由表引用，配置重载时不会前后不一致
+        SegmentRoutingTable routes = segmentRouter.getTable();
+        int segmentId = routes.segmentOf(vehicleData.getLaneNumber());
+        // 学习检测器与路段的关联，供心跳超时时定位故障路段
+        heartbeatMonitor.onVehicleData(signalIp, segmentId);
+        // 车流、速度、排队长度统计包含雷达数据
+        trafficStatsEngine.record(vehicleData, segmentId);
+
+
+//
+//        System.out.println("✓ 车辆数据解析成功");
+//
+        if(vehicleData.isValidLicensePlate()==false) {
+            if(vehicleData.getDirection().getCode() == 1) {
+                ingestMetrics.recordVehicle(signalIp, vehicleData.getLaneNumber(), false);
+            }
+            return;
         }
-        if (bytes.length > 32) {
-            sb.append(", ...(" + bytes.length + " bytes)");
+        ingestMetrics.recordVehicle(signalIp, vehicleData.getLaneNumber(), true);
+        vehicleData.setPlateId(plateDictionary.intern(vehicleData.getLicensePlate()));
+        if (log.isDebugEnabled()) {
+            log.debug("解析结果: Radar: {}, Video: {}", ingestMetrics.getRadarVehicles(), ingestMetrics.getVideoVehicles());
         }
-        sb.append("]");
-        return sb.toString();
+//        System.out.println("  数据类型: " + vehicleData.getDataType());
+//        System.out.println("  信号机IP: " + vehicleData.getSignalIp());
+//        System.out.println("  车道编号: " + vehicleData.getLaneNumber());
+//        System.out.println("  车牌号: " + vehicleData.getLicensePlate());
+//        System.out.println("  方向: " + vehicleData.getRunDirection());
+//        System.out.println("  排队长度: " + vehicleData.getQueueLength() + "m");
+//        System.out.println("  速度: " + vehicleData.getSpeed() + "km/h");
+//        System.out.println("  时间戳: " + vehicleData.getTimestamp());
+        SegmentRoute route = routes.route(vehicleData.getLaneNumber(), vehicleData.getRunDirection());
+        if(route == null){ return;}
+        Map<String, Object> eventData = route.eventData(vehicleData.getLicensePlate(), vehicleData.getPlateId());
+        log.debug("VehicleEvent: {} Event: {}", eventData, route.getEvent());
+        // 投递到路段信箱：同一路段按到达顺序处理，否则会造成等待区清空错误；不同路段并行处理
+        segmentStateMachineService.dispatchSegmentEvent(route.getSegmentId(), route.getEvent(), eventData);
     }
 }
@@ -0,0 +1,230 @@
+package com.traffic.config.cardetector.metrics;
+
+import com.traffic.config.cardetector.codec.FrameDecoderStats;
+import com.traffic.config.util.DataUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 接入链路指标
+ *
+ * 按检测器IP（连接的源地址）登记拆帧计数、拆帧耗时和心跳应答耗时，按信号机IP和车道登记车辆数据计数，
+ * 均注册到 actuator 的 MeterRegistry，可在 /actuator/metrics 或 Prometheus 中按 detector、lane 标签查看。
+ * 计数器按键缓存，热路径上只做一次哈希查找，不再构造标签。
+ *
+ * 标签基数：每个检测器登记7个计数器和2个带直方图的计时器，每个信号机每车道每来源1个计数器。
+ * detector 标签取自连接源地址和上报数据中的信号机IP，不受配置约束，因此按IP计的检测器数不超过
+ * traffic.ingest.max-tagged-detectors（默认256，与心跳监视的检测器上限一致），
+ * 超出后新出现的IP统一计入 detector=other，避免异常或伪造的源地址使指标数量无限增长。
+ * 并发登记时上限可能被少量超出。
+ */
+@Component
+public class IngestMetrics {
+
+    @Autowired
+    private FrameDecoderStats frameDecoderStats;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 以IP为标签值的检测器数上限
+    @Value("${traffic.ingest.max-tagged-detectors:256}")
+    private int maxTaggedDetectors = 256;
+
+    static final String OTHER_DETECTORS = "other";
+
+    private final ConcurrentMap<Integer, DetectorMetrics> detectors = new ConcurrentHashMap<>();
+    private volatile DetectorMetrics otherDetectors;
+    private final ConcurrentMap<Long, Counter> vehicleCounters = new ConcurrentHashMap<>();
+    private final Set<Integer> taggedSignalIps = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder radarVehicles = new LongAdder();
+    private final LongAdder videoVehicles = new LongAdder();
+
+    public IngestMetrics() {
+    }
+
+    public IngestMetrics(FrameDecoderStats frameDecoderStats, MeterRegistry meterRegistry) {
+        this(frameDecoderStats, meterRegistry, 256);
+    }
+
+    public IngestMetrics(FrameDecoderStats frameDecoderStats, MeterRegistry meterRegistry, int maxTaggedDetectors) {
+        this.frameDecoderStats = frameDecoderStats;
+        this.meterRegistry = meterRegistry;
+        this.maxTaggedDetectors = maxTaggedDetectors;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (meterRegistry == null) {
+            meterRegistry = new SimpleMeterRegistry();
+        }
+    }
+
+    /**
+     * 取得检测器的指标，连接建立时调用一次，同一IP的重连复用同一组指标
+     */
+    public DetectorMetrics forDetector(int clientIp) {
+        DetectorMetrics metrics = detectors.get(clientIp);
+        if (metrics != null) {
+            return metrics;
+        }
+        if (detectors.size() >= maxTaggedDetectors) {
+            return otherDetectors();
+        }
+        return detectors.computeIfAbsent(clientIp,
+                ip -> new DetectorMetrics(DataUtil.formatIpv4(ip), frameDecoderStats, meterRegistry));
+    }
+
+    private DetectorMetrics otherDetectors() {
+        DetectorMetrics metrics = otherDetectors;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = otherDetectors;
+                if (metrics == null) {
+                    metrics = new DetectorMetrics(OTHER_DETECTORS, frameDecoderStats, meterRegistry);
+                    otherDetectors = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * 车辆数据计数，按信号机IP、车道和数据来源（有车牌为视频，无车牌为雷达）区分
+     */
+    public void recordVehicle(int signalIp, int lane, boolean hasPlate) {
+        if (hasPlate) {
+            videoVehicles.increment();
+        } else {
+            radarVehicles.increment();
+        }
+        int laneTag = lane & 0xFF;
+        long key = ((signalIp & 0xFFFFFFFFL) << 16) | (laneTag << 1) | (hasPlate ? 1 : 0);
+        Counter counter = vehicleCounters.get(key);
+        if (counter == null) {
+            String detector;
+            if (taggedSignalIps.contains(signalIp)
+                    || (taggedSignalIps.size() < maxTaggedDetectors && taggedSignalIps.add(signalIp))) {
+                detector = DataUtil.formatIpv4(signalIp);
+            } else {
+                // 超出上限的信号机共用 0.0.0.0 的键
+                detector = OTHER_DETECTORS;
+                key = (laneTag << 1) | (hasPlate ? 1 : 0);
+            }
+            counter = vehicleCounters.computeIfAbsent(key, k -> Counter.builder("traffic.detector.vehicles")
+                    .description("检测器上报的车辆数据")
+                    .tag("detector", detector)
+                    .tag("lane", String.valueOf(laneTag))
+                    .tag("source", hasPlate ? "video" : "radar")
+                    .register(meterRegistry));
+        }
+        counter.increment();
+    }
+
+    public long getRadarVehicles() { return radarVehicles.sum(); }
+    public long getVideoVehicles() { return videoVehicles.sum(); }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", frameDecoderStats.snapshot());
+        result.put("radarVehicles", getRadarVehicles());
+        result.put("videoVehicles", getVideoVehicles());
+        Map<String, Object> perDetector = new LinkedHashMap<>();
+        detectors.forEach((ip, metrics) -> perDetector.put(DataUtil.formatIpv4(ip), metrics.snapshot()));
+        DetectorMetrics other = otherDetectors;
+        if (other != null) {
+            perDetector.put(OTHER_DETECTORS, other.snapshot());
+        }
+        result.put("detectors", perDetector);
+        return result;
+    }
+
+    /**
+     * 单个检测器的接入指标
+     */
+    public static class DetectorMetrics {
+        private final FrameDecoderStats decoderStats;
+        private final Timer decodeLatency;
+        private final Timer heartbeatReplyLatency;
+
+        DetectorMetrics(String detector, FrameDecoderStats parent, MeterRegistry registry) {
+            this.decoderStats = new FrameDecoderStats(parent);
+
+            register(registry, "traffic.ingest.frames", "成功拆出的帧", detector, FrameDecoderStats::getFrames);
+            register(registry, "traffic.ingest.bytes", "读取的字节数", detector, FrameDecoderStats::getBytes);
+            register(registry, "traffic.ingest.checksum.failures", "校验失败", detector, FrameDecoderStats::getChecksumFailures);
+            register(registry, "traffic.ingest.length.mismatches", "长度不符", detector, FrameDecoderStats::getLengthMismatches);
+            register(registry, "traffic.ingest.invalid.start.bytes", "帧外无效字节", detector, FrameDecoderStats::getInvalidStartBytes);
+            register(registry, "traffic.ingest.resyncs", "帧内重同步", detector, FrameDecoderStats::getResyncs);
+            register(registry, "traffic.ingest.oversized", "超长帧", detector, FrameDecoderStats::getOversizedFrames);
+
+            this.decodeLatency = Timer.builder("traffic.ingest.decode.latency")
+                    .description("单次读取的拆帧及分发耗时")
+                    .tag("detector", detector)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(500))
+                    .maximumExpectedValue(Duration.ofMillis(100))
+                    .register(registry);
+            this.heartbeatReplyLatency = Timer.builder("traffic.ingest.heartbeat.reply.latency")
+                    .description("心跳从接收到应答写出的耗时")
+                    .tag("detector", detector)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofNanos(500))
+                    .maximumExpectedValue(Duration.ofMillis(100))
+                    .register(registry);
+        }
+
+        private void register(MeterRegistry registry, String name, String description, String detector,
+                              ToDoubleFunction<FrameDecoderStats> value) {
+            FunctionCounter.builder(name, decoderStats, value)
+                    .description(description)
+                    .tag("detector", detector)
+                    .register(registry);
+        }
+
+        /**
+         * 传给该检测器连接的 FrameDecoder，计数同时累加到全局统计
+         */
+        public FrameDecoderStats getDecoderStats() {
+            return decoderStats;
+        }
+
+        public void recordDecode(long nanos) {
+            decodeLatency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void recordHeartbeatReply(long nanos) {
+            heartbeatReplyLatency.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        public Map<String, Object> snapshot() {
+            Map<String, Object> result = decoderStats.snapshot();
+            result.put("decodeCount", decodeLatency.count());
+            result.put("decodeMeanMicros", decodeLatency.count() > 0
+                    ? decodeLatency.totalTime(TimeUnit.MICROSECONDS) / decodeLatency.count() : 0);
+            result.put("decodeMaxMicros", decodeLatency.max(TimeUnit.MICROSECONDS));
+            result.put("heartbeatReplies", heartbeatReplyLatency.count());
+            result.put("heartbeatReplyMaxMicros", heartbeatReplyLatency.max(TimeUnit.MICROSECONDS));
+            return result;
+        }
+    }
+}
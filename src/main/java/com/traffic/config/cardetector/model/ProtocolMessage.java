@@ -1,22 +1,72 @@
 package com.traffic.config.cardetector.model;
 
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+
 import java.time.LocalDateTime;
 import java.net.InetAddress;
+import java.net.UnknownHostException;
 
+/**
+ * 协议帧
+ *
+ * 接入路径上的实例来自 ProtocolMessagePool，数据部分是池中缓冲区的一个切片（buffer/offset/length），
+ * 接收时间与客户端地址以基本类型保存。处理完成后必须调用 {@link #release()} 归还。
+ * 解析器应通过 {@link #getByte(int)} 或 buffer/offset 直接读取，避免 {@link #getData()} 的拷贝。
+ */
 public class ProtocolMessage {
     private byte startByte = (byte) 0x7E;           // 开始字节
     private int dataLength;                          // 报文长度
-    private byte[] data;                            // 数据部分
+    private byte[] buffer;                           // 数据所在缓冲区
+    private int offset;                              // 数据起始偏移
+    private int length;                              // 数据长度
     private byte checksum;                          // 异或校验
     private byte endByte = (byte) 0x7D;             // 结束字节
-    private LocalDateTime receiveTime;              // 接收时间
-    private InetAddress clientAddress;              // 客户端地址
+    private long receiveNanos;                      // 接收时间（纪元纳秒）
+    private int clientIp;                           // 客户端IPv4地址
+
+    private final Releaser releaser;                // 归还回调，非池化实例为null
+
+    /**
+     * 归还回调，由对象池实现
+     */
+    public interface Releaser {
+        void release(ProtocolMessage message);
+    }
 
     // 构造器、getter、setter
     public ProtocolMessage() {
-        this.receiveTime = LocalDateTime.now();
+        this(null);
+    }
+
+    public ProtocolMessage(Releaser releaser) {
+        this.releaser = releaser;
+    }
+
+    /**
+     * 以缓冲区切片填充本帧，不拷贝数据
+     */
+    public void wrap(byte[] buffer, int offset, int length, byte checksum, long receiveNanos, int clientIp) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+        this.dataLength = length + 1;
+        this.checksum = checksum;
+        this.receiveNanos = receiveNanos;
+        this.clientIp = clientIp;
+    }
+
+    /**
+     * 处理完成后归还到对象池，归还后不得再访问
+     */
+    public void release() {
+        if (releaser != null) {
+            releaser.release(this);
+        }
     }
 
+    public boolean isPooled() { return releaser != null; }
+
     // getter和setter方法
     public byte getStartByte() { return startByte; }
     public void setStartByte(byte startByte) { this.startByte = startByte; }
@@ -24,8 +74,35 @@ public class ProtocolMessage {
     public int getDataLength() { return dataLength; }
     public void setDataLength(int dataLength) { this.dataLength = dataLength; }
 
-    public byte[] getData() { return data; }
-    public void setData(byte[] data) { this.data = data; }
+    public byte[] getBuffer() { return buffer; }
+    public int getOffset() { return offset; }
+    public int getLength() { return length; }
+
+    /**
+     * 读取数据部分第index个字节
+     */
+    public byte getByte(int index) { return buffer[offset + index]; }
+
+    /**
+     * 数据类型字节，空帧返回-1
+     */
+    public int getDataType() { return length > 0 ? buffer[offset] & 0xFF : -1; }
+
+    /**
+     * 返回数据部分的独立副本（切片恰为整个数组时直接返回）
+     */
+    public byte[] getData() {
+        if (buffer == null) return null;
+        if (offset == 0 && length == buffer.length) return buffer;
+        byte[] data = new byte[length];
+        System.arraycopy(buffer, offset, data, 0, length);
+        return data;
+    }
+    public void setData(byte[] data) {
+        this.buffer = data;
+        this.offset = 0;
+        this.length = data == null ? 0 : data.length;
+    }
 
     public byte getChecksum() { return checksum; }
     public void setChecksum(byte checksum) { this.checksum = checksum; }
@@ -33,10 +110,21 @@ public class ProtocolMessage {
     public byte getEndByte() { return endByte; }
     public void setEndByte(byte endByte) { this.endByte = endByte; }
 
-    public LocalDateTime getReceiveTime() { return receiveTime; }
-    public void setReceiveTime(LocalDateTime receiveTime) { this.receiveTime = receiveTime; }
+    public long getReceiveNanos() { return receiveNanos; }
+    public void setReceiveNanos(long receiveNanos) { this.receiveNanos = receiveNanos; }
 
-    public InetAddress getClientAddress() { return clientAddress; }
-    public void setClientAddress(InetAddress clientAddress) { this.clientAddress = clientAddress; }
-}
+    public LocalDateTime getReceiveTime() { return NanoClock.toLocalDateTime(receiveNanos); }
+    public void setReceiveTime(LocalDateTime receiveTime) { this.receiveNanos = NanoClock.toEpochNanos(receiveTime); }
+
+    public int getClientIp() { return clientIp; }
+    public void setClientIp(int clientIp) { this.clientIp = clientIp; }
 
+    public InetAddress getClientAddress() {
+        try {
+            return InetAddress.getByAddress(DataUtil.ipv4ToBytes(clientIp));
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+    public void setClientAddress(InetAddress clientAddress) { this.clientIp = DataUtil.ipv4ToInt(clientAddress); }
+}
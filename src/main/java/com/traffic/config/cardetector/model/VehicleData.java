@@ -2,32 +2,71 @@ package com.traffic.config.cardetector.model;
 
 import com.traffic.config.common.enums.DataType;
 import com.traffic.config.common.enums.VehicleDirection;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
 
 import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.LocalDateTime;
 
+/**
+ * 车辆数据
+ *
+ * 信号机IP和时间戳以基本类型保存，InetAddress、LocalDateTime 只在调用对应getter时构造；
+ * 实例可由 VehicleDataParser#parseInto 反复填充复用。
+ */
 public class VehicleData {
     private DataType dataType;              // 数据类型
-    private InetAddress signalIp;           // 信号机IP
+    private int signalIp;                   // 信号机IPv4地址
     private int laneNumber;                 // 车道编号
     private String licensePlate;            // 车牌ID (16字节)
+    private int plateId;                    // 车牌字典编号，0为无车牌
     private VehicleDirection direction;     // 车入/车出
     private int queueLength;                // 排队长度(m)
     private int speed;                      // 速度(km/h)
     private int runDirection;               // 行驶方向，0-未知，1-正向[由远到近]，2-反向[由近到远]
-    private LocalDateTime timestamp;        // 时间戳
+    private long timestampNanos;            // 时间戳（纪元纳秒）
 
     public VehicleData() {
         this.dataType = DataType.NORMAL_DATA;
-        this.timestamp = LocalDateTime.now();
+        this.timestampNanos = NanoClock.epochNanos();
+    }
+
+    /**
+     * 清空全部字段，复用实例重新填充前调用，避免残留上一辆车的数据
+     */
+    public void reset() {
+        dataType = DataType.NORMAL_DATA;
+        signalIp = 0;
+        laneNumber = 0;
+        licensePlate = null;
+        plateId = 0;
+        direction = null;
+        queueLength = 0;
+        speed = 0;
+        runDirection = 0;
+        timestampNanos = 0L;
     }
 
     // getter和setter方法
     public DataType getDataType() { return dataType; }
     public void setDataType(DataType dataType) { this.dataType = dataType; }
 
-    public InetAddress getSignalIp() { return signalIp; }
-    public void setSignalIp(InetAddress signalIp) { this.signalIp = signalIp; }
+    public int getSignalIpInt() { return signalIp; }
+    public void setSignalIpInt(int signalIp) { this.signalIp = signalIp; }
+
+    /**
+     * 未设置时返回null
+     */
+    public InetAddress getSignalIp() {
+        if (signalIp == 0) return null;
+        try {
+            return InetAddress.getByAddress(DataUtil.ipv4ToBytes(signalIp));
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+    public void setSignalIp(InetAddress signalIp) { this.signalIp = DataUtil.ipv4ToInt(signalIp); }
 
     public int getLaneNumber() { return laneNumber; }
     public void setLaneNumber(int laneNumber) { this.laneNumber = laneNumber; }
@@ -51,9 +90,16 @@ public class VehicleData {
 
     public String getLicensePlate() { return licensePlate; }
     public void setLicensePlate(String licensePlate) { this.licensePlate = licensePlate; }
+    public int getPlateId() { return plateId; }
+    public void setPlateId(int plateId) { this.plateId = plateId; }
+
     public boolean isValidLicensePlate(){
-        if(licensePlate == null || licensePlate.trim().isEmpty()) return false;
-        return true;
+        if(licensePlate == null) return false;
+        // 与 trim().isEmpty() 等价，逐字符判断不产生新字符串
+        for (int i = 0; i < licensePlate.length(); i++) {
+            if (licensePlate.charAt(i) > ' ') return true;
+        }
+        return false;
     }
 
     public VehicleDirection getDirection() { return direction; }
@@ -65,8 +111,11 @@ public class VehicleData {
     public int getSpeed() { return speed; }
     public void setSpeed(int speed) { this.speed = speed; }
 
-    public LocalDateTime getTimestamp() { return timestamp; }
-    public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
+    public long getTimestampNanos() { return timestampNanos; }
+    public void setTimestampNanos(long timestampNanos) { this.timestampNanos = timestampNanos; }
+
+    public LocalDateTime getTimestamp() { return NanoClock.toLocalDateTime(timestampNanos); }
+    public void setTimestamp(LocalDateTime timestamp) { this.timestampNanos = NanoClock.toEpochNanos(timestamp); }
 
     public int getRunDirection() { return runDirection; }
     public void setRunDirection(int runDirection) { this.runDirection = runDirection; }
@@ -12,9 +12,10 @@ public class HeartbeatDataParser implements DataParser<HeartbeatData> {
 
     @Override
     public HeartbeatData parse(ProtocolMessage message) throws DataParseException {
-        byte[] data = message.getData();
+        byte[] data = message.getBuffer();
+        int offset = message.getOffset();
 
-        if (data.length < 5) { // 1字节数据类型 + 4字节IP
+        if (message.getLength() < 5) { // 1字节数据类型 + 4字节IP
             throw new DataParseException("心跳数据长度不足");
         }
 
@@ -22,12 +23,12 @@ public class HeartbeatDataParser implements DataParser<HeartbeatData> {
             HeartbeatData heartbeat = new HeartbeatData();
 
             // 数据类型
-            DataType dataType = DataType.fromCode(data[0] & 0xFF);
+            DataType dataType = DataType.fromCode(data[offset] & 0xFF);
             heartbeat.setDataType(dataType);
 
             // 信号机IP (4字节)
             byte[] ipBytes = new byte[4];
-            System.arraycopy(data, 1, ipBytes, 0, 4);
+            System.arraycopy(data, offset + 1, ipBytes, 0, 4);
             InetAddress signalIp = InetAddress.getByAddress(ipBytes);
             heartbeat.setSignalIp(signalIp);
 
@@ -40,7 +41,7 @@ public class HeartbeatDataParser implements DataParser<HeartbeatData> {
 
     @Override
     public boolean canParse(ProtocolMessage message) {
-        return message.getData().length >= 1 && message.getData()[0] == 0;
+        return message.getDataType() == 0;
     }
 }
 
@@ -0,0 +1,94 @@
+package com.traffic.config.cardetector.parser;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 车牌解码缓存
+ *
+ * 以帧中16字节车牌字段的原始字节为键，直接映射到已解码（UTF-8、去首尾空白）的车牌字符串。
+ * 同一辆车在多个检测点、多个车道反复出现，命中时只做一次哈希和16字节比较，不分配对象；
+ * 未命中才拷贝字节并构造字符串，覆盖同一槽位的旧条目。
+ * 条目不可变，槽位引用的竞争写入只会造成一次额外的未命中，可在多个线程间共享。
+ */
+public final class PlateCache {
+
+    public static final int PLATE_BYTES = 16;
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PlateCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 槽位数，向上取整为2的幂
+     */
+    public PlateCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(16, capacity - 1) << 1);
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * 解码 buf[offset, offset+16) 处的车牌字段
+     */
+    public String decode(byte[] buf, int offset) {
+        int hash = hash(buf, offset);
+        int index = hash & mask;
+        Entry entry = entries[index];
+        if (entry != null && entry.hash == hash
+                && Arrays.equals(entry.pattern, 0, PLATE_BYTES, buf, offset, offset + PLATE_BYTES)) {
+            hits.increment();
+            return entry.plate;
+        }
+
+        misses.increment();
+        byte[] pattern = Arrays.copyOfRange(buf, offset, offset + PLATE_BYTES);
+        String plate = new String(pattern, StandardCharsets.UTF_8).trim();
+        entries[index] = new Entry(hash, pattern, plate);
+        return plate;
+    }
+
+    private static int hash(byte[] buf, int offset) {
+        int h = 0x811C9DC5;
+        for (int i = offset, end = offset + PLATE_BYTES; i < end; i++) {
+            h = (h ^ buf[i]) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+
+    public Map<String, Object> snapshot() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capacity", entries.length);
+        result.put("hits", h);
+        result.put("misses", m);
+        result.put("hitRate", h + m > 0 ? (double) h / (h + m) : 0.0);
+        return result;
+    }
+
+    private static final class Entry {
+        final int hash;
+        final byte[] pattern;
+        final String plate;
+
+        Entry(int hash, byte[] pattern, String plate) {
+            this.hash = hash;
+            this.pattern = pattern;
+            this.plate = plate;
+        }
+    }
+}
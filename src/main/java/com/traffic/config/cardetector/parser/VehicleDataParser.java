@@ -5,24 +5,47 @@ import com.traffic.config.cardetector.model.VehicleData;
 import com.traffic.config.common.enums.DataType;
 import com.traffic.config.common.enums.VehicleDirection;
 import com.traffic.config.exception.DataParseException;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
-import java.net.InetAddress;
-import java.nio.charset.StandardCharsets;
 
 @Component
 public class VehicleDataParser implements DataParser<VehicleData> {
+    private static final Logger log = LoggerFactory.getLogger(VehicleDataParser.class);
+
+    private final PlateCache plateCache;
+
+    public VehicleDataParser() {
+        this(new PlateCache());
+    }
+
+    public VehicleDataParser(PlateCache plateCache) {
+        this.plateCache = plateCache;
+    }
 
     @Override
     public VehicleData parse(ProtocolMessage message) throws DataParseException {
-        byte[] data = message.getData();
+        return parseInto(message, new VehicleData());
+    }
+
+    /**
+     * 直接从帧缓冲区解码到调用方提供的实例，IP按int读取，车牌经缓存解码；
+     * 车牌命中缓存时整个解析过程不分配对象。时间戳取帧的接收时间，帧未记录接收时间时取当前时间。
+     * 实例的全部字段都会重新赋值，车牌编号清零，由调用方按需重新分配。
+     */
+    public VehicleData parseInto(ProtocolMessage message, VehicleData vehicleData) throws DataParseException {
+        // 直接读取帧缓冲区切片，不拷贝数据部分
+        byte[] data = message.getBuffer();
 
-        if (data.length < 26) { // 1+4+1+16+1+1+1+1 = 26字节
+        if (message.getLength() < 26) { // 1+4+1+16+1+1+1+1 = 26字节
             throw new DataParseException("车辆数据长度不足");
         }
 
+        vehicleData.reset();
         try {
-            VehicleData vehicleData = new VehicleData();
-            int offset = 0;
+            int offset = message.getOffset();
 
             // 数据类型 (1字节)
             DataType dataType = DataType.fromCode(data[offset] & 0xFF);
@@ -30,10 +53,7 @@ public class VehicleDataParser implements DataParser<VehicleData> {
             offset++;
 
             // 信号机IP (4字节)
-            byte[] ipBytes = new byte[4];
-            System.arraycopy(data, offset, ipBytes, 0, 4);
-            InetAddress signalIp = InetAddress.getByAddress(ipBytes);
-            vehicleData.setSignalIp(signalIp);
+            vehicleData.setSignalIpInt(DataUtil.ipv4ToInt(data, offset));
             offset += 4;
 
             // 车道编号 (1字节)
@@ -42,11 +62,8 @@ public class VehicleDataParser implements DataParser<VehicleData> {
             offset++;
 
             // 车牌ID (16字节)
-            byte[] plateBytes = new byte[16];
-            System.arraycopy(data, offset, plateBytes, 0, 16);
-            String licensePlate = new String(plateBytes, StandardCharsets.UTF_8).trim();
-            vehicleData.setLicensePlate(licensePlate);
-            offset += 16;
+            vehicleData.setLicensePlate(plateCache.decode(data, offset));
+            offset += PlateCache.PLATE_BYTES;
 
             // 车入/车出 (1字节)
             VehicleDirection direction = VehicleDirection.fromCode(data[offset] & 0xFF);
@@ -67,6 +84,9 @@ public class VehicleDataParser implements DataParser<VehicleData> {
             int runDirection = data[offset] & 0xFF;
             vehicleData.setRunDirection(runDirection);
 
+            long receiveNanos = message.getReceiveNanos();
+            vehicleData.setTimestampNanos(receiveNanos != 0 ? receiveNanos : NanoClock.epochNanos());
+
             return vehicleData;
 
         } catch (Exception e) {
@@ -75,8 +95,36 @@ public class VehicleDataParser implements DataParser<VehicleData> {
         }
     }
 
+    /**
+     * 一次解码 messages[from, to) 中的全部车辆帧，结果依次填入 out 中的复用实例（为null时新建）。
+     * 解析失败的帧被跳过，不影响同批的其余帧。
+     *
+     * @return 成功解析的条数，结果位于 out[0, n)
+     */
+    public int parseBatch(ProtocolMessage[] messages, int from, int to, VehicleData[] out) {
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            VehicleData target = out[n];
+            if (target == null) {
+                target = new VehicleData();
+                out[n] = target;
+            }
+            try {
+                parseInto(messages[i], target);
+                n++;
+            } catch (DataParseException e) {
+                log.warn("批量解析跳过车辆数据帧: {}", e.getMessage());
+            }
+        }
+        return n;
+    }
+
+    public PlateCache getPlateCache() {
+        return plateCache;
+    }
+
     @Override
     public boolean canParse(ProtocolMessage message) {
-        return message.getData().length >= 1 && message.getData()[0] == 1;
+        return message.getDataType() == 1;
     }
 }
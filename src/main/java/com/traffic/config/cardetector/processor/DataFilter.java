@@ -1,60 +1,100 @@
 package com.traffic.config.cardetector.processor;
 
 import com.traffic.config.cardetector.model.VehicleData;
+import com.traffic.config.statemachinev3.variables.objects.PlateDictionary;
+import com.traffic.config.util.NanoClock;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class DataFilter {
     private static final Logger log = LoggerFactory.getLogger(DataFilter.class);
 
-    // 重复数据过滤缓存 (车牌号 -> 最后接收时间)
-    private final ConcurrentMap<String, LocalDateTime> duplicateCache = new ConcurrentHashMap<>();
+    // 重复数据过滤时间窗口 (秒)，按检测器类型区分：有车牌为视频检测器，无车牌为雷达
+    @Value("${traffic.filter.video-window-seconds:5}")
+    private long videoWindowSeconds = 5;
+
+    @Value("${traffic.filter.radar-window-seconds:5}")
+    private long radarWindowSeconds = 5;
+
+    // 时间轮粒度 (毫秒)
+    @Value("${traffic.filter.tick-ms:100}")
+    private long tickMillis = 100;
+
+    private long videoWindowNanos;
+    private long radarWindowNanos;
 
-    // 重复数据过滤时间窗口 (秒)
-    private static final long DUPLICATE_WINDOW_SECONDS = 5;
+    // 重复数据过滤缓存 (信号机IP/车牌编号/车道/方向 -> 窗口过期时间)
+    private DedupTimingWheel duplicateCache;
+
+    public DataFilter() {
+    }
+
+    public DataFilter(long videoWindowSeconds, long radarWindowSeconds, long tickMillis) {
+        this.videoWindowSeconds = videoWindowSeconds;
+        this.radarWindowSeconds = radarWindowSeconds;
+        this.tickMillis = tickMillis;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        videoWindowNanos = TimeUnit.SECONDS.toNanos(Math.max(0, videoWindowSeconds));
+        radarWindowNanos = TimeUnit.SECONDS.toNanos(Math.max(0, radarWindowSeconds));
+        long maxWindowNanos = Math.max(Math.max(videoWindowNanos, radarWindowNanos), 1);
+        duplicateCache = new DedupTimingWheel(TimeUnit.MILLISECONDS.toNanos(Math.max(1, tickMillis)),
+                maxWindowNanos, NanoClock.epochNanos());
+        log.info("重复数据过滤: 视频窗口={}s, 雷达窗口={}s, 时间轮{}槽x{}ms",
+                videoWindowSeconds, radarWindowSeconds, duplicateCache.getWheelSlots(), tickMillis);
+    }
 
     public boolean shouldProcessVehicleData(VehicleData data) {
         // 构建唯一键
-        String key = buildVehicleKey(data);
-        LocalDateTime now = LocalDateTime.now();
-
-        // 检查是否为重复数据
-        LocalDateTime lastReceived = duplicateCache.get(key);
-        if (lastReceived != null) {
-            long seconds = ChronoUnit.SECONDS.between(lastReceived, now);
-            if (seconds < DUPLICATE_WINDOW_SECONDS) {
-                log.debug("过滤重复车辆数据: {}", key);
-                return false;
-            }
+        long key = buildVehicleKey(data);
+        long windowNanos = data.getPlateId() != PlateDictionary.NO_PLATE ? videoWindowNanos : radarWindowNanos;
+        if (windowNanos == 0) {
+            return true;
         }
 
-        // 更新缓存
-        duplicateCache.put(key, now);
-
-        // 清理过期缓存
-        cleanupExpiredCache(now);
-
-        return true;
+        // 检查是否为重复数据，窗口内的重复数据不延长窗口；到期的键随时间轮推进清理
+        boolean admitted;
+        synchronized (this) {
+            admitted = duplicateCache.admit(key, windowNanos, NanoClock.epochNanos());
+        }
+        if (!admitted) {
+            log.debug("过滤重复车辆数据: {}", Long.toHexString(key));
+        }
+        return admitted;
     }
 
-    private String buildVehicleKey(VehicleData data) {
-        return String.format("%s_%d_%s_%s",
-                data.getSignalIp().getHostAddress(),
-                data.getLaneNumber(),
-                data.getLicensePlate(),
-                data.getDirection().name());
+    /**
+     * 信号机IP占高32位，低32位依次为车牌编号(23位)、车道(8位，协议中车道编号为1字节)、方向(1位)
+     */
+    private long buildVehicleKey(VehicleData data) {
+        int plateId = data.getPlateId();
+        if (plateId == PlateDictionary.NO_PLATE) {
+            plateId = PlateDictionary.getInstance().intern(data.getLicensePlate());
+            data.setPlateId(plateId);
+        }
+        return ((data.getSignalIpInt() & 0xFFFFFFFFL) << 32)
+                | ((long) (plateId & 0x7FFFFF) << 9)
+                | ((data.getLaneNumber() & 0xFF) << 1)
+                | (data.getDirection().getCode() & 1);
     }
 
-    private void cleanupExpiredCache(LocalDateTime now) {
-        duplicateCache.entrySet().removeIf(entry -> {
-            long seconds = ChronoUnit.SECONDS.between(entry.getValue(), now);
-            return seconds > DUPLICATE_WINDOW_SECONDS * 2; // 保留2倍时间窗口
-        });
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("videoWindowSeconds", videoWindowSeconds);
+        result.put("radarWindowSeconds", radarWindowSeconds);
+        result.put("tracked", duplicateCache.size());
+        result.put("expired", duplicateCache.getExpired());
+        return result;
     }
 }
@@ -0,0 +1,184 @@
+package com.traffic.config.cardetector.processor;
+
+import java.util.Arrays;
+
+/**
+ * 去重时间轮
+ *
+ * 键为long，记录其过期时间（纪元纳秒），过期前再次出现即判为重复。
+ * 键和过期时间保存在开放寻址的long数组中；每个键同时挂到过期时刻所在的轮槽，
+ * 时间推进时只检查到期轮槽中的键，过期清理的均摊开销为O(1)，不再遍历整张表。
+ *
+ * 非线程安全，由调用方同步。
+ */
+public class DedupTimingWheel {
+
+    private static final long EMPTY = 0L;
+
+    private final long tickNanos;
+    private final int wheelMask;
+    private final long[][] buckets;
+    private final int[] bucketSizes;
+
+    // 开放寻址表，expiries[i] == EMPTY 表示空槽（纪元纳秒不会为0）
+    private long[] keys;
+    private long[] expiries;
+    private int size;
+
+    private long currentTick;
+    private long expired;
+
+    /**
+     * @param tickNanos 轮槽粒度
+     * @param maxWindowNanos 支持的最长时间窗口，轮槽数按此覆盖
+     * @param nowNanos 起始时间（纪元纳秒）
+     */
+    public DedupTimingWheel(long tickNanos, long maxWindowNanos, long nowNanos) {
+        if (tickNanos <= 0 || maxWindowNanos <= 0) {
+            throw new IllegalArgumentException("时间轮粒度和窗口必须为正数");
+        }
+        this.tickNanos = tickNanos;
+        int slots = Integer.highestOneBit((int) Math.min(1 << 20, maxWindowNanos / tickNanos + 2) * 2 - 1);
+        this.wheelMask = slots - 1;
+        this.buckets = new long[slots][];
+        this.bucketSizes = new int[slots];
+        this.keys = new long[64];
+        this.expiries = new long[64];
+        this.currentTick = nowNanos / tickNanos;
+    }
+
+    /**
+     * 键不在窗口内时登记并返回true；仍在上次登记的窗口内时返回false，且不延长窗口
+     */
+    public boolean admit(long key, long windowNanos, long nowNanos) {
+        advance(nowNanos);
+        int index = indexOf(keys, expiries, key);
+        if (expiries[index] != EMPTY && expiries[index] > nowNanos) {
+            return false;
+        }
+        long expiry = nowNanos + windowNanos;
+        if (expiries[index] == EMPTY) {
+            keys[index] = key;
+            expiries[index] = expiry;
+            if (++size * 2 > keys.length) {
+                resize(keys.length << 1);
+            }
+        } else {
+            expiries[index] = expiry;
+        }
+        schedule(key, expiry);
+        return true;
+    }
+
+    /**
+     * 推进到给定时间，移除已到期的键
+     */
+    public void advance(long nowNanos) {
+        long nowTick = nowNanos / tickNanos;
+        if (nowTick <= currentTick) {
+            return;
+        }
+        // 间隔超过一圈时每个轮槽只需检查一次
+        long from = Math.max(currentTick + 1, nowTick - wheelMask);
+        for (long tick = from; tick <= nowTick; tick++) {
+            drain((int) (tick & wheelMask), nowNanos);
+        }
+        currentTick = nowTick;
+    }
+
+    private void schedule(long key, long expiry) {
+        // 过期时刻所在轮槽的下一格，保证取出时该键确已到期
+        long tick = Math.max(expiry / tickNanos + 1, currentTick + 1);
+        int slot = (int) (tick & wheelMask);
+        long[] bucket = buckets[slot];
+        int n = bucketSizes[slot];
+        if (bucket == null) {
+            bucket = new long[8];
+            buckets[slot] = bucket;
+        } else if (n == bucket.length) {
+            bucket = Arrays.copyOf(bucket, n << 1);
+            buckets[slot] = bucket;
+        }
+        bucket[n] = key;
+        bucketSizes[slot] = n + 1;
+    }
+
+    private void drain(int slot, long nowNanos) {
+        int n = bucketSizes[slot];
+        if (n == 0) return;
+        long[] bucket = buckets[slot];
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            long key = bucket[i];
+            int index = indexOf(keys, expiries, key);
+            long expiry = expiries[index];
+            if (expiry == EMPTY) {
+                continue;
+            }
+            if (expiry <= nowNanos) {
+                removeAt(index);
+                expired++;
+            } else if ((Math.max(expiry / tickNanos + 1, currentTick + 1) & wheelMask) == slot) {
+                // 重新登记后过期时刻恰好落回本槽（窗口超过一圈时）
+                bucket[kept++] = key;
+            }
+            // 其余情况该键已重新登记到其他轮槽，此处的旧条目直接丢弃
+        }
+        bucketSizes[slot] = kept;
+    }
+
+    private void removeAt(int index) {
+        int mask = keys.length - 1;
+        int hole = index;
+        for (int i = (hole + 1) & mask; expiries[i] != EMPTY; i = (i + 1) & mask) {
+            int home = mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                expiries[hole] = expiries[i];
+                hole = i;
+            }
+        }
+        expiries[hole] = EMPTY;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldExpiries = expiries;
+        keys = new long[capacity];
+        expiries = new long[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldExpiries[i] != EMPTY) {
+                int index = indexOf(keys, expiries, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                expiries[index] = oldExpiries[i];
+            }
+        }
+    }
+
+    private static int indexOf(long[] keys, long[] expiries, long key) {
+        int mask = keys.length - 1;
+        int index = mix(key) & mask;
+        while (expiries[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getExpired() {
+        return expired;
+    }
+
+    public int getWheelSlots() {
+        return wheelMask + 1;
+    }
+}
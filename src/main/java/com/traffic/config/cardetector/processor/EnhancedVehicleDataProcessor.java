@@ -40,8 +40,7 @@ public class EnhancedVehicleDataProcessor implements DataProcessor<VehicleData>
             }
 
             // 缓存数据
-            String cacheKey = buildCacheKey(data);
-            vehicleDataCache.put(cacheKey, data);
+            vehicleDataCache.add(data);
 
             // 记录日志
             log.info("处理车辆数据: 车牌={}, 信号机={}, 车道={}, 方向={}, 排队长度={}m, 速度={}km/h",
@@ -60,14 +59,6 @@ public class EnhancedVehicleDataProcessor implements DataProcessor<VehicleData>
         }
     }
 
-    private String buildCacheKey(VehicleData data) {
-        return String.format("%s_%d_%s_%d",
-                data.getSignalIp().getHostAddress(),
-                data.getLaneNumber(),
-                data.getLicensePlate(),
-                data.getTimestamp().getNano());
-    }
-
 //    private void publishVehicleDataEvent(VehicleData data) {
 //        try {
 //            VehicleDataEvent event = new VehicleDataEvent(this, data);
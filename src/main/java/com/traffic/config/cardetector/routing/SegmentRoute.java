@@ -0,0 +1,43 @@
+package com.traffic.config.cardetector.routing;
+
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+
+/**
+ * 一个（检测点，运行方向）对应的路段事件，编译路由表时预先构造
+ */
+public final class SegmentRoute {
+    private final int point;
+    private final int runDirection;
+    private final int segmentId;
+    private final SegmentEvent event;
+    private final SegmentVariables.Direction direction;
+
+    public SegmentRoute(int point, int runDirection, int segmentId,
+                        SegmentEvent event, SegmentVariables.Direction direction) {
+        this.point = point;
+        this.runDirection = runDirection;
+        this.segmentId = segmentId;
+        this.event = event;
+        this.direction = direction;
+    }
+
+    public int getPoint() { return point; }
+    public int getRunDirection() { return runDirection; }
+    public int getSegmentId() { return segmentId; }
+    public SegmentEvent getEvent() { return event; }
+    public SegmentVariables.Direction getDirection() { return direction; }
+
+    /**
+     * 本路由上一辆车的事件数据
+     */
+    public VehicleEventData eventData(String vehicleId, int plateId) {
+        return new VehicleEventData(this, vehicleId, plateId);
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentRoute{point=" + point + ", runDirection=" + runDirection + ", segmentId=" + segmentId
+                + ", event=" + event + ", direction=" + direction + "}";
+    }
+}
@@ -0,0 +1,72 @@
+package com.traffic.config.cardetector.routing;
+
+import com.traffic.config.entity.SingleLane;
+import com.traffic.config.service.ConfigService;
+import com.traffic.config.service.event.ConfigReloadEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 持有当前路由表，配置重新加载时编译新表并原子替换；
+ * 处理线程每次读取一次引用，同一条车辆数据始终按同一张表路由。
+ */
+@Component
+public class SegmentRouter {
+    private static final Logger log = LoggerFactory.getLogger(SegmentRouter.class);
+
+    @Autowired(required = false)
+    private ConfigService configService;
+
+    private volatile SegmentRoutingTable table = SegmentRoutingTable.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        if (configService == null) {
+            return;
+        }
+        try {
+            rebuild(configService.loadConfig());
+        } catch (Exception e) {
+            log.error("编译检测点路由表失败", e);
+        }
+    }
+
+    @EventListener
+    public void handleConfigReload(ConfigReloadEvent event) {
+        rebuild(event.getConfig());
+    }
+
+    public void rebuild(SingleLane config) {
+        if (config == null || config.getDetectPoints() == null) {
+            return;
+        }
+        List<String> skipped = new ArrayList<>();
+        SegmentRoutingTable compiled = SegmentRoutingTable.compile(
+                config.getDetectPoints().getDetectPointList(),
+                config.getSegments() != null ? config.getSegments().getSegmentList() : null,
+                skipped);
+        table = compiled;
+        for (String message : skipped) {
+            log.warn("检测点路由: {}", message);
+        }
+        log.info("检测点路由表已更新: 检测点{}个", compiled.getPointCount());
+    }
+
+    public SegmentRoutingTable getTable() {
+        return table;
+    }
+
+    /**
+     * 直接替换路由表，供测试或非Spring环境使用
+     */
+    public void setTable(SegmentRoutingTable table) {
+        this.table = table != null ? table : SegmentRoutingTable.EMPTY;
+    }
+}
@@ -0,0 +1,143 @@
+package com.traffic.config.cardetector.routing;
+
+import com.traffic.config.entity.DetectPoint;
+import com.traffic.config.entity.Segment;
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 检测点到路段的路由表
+ *
+ * 由检测点和路段配置编译而成，以 (检测点编号, 运行方向) 为下标直接取得路段编号、路段事件和车辆方向。
+ * 运行方向：1-由远及近（离开路段），2-由近及远（进入路段）。
+ * 实例不可变，配置重新加载时整体替换。
+ */
+public final class SegmentRoutingTable {
+
+    public static final String SIDE_UPSTREAM = "UPSTREAM";
+    public static final String SIDE_DOWNSTREAM = "DOWNSTREAM";
+
+    private static final int RUN_DIRECTIONS = 3; // 0-未知，1-正向，2-反向
+
+    public static final SegmentRoutingTable EMPTY = new SegmentRoutingTable(new SegmentRoute[0], new int[0], 0);
+
+    private final SegmentRoute[] routes;
+    private final int[] segmentIds;
+    private final int pointCount;
+
+    private SegmentRoutingTable(SegmentRoute[] routes, int[] segmentIds, int pointCount) {
+        this.routes = routes;
+        this.segmentIds = segmentIds;
+        this.pointCount = pointCount;
+    }
+
+    /**
+     * 编译路由表
+     * @param detectPoints 检测点配置
+     * @param segments 路段配置，用于校验检测点所属路段；为null时不校验
+     * @param skipped 输出未能编译的检测点说明，可为null
+     */
+    public static SegmentRoutingTable compile(List<DetectPoint> detectPoints, List<Segment> segments, List<String> skipped) {
+        if (detectPoints == null || detectPoints.isEmpty()) {
+            return EMPTY;
+        }
+        Set<Integer> knownSegments = null;
+        if (segments != null) {
+            knownSegments = new HashSet<>();
+            for (Segment segment : segments) {
+                knownSegments.add(segment.getSegmentId());
+            }
+        }
+
+        int maxPoint = 0;
+        for (DetectPoint point : detectPoints) {
+            maxPoint = Math.max(maxPoint, point.getIndex());
+        }
+        SegmentRoute[] routes = new SegmentRoute[(maxPoint + 1) * RUN_DIRECTIONS];
+        int[] segmentIds = new int[maxPoint + 1];
+
+        for (DetectPoint point : detectPoints) {
+            int index = point.getIndex();
+            if (index <= 0) {
+                note(skipped, "检测点编号无效: " + index);
+                continue;
+            }
+            int segmentId = point.getSegmentId() != null ? point.getSegmentId() : (index + 1) / 2;
+            if (knownSegments != null && !knownSegments.contains(segmentId)) {
+                note(skipped, "检测点" + index + "所属路段" + segmentId + "不存在");
+                continue;
+            }
+            String side = point.getSide() != null ? point.getSide().trim().toUpperCase()
+                    : (index % 2 == 1 ? SIDE_UPSTREAM : SIDE_DOWNSTREAM);
+            if (SIDE_UPSTREAM.equals(side)) {
+                // 上游端：驶入为进入上游，驶出为下行车辆离开
+                routes[index * RUN_DIRECTIONS + 2] = new SegmentRoute(index, 2, segmentId,
+                        SegmentEvent.VEHICLE_ENTER_UPSTREAM, SegmentVariables.Direction.UPSTREAM);
+                routes[index * RUN_DIRECTIONS + 1] = new SegmentRoute(index, 1, segmentId,
+                        SegmentEvent.VEHICLE_EXIT_DOWNSTREAM, SegmentVariables.Direction.DOWNSTREAM);
+            } else if (SIDE_DOWNSTREAM.equals(side)) {
+                // 下游端：驶入为进入下游，驶出为上行车辆离开
+                routes[index * RUN_DIRECTIONS + 2] = new SegmentRoute(index, 2, segmentId,
+                        SegmentEvent.VEHICLE_ENTER_DOWNSTREAM, SegmentVariables.Direction.DOWNSTREAM);
+                routes[index * RUN_DIRECTIONS + 1] = new SegmentRoute(index, 1, segmentId,
+                        SegmentEvent.VEHICLE_EXIT_UPSTREAM, SegmentVariables.Direction.UPSTREAM);
+            } else {
+                note(skipped, "检测点" + index + "的side无效: " + point.getSide());
+                continue;
+            }
+            segmentIds[index] = segmentId;
+        }
+        return new SegmentRoutingTable(routes, segmentIds, detectPoints.size());
+    }
+
+    private static void note(List<String> skipped, String message) {
+        if (skipped != null) {
+            skipped.add(message);
+        }
+    }
+
+    /**
+     * @return 未配置的检测点或运行方向返回null
+     */
+    public SegmentRoute route(int point, int runDirection) {
+        if (point < 0 || runDirection < 0 || runDirection >= RUN_DIRECTIONS) {
+            return null;
+        }
+        int index = point * RUN_DIRECTIONS + runDirection;
+        return index < routes.length ? routes[index] : null;
+    }
+
+    /**
+     * @return 检测点所属路段，未配置时返回0
+     */
+    public int segmentOf(int point) {
+        return point > 0 && point < segmentIds.length ? segmentIds[point] : 0;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public List<Map<String, Object>> describe() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SegmentRoute route : routes) {
+            if (route != null) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("point", route.getPoint());
+                entry.put("runDirection", route.getRunDirection());
+                entry.put("segmentId", route.getSegmentId());
+                entry.put("event", route.getEvent().name());
+                entry.put("direction", route.getDirection().name());
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+}
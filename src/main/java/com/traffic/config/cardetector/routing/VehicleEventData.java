@@ -0,0 +1,76 @@
+package com.traffic.config.cardetector.routing;
+
+import java.util.AbstractMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 车辆事件数据：路段方向取自预先编译的路由，只保存本车的车牌和车牌编号
+ *
+ * 以只读 Map 形式交给路段状态机，键为 vehicleId、direction、plateId；
+ * 每辆车只分配这一个对象，不再为每条数据新建 HashMap 及其表项。
+ */
+public final class VehicleEventData extends AbstractMap<String, Object> {
+    public static final String VEHICLE_ID = "vehicleId";
+    public static final String DIRECTION = "direction";
+    public static final String PLATE_ID = "plateId";
+
+    private final SegmentRoute route;
+    private final String vehicleId;
+    private final int plateId;
+
+    public VehicleEventData(SegmentRoute route, String vehicleId, int plateId) {
+        this.route = route;
+        this.vehicleId = vehicleId;
+        this.plateId = plateId;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (VEHICLE_ID.equals(key)) {
+            return vehicleId;
+        }
+        if (DIRECTION.equals(key)) {
+            return route.getDirection();
+        }
+        if (PLATE_ID.equals(key)) {
+            return plateId;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return VEHICLE_ID.equals(key) || DIRECTION.equals(key) || PLATE_ID.equals(key);
+    }
+
+    @Override
+    public int size() {
+        return 3;
+    }
+
+    /**
+     * 仅用于日志和调试输出
+     */
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        entries.put(VEHICLE_ID, vehicleId);
+        entries.put(DIRECTION, route.getDirection());
+        entries.put(PLATE_ID, plateId);
+        return entries.entrySet();
+    }
+
+    public SegmentRoute getRoute() {
+        return route;
+    }
+
+    public String getVehicleId() {
+        return vehicleId;
+    }
+
+    public int getPlateId() {
+        return plateId;
+    }
+}
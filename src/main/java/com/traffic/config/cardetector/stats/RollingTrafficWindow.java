@@ -0,0 +1,239 @@
+package com.traffic.config.cardetector.stats;
+
+import com.traffic.config.util.NanoClock;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 滑动窗口交通统计
+ *
+ * 窗口划分为固定数量的时间桶，每桶保存车流计数、速度与排队长度的直方图；
+ * 窗口总量随写入增量累加，桶过期时整桶扣减，查询不重新扫描样本。
+ * 速度按 {@link #SPEED_BIN_KMH} km/h、排队长度按 {@link #QUEUE_BIN_METERS} m 分档，
+ * 分位数由直方图插值得到，内存占用与样本数无关。
+ */
+public class RollingTrafficWindow {
+
+    /** 速度分档宽度 (km/h)，覆盖协议的 0-255 */
+    public static final int SPEED_BIN_KMH = 4;
+    /** 排队长度分档宽度 (m)，覆盖协议的 0-255 */
+    public static final int QUEUE_BIN_METERS = 8;
+
+    private static final int SPEED_BINS = 256 / SPEED_BIN_KMH;
+    private static final int QUEUE_BINS = 256 / QUEUE_BIN_METERS;
+
+    private final long bucketNanos;
+    private final int bucketCount;
+
+    // 每桶数据，下标为 桶序号 % bucketCount
+    private final long[] bucketEpochs;
+    private final int[] flows;
+    private final int[][] speedHistograms;
+    private final long[] speedSums;
+    private final int[][] queueHistograms;
+    private final long[] queueSums;
+
+    // 窗口总量
+    private final int[] speedHistogram = new int[SPEED_BINS];
+    private final int[] queueHistogram = new int[QUEUE_BINS];
+    private long flow;
+    private long speedSamples;
+    private long speedSum;
+    private long queueSamples;
+    private long queueSum;
+    private int lastQueueLength;
+    private long lastUpdateNanos;
+
+    private long currentEpoch = Long.MIN_VALUE;
+
+    /**
+     * @param windowNanos 窗口长度
+     * @param bucketCount 时间桶数量，决定窗口滑动的粒度
+     */
+    public RollingTrafficWindow(long windowNanos, int bucketCount) {
+        if (windowNanos <= 0 || bucketCount <= 0) {
+            throw new IllegalArgumentException("统计窗口长度和桶数必须为正数");
+        }
+        this.bucketCount = bucketCount;
+        this.bucketNanos = Math.max(1, windowNanos / bucketCount);
+        this.bucketEpochs = new long[bucketCount];
+        this.flows = new int[bucketCount];
+        this.speedHistograms = new int[bucketCount][SPEED_BINS];
+        this.speedSums = new long[bucketCount];
+        this.queueHistograms = new int[bucketCount][QUEUE_BINS];
+        this.queueSums = new long[bucketCount];
+        Arrays.fill(bucketEpochs, Long.MIN_VALUE);
+    }
+
+    /**
+     * 记录一条检测数据
+     * @param counted 是否计入车流（车入记录）
+     * @param speed 速度 (km/h)，0表示无速度数据，不计入速度分布
+     * @param queueLength 排队长度 (m)
+     */
+    public synchronized void record(long nowNanos, boolean counted, int speed, int queueLength) {
+        int bucket = advance(nowNanos);
+        if (counted) {
+            flows[bucket]++;
+            flow++;
+        }
+        if (speed > 0) {
+            int bin = Math.min(SPEED_BINS - 1, speed / SPEED_BIN_KMH);
+            speedHistograms[bucket][bin]++;
+            speedHistogram[bin]++;
+            speedSums[bucket] += speed;
+            speedSum += speed;
+            speedSamples++;
+        }
+        if (queueLength >= 0) {
+            int bin = Math.min(QUEUE_BINS - 1, queueLength / QUEUE_BIN_METERS);
+            queueHistograms[bucket][bin]++;
+            queueHistogram[bin]++;
+            queueSums[bucket] += queueLength;
+            queueSum += queueLength;
+            queueSamples++;
+            lastQueueLength = queueLength;
+        }
+        lastUpdateNanos = nowNanos;
+    }
+
+    /**
+     * 滑动到当前时间，扣减过期桶，返回当前桶下标
+     */
+    private int advance(long nowNanos) {
+        long epoch = Math.floorDiv(nowNanos, bucketNanos);
+        if (epoch > currentEpoch) {
+            // 只需检查一圈，跨度再大的间隔也只清一遍全部桶
+            long from = Math.max(currentEpoch + 1, epoch - bucketCount + 1);
+            for (long e = from; e <= epoch; e++) {
+                expire(Math.floorMod(e, bucketCount));
+            }
+            currentEpoch = epoch;
+        }
+        int bucket = Math.floorMod(epoch < currentEpoch ? currentEpoch : epoch, bucketCount);
+        bucketEpochs[bucket] = currentEpoch;
+        return bucket;
+    }
+
+    private void expire(int bucket) {
+        if (bucketEpochs[bucket] == Long.MIN_VALUE) {
+            return;
+        }
+        flow -= flows[bucket];
+        flows[bucket] = 0;
+
+        int[] speeds = speedHistograms[bucket];
+        for (int i = 0; i < SPEED_BINS; i++) {
+            speedSamples -= speeds[i];
+            speedHistogram[i] -= speeds[i];
+            speeds[i] = 0;
+        }
+        speedSum -= speedSums[bucket];
+        speedSums[bucket] = 0;
+
+        int[] queues = queueHistograms[bucket];
+        for (int i = 0; i < QUEUE_BINS; i++) {
+            queueSamples -= queues[i];
+            queueHistogram[i] -= queues[i];
+            queues[i] = 0;
+        }
+        queueSum -= queueSums[bucket];
+        queueSums[bucket] = 0;
+        bucketEpochs[bucket] = Long.MIN_VALUE;
+    }
+
+    /**
+     * 窗口内车流量
+     */
+    public synchronized long getFlow(long nowNanos) {
+        advance(nowNanos);
+        return flow;
+    }
+
+    /**
+     * 每小时车流量折算
+     */
+    public synchronized double getHourlyFlow(long nowNanos) {
+        advance(nowNanos);
+        return flow * 3_600_000_000_000.0 / getWindowNanos();
+    }
+
+    public synchronized double getMeanSpeed(long nowNanos) {
+        advance(nowNanos);
+        return speedSamples > 0 ? (double) speedSum / speedSamples : 0.0;
+    }
+
+    /**
+     * @param percentile 0-100
+     */
+    public synchronized double getSpeedPercentile(long nowNanos, double percentile) {
+        advance(nowNanos);
+        return percentileOf(speedHistogram, speedSamples, SPEED_BIN_KMH, percentile);
+    }
+
+    public synchronized double getMeanQueueLength(long nowNanos) {
+        advance(nowNanos);
+        return queueSamples > 0 ? (double) queueSum / queueSamples : 0.0;
+    }
+
+    public synchronized double getQueuePercentile(long nowNanos, double percentile) {
+        advance(nowNanos);
+        return percentileOf(queueHistogram, queueSamples, QUEUE_BIN_METERS, percentile);
+    }
+
+    public synchronized long getSpeedSamples(long nowNanos) {
+        advance(nowNanos);
+        return speedSamples;
+    }
+
+    public long getWindowNanos() {
+        return bucketNanos * bucketCount;
+    }
+
+    /**
+     * 在分档内线性插值
+     */
+    private static double percentileOf(int[] histogram, long total, int binWidth, double percentile) {
+        if (total <= 0) {
+            return 0.0;
+        }
+        double rank = Math.max(0.0, Math.min(100.0, percentile)) / 100.0 * total;
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            int count = histogram[i];
+            if (count > 0 && seen + count >= rank) {
+                return (i + (rank - seen) / count) * binWidth;
+            }
+            seen += count;
+        }
+        return (double) histogram.length * binWidth;
+    }
+
+    /**
+     * 窗口统计快照
+     */
+    public synchronized Map<String, Object> snapshot(long nowNanos) {
+        advance(nowNanos);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("windowSeconds", getWindowNanos() / 1_000_000_000L);
+        result.put("flow", flow);
+        result.put("hourlyFlow", round(flow * 3_600_000_000_000.0 / getWindowNanos()));
+        result.put("speedSamples", speedSamples);
+        result.put("meanSpeed", round(speedSamples > 0 ? (double) speedSum / speedSamples : 0.0));
+        result.put("p15Speed", round(percentileOf(speedHistogram, speedSamples, SPEED_BIN_KMH, 15)));
+        result.put("p50Speed", round(percentileOf(speedHistogram, speedSamples, SPEED_BIN_KMH, 50)));
+        result.put("p85Speed", round(percentileOf(speedHistogram, speedSamples, SPEED_BIN_KMH, 85)));
+        result.put("meanQueueLength", round(queueSamples > 0 ? (double) queueSum / queueSamples : 0.0));
+        result.put("p50QueueLength", round(percentileOf(queueHistogram, queueSamples, QUEUE_BIN_METERS, 50)));
+        result.put("p95QueueLength", round(percentileOf(queueHistogram, queueSamples, QUEUE_BIN_METERS, 95)));
+        result.put("lastQueueLength", lastQueueLength);
+        result.put("lastUpdate", lastUpdateNanos != 0 ? NanoClock.toLocalDateTime(lastUpdateNanos).toString() : null);
+        return result;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
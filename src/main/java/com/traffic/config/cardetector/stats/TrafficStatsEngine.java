@@ -0,0 +1,176 @@
+package com.traffic.config.cardetector.stats;
+
+import com.traffic.config.cardetector.model.VehicleData;
+import com.traffic.config.common.enums.VehicleDirection;
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.core.TopLevelStateMachine;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 交通统计引擎
+ *
+ * 按车道（信号机IP+车道）和路段维护滑动窗口统计：车流量、平均及分位速度、排队长度分布。
+ * 每条检测数据只做一次增量更新；定时把路段拥堵程度写入路段状态变量。
+ * 通行效率和平均等待时间由状态机按实际放行车辆和驶入驶出时间维护，此处不覆盖。
+ */
+@Component
+public class TrafficStatsEngine {
+    private static final Logger log = LoggerFactory.getLogger(TrafficStatsEngine.class);
+
+    // 统计窗口 (秒) 与时间桶数
+    @Value("${traffic.stats.window-seconds:300}")
+    private long windowSeconds = 300;
+
+    @Value("${traffic.stats.buckets:30}")
+    private int buckets = 30;
+
+    // 自由流速度 (km/h)，平均速度越低于此值越拥堵
+    @Value("${traffic.stats.free-flow-speed-kmh:40}")
+    private double freeFlowSpeedKmh = 40;
+
+    // 排队长度达到此值 (m) 视为完全拥堵
+    @Value("${traffic.stats.jam-queue-meters:120}")
+    private double jamQueueMeters = 120;
+
+    @Autowired(required = false)
+    private TopLevelStateMachine topLevelStateMachine;
+
+    private final ConcurrentMap<Long, RollingTrafficWindow> lanes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, RollingTrafficWindow> segments = new ConcurrentHashMap<>();
+
+    public TrafficStatsEngine() {
+    }
+
+    public TrafficStatsEngine(long windowSeconds, int buckets, double freeFlowSpeedKmh, double jamQueueMeters) {
+        this.windowSeconds = windowSeconds;
+        this.buckets = buckets;
+        this.freeFlowSpeedKmh = freeFlowSpeedKmh;
+        this.jamQueueMeters = jamQueueMeters;
+    }
+
+    /**
+     * 记录一条车辆数据，车入记录计入车流
+     */
+    public void record(VehicleData data) {
+        record(data, data.getSegmentId());
+    }
+
+    /**
+     * @param segmentId 路由表给出的所属路段，0表示不计入路段统计
+     */
+    public void record(VehicleData data, int segmentId) {
+        long now = data.getTimestampNanos();
+        boolean counted = data.getDirection() == VehicleDirection.IN;
+        int speed = data.getSpeed();
+        int queueLength = data.getQueueLength();
+
+        laneWindow(data.getSignalIpInt(), data.getLaneNumber()).record(now, counted, speed, queueLength);
+        if (segmentId != 0) {
+            segmentWindow(segmentId).record(now, counted, speed, queueLength);
+        }
+    }
+
+    private RollingTrafficWindow laneWindow(int signalIp, int laneNumber) {
+        long key = laneKey(signalIp, laneNumber);
+        RollingTrafficWindow window = lanes.get(key);
+        return window != null ? window : lanes.computeIfAbsent(key, k -> newWindow());
+    }
+
+    private RollingTrafficWindow segmentWindow(int segmentId) {
+        RollingTrafficWindow window = segments.get(segmentId);
+        return window != null ? window : segments.computeIfAbsent(segmentId, k -> newWindow());
+    }
+
+    private RollingTrafficWindow newWindow() {
+        return new RollingTrafficWindow(TimeUnit.SECONDS.toNanos(Math.max(1, windowSeconds)), Math.max(1, buckets));
+    }
+
+    private static long laneKey(int signalIp, int laneNumber) {
+        return ((long) signalIp << 32) | (laneNumber & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 拥堵程度 (0.0-1.0)，取速度下降和排队长度两项中较严重的一项；窗口内无数据时为0
+     */
+    public double congestionLevel(RollingTrafficWindow window, long nowNanos) {
+        double speedFactor = 0.0;
+        if (window.getSpeedSamples(nowNanos) > 0 && freeFlowSpeedKmh > 0) {
+            speedFactor = 1.0 - window.getMeanSpeed(nowNanos) / freeFlowSpeedKmh;
+        }
+        double queueFactor = jamQueueMeters > 0 ? window.getQueuePercentile(nowNanos, 95) / jamQueueMeters : 0.0;
+        return Math.max(0.0, Math.min(1.0, Math.max(speedFactor, queueFactor)));
+    }
+
+    /**
+     * 路段拥堵程度写入路段状态变量，在路段状态机的事件处理锁内写入
+     */
+    @Scheduled(fixedDelayString = "${traffic.stats.publish-interval-ms:5000}")
+    public void publishCongestion() {
+        if (topLevelStateMachine == null) {
+            return;
+        }
+        long now = NanoClock.epochNanos();
+        segments.forEach((segmentId, window) -> {
+            SegmentStateMachine segment = topLevelStateMachine.getSegmentStateMachine(segmentId);
+            if (segment == null) {
+                return;
+            }
+            double level = congestionLevel(window, now);
+            segment.updateVariables(variables -> {
+                // 变化不足1%时不更新，避免每个周期都记录性能指标日志
+                if (Math.abs(variables.getCongestionLevel() - level) >= 0.01) {
+                    variables.setCongestionLevel(level);
+                    log.debug("路段{}拥堵程度更新为 {}", segmentId, String.format("%.2f", level));
+                }
+            });
+        });
+    }
+
+    public Map<String, Object> getLaneStats(int signalIp, int laneNumber) {
+        RollingTrafficWindow window = lanes.get(laneKey(signalIp, laneNumber));
+        return window != null ? withCongestion(window, NanoClock.epochNanos()) : null;
+    }
+
+    public Map<String, Object> getSegmentStats(int segmentId) {
+        RollingTrafficWindow window = segments.get(segmentId);
+        return window != null ? withCongestion(window, NanoClock.epochNanos()) : null;
+    }
+
+    /**
+     * 全部车道统计，键为 "信号机IP_车道"
+     */
+    public Map<String, Object> getAllLaneStats() {
+        long now = NanoClock.epochNanos();
+        Map<String, Object> result = new TreeMap<>();
+        lanes.forEach((key, window) -> result.put(
+                DataUtil.formatIpv4((int) (key >>> 32)) + "_" + key.intValue(), withCongestion(window, now)));
+        return result;
+    }
+
+    public Map<Integer, Object> getAllSegmentStats() {
+        long now = NanoClock.epochNanos();
+        Map<Integer, Object> result = new TreeMap<>();
+        segments.forEach((segmentId, window) -> result.put(segmentId, withCongestion(window, now)));
+        return result;
+    }
+
+    private Map<String, Object> withCongestion(RollingTrafficWindow window, long now) {
+        Map<String, Object> result = new LinkedHashMap<>(window.snapshot(now));
+        result.put("congestionLevel", Math.round(congestionLevel(window, now) * 100.0) / 100.0);
+        return result;
+    }
+}
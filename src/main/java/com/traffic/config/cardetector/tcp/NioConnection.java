@@ -0,0 +1,165 @@
+package com.traffic.config.cardetector.tcp;
+
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.codec.FrameDecoder;
+import com.traffic.config.cardetector.codec.ProtocolMessagePool;
+import com.traffic.config.cardetector.codec.FrameEncoder;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
+import com.traffic.config.cardetector.manager.ConnectionManager;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * NIO连接上下文
+ * 保存单个检测器连接的读缓冲、拆帧状态和待发送数据，只在所属事件循环线程中访问
+ */
+class NioConnection {
+    private static final Logger log = LoggerFactory.getLogger(NioConnection.class);
+
+    private final SocketChannel channel;
+    private final IngestDispatcher ingestDispatcher;
+    private final String remoteAddress;
+    private final int clientIp;
+    private final ProtocolMessagePool messagePool;
+    private final HeartbeatMonitor heartbeatMonitor;
+    private final FrameCaptureLog frameCaptureLog;
+    private final ConnectionManager.ClientConnection registration;
+    private final IngestMetrics.DetectorMetrics metrics;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(TcpClientHandler.READ_BUFFER_SIZE);
+    private final byte[] replyBuffer = new byte[TcpClientHandler.HEARTBEAT_REPLY_BUFFER_SIZE];
+    private final ByteBuffer replyView = ByteBuffer.wrap(replyBuffer);
+    private final Queue<ByteBuffer> pendingWrites = new ArrayDeque<>();
+    private final FrameDecoder decoder;
+    private final FrameDecoder.FrameHandler frameHandler = this::onFrame;
+
+    NioConnection(SocketChannel channel, IngestDispatcher ingestDispatcher, IngestMetrics ingestMetrics,
+                  ProtocolMessagePool messagePool, HeartbeatMonitor heartbeatMonitor, FrameCaptureLog frameCaptureLog,
+                  ConnectionManager.ClientConnection registration) throws IOException {
+        this.channel = channel;
+        this.ingestDispatcher = ingestDispatcher;
+        this.messagePool = messagePool;
+        this.heartbeatMonitor = heartbeatMonitor;
+        this.frameCaptureLog = frameCaptureLog;
+        this.registration = registration;
+        this.remoteAddress = String.valueOf(channel.getRemoteAddress());
+        this.clientIp = DataUtil.ipv4ToInt(channel.socket().getInetAddress());
+        this.metrics = ingestMetrics.forDetector(clientIp);
+        this.decoder = new FrameDecoder(metrics.getDecoderStats());
+    }
+
+    /**
+     * 读取通道中当前可读的全部数据并拆帧
+     * @return false 表示对端已关闭
+     */
+    boolean read() throws IOException {
+        int n;
+        while ((n = channel.read(readBuffer)) > 0) {
+            readBuffer.flip();
+            long start = System.nanoTime();
+            decoder.decode(readBuffer, frameHandler);
+            metrics.recordDecode(System.nanoTime() - start);
+            readBuffer.clear();
+        }
+        return n != -1;
+    }
+
+    private void onFrame(byte[] data, int offset, int length) throws IOException {
+        long now = NanoClock.epochNanos();
+        frameCaptureLog.append(data, offset, length, clientIp, now);
+        if (heartbeatMonitor.isFastPath() && TcpClientHandler.isFastHeartbeat(data, offset, length)) {
+            onHeartbeat(data, offset, length, now);
+            return;
+        }
+
+        ProtocolMessage message = TcpClientHandler.acquireMessage(messagePool, data, offset, length, now, clientIp);
+        TcpClientHandler.touchConnection(registration, message);
+
+        // 如果是心跳消息，需要回复
+        if (TcpClientHandler.isHeartbeatMessage(message)) {
+            try {
+                write(TcpClientHandler.buildHeartbeatResponse(message));
+                metrics.recordHeartbeatReply(NanoClock.epochNanos() - now);
+            } catch (IOException e) {
+                message.release();
+                throw e;
+            }
+        }
+
+        // 交给分发线程处理，帧的所有权随之移交
+        if (!ingestDispatcher.tryDispatch(message)) {
+            log.debug("接入队列已满，丢弃客户端 {} 的数据帧", remoteAddress);
+        }
+    }
+
+    /**
+     * 心跳快速路径：应答写入复用缓冲，只有写不完时才拷贝入待发送队列
+     */
+    private void onHeartbeat(byte[] data, int offset, int length, long now) throws IOException {
+        registration.updateLastHeartbeat(now);
+        heartbeatMonitor.onHeartbeat(data, offset, length, now);
+
+        int n = FrameEncoder.encode(data, offset, length, replyBuffer, 0);
+        replyView.clear().limit(n);
+        if (pendingWrites.isEmpty()) {
+            channel.write(replyView);
+        }
+        if (replyView.hasRemaining()) {
+            ByteBuffer copy = ByteBuffer.allocate(replyView.remaining());
+            copy.put(replyView).flip();
+            pendingWrites.offer(copy);
+        }
+        metrics.recordHeartbeatReply(NanoClock.epochNanos() - now);
+    }
+
+    /**
+     * 非阻塞写，未写完的部分留待OP_WRITE时继续发送
+     */
+    void write(byte[] frame) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        if (pendingWrites.isEmpty()) {
+            channel.write(buffer);
+        }
+        if (buffer.hasRemaining()) {
+            pendingWrites.offer(buffer);
+        }
+    }
+
+    void flush() throws IOException {
+        ByteBuffer buffer;
+        while ((buffer = pendingWrites.peek()) != null) {
+            channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                return;
+            }
+            pendingWrites.poll();
+        }
+    }
+
+    boolean hasPendingWrites() {
+        return !pendingWrites.isEmpty();
+    }
+
+    ConnectionManager.ClientConnection getRegistration() {
+        return registration;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    String getRemoteAddress() {
+        return remoteAddress;
+    }
+}
@@ -0,0 +1,178 @@
+package com.traffic.config.cardetector.tcp;
+
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.codec.ProtocolMessagePool;
+import com.traffic.config.cardetector.manager.ConnectionManager;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * NIO事件循环
+ * 单线程持有一个Selector，负责其名下所有检测器连接的读写
+ */
+public class NioEventLoop implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(NioEventLoop.class);
+
+    private final String name;
+    private final ConnectionManager connectionManager;
+    private final IngestDispatcher ingestDispatcher;
+    private final IngestMetrics ingestMetrics;
+    private final ProtocolMessagePool messagePool;
+    private final HeartbeatMonitor heartbeatMonitor;
+    private final FrameCaptureLog frameCaptureLog;
+    private final Queue<SocketChannel> pendingChannels = new ConcurrentLinkedQueue<>();
+    private final Selector selector;
+    private Thread thread;
+    private volatile boolean running = false;
+
+    public NioEventLoop(String name, ConnectionManager connectionManager, IngestDispatcher ingestDispatcher,
+                        IngestMetrics ingestMetrics, ProtocolMessagePool messagePool,
+                        HeartbeatMonitor heartbeatMonitor, FrameCaptureLog frameCaptureLog) throws IOException {
+        this.name = name;
+        this.connectionManager = connectionManager;
+        this.ingestDispatcher = ingestDispatcher;
+        this.ingestMetrics = ingestMetrics;
+        this.messagePool = messagePool;
+        this.heartbeatMonitor = heartbeatMonitor;
+        this.frameCaptureLog = frameCaptureLog;
+        this.selector = Selector.open();
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 由接收线程调用，将新连接交给本事件循环
+     */
+    public void register(SocketChannel channel) {
+        pendingChannels.offer(channel);
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector.select();
+                registerPendingChannels();
+
+                Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    handleKey(key);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.error("事件循环 {} 发生错误", name, e);
+                }
+            }
+        }
+        closeAll();
+    }
+
+    private void registerPendingChannels() {
+        SocketChannel channel;
+        while ((channel = pendingChannels.poll()) != null) {
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                NioConnection connection = new NioConnection(channel, ingestDispatcher, ingestMetrics, messagePool,
+                        heartbeatMonitor, frameCaptureLog, connectionManager.addConnection(channel.socket()));
+                channel.register(selector, SelectionKey.OP_READ, connection);
+                log.info("开始处理客户端 {} 的数据 ({})", connection.getRemoteAddress(), name);
+            } catch (IOException e) {
+                log.error("注册客户端连接失败", e);
+                closeQuietly(channel);
+            }
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        NioConnection connection = (NioConnection) key.attachment();
+        try {
+            if (key.isReadable() && !connection.read()) {
+                log.warn("客户端 {} 连接中断", connection.getRemoteAddress());
+                close(key, connection);
+                return;
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.flush();
+            }
+            if (key.isValid()) {
+                key.interestOps(connection.hasPendingWrites()
+                        ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                        : SelectionKey.OP_READ);
+            }
+        } catch (CancelledKeyException e) {
+            close(key, connection);
+        } catch (IOException e) {
+            log.warn("客户端 {} 连接中断", connection.getRemoteAddress());
+            close(key, connection);
+        } catch (Exception e) {
+            // 持续出错的连接若保留注册，每次选择都会再次出错，关闭后由检测器重连
+            log.error("处理客户端 {} 数据时发生错误，关闭连接", connection.getRemoteAddress(), e);
+            close(key, connection);
+        }
+    }
+
+    private void close(SelectionKey key, NioConnection connection) {
+        key.cancel();
+        connectionManager.removeConnection(connection.getRegistration());
+        closeQuietly(connection.getChannel());
+        log.info("客户端 {} 连接已关闭", connection.getRemoteAddress());
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof NioConnection) {
+                close(key, (NioConnection) key.attachment());
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.debug("关闭Selector时出错: {}", e.getMessage());
+        }
+    }
+
+    private void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("关闭通道时出错: {}", e.getMessage());
+        }
+    }
+
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+        if (thread != null) {
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return selector.isOpen() ? selector.keys().size() : 0;
+    }
+}
@@ -0,0 +1,166 @@
+package com.traffic.config.cardetector.tcp;
+
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.codec.ProtocolMessagePool;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
+import com.traffic.config.cardetector.manager.ConnectionManager;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 基于Selector的非阻塞TCP接入服务器
+ *
+ * 一个接收线程负责accept，若干事件循环线程（NioEventLoop）各自持有一个Selector，
+ * 每个事件循环可同时服务数百个检测器连接，连接数不再受线程数限制。
+ * 通过 traffic.tcp.mode=nio 启用，默认仍使用阻塞式 TcpServer。
+ */
+@Component
+@ConditionalOnProperty(prefix = "traffic.tcp", name = "mode", havingValue = "nio")
+public class NioTcpServer {
+    private static final Logger log = LoggerFactory.getLogger(NioTcpServer.class);
+
+    @Value("${traffic.tcp.port:8130}")
+    private int port;
+
+    @Value("${traffic.tcp.nio.event-loops:2}")
+    private int eventLoopCount;
+
+    @Autowired
+    private ConnectionManager connectionManager;
+
+    @Autowired
+    private IngestDispatcher ingestDispatcher;
+
+    @Autowired
+    private IngestMetrics ingestMetrics;
+
+    @Autowired
+    private ProtocolMessagePool messagePool;
+
+    @Autowired
+    private HeartbeatMonitor heartbeatMonitor;
+
+    @Autowired
+    private FrameCaptureLog frameCaptureLog;
+
+    private ServerSocketChannel serverChannel;
+    private NioEventLoop[] eventLoops;
+    private Thread acceptThread;
+    private volatile boolean running = false;
+    private int nextLoop = 0;
+
+    public NioTcpServer() {
+    }
+
+    /**
+     * @param port 0 表示由系统分配端口，实际端口由 {@link #getPort()} 取得
+     */
+    public NioTcpServer(int port, int eventLoopCount, ConnectionManager connectionManager, IngestDispatcher ingestDispatcher,
+                        IngestMetrics ingestMetrics, ProtocolMessagePool messagePool, HeartbeatMonitor heartbeatMonitor,
+                        FrameCaptureLog frameCaptureLog) {
+        this.port = port;
+        this.eventLoopCount = eventLoopCount;
+        this.connectionManager = connectionManager;
+        this.ingestDispatcher = ingestDispatcher;
+        this.ingestMetrics = ingestMetrics;
+        this.messagePool = messagePool;
+        this.heartbeatMonitor = heartbeatMonitor;
+        this.frameCaptureLog = frameCaptureLog;
+    }
+
+    @PostConstruct
+    public void startServer() {
+        try {
+            eventLoops = new NioEventLoop[Math.max(1, eventLoopCount)];
+            for (int i = 0; i < eventLoops.length; i++) {
+                eventLoops[i] = new NioEventLoop("TcpNio-" + i, connectionManager, ingestDispatcher,
+                        ingestMetrics, messagePool, heartbeatMonitor, frameCaptureLog);
+                eventLoops[i].start();
+            }
+
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            running = true;
+
+            // 接收连接使用独立线程，不占用事件循环
+            acceptThread = new Thread(this::acceptConnections, "TcpNio-Accept");
+            acceptThread.setDaemon(true);
+            acceptThread.start();
+            log.info("NIO TCP服务器启动成功，监听端口: {}, 事件循环数: {}", getPort(), eventLoops.length);
+
+        } catch (IOException e) {
+            log.error("NIO TCP服务器启动失败", e);
+            throw new RuntimeException("Failed to start NIO TCP server", e);
+        }
+    }
+
+    private void acceptConnections() {
+        while (running && serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                log.info("新客户端连接: {}", channel.getRemoteAddress());
+
+                // 轮询分配到事件循环
+                NioEventLoop loop = eventLoops[nextLoop];
+                nextLoop = (nextLoop + 1) % eventLoops.length;
+                loop.register(channel);
+
+            } catch (IOException e) {
+                if (running) {
+                    log.error("接受客户端连接时发生错误", e);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stopServer() {
+        running = false;
+
+        try {
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
+            }
+
+            if (eventLoops != null) {
+                for (NioEventLoop loop : eventLoops) {
+                    loop.shutdown();
+                }
+            }
+
+            connectionManager.closeAllConnections();
+            log.info("NIO TCP服务器已停止");
+
+        } catch (Exception e) {
+            log.error("停止NIO TCP服务器时发生错误", e);
+        }
+    }
+
+    public boolean isRunning() {
+        return running && serverChannel != null && serverChannel.isOpen();
+    }
+
+    /**
+     * 实际监听的端口
+     */
+    public int getPort() {
+        return serverChannel != null ? serverChannel.socket().getLocalPort() : port;
+    }
+
+    public int getEventLoopCount() {
+        return eventLoops == null ? 0 : eventLoops.length;
+    }
+}
@@ -1,59 +1,98 @@
 package com.traffic.config.cardetector.tcp;
 
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.codec.FrameDecoder;
+import com.traffic.config.cardetector.codec.FrameEncoder;
+import com.traffic.config.cardetector.codec.ProtocolMessagePool;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
 import com.traffic.config.cardetector.manager.ConnectionManager;
-import com.traffic.config.cardetector.manager.DataAccessManager;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
 import com.traffic.config.cardetector.model.ProtocolMessage;
 import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.net.Socket;
-import java.time.LocalDateTime;
+import java.nio.ByteBuffer;
 
 @Component
 public class TcpClientHandler {
     private static final Logger log = LoggerFactory.getLogger(TcpClientHandler.class);
 
+    static final int READ_BUFFER_SIZE = 4096;
+
+    // 快速路径处理的心跳帧最大数据长度，应答缓冲按此预分配
+    public static final int MAX_FAST_HEARTBEAT_LENGTH = 32;
+    public static final int HEARTBEAT_REPLY_BUFFER_SIZE = FrameEncoder.maxEncodedLength(MAX_FAST_HEARTBEAT_LENGTH);
+
     @Autowired
     private ConnectionManager connectionManager;
 
     @Autowired
-    private DataAccessManager dataAccessManager;
+    private IngestDispatcher ingestDispatcher;
+
+    @Autowired
+    private IngestMetrics ingestMetrics;
+
+    @Autowired
+    private ProtocolMessagePool messagePool;
+
+    @Autowired
+    private HeartbeatMonitor heartbeatMonitor;
+
+    @Autowired
+    private FrameCaptureLog frameCaptureLog;
 
     public void handleClient(Socket clientSocket) {
         String clientAddress = clientSocket.getRemoteSocketAddress().toString();
+        ConnectionManager.ClientConnection connection = null;
 
         try {
             // 注册连接
-            connectionManager.addConnection(clientSocket);
+            connection = connectionManager.addConnection(clientSocket);
+            ConnectionManager.ClientConnection registration = connection;
 
             InputStream inputStream = clientSocket.getInputStream();
             OutputStream outputStream = clientSocket.getOutputStream();
+            int clientIp = DataUtil.ipv4ToInt(clientSocket.getInetAddress());
+            IngestMetrics.DetectorMetrics metrics = ingestMetrics.forDetector(clientIp);
+
+            // 批量读取后交给拆帧器，避免逐字节read
+            byte[] readBuffer = new byte[READ_BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(readBuffer);
+            byte[] replyBuffer = new byte[HEARTBEAT_REPLY_BUFFER_SIZE];
+            FrameDecoder decoder = new FrameDecoder(metrics.getDecoderStats());
+            FrameDecoder.FrameHandler frameHandler = (data, offset, length) -> {
+                long now = NanoClock.epochNanos();
+                frameCaptureLog.append(data, offset, length, clientIp, now);
+                if (heartbeatMonitor.isFastPath() && isFastHeartbeat(data, offset, length)) {
+                    handleHeartbeat(data, offset, length, now, registration, metrics, outputStream, replyBuffer);
+                } else {
+                    handleFrame(data, offset, length, now, clientIp, registration, metrics, outputStream, clientAddress);
+                }
+            };
 
             log.info("开始处理客户端 {} 的数据", clientAddress);
 
             while (!clientSocket.isClosed() && clientSocket.isConnected()) {
                 try {
-                    // 读取协议消息
-                    ProtocolMessage message = readProtocolMessage(inputStream, clientSocket);
-                    if (message != null) {
-                        // 如果是心跳消息，需要回复
-                        if (isHeartbeatMessage(message)) {
-                            sendHeartbeatResponse(outputStream, message);
-                            dataAccessManager.processMessage(message);  // 可选的功能，心跳消息也可以处理一下
-                        }else{
-                            // 处理消息
-                            dataAccessManager.processMessage(message);
-                        }
+                    int n = inputStream.read(readBuffer);
+                    if (n == -1) {
+                        log.info("客户端 {} 已关闭连接", clientAddress);
+                        break;
                     }
+                    buffer.clear().limit(n);
+                    long start = System.nanoTime();
+                    decoder.decode(buffer, frameHandler);
+                    metrics.recordDecode(System.nanoTime() - start);
 
                 } catch (IOException e) {
                     log.warn("客户端 {} 连接中断", clientAddress);
                     break;
-                } catch (Exception e) {
-                    log.error("处理客户端 {} 数据时发生错误", clientAddress, e);
                 }
             }
 
@@ -61,7 +100,9 @@ public class TcpClientHandler {
             log.error("处理客户端 {} 时发生错误", clientAddress, e);
         } finally {
             try {
-                connectionManager.removeConnection(clientSocket);
+                if (connection != null) {
+                    connectionManager.removeConnection(connection);
+                }
                 if (!clientSocket.isClosed()) {
                     clientSocket.close();
                 }
@@ -72,228 +113,87 @@ public class TcpClientHandler {
         }
     }
 
-    private ProtocolMessage readProtocolMessage(InputStream inputStream, Socket socket) throws IOException {
-        // 1. 读取开始字节 0x7E
-        int startByte = inputStream.read();
-        if (startByte == -1) {
-            return null; // 连接已关闭
-        }
-
-        if (startByte != 0x7E) {
-            log.warn("无效的开始字节: 0x{}", Integer.toHexString(startByte));
-            return null;
-        }
-
-        // 2. 逐字节读取，并同步处理转义，直到遇到结束字节 0x7D
-        ByteArrayOutputStream unescapedDataBuffer = new ByteArrayOutputStream();
-        int b;
-        boolean isEscaped = false;
-
-        while ((b = inputStream.read()) != -1) {
-            //System.out.printf("%02X ", b);
-            if (b == 0x5C && !isEscaped) { // 遇到转义字符
-                isEscaped = true;
-                continue; // 继续读取下一个字节
-            }
+    private void handleFrame(byte[] data, int offset, int length, long receiveNanos, int clientIp,
+                             ConnectionManager.ClientConnection connection, IngestMetrics.DetectorMetrics metrics,
+                             OutputStream outputStream, String clientAddress) throws IOException {
+        ProtocolMessage message = acquireMessage(messagePool, data, offset, length, receiveNanos, clientIp);
+        touchConnection(connection, message);
 
-            if (isEscaped) {
-                // 处理转义后的字节
-                unescapedDataBuffer.write(b);
-                isEscaped = false;
-            } else if (b == 0x7D) { // 遇到结束字节
-                break;
-            } else {
-                // 普通字节
-                unescapedDataBuffer.write(b);
+        // 如果是心跳消息，需要回复（在读线程上立即回复，不受分发队列影响）
+        if (isHeartbeatMessage(message)) {
+            try {
+                sendHeartbeatResponse(outputStream, message);
+                metrics.recordHeartbeatReply(NanoClock.epochNanos() - receiveNanos);
+            } catch (IOException e) {
+                message.release();
+                throw e;
             }
         }
-        //System.out.println("");
-        if (b == -1) {
-            throw new IOException("连接意外关闭，未找到结束字节");
-        }
-
-        byte[] unescapedData = unescapedDataBuffer.toByteArray();
-
-        // 3. 验证数据长度
-        // 协议文档规定报文长度是“转义前”的“数据”部分字节数 + “校验”部分字节数
-        // 在我们的反转义后的数据流中，前两个字节是报文长度字段
-        if (unescapedData.length < 3) { // 至少包含2字节长度 + 1字节校验
-            throw new IOException("反转义后的数据长度不足");
-        }
-
-        // 分离报文长度
-        byte[] lengthBytes = new byte[2];
-        System.arraycopy(unescapedData, 0, lengthBytes, 0, 2);
-        int dataLength = ((lengthBytes[0] & 0xFF) << 8) | (lengthBytes[1] & 0xFF);
-
-        // 协议文档中，报文长度不包含长度字段本身，但包含数据和校验
-        // 所以 unescapedData 的总长度应该是：2 (长度字段) + dataLength
-        if (unescapedData.length != dataLength + 2) {
-            log.warn("报文长度验证失败。报文头长度: {}, 实际反转义后数据总长度: {}", dataLength, unescapedData.length - 2);
-            log.info(DataUtil.formatBytes(unescapedData));
-            return null;
-        }
-
-        // 4. 分离数据和校验
-        byte[] data = new byte[dataLength - 1]; // dataLength 包含数据和校验，所以数据长度 = dataLength - 1
-        System.arraycopy(unescapedData, 2, data, 0, data.length);
-        byte checksum = unescapedData[unescapedData.length - 1];
 
-        // 5. 验证校验和
-        if (!validateChecksum(data, checksum)) {
-            log.warn("校验和验证失败");
-            return null;
+        // 交给分发线程处理（心跳消息也可以处理一下），帧的所有权随之移交
+        if (!ingestDispatcher.dispatch(message)) {
+            log.debug("接入队列已满，丢弃客户端 {} 的数据帧", clientAddress);
         }
-
-        // 6. 构建协议消息
-        ProtocolMessage message = new ProtocolMessage();
-        message.setStartByte((byte) startByte);
-        message.setDataLength(dataLength);
-        message.setData(data);
-        message.setChecksum(checksum);
-        message.setEndByte((byte) 0x7D);
-        message.setReceiveTime(LocalDateTime.now());
-        message.setClientAddress(socket.getInetAddress());
-
-        return message;
     }
 
-//    private ProtocolMessage readProtocolMessage(InputStream inputStream, Socket socket) throws IOException {
-//        // 读取开始字节
-//        int startByte = inputStream.read();
-//        if (startByte == -1) return null; // 连接已关闭
-//
-//        if (startByte != 0x7E) {
-//            log.warn("无效的开始字节: 0x{}", Integer.toHexString(startByte));
-//            return null;
-//        }
-//
-//        // 读取报文长度 (2字节，高字节在前)
-//        byte[] lengthBytes = new byte[2];
-//        if (inputStream.read(lengthBytes) != 2) {
-//            throw new IOException("无法读取报文长度");
-//        }
-//        int dataLength = ((lengthBytes[0] & 0xFF) << 8) | (lengthBytes[1] & 0xFF);
-//
-//        // 读取数据部分和校验 (包含转义字符)
-//        byte[] rawData = new byte[dataLength];
-//        int totalRead = 0;
-//        while (totalRead < dataLength) {
-//            int bytesRead = inputStream.read(rawData, totalRead, dataLength - totalRead);
-//            if (bytesRead == -1) {
-//                throw new IOException("连接意外关闭");
-//            }
-//            totalRead += bytesRead;
-//        }
-//
-//        // 读取结束字节
-//        int endByte = inputStream.read();
-//        if (endByte != 0x7D) {
-//            log.warn("无效的结束字节: 0x{}", Integer.toHexString(endByte));
-//            return null;
-//        }
-//
-//        // 反转义处理
-//        byte[] unescapedData = unescapeData(rawData);
-//
-//        // 分离数据和校验
-//        if (unescapedData.length < 1) {
-//            throw new IOException("数据长度不足");
-//        }
-//
-//        byte[] data = new byte[unescapedData.length - 1];
-//        System.arraycopy(unescapedData, 0, data, 0, data.length);
-//        byte checksum = unescapedData[unescapedData.length - 1];
-//
-//        // 验证校验和
-//        if (!validateChecksum(data, checksum)) {
-//            log.warn("校验和验证失败");
-//            return null;
-//        }
-//
-//        // 构建协议消息
-//        ProtocolMessage message = new ProtocolMessage();
-//        message.setStartByte((byte) startByte);
-//        message.setDataLength(dataLength);
-//        message.setData(data);
-//        message.setChecksum(checksum);
-//        message.setEndByte((byte) endByte);
-//        message.setReceiveTime(LocalDateTime.now());
-//        message.setClientAddress(socket.getInetAddress());
-//
-//        return message;
-//    }
-
-    private byte[] unescapeData(byte[] escapedData) {
-        ByteArrayOutputStream unescaped = new ByteArrayOutputStream();
+    /**
+     * 心跳快速路径：直接应答并更新存活表，不取池化帧、不进入分发队列
+     */
+    private void handleHeartbeat(byte[] data, int offset, int length, long receiveNanos,
+                                 ConnectionManager.ClientConnection connection, IngestMetrics.DetectorMetrics metrics,
+                                 OutputStream outputStream, byte[] replyBuffer) throws IOException {
+        connection.updateLastHeartbeat(receiveNanos);
+        heartbeatMonitor.onHeartbeat(data, offset, length, receiveNanos);
+
+        int n = FrameEncoder.encode(data, offset, length, replyBuffer, 0);
+        outputStream.write(replyBuffer, 0, n);
+        outputStream.flush();
+        metrics.recordHeartbeatReply(NanoClock.epochNanos() - receiveNanos);
+    }
 
-        for (int i = 0; i < escapedData.length; i++) {
-            byte b = escapedData[i];
-            if (b == 0x5C && i + 1 < escapedData.length) {
-                // 遇到转义字符，取下一个字节
-                byte nextByte = escapedData[i + 1];
-                unescaped.write(nextByte);
-                i++; // 跳过转义字符
-            } else {
-                unescaped.write(b);
-            }
-        }
+    /**
+     * 可走快速路径的心跳帧
+     */
+    public static boolean isFastHeartbeat(byte[] data, int offset, int length) {
+        return length > 0 && length <= MAX_FAST_HEARTBEAT_LENGTH && data[offset] == 0;
+    }
 
-        return unescaped.toByteArray();
+    /**
+     * 将拆帧器输出的数据切片拷入池化帧，阻塞式、NIO与UDP接入方式共用
+     * 切片之后紧跟校验字节
+     */
+    public static ProtocolMessage acquireMessage(ProtocolMessagePool pool, byte[] buffer, int offset, int length,
+                                                 long receiveNanos, int clientIp) {
+        return pool.acquire(buffer, offset, length, buffer[offset + length], receiveNanos, clientIp);
     }
 
-    private boolean validateChecksum(byte[] data, byte expectedChecksum) {
-        byte calculatedChecksum = 0;
-        for (byte b : data) {
-            calculatedChecksum ^= b;
+    /**
+     * 刷新连接活动时间，供空闲连接回收使用
+     */
+    static void touchConnection(ConnectionManager.ClientConnection connection, ProtocolMessage message) {
+        if (isHeartbeatMessage(message)) {
+            connection.updateLastHeartbeat(message.getReceiveNanos());
+        } else {
+            connection.updateLastActivity(message.getReceiveNanos());
         }
-        return calculatedChecksum == expectedChecksum;
     }
 
-    private boolean isHeartbeatMessage(ProtocolMessage message) {
-        return message.getData().length >= 1 && message.getData()[0] == 0;
+    public static boolean isHeartbeatMessage(ProtocolMessage message) {
+        return message.getDataType() == 0;
     }
 
     private void sendHeartbeatResponse(OutputStream outputStream, ProtocolMessage originalMessage) throws IOException {
-        // 心跳响应：返回相同的数据
-        byte[] responseData = originalMessage.getData();
-
-        // 计算校验和
-        byte checksum = 0;
-        for (byte b : responseData) {
-            checksum ^= b;
-        }
-
-        // 构建响应数据（加上校验和）
-        byte[] dataWithChecksum = new byte[responseData.length + 1];
-        System.arraycopy(responseData, 0, dataWithChecksum, 0, responseData.length);
-        dataWithChecksum[dataWithChecksum.length - 1] = checksum;
-
-        // 转义处理
-        byte[] escapedData = escapeData(dataWithChecksum);
-
         // 发送响应
-        outputStream.write(0x7E); // 开始字节
-        outputStream.write((escapedData.length >> 8) & 0xFF); // 长度高字节
-        outputStream.write(escapedData.length & 0xFF); // 长度低字节
-        outputStream.write(escapedData); // 数据
-        outputStream.write(0x7D); // 结束字节
+        outputStream.write(buildHeartbeatResponse(originalMessage));
         outputStream.flush();
 
         log.debug("发送心跳响应给客户端");
     }
 
-    private byte[] escapeData(byte[] data) {
-        ByteArrayOutputStream escaped = new ByteArrayOutputStream();
-
-        for (byte b : data) {
-            if (b == 0x7E || b == 0x7D || b == 0x5C) {
-                escaped.write(0x5C); // 添加转义字符
-            }
-            escaped.write(b);
-        }
-
-        return escaped.toByteArray();
+    /**
+     * 构建心跳响应帧：返回相同的数据
+     */
+    public static byte[] buildHeartbeatResponse(ProtocolMessage originalMessage) {
+        return FrameEncoder.encode(originalMessage.getBuffer(), originalMessage.getOffset(), originalMessage.getLength());
     }
 }
-
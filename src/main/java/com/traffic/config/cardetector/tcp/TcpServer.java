@@ -3,6 +3,7 @@ package com.traffic.config.cardetector.tcp;
 import com.traffic.config.cardetector.manager.ConnectionManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -15,7 +16,12 @@ import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * 阻塞式TCP接入服务器，每个检测器连接占用一个处理线程
+ * traffic.tcp.mode=blocking（默认）时启用，高连接数场景请使用 NioTcpServer
+ */
 @Component
+@ConditionalOnProperty(prefix = "traffic.tcp", name = "mode", havingValue = "blocking", matchIfMissing = true)
 public class TcpServer {
     private static final Logger log = LoggerFactory.getLogger(TcpServer.class);
 
@@ -33,6 +39,7 @@ public class TcpServer {
 
     private ServerSocket serverSocket;
     private ExecutorService executorService;
+    private Thread acceptThread;
     private volatile boolean running = false;
 
     @PostConstruct
@@ -42,8 +49,10 @@ public class TcpServer {
             executorService = Executors.newFixedThreadPool(threadPoolSize);
             running = true;
 
-            // 启动接受连接的线程
-            executorService.submit(this::acceptConnections);
+            // 启动接受连接的线程（独立线程，不占用客户端处理线程池）
+            acceptThread = new Thread(this::acceptConnections, "TcpServer-Accept");
+            acceptThread.setDaemon(true);
+            acceptThread.start();
             log.info("TCP服务器启动成功，监听端口: {}", port);
 
         } catch (IOException e) {
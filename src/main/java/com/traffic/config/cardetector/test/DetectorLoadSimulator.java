@@ -0,0 +1,421 @@
+package com.traffic.config.cardetector.test;
+
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.codec.FrameDecoder;
+import com.traffic.config.cardetector.codec.FrameDecoderStats;
+import com.traffic.config.cardetector.codec.FrameEncoder;
+import com.traffic.config.cardetector.codec.ProtocolMessagePool;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.dispatch.OverflowPolicy;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
+import com.traffic.config.cardetector.manager.ConnectionManager;
+import com.traffic.config.cardetector.manager.DataAccessManager;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import com.traffic.config.cardetector.tcp.TcpClientHandler;
+import com.traffic.config.cardetector.tcp.TcpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多连接检测器负载模拟器
+ *
+ * 同时打开N条检测器连接，按设定速率发送转义、校验正确的心跳帧和车辆数据帧，
+ * 测量心跳往返时延和服务端接收率，用于摸清接入链路的帧率上限。
+ *
+ * 参数均为 key=value 形式，例如：
+ * <pre>
+ *   connections=200 vehicle-rate=50 heartbeat-ms=1000 duration=60 lanes=1-8 directions=1,2
+ *   plates=500 plate-skew=1.0 no-plate-ratio=0.2 host=127.0.0.1 port=8130 embedded=false
+ * </pre>
+ * embedded=true 时在本进程内按 SimpleTcpTestMain 的方式启动接入服务，可直接读取服务端计数。
+ */
+public class DetectorLoadSimulator {
+
+    private final String host;
+    private final int port;
+    private final int connections;
+    private final int durationSeconds;
+    private final int heartbeatMillis;
+    private final double vehicleRate;
+    private final int[] lanes;
+    private final int[] runDirections;
+    private final double noPlateRatio;
+    private final byte[][] plates;
+    private final double[] plateCdf;
+
+    private final LongAdder heartbeatsSent = new LongAdder();
+    private final LongAdder vehiclesSent = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder heartbeatReplies = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+
+    private volatile boolean running = true;
+
+    public DetectorLoadSimulator(Map<String, String> options) {
+        this.host = options.getOrDefault("host", "127.0.0.1");
+        this.port = Integer.parseInt(options.getOrDefault("port", "8130"));
+        this.connections = Integer.parseInt(options.getOrDefault("connections", "50"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.heartbeatMillis = Integer.parseInt(options.getOrDefault("heartbeat-ms", "1000"));
+        this.vehicleRate = Double.parseDouble(options.getOrDefault("vehicle-rate", "20"));
+        this.lanes = parseInts(options.getOrDefault("lanes", "1-8"));
+        this.runDirections = parseInts(options.getOrDefault("directions", "1,2"));
+        this.noPlateRatio = Double.parseDouble(options.getOrDefault("no-plate-ratio", "0.2"));
+
+        int plateCount = Integer.parseInt(options.getOrDefault("plates", "500"));
+        double skew = Double.parseDouble(options.getOrDefault("plate-skew", "1.0"));
+        this.plates = new byte[plateCount][];
+        this.plateCdf = new double[plateCount];
+        double total = 0;
+        for (int i = 0; i < plateCount; i++) {
+            plates[i] = String.format("鲁B%05d", i).getBytes(StandardCharsets.UTF_8);
+            // Zipf分布，skew=0 时为均匀分布
+            total += 1.0 / Math.pow(i + 1, skew);
+            plateCdf[i] = total;
+        }
+        for (int i = 0; i < plateCount; i++) {
+            plateCdf[i] /= total;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+
+        EmbeddedServer embedded = null;
+        if (Boolean.parseBoolean(options.getOrDefault("embedded", "false"))) {
+            embedded = new EmbeddedServer(Integer.parseInt(options.getOrDefault("port", "8130")),
+                    Integer.parseInt(options.getOrDefault("connections", "50")));
+            embedded.start();
+        }
+
+        DetectorLoadSimulator simulator = new DetectorLoadSimulator(options);
+        try {
+            simulator.run(embedded);
+        } finally {
+            if (embedded != null) {
+                embedded.stop();
+            }
+        }
+    }
+
+    public void run(EmbeddedServer embedded) throws InterruptedException {
+        System.out.println("=== 检测器负载模拟 ===");
+        System.out.printf("目标 %s:%d, 连接数 %d, 每连接车辆帧 %.1f/秒, 心跳间隔 %dms, 持续 %d秒%n",
+                host, port, connections, vehicleRate, heartbeatMillis, durationSeconds);
+
+        List<SimulatedDetector> detectors = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            SimulatedDetector detector = new SimulatedDetector(i);
+            if (detector.connect()) {
+                detectors.add(detector);
+            }
+        }
+        System.out.printf("已建立连接 %d/%d%n", detectors.size(), connections);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long lastVehicles = 0;
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(1000);
+            long vehicles = vehiclesSent.sum();
+            System.out.printf("已发送 车辆帧 %d (+%d/秒), 心跳 %d, 心跳应答 %d%n",
+                    vehicles, vehicles - lastVehicles, heartbeatsSent.sum(), heartbeatReplies.sum());
+            lastVehicles = vehicles;
+        }
+        running = false;
+
+        // 等待在途心跳应答
+        Thread.sleep(500);
+        for (SimulatedDetector detector : detectors) {
+            detector.close();
+        }
+        report(detectors, System.nanoTime() - start, embedded);
+    }
+
+    private void report(List<SimulatedDetector> detectors, long elapsedNanos, EmbeddedServer embedded) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        long hbSent = heartbeatsSent.sum();
+        long vSent = vehiclesSent.sum();
+        long hbReplies = heartbeatReplies.sum();
+
+        System.out.println("\n=== 模拟结果 ===");
+        System.out.printf("用时: %.1f秒, 连接失败: %d, 发送失败: %d%n", seconds, connectFailures.sum(), sendFailures.sum());
+        System.out.printf("发送: 车辆帧 %d, 心跳 %d, 合计 %.0f 帧/秒, %.1f KB/秒%n",
+                vSent, hbSent, (vSent + hbSent) / seconds, bytesSent.sum() / 1024.0 / seconds);
+        System.out.printf("心跳应答率: %.2f%% (%d/%d)%n", hbSent > 0 ? hbReplies * 100.0 / hbSent : 0, hbReplies, hbSent);
+
+        long[] rtts = mergeRtts(detectors);
+        if (rtts.length > 0) {
+            System.out.printf("心跳往返时延(us): p50=%d p90=%d p99=%d p99.9=%d max=%d%n",
+                    percentile(rtts, 0.50), percentile(rtts, 0.90), percentile(rtts, 0.99),
+                    percentile(rtts, 0.999), rtts[rtts.length - 1]);
+        }
+
+        if (embedded != null) {
+            long decoded = embedded.frameDecoderStats.getFrames();
+            long processed = embedded.processed.sum();
+            System.out.printf("服务端拆帧: %d (接收率 %.2f%%), 校验失败: %d, 重同步: %d%n",
+                    decoded, (vSent + hbSent) > 0 ? decoded * 100.0 / (vSent + hbSent) : 0,
+                    embedded.frameDecoderStats.getChecksumFailures(), embedded.frameDecoderStats.getResyncs());
+            System.out.printf("服务端分发: 已处理车辆帧 %d (%.2f%%), 队列 %s%n",
+                    processed, vSent > 0 ? processed * 100.0 / vSent : 0, embedded.ingestDispatcher.snapshot());
+        }
+    }
+
+    private static long[] mergeRtts(List<SimulatedDetector> detectors) {
+        int total = 0;
+        for (SimulatedDetector detector : detectors) total += detector.rttCount;
+        long[] all = new long[total];
+        int pos = 0;
+        for (SimulatedDetector detector : detectors) {
+            System.arraycopy(detector.rtts, 0, all, pos, detector.rttCount);
+            pos += detector.rttCount;
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static int[] parseInts(String spec) {
+        List<Integer> values = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] range = part.trim().split("-");
+            int from = Integer.parseInt(range[0].trim());
+            int to = range.length > 1 ? Integer.parseInt(range[1].trim()) : from;
+            for (int v = from; v <= to; v++) values.add(v);
+        }
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 单个模拟检测器：发送线程按速率发帧，接收线程拆解心跳应答并计算往返时延
+     */
+    private class SimulatedDetector {
+        private final int id;
+        private final byte[] signalIp;
+        private final Random random;
+        private final ConcurrentLinkedQueue<Long> pendingHeartbeats = new ConcurrentLinkedQueue<>();
+        private Socket socket;
+        private Thread sender;
+        private Thread receiver;
+
+        // 只由接收线程写入，结束后汇总
+        private long[] rtts = new long[256];
+        private int rttCount = 0;
+
+        SimulatedDetector(int id) {
+            this.id = id;
+            this.signalIp = new byte[]{10, 0, (byte) (id >> 8), (byte) (id + 1)};
+            this.random = new Random(id);
+        }
+
+        boolean connect() {
+            try {
+                socket = new Socket(host, port);
+                socket.setTcpNoDelay(true);
+            } catch (IOException e) {
+                connectFailures.increment();
+                return false;
+            }
+            sender = new Thread(this::sendLoop, "Sim-Send-" + id);
+            receiver = new Thread(this::receiveLoop, "Sim-Recv-" + id);
+            sender.setDaemon(true);
+            receiver.setDaemon(true);
+            receiver.start();
+            sender.start();
+            return true;
+        }
+
+        private void sendLoop() {
+            byte[] heartbeat = new byte[5];
+            System.arraycopy(signalIp, 0, heartbeat, 1, 4);
+            byte[] vehicle = new byte[26];
+            vehicle[0] = 0x01;
+            System.arraycopy(signalIp, 0, vehicle, 1, 4);
+
+            long vehicleInterval = vehicleRate > 0 ? (long) (1_000_000_000L / vehicleRate) : Long.MAX_VALUE;
+            long heartbeatInterval = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+            // 错开各连接的发送相位
+            long now = System.nanoTime();
+            long nextVehicle = now + (long) (random.nextDouble() * Math.min(vehicleInterval, 1_000_000_000L));
+            long nextHeartbeat = now + (long) (random.nextDouble() * heartbeatInterval);
+
+            try {
+                OutputStream out = socket.getOutputStream();
+                while (running) {
+                    now = System.nanoTime();
+                    if (now >= nextHeartbeat) {
+                        pendingHeartbeats.offer(System.nanoTime());
+                        send(out, heartbeat);
+                        heartbeatsSent.increment();
+                        nextHeartbeat += heartbeatInterval;
+                    }
+                    if (now >= nextVehicle) {
+                        fillVehicle(vehicle);
+                        send(out, vehicle);
+                        vehiclesSent.increment();
+                        nextVehicle += vehicleInterval;
+                    }
+                    long wait = Math.min(nextHeartbeat, nextVehicle) - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+            } catch (IOException e) {
+                if (running) sendFailures.increment();
+            }
+        }
+
+        private void send(OutputStream out, byte[] data) throws IOException {
+            byte[] frame = FrameEncoder.encode(data);
+            out.write(frame);
+            bytesSent.add(frame.length);
+        }
+
+        private void fillVehicle(byte[] vehicle) {
+            vehicle[5] = (byte) lanes[random.nextInt(lanes.length)];
+            Arrays.fill(vehicle, 6, 22, (byte) ' ');
+            boolean hasPlate = random.nextDouble() >= noPlateRatio;
+            if (hasPlate) {
+                int index = Arrays.binarySearch(plateCdf, random.nextDouble());
+                byte[] plate = plates[Math.min(plates.length - 1, index >= 0 ? index : -index - 1)];
+                System.arraycopy(plate, 0, vehicle, 6, Math.min(16, plate.length));
+            }
+            vehicle[22] = (byte) (hasPlate ? random.nextInt(2) : 1);         // 车入/车出
+            vehicle[23] = (byte) random.nextInt(50);                        // 排队长度
+            vehicle[24] = (byte) (20 + random.nextInt(60));                 // 速度
+            vehicle[25] = (byte) runDirections[random.nextInt(runDirections.length)];
+        }
+
+        private void receiveLoop() {
+            FrameDecoder decoder = new FrameDecoder(new FrameDecoderStats());
+            FrameDecoder.FrameHandler handler = (data, offset, length) -> {
+                if (length > 0 && data[offset] == 0) {
+                    Long sent = pendingHeartbeats.poll();
+                    if (sent != null) {
+                        recordRtt(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sent));
+                    }
+                    heartbeatReplies.increment();
+                }
+            };
+            byte[] buffer = new byte[4096];
+            ByteBuffer view = ByteBuffer.wrap(buffer);
+            try {
+                InputStream in = socket.getInputStream();
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    view.clear().limit(n);
+                    decoder.decode(view, handler);
+                }
+            } catch (IOException e) {
+                // 连接关闭
+            }
+        }
+
+        private void recordRtt(long micros) {
+            if (rttCount == rtts.length) {
+                rtts = Arrays.copyOf(rtts, rtts.length * 2);
+            }
+            rtts[rttCount++] = micros;
+        }
+
+        void close() {
+            try {
+                socket.close();
+                receiver.join(1000);
+                sender.join(1000);
+            } catch (IOException | InterruptedException e) {
+                // 忽略
+            }
+        }
+    }
+
+    /**
+     * 进程内接入服务，组装方式同 SimpleTcpTestMain，数据访问管理器只计数不打印
+     */
+    static class EmbeddedServer {
+        final FrameDecoderStats frameDecoderStats = new FrameDecoderStats();
+        final LongAdder processed = new LongAdder();
+        final IngestDispatcher ingestDispatcher;
+        private final TcpServer tcpServer = new TcpServer();
+
+        EmbeddedServer(int port, int connections) {
+            DataAccessManager dataAccessManager = new DataAccessManager() {
+                @Override
+                public void processMessage(ProtocolMessage message) {
+                    if (message.getDataType() == 1) processed.increment();
+                }
+
+                @Override
+                public void processBatch(ProtocolMessage[] messages, int count) {
+                    for (int i = 0; i < count; i++) {
+                        processMessage(messages[i]);
+                    }
+                }
+            };
+            ConnectionManager connectionManager = new ConnectionManager();
+            ingestDispatcher = new IngestDispatcher(dataAccessManager, 4096, OverflowPolicy.BLOCK);
+
+            TcpClientHandler clientHandler = new TcpClientHandler();
+            setField(clientHandler, "connectionManager", connectionManager);
+            setField(clientHandler, "ingestDispatcher", ingestDispatcher);
+            setField(clientHandler, "ingestMetrics", new IngestMetrics(frameDecoderStats, null));
+            setField(clientHandler, "messagePool", new ProtocolMessagePool(4096, 256));
+            setField(clientHandler, "heartbeatMonitor", new HeartbeatMonitor(Math.max(256, connections), 30, true));
+            // 未初始化的抓包日志不写文件
+            setField(clientHandler, "frameCaptureLog", new FrameCaptureLog());
+
+            setField(tcpServer, "port", port);
+            setField(tcpServer, "threadPoolSize", connections + 1);
+            setField(tcpServer, "connectionManager", connectionManager);
+            setField(tcpServer, "clientHandler", clientHandler);
+        }
+
+        void start() {
+            ingestDispatcher.start();
+            tcpServer.startServer();
+        }
+
+        void stop() {
+            tcpServer.stopServer();
+            ingestDispatcher.stop();
+        }
+
+        private static void setField(Object target, String fieldName, Object value) {
+            try {
+                java.lang.reflect.Field field = target.getClass().getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+            } catch (Exception e) {
+                System.err.println("警告: 无法设置字段 " + fieldName + ": " + e.getMessage());
+            }
+        }
+    }
+}
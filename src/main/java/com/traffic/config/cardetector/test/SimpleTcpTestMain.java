@@ -1,7 +1,14 @@
 package com.traffic.config.cardetector.test;
 
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.codec.FrameDecoderStats;
+import com.traffic.config.cardetector.codec.ProtocolMessagePool;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.dispatch.OverflowPolicy;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
 import com.traffic.config.cardetector.manager.ConnectionManager;
 import com.traffic.config.cardetector.manager.DataAccessManager;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
 import com.traffic.config.cardetector.model.ProtocolMessage;
 import com.traffic.config.cardetector.parser.VehicleDataParser;
 import com.traffic.config.cardetector.tcp.TcpClientHandler;
@@ -30,7 +37,14 @@ public class SimpleTcpTestMain {
             // 创建客户端处理器
             TcpClientHandler clientHandler = new TcpClientHandler();
             setField(clientHandler, "connectionManager", connectionManager);
-            setField(clientHandler, "dataAccessManager", dataAccessManager);
+            IngestDispatcher ingestDispatcher = new IngestDispatcher(dataAccessManager, 1024, OverflowPolicy.BLOCK);
+            ingestDispatcher.start();
+            setField(clientHandler, "ingestDispatcher", ingestDispatcher);
+            setField(clientHandler, "ingestMetrics", new IngestMetrics(new FrameDecoderStats(), null));
+            setField(clientHandler, "messagePool", new ProtocolMessagePool(256, 256));
+            // 关闭心跳快速路径，心跳也交给测试管理器打印
+            setField(clientHandler, "heartbeatMonitor", new HeartbeatMonitor(256, 30, false));
+            setField(clientHandler, "frameCaptureLog", new FrameCaptureLog("./capture", 16 * 1024 * 1024, 4));
 
             // 创建并启动TCP服务器
             TcpServer tcpServer = new TcpServer();
@@ -77,24 +91,32 @@ public class SimpleTcpTestMain {
             this.vehicleDataParser = parser;
         }
 
+        @Override
+        public void processBatch(ProtocolMessage[] messages, int count) {
+            for (int i = 0; i < count; i++) {
+                processMessage(messages[i]);
+            }
+        }
+
         @Override
         public void processMessage(ProtocolMessage message) {
             System.out.println("\n=== 收到消息 ===");
             System.out.println("时间: " + message.getReceiveTime());
             System.out.println("来源IP: " + message.getClientAddress());
             System.out.println("数据长度: " + message.getDataLength());
+            byte[] data = message.getData();
 
             try {
                 // 判断消息类型并解析
-                if (message.getData().length > 0) {
-                    byte dataType = message.getData()[0];
+                if (data.length > 0) {
+                    byte dataType = data[0];
 
                     if (dataType == 0x00) {
                         // 心跳消息
                         System.out.println("消息类型: 心跳消息");
-                        if (message.getData().length >= 5) {
+                        if (data.length >= 5) {
                             byte[] ipBytes = new byte[4];
-                            System.arraycopy(message.getData(), 1, ipBytes, 0, 4);
+                            System.arraycopy(data, 1, ipBytes, 0, 4);
                             String ip = String.format("%d.%d.%d.%d",
                                     ipBytes[0] & 0xFF, ipBytes[1] & 0xFF,
                                     ipBytes[2] & 0xFF, ipBytes[3] & 0xFF);
@@ -129,10 +151,10 @@ public class SimpleTcpTestMain {
                 }
 
                 // 显示原始数据
-                System.out.println("原始数据: " + formatBytes(message.getData()));
+                System.out.println("原始数据: " + formatBytes(data));
 
             } catch (DataParseException e) {
-                System.out.println("原始数据: " + formatBytes(message.getData()));
+                System.out.println("原始数据: " + formatBytes(data));
                 System.err.println("✗ 数据解析失败: " + e.getMessage());
             } catch (Exception e) {
                 System.err.println("✗ 处理消息时出错: " + e.getMessage());
@@ -0,0 +1,273 @@
+package com.traffic.config.cardetector.udp;
+
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.codec.FrameDecoder;
+import com.traffic.config.cardetector.codec.FrameEncoder;
+import com.traffic.config.cardetector.codec.ProtocolMessagePool;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import com.traffic.config.cardetector.tcp.TcpClientHandler;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * UDP检测器接入
+ *
+ * 与TCP接入共用拆帧器、抓包日志、心跳快速路径和接入分发队列，帧进入同一条 DataAccessManager 处理链路。
+ * 一个数据报可包含多个帧，帧不跨数据报，数据报末尾的半帧被丢弃并计数。
+ * 心跳应答按来源地址回发。
+ *
+ * 来源按 IP+端口 区分：同一IP上的多个检测器进程各自拥有拆帧器和序号统计，不会互相判为乱序或重复。
+ * traffic.udp.sequence-header=true 时每个数据报以4字节大端序号开头，
+ * 据此按来源统计丢失、乱序和重复，重复的数据报直接丢弃。
+ * 通过 traffic.udp.enabled=true 启用，可与TCP接入同时运行。
+ */
+@Component
+@ConditionalOnProperty(prefix = "traffic.udp", name = "enabled", havingValue = "true")
+public class UdpDetectorServer {
+    private static final Logger log = LoggerFactory.getLogger(UdpDetectorServer.class);
+
+    private static final int MAX_DATAGRAM_SIZE = 65535;
+
+    @Value("${traffic.udp.port:8131}")
+    private int port = 8131;
+
+    @Value("${traffic.udp.sequence-header:false}")
+    private boolean sequenceHeader = false;
+
+    @Value("${traffic.udp.receive-buffer-bytes:4194304}")
+    private int receiveBufferBytes = 4194304;
+
+    // 序号回退超过此值视为发送端重启，重新建立序号基线
+    @Value("${traffic.udp.sequence-reset-threshold:1024}")
+    private int sequenceResetThreshold = UdpSourceStats.DEFAULT_RESET_THRESHOLD;
+
+    @Autowired
+    private IngestDispatcher ingestDispatcher;
+
+    @Autowired
+    private IngestMetrics ingestMetrics;
+
+    @Autowired
+    private ProtocolMessagePool messagePool;
+
+    @Autowired
+    private HeartbeatMonitor heartbeatMonitor;
+
+    @Autowired
+    private FrameCaptureLog frameCaptureLog;
+
+    /**
+     * 每个来源的拆帧器和统计
+     */
+    private static final class UdpSource {
+        final int ip;
+        final String name;
+        final FrameDecoder decoder;
+        final IngestMetrics.DetectorMetrics metrics;
+        final UdpSourceStats stats;
+
+        UdpSource(int ip, String name, IngestMetrics.DetectorMetrics metrics, int resetThreshold) {
+            this.ip = ip;
+            this.name = name;
+            this.metrics = metrics;
+            this.decoder = new FrameDecoder(metrics.getDecoderStats());
+            this.stats = new UdpSourceStats(name, resetThreshold);
+        }
+    }
+
+    private final ConcurrentHashMap<InetSocketAddress, UdpSource> sources = new ConcurrentHashMap<>();
+
+    private DatagramChannel channel;
+    private Thread receiveThread;
+    private volatile boolean running = false;
+    private long lastReportedLost;
+
+    // 以下字段只在接收线程中访问
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+    private final byte[] replyBuffer = new byte[TcpClientHandler.HEARTBEAT_REPLY_BUFFER_SIZE];
+    private final ByteBuffer replyView = ByteBuffer.wrap(replyBuffer);
+    private final FrameDecoder.FrameHandler frameHandler = this::onFrame;
+    private UdpSource currentSource;
+    private SocketAddress currentSender;
+    private int currentFrames;
+
+    @PostConstruct
+    public void start() {
+        try {
+            channel = DatagramChannel.open();
+            channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferBytes);
+            channel.bind(new InetSocketAddress(port));
+            running = true;
+
+            receiveThread = new Thread(this::receiveLoop, "UdpIngest");
+            receiveThread.setDaemon(true);
+            receiveThread.start();
+            log.info("UDP接入启动成功，监听端口: {}, 序号头: {}", port, sequenceHeader);
+        } catch (IOException e) {
+            log.error("UDP接入启动失败", e);
+            throw new RuntimeException("Failed to start UDP server", e);
+        }
+    }
+
+    private void receiveLoop() {
+        while (running) {
+            try {
+                receiveBuffer.clear();
+                SocketAddress sender = channel.receive(receiveBuffer);
+                if (sender == null) {
+                    continue;
+                }
+                receiveBuffer.flip();
+                onDatagram((InetSocketAddress) sender, receiveBuffer);
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                if (running) {
+                    log.error("接收UDP数据报时发生错误", e);
+                }
+            } catch (Exception e) {
+                log.error("处理UDP数据报时发生错误", e);
+            }
+        }
+    }
+
+    /**
+     * 处理一个数据报，其中的全部帧解出后依次进入接入链路
+     */
+    void onDatagram(InetSocketAddress sender, ByteBuffer datagram) throws IOException {
+        UdpSource source = sources.get(sender);
+        if (source == null) {
+            int ip = DataUtil.ipv4ToInt(sender.getAddress());
+            String name = DataUtil.formatIpv4(ip) + ":" + sender.getPort();
+            // 指标按检测器IP汇总，同一IP的多个端口共用
+            source = sources.computeIfAbsent(sender,
+                    k -> new UdpSource(ip, name, ingestMetrics.forDetector(ip), sequenceResetThreshold));
+            log.info("新UDP数据源: {}", name);
+        }
+        source.stats.onDatagram(datagram.remaining());
+
+        if (sequenceHeader) {
+            if (datagram.remaining() < 4) {
+                source.stats.onMalformed();
+                return;
+            }
+            if (!source.stats.onSequence(datagram.getInt())) {
+                return;
+            }
+        }
+
+        currentSource = source;
+        currentSender = sender;
+        currentFrames = 0;
+        try {
+            long start = System.nanoTime();
+            source.decoder.decode(datagram, frameHandler);
+            source.metrics.recordDecode(System.nanoTime() - start);
+        } finally {
+            // 帧不跨数据报，末尾的半帧丢弃
+            if (source.decoder.isInFrame()) {
+                source.stats.onTruncated();
+                source.decoder.reset();
+            }
+            source.stats.onFrames(currentFrames);
+            currentSource = null;
+            currentSender = null;
+        }
+    }
+
+    private void onFrame(byte[] data, int offset, int length) throws IOException {
+        UdpSource source = currentSource;
+        long now = NanoClock.epochNanos();
+        currentFrames++;
+        frameCaptureLog.append(data, offset, length, source.ip, now);
+        if (heartbeatMonitor.isFastPath() && TcpClientHandler.isFastHeartbeat(data, offset, length)) {
+            heartbeatMonitor.onHeartbeat(data, offset, length, now);
+            int n = FrameEncoder.encode(data, offset, length, replyBuffer, 0);
+            replyView.clear().limit(n);
+            channel.send(replyView, currentSender);
+            source.metrics.recordHeartbeatReply(NanoClock.epochNanos() - now);
+            return;
+        }
+
+        ProtocolMessage message = TcpClientHandler.acquireMessage(messagePool, data, offset, length, now, source.ip);
+        if (TcpClientHandler.isHeartbeatMessage(message)) {
+            channel.send(ByteBuffer.wrap(TcpClientHandler.buildHeartbeatResponse(message)), currentSender);
+            source.metrics.recordHeartbeatReply(NanoClock.epochNanos() - now);
+        }
+
+        // 交给分发线程处理，帧的所有权随之移交
+        if (!ingestDispatcher.tryDispatch(message)) {
+            log.debug("接入队列已满，丢弃UDP来源 {} 的数据帧", currentSender);
+        }
+    }
+
+    /**
+     * 有丢包时定期告警
+     */
+    @Scheduled(fixedRate = 10000)
+    public void reportLoss() {
+        if (!sequenceHeader) return;
+        long lost = 0;
+        for (UdpSource source : sources.values()) {
+            lost += source.stats.getLost();
+        }
+        if (lost > lastReportedLost) {
+            log.warn("UDP接入近期丢失 {} 个数据报，累计 {}", lost - lastReportedLost, lost);
+        }
+        lastReportedLost = lost;
+    }
+
+    /**
+     * 各来源接收统计，键为 "IP:端口"
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new TreeMap<>();
+        sources.values().forEach(source -> result.put(source.name, source.stats.snapshot()));
+        return result;
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+            if (receiveThread != null) {
+                receiveThread.join(5000);
+            }
+        } catch (IOException e) {
+            log.error("关闭UDP接入时发生错误", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("UDP接入已停止");
+    }
+
+    public boolean isRunning() {
+        return running && channel != null && channel.isOpen();
+    }
+}
@@ -0,0 +1,178 @@
+package com.traffic.config.cardetector.udp;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个UDP数据源（IP+端口）的接收统计
+ *
+ * 数据报带序号时，以最高序号和其后64个序号的位图判断乱序与重复：
+ * 丢失数 = 期望收到数（最高序号 - 首个序号 + 1）- 实际收到的不重复数，迟到的数据报到达后自动从丢失中扣除。
+ * 序号按32位回绕比较，首个序号到最高序号的距离按64位累计，长时间运行跨过多次回绕后丢失数仍然正确。
+ * 序号回退超过重置阈值视为发送端重启：此前的丢失数结转，以新序号重新建立基线。
+ * 只由接收线程写入，读取快照时同步。
+ */
+public class UdpSourceStats {
+
+    private static final int WINDOW = 64;
+
+    /** 默认重置阈值：乱序不会落后这么多，回退到此程度只能是发送端重启 */
+    public static final int DEFAULT_RESET_THRESHOLD = 1024;
+
+    private final String source;
+    private final int resetThreshold;
+
+    private long datagrams;
+    private long bytes;
+    private long frames;
+    private long truncatedDatagrams;
+    private long malformedDatagrams;
+
+    // 序号统计，均为当前基线以来
+    private boolean sequenced;
+    private int highestSequence;
+    private long span;            // 首个序号到最高序号的距离
+    private long window;          // bit i 表示 highestSequence - i 已收到
+    private long uniqueReceived;
+    private long reordered;
+    private long duplicates;
+    private long tooLate;         // 落后超过窗口，无法判断是否重复
+
+    // 历次重置前结转的数量
+    private long resets;
+    private long lostBeforeReset;
+    private long receivedBeforeReset;
+
+    public UdpSourceStats(String source) {
+        this(source, DEFAULT_RESET_THRESHOLD);
+    }
+
+    /**
+     * @param resetThreshold 序号回退超过此值时重新建立基线，不小于位图窗口
+     */
+    public UdpSourceStats(String source, int resetThreshold) {
+        this.source = source;
+        this.resetThreshold = Math.max(WINDOW, resetThreshold);
+    }
+
+    public synchronized void onDatagram(int length) {
+        datagrams++;
+        bytes += length;
+    }
+
+    public synchronized void onFrames(int count) {
+        frames += count;
+    }
+
+    public synchronized void onTruncated() {
+        truncatedDatagrams++;
+    }
+
+    public synchronized void onMalformed() {
+        malformedDatagrams++;
+    }
+
+    /**
+     * 记录数据报序号
+     * @return false 表示重复的数据报，调用方应丢弃
+     */
+    public synchronized boolean onSequence(int sequence) {
+        if (!sequenced) {
+            sequenced = true;
+            baseline(sequence);
+            return true;
+        }
+        int delta = sequence - highestSequence;
+        if (delta > 0) {
+            window = delta >= WINDOW ? 1L : (window << delta) | 1L;
+            highestSequence = sequence;
+            span += delta;
+            uniqueReceived++;
+            return true;
+        }
+        long behind = -(long) delta;
+        if (behind >= resetThreshold) {
+            lostBeforeReset += lostSinceBaseline();
+            receivedBeforeReset += uniqueReceived;
+            resets++;
+            baseline(sequence);
+            return true;
+        }
+        if (behind > span) {
+            // 早于首个序号的迟到数据报不计入
+            return true;
+        }
+        if (behind >= WINDOW) {
+            tooLate++;
+            reordered++;
+            uniqueReceived++;
+            return true;
+        }
+        long bit = 1L << behind;
+        if ((window & bit) != 0) {
+            duplicates++;
+            return false;
+        }
+        window |= bit;
+        reordered++;
+        uniqueReceived++;
+        return true;
+    }
+
+    private void baseline(int sequence) {
+        highestSequence = sequence;
+        span = 0;
+        window = 1L;
+        uniqueReceived = 1;
+    }
+
+    private long lostSinceBaseline() {
+        return Math.max(0, span + 1 - uniqueReceived);
+    }
+
+    /**
+     * 估计的丢失数据报数，包含重置前结转的部分
+     */
+    public synchronized long getLost() {
+        if (!sequenced) return 0;
+        return lostBeforeReset + lostSinceBaseline();
+    }
+
+    public synchronized long getResets() {
+        return resets;
+    }
+
+    public synchronized long getReordered() {
+        return reordered;
+    }
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    public synchronized long getDatagrams() {
+        return datagrams;
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("source", source);
+        result.put("datagrams", datagrams);
+        result.put("bytes", bytes);
+        result.put("frames", frames);
+        result.put("truncatedDatagrams", truncatedDatagrams);
+        result.put("malformedDatagrams", malformedDatagrams);
+        if (sequenced) {
+            long lost = getLost();
+            long expected = lost + receivedBeforeReset + uniqueReceived;
+            result.put("highestSequence", highestSequence & 0xFFFFFFFFL);
+            result.put("lost", lost);
+            result.put("lossRate", expected > 0 ? Math.round(lost * 10000.0 / expected) / 100.0 : 0.0);
+            result.put("reordered", reordered);
+            result.put("duplicates", duplicates);
+            result.put("tooLate", tooLate);
+            result.put("resets", resets);
+        }
+        return result;
+    }
+}
@@ -4,6 +4,8 @@ public enum DataType {
     HEARTBEAT(0, "心跳"),
     NORMAL_DATA(1, "正常数据");
 
+    private static final DataType[] VALUES = values();
+
     private final int code;
     private final String description;
 
@@ -16,7 +18,7 @@ public enum DataType {
     public String getDescription() { return description; }
 
     public static DataType fromCode(int code) {
-        for (DataType type : values()) {
+        for (DataType type : VALUES) {
             if (type.code == code) return type;
         }
         throw new IllegalArgumentException("Unknown data type code: " + code);
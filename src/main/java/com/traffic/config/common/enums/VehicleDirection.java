@@ -4,6 +4,8 @@ public enum VehicleDirection {
     OUT(0, "车出"),
     IN(1, "车入");
 
+    private static final VehicleDirection[] VALUES = values();
+
     private final int code;
     private final String description;
 
@@ -16,7 +18,7 @@ public enum VehicleDirection {
     public String getDescription() { return description; }
 
     public static VehicleDirection fromCode(int code) {
-        for (VehicleDirection direction : values()) {
+        for (VehicleDirection direction : VALUES) {
             if (direction.code == code) return direction;
         }
         throw new IllegalArgumentException("Unknown direction code: " + code);
@@ -0,0 +1,147 @@
+package com.traffic.config.controller;
+
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.capture.FrameCaptureReader;
+import com.traffic.config.cardetector.capture.FrameReplayer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 抓包与回放接口
+ *
+ * 回放在后台线程执行，通过 /status 查询进度和最近一次回放报告。
+ */
+@RestController
+@RequestMapping("/api/test/replay")
+public class CaptureReplayController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CaptureReplayController.class);
+
+    @Autowired
+    private FrameReplayer frameReplayer;
+
+    @Autowired
+    private FrameCaptureLog frameCaptureLog;
+
+    @Value("${traffic.tcp.port:8130}")
+    private int tcpPort;
+
+    private volatile Map<String, Object> lastReport;
+
+    /**
+     * 启动回放
+     * 从当前抓包目录回放时只读取已完成的分段：正在写入的分段在TCP回放时会把回放帧再次抓入，形成循环
+     * @param source 抓包文件或目录，缺省为当前抓包目录
+     * @param speed  倍速，1为原速，0为最快速度
+     * @param target DISPATCH 或 TCP
+     */
+    @PostMapping("/start")
+    public Map<String, Object> startReplay(@RequestParam(required = false) String source,
+                                           @RequestParam(defaultValue = "1") double speed,
+                                           @RequestParam(defaultValue = "DISPATCH") String target,
+                                           @RequestParam(defaultValue = "127.0.0.1") String host,
+                                           @RequestParam(required = false) Integer port) {
+        Map<String, Object> response = new HashMap<>();
+        if (frameReplayer.isRunning()) {
+            response.put("success", false);
+            response.put("message", "已有回放正在进行");
+            return response;
+        }
+
+        File sourceFile = source != null ? new File(source) : frameCaptureLog.getCaptureDir();
+        if (sourceFile == null || !sourceFile.exists()) {
+            response.put("success", false);
+            response.put("message", "抓包文件不存在: " + source);
+            return response;
+        }
+
+        File[] segments;
+        try {
+            if (isCaptureDir(sourceFile)) {
+                segments = frameCaptureLog.listSealedSegments();
+                if (segments.length == 0) {
+                    response.put("success", false);
+                    response.put("message", "抓包目录中还没有已完成的分段，正在写入的分段不能回放");
+                    return response;
+                }
+            } else if (frameCaptureLog.isLiveSegment(sourceFile)) {
+                response.put("success", false);
+                response.put("message", "抓包分段正在写入，不能回放: " + sourceFile.getName());
+                return response;
+            } else {
+                segments = FrameCaptureReader.segmentsOf(sourceFile);
+            }
+        } catch (IOException e) {
+            response.put("success", false);
+            response.put("message", "读取抓包文件失败: " + e.getMessage());
+            return response;
+        }
+
+        FrameReplayer.Target replayTarget;
+        try {
+            replayTarget = FrameReplayer.Target.valueOf(target.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "无效的回放目标: " + target);
+            return response;
+        }
+
+        int replayPort = port != null ? port : tcpPort;
+        Thread thread = new Thread(() -> {
+            try {
+                lastReport = frameReplayer.replay(segments, sourceFile.getPath(), speed, replayTarget, host, replayPort);
+            } catch (Exception e) {
+                logger.error("回放失败: {}", sourceFile, e);
+                Map<String, Object> failed = new HashMap<>();
+                failed.put("error", e.getMessage());
+                lastReport = failed;
+            }
+        }, "FrameReplay");
+        thread.setDaemon(true);
+        thread.start();
+
+        response.put("success", true);
+        response.put("message", "回放已启动");
+        response.put("source", sourceFile.getPath());
+        response.put("segments", segments.length);
+        response.put("speed", speed);
+        response.put("target", replayTarget.name());
+        response.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        return response;
+    }
+
+    private boolean isCaptureDir(File file) throws IOException {
+        File captureDir = frameCaptureLog.getCaptureDir();
+        return captureDir != null && file.isDirectory()
+                && file.getCanonicalFile().equals(captureDir.getCanonicalFile());
+    }
+
+    @PostMapping("/cancel")
+    public Map<String, Object> cancelReplay() {
+        frameReplayer.cancel();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("running", frameReplayer.isRunning());
+        return response;
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> getStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("running", frameReplayer.isRunning());
+        response.put("progress", frameReplayer.getProgress());
+        response.put("capture", frameCaptureLog.snapshot());
+        response.put("lastReport", lastReport);
+        return response;
+    }
+}
@@ -1,5 +1,6 @@
 package com.traffic.config.controller;
 
+import com.traffic.config.cardetector.routing.SegmentRouter;
 import com.traffic.config.entity.DetectPoint;
 import com.traffic.config.entity.GlobalConfig;
 import com.traffic.config.entity.Segment;
@@ -30,6 +31,9 @@ public class ConfigController {
     @Autowired
     private ConfigService configService;
 
+    @Autowired
+    private SegmentRouter segmentRouter;
+
     // ==================== 查询接口 ====================
 
     /**
@@ -165,6 +169,14 @@ public class ConfigController {
         }
     }
 
+    /**
+     * 获取由检测点配置编译出的路由表
+     */
+    @GetMapping("/detectpoints/routes")
+    public ResponseEntity<List<Map<String, Object>>> getDetectPointRoutes() {
+        return ResponseEntity.ok(segmentRouter.getTable().describe());
+    }
+
     /**
      * 获取所有等待区配置
      */
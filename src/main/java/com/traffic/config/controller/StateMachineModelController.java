@@ -0,0 +1,42 @@
+package com.traffic.config.controller;
+
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.core.TopLevelStateMachine;
+import com.traffic.config.statemachinev3.transition.TransitionTable;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 状态机转换模型查询接口
+ *
+ * 导出路段和系统状态机编译后的转换表及校验结果。
+ */
+@RestController
+@RequestMapping("/api/statemachine/transitions")
+public class StateMachineModelController {
+
+    /**
+     * @param machine segment 或 system
+     */
+    @GetMapping("/{machine}")
+    public Map<String, Object> transitions(@PathVariable String machine) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        TransitionTable<?, ?, ?> table;
+        switch (machine) {
+            case "segment" -> table = SegmentStateMachine.transitionTable();
+            case "system" -> table = TopLevelStateMachine.transitionTable();
+            default -> {
+                response.put("success", false);
+                response.put("message", "未知的状态机: " + machine);
+                return response;
+            }
+        }
+        response.put("success", true);
+        response.put("problems", table.validate());
+        response.put("entryActions", table.exportEntryActions());
+        response.put("transitions", table.export());
+        return response;
+    }
+}
@@ -0,0 +1,70 @@
+package com.traffic.config.controller;
+
+import com.traffic.config.cardetector.stats.TrafficStatsEngine;
+import com.traffic.config.util.DataUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 交通统计查询接口
+ *
+ * 返回滑动窗口内的车流量、速度分布、排队长度分布和拥堵程度。
+ */
+@RestController
+@RequestMapping("/api/traffic/stats")
+public class TrafficStatsController {
+
+    @Autowired
+    private TrafficStatsEngine trafficStatsEngine;
+
+    @GetMapping("/lanes")
+    public Map<String, Object> getAllLanes() {
+        return trafficStatsEngine.getAllLaneStats();
+    }
+
+    /**
+     * @param ip 信号机IP
+     * @param lane 车道编号
+     */
+    @GetMapping("/lanes/{ip}/{lane}")
+    public Map<String, Object> getLane(@PathVariable String ip, @PathVariable int lane) {
+        Map<String, Object> response = new HashMap<>();
+        int signalIp;
+        try {
+            signalIp = DataUtil.parseIpv4(ip);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("message", "无效的信号机IP: " + ip);
+            return response;
+        }
+        Map<String, Object> stats = trafficStatsEngine.getLaneStats(signalIp, lane);
+        response.put("success", stats != null);
+        if (stats == null) {
+            response.put("message", "该车道暂无统计数据");
+        } else {
+            response.put("stats", stats);
+        }
+        return response;
+    }
+
+    @GetMapping("/segments")
+    public Map<Integer, Object> getAllSegments() {
+        return trafficStatsEngine.getAllSegmentStats();
+    }
+
+    @GetMapping("/segments/{segmentId}")
+    public Map<String, Object> getSegment(@PathVariable int segmentId) {
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> stats = trafficStatsEngine.getSegmentStats(segmentId);
+        response.put("success", stats != null);
+        if (stats == null) {
+            response.put("message", "该路段暂无统计数据");
+        } else {
+            response.put("stats", stats);
+        }
+        return response;
+    }
+}
@@ -15,4 +15,10 @@ public class DetectPoint {
     private int index;
     @XmlElement(name = "details")
     private String details;
+    // 所属路段，未配置时按检测点编号推算：1、2为路段1，3、4为路段2，依此类推
+    @XmlElement(name = "segmentId")
+    private Integer segmentId;
+    // 检测点位于路段的哪一端 UPSTREAM/DOWNSTREAM，未配置时奇数编号为上游端，偶数编号为下游端
+    @XmlElement(name = "side")
+    private String side;
 }
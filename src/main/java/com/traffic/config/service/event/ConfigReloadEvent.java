@@ -0,0 +1,30 @@
+package com.traffic.config.service.event;
+
+import com.traffic.config.entity.SingleLane;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 配置文件重新加载或保存后发布，携带新的配置
+ */
+public class ConfigReloadEvent extends ApplicationEvent {
+    private final SingleLane config;
+
+    /**
+     * @param source 发生事件的对象，通常是 this
+     * @param config 新的配置
+     */
+    public ConfigReloadEvent(Object source, SingleLane config) {
+        super(source);
+        this.config = config;
+    }
+
+    public SingleLane getConfig() {
+        return config;
+    }
+
+    @Override
+    public String toString() {
+        int segments = config != null && config.getSegments() != null ? config.getSegments().getSize() : 0;
+        return "ConfigReloadEvent{segments=" + segments + "}";
+    }
+}
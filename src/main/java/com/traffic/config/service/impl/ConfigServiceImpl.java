@@ -3,11 +3,13 @@ package com.traffic.config.service.impl;
 import com.traffic.config.entity.*;
 import com.traffic.config.exception.ConfigException;
 import com.traffic.config.service.ConfigService;
+import com.traffic.config.service.event.ConfigReloadEvent;
 import com.traffic.config.service.event.ServerUrlUpdateEvent;
 import com.traffic.config.service.event.SignalListEvent;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
@@ -28,8 +30,11 @@ import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -51,6 +56,8 @@ public class ConfigServiceImpl implements ConfigService {
     private boolean validationEnabled;
 
     private SingleLane cachedConfig;
+    // 检测点编号 -> 检测点，随缓存配置一起替换
+    private volatile Map<Integer, DetectPoint> detectPointIndex = Collections.emptyMap();
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private long lastModified = 0;
     private JAXBContext jaxbContext;
@@ -92,6 +99,8 @@ public class ConfigServiceImpl implements ConfigService {
 
     @Override
     public SingleLane loadConfig() {
+        SingleLane reloaded = null;
+        SingleLane config;
         lock.readLock().lock();
         try {
             File configFile = getConfigFile();
@@ -106,6 +115,7 @@ public class ConfigServiceImpl implements ConfigService {
                         log.debug("重新加载配置文件: {}", configFile.getAbsolutePath());
                         cachedConfig = parseConfigFile(configFile);
                         lastModified = configFile.lastModified();
+                        detectPointIndex = indexDetectPoints(cachedConfig);
 
                         // 验证配置
                         if (validationEnabled) {
@@ -114,8 +124,7 @@ public class ConfigServiceImpl implements ConfigService {
 
                         log.info("配置文件加载成功, 路段数量: {}, 检测点数量: {}",
                                 cachedConfig.getSegments().getSize(), cachedConfig.getDetectPoints().getDetectPointList().size());
-
-                        eventPublisher.publishEvent(new ServerUrlUpdateEvent(this, cachedConfig.getGlobal().getPlatformUrl()));
+                        reloaded = cachedConfig;
                     }
                 } finally {
                     lock.readLock().lock();
@@ -124,7 +133,7 @@ public class ConfigServiceImpl implements ConfigService {
             }
             log.info("配置文件加载成功, 路段数量: {}",
                     cachedConfig.getSegments().getSize());
-            return cachedConfig;
+            config = cachedConfig;
         } catch (Exception e) {
             log.error("加载配置文件失败: {}", e.getMessage(), e);
             if (e instanceof ConfigException) {
@@ -134,6 +143,12 @@ public class ConfigServiceImpl implements ConfigService {
         } finally {
             lock.readLock().unlock();
         }
+
+        if (reloaded != null) {
+            publishConfigEvent(new ServerUrlUpdateEvent(this, reloaded.getGlobal().getPlatformUrl()));
+            publishConfigEvent(new ConfigReloadEvent(this, reloaded));
+        }
+        return config;
     }
 
     @Override
@@ -162,6 +177,7 @@ public class ConfigServiceImpl implements ConfigService {
             // 更新缓存
             cachedConfig = config;
             lastModified = configFile.lastModified();
+            detectPointIndex = indexDetectPoints(config);
 
             log.info("配置文件保存成功: {}", configFile.getAbsolutePath());
 
@@ -177,6 +193,31 @@ public class ConfigServiceImpl implements ConfigService {
         } finally {
             lock.writeLock().unlock();
         }
+        publishConfigEvent(new ConfigReloadEvent(this, config));
+    }
+
+    /**
+     * 释放配置锁之后发布：监听器在调用线程上同步执行，持锁发布会让监听器阻塞配置读写，
+     * 监听器中再保存配置还会死锁；监听器抛出的异常只记录，不影响已完成的加载或保存
+     */
+    private void publishConfigEvent(ApplicationEvent event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (Exception e) {
+            log.error("配置事件监听器处理失败: {}", event, e);
+        }
+    }
+
+    private static Map<Integer, DetectPoint> indexDetectPoints(SingleLane config) {
+        if (config == null || config.getDetectPoints() == null || config.getDetectPoints().getDetectPointList() == null) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, DetectPoint> index = new HashMap<>();
+        for (DetectPoint detectPoint : config.getDetectPoints().getDetectPointList()) {
+            // 编号重复时与原先的线性查找一致，取第一个
+            index.putIfAbsent(detectPoint.getIndex(), detectPoint);
+        }
+        return index;
     }
 
     @Override
@@ -249,10 +290,7 @@ public class ConfigServiceImpl implements ConfigService {
 
     @Override
     public Optional<DetectPoint> getDetectPointByIndex(int index) {
-        //return Optional.empty();
-        return getAllDetectPoints().stream()
-                .filter(detectPoint -> index==detectPoint.getIndex())
-                .findFirst();
+        return Optional.ofNullable(detectPointIndex.get(index));
     }
 
     @Override
@@ -430,6 +468,14 @@ public class ConfigServiceImpl implements ConfigService {
         if (detectPoint.getIndex() <= 0) {
             throw ConfigException.validationError("detectPoint.index", detectPoint.getIndex());
         }
+        if (detectPoint.getSegmentId() != null && detectPoint.getSegmentId() <= 0) {
+            throw ConfigException.validationError("detectPoint.segmentId", detectPoint.getSegmentId());
+        }
+        if (detectPoint.getSide() != null
+                && !"UPSTREAM".equalsIgnoreCase(detectPoint.getSide().trim())
+                && !"DOWNSTREAM".equalsIgnoreCase(detectPoint.getSide().trim())) {
+            throw ConfigException.validationError("detectPoint.side", detectPoint.getSide());
+        }
 
     }
     private void checkDetectPointsReadonly() {
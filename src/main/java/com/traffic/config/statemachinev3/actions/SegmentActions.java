@@ -8,6 +8,8 @@ import com.traffic.config.statemachinev3.events.SegmentMachineActionEvent;
 import com.traffic.config.statemachinev3.variables.SegmentVariables;
 import com.traffic.config.statemachinev3.constants.SegmentConstants;
 import com.traffic.config.statemachinev3.variables.objects.CrossMettingZoneManager;
+import com.traffic.config.statemachinev3.variables.objects.PlateDictionary;
+import com.traffic.config.statemachinev3.variables.objects.PlateFuzzyIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -250,33 +252,47 @@ public class SegmentActions {
                                            SegmentVariables variables,
                                            String vehicleId,
                                            SegmentVariables.Direction direction) {
-        String vehicledid = validateVehicleId(vehicleId);
-        LocalDateTime now = LocalDateTime.now();
+        executeVehicleEnter(currentState, event, variables,
+                PlateDictionary.getInstance().intern(validateVehicleId(vehicleId)), direction);
+    }
+
+    /**
+     * 车辆进入动作（车牌编号）
+     *
+     * @param plateId 车牌编号，无车牌为 {@link PlateDictionary#NO_PLATE}
+     */
+    public static void executeVehicleEnter(SegmentState currentState,
+                                           SegmentEvent event,
+                                           SegmentVariables variables,
+                                           int plateId,
+                                           SegmentVariables.Direction direction) {
         switch (direction){
             case UPSTREAM -> {
                 // 上行车辆
-                variables.addUpstreamVehicle(vehicledid);
-                CrossMettingZoneManager.getInstance().upVehicleExitV2(variables.getSegmentId(), vehicledid);
+                variables.addUpstreamVehicle(plateId);
+                CrossMettingZoneManager.getInstance().upVehicleExitV2(variables.getSegmentId(), plateId);
             }
             case DOWNSTREAM -> {
-                variables.addDownstreamVehicle(vehicledid);
-                CrossMettingZoneManager.getInstance().downVehicleExitV2(variables.getSegmentId(), vehicledid);
+                variables.addDownstreamVehicle(plateId);
+                CrossMettingZoneManager.getInstance().downVehicleExitV2(variables.getSegmentId(), plateId);
             }
         }
 
         // 检查是否冲突,其实不应该产生这种情况
         if(checkCrashLimit(direction, variables)){
-            recordVehicleEntryError(vehicledid, direction, "冲突", variables);
+            recordVehicleEntryError(plateString(plateId), direction, "冲突", variables);
             variables.incrementCounterMismatchErrors();
-            variables.addUpstreamVehicle(vehicledid);
+            variables.addUpstreamVehicle(plateId);
         }
 
         // 生成通行请求（如果需要）,这里应该是执行器要做得动作，而不是事件检查需要处理的。
         // generateTrafficRequestIfNeeded(direction, variables);
 
         // 记录事件
-        logger.debug("路段 {} 车辆进入 - ID: {}, 方向: {}, 当前状态: {}",
-                variables.getSegmentId(), vehicleId, direction.getDescription(), currentState.getChineseName());
+        if (logger.isDebugEnabled()) {
+            logger.debug("路段 {} 车辆进入 - ID: {}, 方向: {}, 当前状态: {}",
+                    variables.getSegmentId(), plateString(plateId), direction.getDescription(), currentState.getChineseName());
+        }
     }
 
     /**
@@ -294,22 +310,37 @@ public class SegmentActions {
                                           SegmentVariables variables,
                                           String vehicleId,
                                           SegmentVariables.Direction direction) {
-        LocalDateTime now = LocalDateTime.now();
-        String vehicledid = validateVehicleId(vehicleId);
+        executeVehicleExit(currentState, event, variables,
+                PlateDictionary.getInstance().intern(validateVehicleId(vehicleId)), direction);
+    }
+
+    /**
+     * 车辆离开动作（车牌编号）
+     *
+     * @param plateId 车牌编号，无车牌为 {@link PlateDictionary#NO_PLATE}
+     */
+    public static void executeVehicleExit(SegmentState currentState,
+                                          SegmentEvent event,
+                                          SegmentVariables variables,
+                                          int plateId,
+                                          SegmentVariables.Direction direction) {
+        plateId = reconcileExitPlate(variables, plateId, direction);
         switch (direction){
             case UPSTREAM -> {
-                variables.removeUpstreamVehicle(vehicledid);
-                CrossMettingZoneManager.getInstance().upVehicleEnterV2(variables.getSegmentId(), vehicleId);
+                variables.removeUpstreamVehicle(plateId);
+                CrossMettingZoneManager.getInstance().upVehicleEnterV2(variables.getSegmentId(), plateId);
             }
             case DOWNSTREAM -> {
-                variables.removeDownstreamVehicle(vehicledid);
-                CrossMettingZoneManager.getInstance().downVehicleEnterV2(variables.getSegmentId(), vehicleId);
+                variables.removeDownstreamVehicle(plateId);
+                CrossMettingZoneManager.getInstance().downVehicleEnterV2(variables.getSegmentId(), plateId);
             }
         }
 
         // 记录事件
-        logger.debug("路段 {} 车辆离开 - ID: {}, 方向: {}, 当前状态: {}",
-                variables.getSegmentId(), vehicleId, direction.getDescription(), currentState.getChineseName());
+        if (logger.isDebugEnabled()) {
+            logger.debug("路段 {} 车辆离开 - ID: {}, 方向: {}, 当前状态: {}",
+                    variables.getSegmentId(), plateString(plateId), direction.getDescription(), currentState.getChineseName());
+        }
     }
 
     // ==================== 定时器事件处理动作 ====================
@@ -509,8 +540,47 @@ public class SegmentActions {
         }
 
         // 检查车辆是否已存在
-        return !variables.getUpstreamVehicleIds().contains(vehicleId) &&
-                !variables.getDownstreamVehicleIds().contains(vehicleId);
+        return !variables.containsUpstreamVehicle(vehicleId) &&
+                !variables.containsDownstreamVehicle(vehicleId);
+    }
+    /**
+     * 离开车牌不在对应方向的车辆集合中时，按近似匹配找出最可能的在途车辆
+     * 出入口摄像机识别结果不一致时，若不找回原车辆，该车会一直留在路段中使路段无法清空；
+     * 但错移一辆仍在路段中的车会让路段提前判定清空，因此只接受唯一的最近候选，
+     * 且加权编辑距离不超过路段的 fuzzyPlateMaxCost（默认只允许易混字符差异）
+     *
+     * @return 匹配可接受时返回在途车辆的编号，否则返回原编号
+     */
+    static int reconcileExitPlate(SegmentVariables variables, int plateId, SegmentVariables.Direction direction) {
+        if (plateId == PlateDictionary.NO_PLATE) {
+            return plateId;
+        }
+        boolean upstream = direction == SegmentVariables.Direction.UPSTREAM;
+        if (upstream ? variables.containsUpstreamVehicle(plateId) : variables.containsDownstreamVehicle(plateId)) {
+            return plateId;
+        }
+        PlateFuzzyIndex.Match match = upstream
+                ? variables.matchUpstreamVehicle(plateId)
+                : variables.matchDownstreamVehicle(plateId);
+        if (match == null) {
+            return plateId;
+        }
+        if (!match.isUnique() || match.getCost() > variables.getFuzzyPlateMaxCost()) {
+            logger.info("路段 {} {}离开车牌 {} 未找到，最接近的 {} 差异{}{}，不做匹配",
+                    variables.getSegmentId(), direction.getDescription(), plateString(plateId),
+                    match.getPlate(), String.format("%.2f", match.getCost()), match.isUnique() ? "过大" : "且有同样接近的候选");
+            return plateId;
+        }
+        variables.incrementFuzzyPlateMatches();
+        logger.info("路段 {} {}离开车牌 {} 未找到，近似匹配为 {}，置信度 {}",
+                variables.getSegmentId(), direction.getDescription(), plateString(plateId),
+                match.getPlate(), String.format("%.2f", match.getConfidence()));
+        return match.getPlateId();
+    }
+
+    private static String plateString(int plateId){
+        String plate = PlateDictionary.getInstance().plateOf(plateId);
+        return plate != null ? plate : "";
     }
     private static String validateVehicleId(String vehicleId){
         // 检查车辆ID是否为空
@@ -532,8 +602,8 @@ public class SegmentActions {
 
         // 检查车辆是否存在于指定方向
         return switch (direction) {
-            case UPSTREAM -> variables.getUpstreamVehicleIds().contains(vehicleId);
-            case DOWNSTREAM -> variables.getDownstreamVehicleIds().contains(vehicleId);
+            case UPSTREAM -> variables.containsUpstreamVehicle(vehicleId);
+            case DOWNSTREAM -> variables.containsDownstreamVehicle(vehicleId);
             case NONE -> false;
         };
     }
@@ -597,7 +667,7 @@ public class SegmentActions {
     private static void checkAndClearRequestIfNeeded(SegmentVariables.Direction direction, SegmentVariables variables) {
         switch (direction) {
             case UPSTREAM -> {
-                if (variables.isUpstreamRequest() && variables.getUpstreamVehicleIds().isEmpty()) {
+                if (variables.isUpstreamRequest() && (variables.getUpstreamVehicleCount() == 0)) {
                     // 检查计数器一致性
                     if (variables.getUpstreamInCounter() == variables.getUpstreamOutCounter()) {
                         variables.setUpstreamRequest(false);
@@ -607,7 +677,7 @@ public class SegmentActions {
                 }
             }
             case DOWNSTREAM -> {
-                if (variables.isDownstreamRequest() && variables.getDownstreamVehicleIds().isEmpty()) {
+                if (variables.isDownstreamRequest() && (variables.getDownstreamVehicleCount() == 0)) {
                     // 检查计数器一致性
                     if (variables.getDownstreamInCounter() == variables.getDownstreamOutCounter()) {
                         variables.setDownstreamRequest(false);
@@ -1137,8 +1207,8 @@ public class SegmentActions {
         diagnosticInfo.append(String.format("  当前状态: %s\n", currentState.getChineseName()));
         diagnosticInfo.append(String.format("  健康度评分: %d/100\n", variables.getSegmentHealthScore()));
         diagnosticInfo.append(String.format("  故障状态: %s\n", variables.isFaultDetected() ? "是" : "否"));
-        diagnosticInfo.append(String.format("  上行车辆数: %d\n", variables.getUpstreamVehicleIds().size()));
-        diagnosticInfo.append(String.format("  下行车辆数: %d\n", variables.getDownstreamVehicleIds().size()));
+        diagnosticInfo.append(String.format("  上行车辆数: %d\n", variables.getUpstreamVehicleCount()));
+        diagnosticInfo.append(String.format("  下行车辆数: %d\n", variables.getDownstreamVehicleCount()));
         diagnosticInfo.append(String.format("  上行请求: %s\n", variables.isUpstreamRequest() ? "是" : "否"));
         diagnosticInfo.append(String.format("  下行请求: %s\n", variables.isDownstreamRequest() ? "是" : "否"));
         diagnosticInfo.append(String.format("  清空决策: %s\n", variables.getOverallClearanceDecision()));
@@ -58,8 +58,7 @@ public class SystemActions {
         variables.setSystemHealthScore(SystemConstants.INITIAL_HEALTH_SCORE);
         variables.setPerformanceDegradation(0.0);
 
-        // 初始化路段管理
-        variables.setSegmentCount(SystemConstants.TOTAL_SEGMENT_COUNT);
+        // 路段数量由配置的路段拓扑维护，这里不再重置
 
         // 设置控制模式
         variables.setCurrentControlMode(SystemVariables.ControlMode.MANUAL);
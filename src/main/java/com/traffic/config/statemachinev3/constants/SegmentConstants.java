@@ -155,6 +155,17 @@ public final class SegmentConstants {
      */
     public static final int MAX_IDENTICAL_READINGS_THRESHOLD = 10;
 
+    /**
+     * 车牌近似匹配的最大编辑距离
+     */
+    public static final int FUZZY_PLATE_MAX_DISTANCE = 2;
+
+    /**
+     * 车牌近似匹配可接受的最大加权编辑距离（默认值，可由 traffic.segment.fuzzy-plate-max-cost 配置）
+     * 易混字符替换计0.25、其它编辑计1，0.5 即至多两处易混字符，任何真实的字符差异都不接受
+     */
+    public static final double FUZZY_PLATE_MAX_COST = 0.5;
+
     // ==================== 性能监控常量 (Performance Monitoring Constants) ====================
 
     /**
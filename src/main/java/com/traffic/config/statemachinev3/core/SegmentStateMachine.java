@@ -5,17 +5,18 @@ import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
 import com.traffic.config.statemachinev3.enums.segment.ClearanceDecision;
 import com.traffic.config.statemachinev3.variables.SegmentVariables;
 import com.traffic.config.statemachinev3.constants.SegmentConstants;
-import com.traffic.config.statemachinev3.guards.SegmentGuards;
-import com.traffic.config.statemachinev3.actions.SegmentActions;
 import com.traffic.config.statemachinev3.clearance.ClearanceDecisionEngine;
+import com.traffic.config.statemachinev3.threading.PriorityMailbox;
+import com.traffic.config.statemachinev3.transition.TransitionTable;
 import com.traffic.config.statemachinev3.variables.objects.CrossMettingZoneManager;
+import com.traffic.config.statemachinev3.variables.objects.PlateDictionary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
 
 /**
  * 路段状态机核心引擎
@@ -55,9 +56,9 @@ public class SegmentStateMachine {
     private final ClearanceDecisionEngine clearanceEngine;
 
     /**
-     * 事件队列 (支持优先级)
+     * 事件队列，按事件优先级分级，高优先级事件先处理
      */
-    private final BlockingQueue<PrioritizedEvent> eventQueue;
+    private final PriorityMailbox<SegmentEvent.EventPriority, PrioritizedEvent> eventQueue;
 
     /**
      * 状态转换历史 (用于调试和分析)
@@ -74,6 +75,16 @@ public class SegmentStateMachine {
      */
     private volatile LocalDateTime lastEventProcessTime;
 
+    /**
+     * 定时滴答与路段事件信箱在不同线程处理，状态转换互斥执行
+     */
+    private final ReentrantLock processLock = new ReentrantLock();
+
+    /**
+     * 即时处理模式下投递事件后调用，唤醒本路段的事件处理；为null时事件等待下一次定时滴答处理
+     */
+    private volatile Runnable eventWakeup;
+
     // ==================== 构造函数和初始化 ====================
 
     /**
@@ -83,7 +94,7 @@ public class SegmentStateMachine {
     public SegmentStateMachine(int segmentId) {
         this.variables = new SegmentVariables(segmentId);
         this.clearanceEngine = new ClearanceDecisionEngine();
-        this.eventQueue = new LinkedBlockingQueue<>();
+        this.eventQueue = new PriorityMailbox<>(SegmentEvent.EventPriority.class);
         this.transitionHistory = Collections.synchronizedList(new ArrayList<>());
         this.currentState = SegmentState.ALL_RED_CLEAR;
         this.isRunning = false;
@@ -131,6 +142,7 @@ public class SegmentStateMachine {
             return false;
         }
 
+        processLock.lock();
         try {
             // 处理所有待处理事件
             while (!eventQueue.isEmpty() && isRunning) {
@@ -153,6 +165,8 @@ public class SegmentStateMachine {
             logger.warn("路段 {} 事件处理异常: {}", variables.getSegmentId(), e.getMessage());
             variables.incrementConsecutiveErrors();
             return false;
+        } finally {
+            processLock.unlock();
         }
     }
 
@@ -165,8 +179,8 @@ public class SegmentStateMachine {
             return;
         }
 
-        // 发送定时器事件
-        postEvent(SegmentEvent.TIMER_TICK, null);
+        // 发送定时器事件，随后在本线程处理，不需要唤醒
+        enqueueEvent(SegmentEvent.TIMER_TICK, null);
 
         // 处理所有事件
         processEvents();
@@ -183,15 +197,14 @@ public class SegmentStateMachine {
         LocalDateTime eventTime = LocalDateTime.now();
 
         try {
-            // 1. 检查事件是否适用于当前状态
-            if (!isEventApplicable(event, currentState, eventData)) {
-                if(variables.hasVehicle())
-                    logger.debug("路段 {} 事件 {} 不适用于当前状态 {}",
-                        variables.getSegmentId(), event.getChineseName(), currentState.getChineseName());
-                return false;
+            // 1. 人工控制事件先解析控制请求，目标状态依赖该请求
+            if (event == SegmentEvent.FORCE_SWITCH) {
+                applyForceSwitchRequest(eventData);
             }
+            TransitionTable.Entry<SegmentState, SegmentEvent, SegmentStateMachine> transition =
+                    SegmentTransitions.TABLE.entry(currentState, event);
             // 2. 确定目标状态, 每种条件都应该有一个明确的状态需求
-            SegmentState targetState = determineTargetState(event, currentState);
+            SegmentState targetState = transition.target(this);
             if (targetState == null) {
                 if(variables.hasVehicle())
                     logger.debug("路段 {} 事件 {} 无法确定目标状态",
@@ -200,7 +213,7 @@ public class SegmentStateMachine {
             }
             logger.warn("路段 {} 事件 {}, 当前状态 {}, 目标状态 {}", variables.getSegmentId(), event.getChineseName(), currentState.getChineseName(), targetState.getChineseName());
             // 3. 检查守护条件 G(q, σ, v)，状态切换需要检查条件是否允许
-            if (!checkGuardCondition(event, targetState)) {
+            if (!transition.guard(this, targetState)) {
                 if(variables.hasVehicle())
                     logger.debug("路段 {} 状态转换被守护条件阻止: {} -> {}, event:{}",
                         variables.getSegmentId(), currentState.getChineseName(), targetState.getChineseName(), event.getChineseName());
@@ -209,7 +222,11 @@ public class SegmentStateMachine {
             logger.warn("[guard]路段 {}, 最小绿 {}, 最大绿 {}, 最小红 {}, 最大红 {}, 清空 {}", variables.getSegmentId(), variables.isMinGreenTimeReached(), variables.isGreenTimeout(),
                     variables.isMinRedTimeReached(), variables.isRedTimeout(), variables.getOverallClearanceDecision().isSafeForTransition());
             // 4. 执行动作函数 A(q, σ, v)
-            executeAction(event, targetState, eventData);
+            transition.execute(this, targetState, eventData);
+            // 如果是状态转换，执行相应的进入动作，这里是切换动作
+            if (targetState != currentState || variables.getForceSwitchReq()>0) {
+                SegmentTransitions.TABLE.enter(this, currentState, targetState, event);
+            }
             logger.warn("[Action]路段 {} 事件 {}, 当前状态 {}, 目标状态 {}", variables.getSegmentId(), event.getChineseName(), currentState.getChineseName(), targetState.getChineseName());
             // 5. 状态转换 q' = δ(q, σ, v)
             if (targetState != currentState) {
@@ -257,177 +274,19 @@ public class SegmentStateMachine {
         }
     }
 
-    /**
-     * 确定目标状态
-     * 基于当前状态和事件类型确定下一个状态
-     */
-    private SegmentState determineTargetState(SegmentEvent event, SegmentState currentState) {
-        // 最高优先级 - 人工控制, 强控可以控制管控方向
-        if(event == SegmentEvent.FORCE_SWITCH || event == SegmentEvent.SYSTEM_RESET) {
-            if(variables.getForceSwitchReq()==1) return SegmentState.ALL_RED_CLEAR;
-            if(variables.getForceSwitchReq()==2) return SegmentState.ALL_YELLOWFLASH_MANUAL;
-            // 如果需要立刻切换，取消下面的注释，如果需要经过全红过渡，则注释掉
-            if(variables.getForceSwitchReq()==3) return SegmentState.UPSTREAM_GREEN;
-            if(variables.getForceSwitchReq()==4) return SegmentState.DOWNSTREAM_GREEN;
-            //return SegmentState.ALL_RED_CLEAR;
-        }
-        // 自动运行的最高优先级
-        switch (currentState){
-            case ALL_YELLOWFLASH_MANUAL -> {
-                return SegmentState.ALL_YELLOWFLASH_MANUAL;
-            }
-//            case ALL_RED_CLEAR -> {
-//                return determineGreenStateFromRed();
-//            }
-        }
-        // 正常功能优先级
-        switch (event) {
-            case TIMER_TICK -> {
-                return determineTimerTickTargetState();
-            }
-            case GREEN_TIMEOUT -> {
-                return SegmentState.ALL_RED_CLEAR;
-            }
-            case VEHICLE_ENTER_UPSTREAM, VEHICLE_EXIT_UPSTREAM, VEHICLE_ENTER_DOWNSTREAM, VEHICLE_EXIT_DOWNSTREAM,
-                 CLEARANCE_STATUS_UPDATE, CONSERVATIVE_CLEAR_TRIGGERED, SENSOR_FAULT, COMMUNICATION_FAULT, COUNTER_MISMATCH_DETECTED,
-                 ID_LOGIC_ERROR_DETECTED, DATA_INCONSISTENCY_FOUND, SYSTEM_STATE_MACHINE_COMMAND, CONFIG_UPDATE-> { // 需要action处理，返回当前状态
-                return currentState;
-            }
-            case EMERGENCY_OVERRIDE -> {
-                if (currentState.isGreenState()) {
-                    return SegmentState.ALL_RED_CLEAR;
-                }
-            }
-            case CLEARANCE_COMPLETE -> {
-                return determineGreenStateFromRed();
-            }
-            case CLEAR_TIMEOUT -> {
-                // 黄闪，停止感应，需人工介入
-                logger.info("Event:{} 处理流程缺失", event.getChineseName());
-                return SegmentState.ALL_YELLOWFLASH_MANUAL;
-            }
-            default -> {
-                return null;
-            }
-        }
-        return null;
-    }
-
-    /**
-     * 检查守护条件, 没有守护条件的event直接进入下一环节，这一环节只过滤掉不允许的转换
-     * 实现守护条件函数 G: Q × Σ × V* → Boolean
-     */
-    private boolean checkGuardCondition(SegmentEvent event, SegmentState targetState) {
-        // 如果人工控制，直接执行，不需要检查守护条件
-        if(event == SegmentEvent.FORCE_SWITCH) {
-            return true;
-        }
-        switch (currentState) {
-            case ALL_RED_CLEAR -> {
-                if(targetState == SegmentState.ALL_NOCTRL)  return SegmentGuards.checkRedToNoCtrl(currentState, targetState, event, variables);    // 从全红状态到非管控状态，直接切换
-                if(targetState == SegmentState.ALL_YELLOWFLASH_MANUAL) return SegmentGuards.checkRedToYellowFlash(currentState, targetState, event, variables);
-                if(targetState == SegmentState.ALL_RED_CLEAR) return true;
-                return SegmentGuards.checkRedToGreenTransition(currentState, targetState, event, variables);
-            }
-            case ALL_YELLOWFLASH_MANUAL -> {    // 这种状态必须人工解除，感应模式无效, 不再需要后续处理
-                if(currentState.isYellowFlashState()) return false;
-                return true;
-            }
-            case ALL_NOCTRL -> {    // 这种状态必须上级上位机解除，但这种状态需要检测入车和出车是否平衡
-                if(!currentState.isNoCtrlState()){
-                    return true;
-                }
-                if(targetState == SegmentState.ALL_NOCTRL) {
-                    if(event.isDownstreamVehicleEvent() || event.isUpstreamVehicleEvent()) {
-                        return true;
-                    }
-                }
-                return false;
-            }
-            case UPSTREAM_GREEN, DOWNSTREAM_GREEN ->{
-                if(targetState == SegmentState.ALL_NOCTRL) return true; // 无条件进行状态切换
-                if(targetState == SegmentState.ALL_YELLOWFLASH_MANUAL) return true; // 无条件进行状态切换
-                if(targetState == currentState) return true;
-                return SegmentGuards.checkGreenToRedTransition(currentState, event, variables);
-            }
-        }
-        return true;
-    }
-
-    /**
-     * 执行动作函数
-     * 实现动作函数 A: Q × Σ × V* → V*
-     */
-    private void executeAction(SegmentEvent event, SegmentState targetState, Map<String, Object> eventData) {
-        // 通用动作，不需要状态切换
-        switch (event) {
-            case TIMER_TICK -> SegmentActions.executeTimerTick(currentState, event, variables);
-            case GREEN_TIMEOUT -> SegmentActions.executeGreenTimeout(currentState, targetState, event, variables);
-            case CLEARANCE_COMPLETE -> SegmentActions.executeEnterIdleState(currentState, targetState, event, variables);    // 切换状态前准备
-            case FORCE_SWITCH, EMERGENCY_OVERRIDE, MAINTENANCE_MODE -> SegmentActions.executeForceSwitch(currentState, event, variables);
-            case VEHICLE_ENTER_UPSTREAM, VEHICLE_ENTER_DOWNSTREAM -> {// 要处理进入状态并更新等待区状态
-                String vehicleId = (String) eventData.get("vehicleId");
-                SegmentVariables.Direction direction = (SegmentVariables.Direction) eventData.get("direction");
-                SegmentActions.executeVehicleEnter(currentState, event, variables, vehicleId, direction);
-            }
-            case VEHICLE_EXIT_UPSTREAM, VEHICLE_EXIT_DOWNSTREAM -> {    // 离开时，车辆将进入下一路段的会车区，因此要产生一个DOWNSTREAM_REQUEST_GENERATED事件，将离开车辆信息通知下一个路段，也要更新本路段等待区的状态，
-                String vehicleId = (String) eventData.get("vehicleId");
-                SegmentVariables.Direction direction = (SegmentVariables.Direction) eventData.get("direction");
-                SegmentActions.executeVehicleExit(currentState, event, variables, vehicleId, direction);
-            }
-            case SENSOR_FAULT, DATA_INCONSISTENCY_FOUND, ID_LOGIC_ERROR_DETECTED, COUNTER_MISMATCH_DETECTED,
-                 COMMUNICATION_FAULT-> SegmentActions.executeEnterFaultMode(currentState, targetState, event, variables);
-            case SYSTEM_RESET -> SegmentActions.executeRecoveryFromFault(currentState, event, variables);//RECOVERY_REQUEST
-            case SYSTEM_STATE_MACHINE_COMMAND, CONFIG_UPDATE, CONSERVATIVE_CLEAR_TRIGGERED, CLEARANCE_STATUS_UPDATE -> {
-
-            }
-        }
-
-        // 如果是状态转换，执行相应的进入动作，这里是切换动作
-        if (targetState != currentState || variables.getForceSwitchReq()>0) {
-            executeStateEntryAction(targetState, event);
-        }
-    }
-
-    /**
-     * 执行状态进入动作
-     */
-    private void executeStateEntryAction(SegmentState newState, SegmentEvent triggerEvent) {
-        switch (newState) {
-            case UPSTREAM_GREEN, DOWNSTREAM_GREEN ->
-                    SegmentActions.executeEnterGreenState(currentState, newState, triggerEvent, variables);
-            case ALL_RED_CLEAR ->
-                    SegmentActions.executeEnterAllRedClear(currentState, newState, triggerEvent, variables);
-//            case FAULT_MODE -> // 路段不包含该状态
-//                    SegmentActions.executeEnterFaultMode(currentState, newState, triggerEvent, variables);
-//            case MAINTENANCE -> // 路段不包含该状态
-//                    SegmentActions.executeEnterMaintenanceMode(currentState, newState, triggerEvent, variables);
-        }
-    }
-
     // ==================== 状态转换逻辑 ====================
 
-
-
     /**
-     * 基于定时器事件确定目标状态
-     * 基本状态转换逻辑
-     * 这是状态机的核心逻辑，实现感应控制算法
+     * 人工控制请求对应的目标状态，无请求时返回null
      */
-    private SegmentState determineTimerTickTargetState() {
-        switch (currentState) {
-            case ALL_RED_CLEAR -> {
-                return determineGreenStateFromRed();
-            }
-            case UPSTREAM_GREEN -> {    // 目标状态是确定的，不应该有条件，是否转换是有条件的
-                return SegmentState.ALL_RED_CLEAR;
-            }
-            case DOWNSTREAM_GREEN -> {
-                return SegmentState.ALL_RED_CLEAR;
-            }
-            default -> {    // 其它状态，不切换
-                return currentState;
-            }
+    SegmentState forceSwitchTarget() {
+        switch (variables.getForceSwitchReq()) {
+            case 1 -> { return SegmentState.ALL_RED_CLEAR; }
+            case 2 -> { return SegmentState.ALL_YELLOWFLASH_MANUAL; }
+            // 如果需要经过全红过渡，3、4 改为返回 ALL_RED_CLEAR
+            case 3 -> { return SegmentState.UPSTREAM_GREEN; }
+            case 4 -> { return SegmentState.DOWNSTREAM_GREEN; }
+            default -> { return null; }
         }
     }
 
@@ -435,7 +294,7 @@ public class SegmentStateMachine {
      * 从全红清空状态确定下一个绿灯状态
      * 基于优先级算法和通行请求
      */
-    private SegmentState determineGreenStateFromRed() {
+    SegmentState determineGreenStateFromRed() {
         // 如果红灯超时应该进入降级状态
         if(variables.isRedTimeout()){
             return SegmentState.ALL_YELLOWFLASH_MANUAL;
@@ -579,45 +438,19 @@ public class SegmentStateMachine {
     // ==================== 辅助判断方法 ====================
 
     /**
-     * 检查事件是否适用于当前状态
-     */
-    private boolean isEventApplicable(SegmentEvent event, SegmentState state, Map<String, Object> eventData) {
-        // 对event做前期处理
-        switch (event){
-            case FORCE_SWITCH -> {
-                String ctrlPhase = (String) eventData.get("ctrlPhase");
-                if("RED".equalsIgnoreCase(ctrlPhase)){
-                    variables.setForceSwitchReq(1);
-                }else if("YF".equalsIgnoreCase(ctrlPhase)){
-                    variables.setForceSwitchReq(2);
-                }else if("UP".equalsIgnoreCase(ctrlPhase)){
-                    variables.setForceSwitchReq(3);
-                }else if("DOWN".equalsIgnoreCase(ctrlPhase)){
-                    variables.setForceSwitchReq(4);
-                }
-            }
+     * 解析人工控制事件中的控制相位
+     */
+    private void applyForceSwitchRequest(Map<String, Object> eventData) {
+        String ctrlPhase = (String) eventData.get("ctrlPhase");
+        if("RED".equalsIgnoreCase(ctrlPhase)){
+            variables.setForceSwitchReq(1);
+        }else if("YF".equalsIgnoreCase(ctrlPhase)){
+            variables.setForceSwitchReq(2);
+        }else if("UP".equalsIgnoreCase(ctrlPhase)){
+            variables.setForceSwitchReq(3);
+        }else if("DOWN".equalsIgnoreCase(ctrlPhase)){
+            variables.setForceSwitchReq(4);
         }
-//        if (event.isSystemEvent()) {
-//            return true;
-//        }
-
-        // 故障事件在所有非故障状态下都适用，路段状态机没有故障状态，这个条件暂时也用不上
-//        if (event == SegmentEvent.FAULT_DETECTED && state != SegmentState.FAULT_MODE) {
-//            return true;
-//        }
-
-        // 恢复事件只在故障状态下适用，不存在恢复请求，该条件目前不适用
-//        if (event == SegmentEvent.RECOVERY_REQUEST) {
-//            return state == SegmentState.FAULT_MODE;
-//        }
-
-        // 车辆事件在运行状态下适用，不存在其它状态，这里应该永远返回true
-//        if (event == SegmentEvent.VEHICLE_ENTER_UPSTREAM || event == SegmentEvent.VEHICLE_EXIT_UPSTREAM ||
-//        event == SegmentEvent.VEHICLE_EXIT_DOWNSTREAM || event == SegmentEvent.VEHICLE_ENTER_DOWNSTREAM) {
-//            //return state != SegmentState.FAULT_MODE && state != SegmentState.MAINTENANCE;
-//        }
-
-        return true;
     }
 
     /**
@@ -641,7 +474,8 @@ public class SegmentStateMachine {
         // 检查是否等待超时
         if(currentState.isAllRedState()){
             if(variables.isMaxTimerExpired()){
-                postEvent(SegmentEvent.CLEAR_TIMEOUT, null);
+                // 超时属于时间条件，留给下一次定时滴答处理，即时模式下不唤醒，避免条件持续成立时反复处理
+                enqueueEvent(SegmentEvent.CLEAR_TIMEOUT, null);
             }
         }
         // 检查上下行请求及清空, 有车则有请求，无车则清空
@@ -690,14 +524,37 @@ public class SegmentStateMachine {
             return;
         }
 
+        if (enqueueEvent(event, eventData)) {
+            Runnable wakeup = eventWakeup;
+            if (wakeup != null) {
+                wakeup.run();
+            }
+        }
+    }
+
+    private boolean enqueueEvent(SegmentEvent event, Map<String, Object> eventData) {
         PrioritizedEvent prioritizedEvent = new PrioritizedEvent(event, eventData, LocalDateTime.now());
         try {
-            eventQueue.offer(prioritizedEvent);
+            eventQueue.offer(event.getPriority(), prioritizedEvent);
+            return true;
         } catch (Exception e) {
             logger.error("路段 {} 添加事件到队列失败: {}", variables.getSegmentId(), e.getMessage());
+            return false;
         }
     }
 
+    /**
+     * 设置事件唤醒回调，启用即时处理模式
+     * @param wakeup 回调应只安排处理而不在调用线程中处理，null表示恢复为定时滴答处理
+     */
+    public void setEventWakeup(Runnable wakeup) {
+        this.eventWakeup = wakeup;
+    }
+
+    public boolean isImmediateDispatch() {
+        return eventWakeup != null;
+    }
+
     /**
      * 同步处理Event
      * @param event
@@ -705,8 +562,36 @@ public class SegmentStateMachine {
      * @return
      */
     public boolean processSegmentEvent(SegmentEvent event, Map<String, Object> eventData) {
-        return processEvent(event, eventData);
+        processLock.lock();
+        try {
+            return processEvent(event, eventData);
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * 在事件处理锁内读写状态变量，供事件线程之外的任务（如统计发布）使用
+     */
+    public void updateVariables(Consumer<SegmentVariables> update) {
+        processLock.lock();
+        try {
+            update.accept(variables);
+        } finally {
+            processLock.unlock();
+        }
     }
+    /**
+     * 事件中的车牌编号：接入时已分配的取 plateId，否则按 vehicleId 查字典
+     */
+    static int plateIdOf(Map<String, Object> eventData) {
+        Object plateId = eventData.get("plateId");
+        if (plateId instanceof Integer) {
+            return (Integer) plateId;
+        }
+        return PlateDictionary.getInstance().intern((String) eventData.get("vehicleId"));
+    }
+
     /**
      * 处理车辆进入事件
      */
@@ -784,6 +669,20 @@ public class SegmentStateMachine {
         return new ArrayList<>(transitionHistory);
     }
 
+    /**
+     * 路段状态转换表，用于导出和校验转换模型
+     */
+    public static TransitionTable<SegmentState, SegmentEvent, SegmentStateMachine> transitionTable() {
+        return SegmentTransitions.TABLE;
+    }
+
+    /**
+     * 事件队列各优先级深度
+     */
+    public Map<String, Integer> getEventQueueDepths() {
+        return eventQueue.depthByPriority();
+    }
+
     /**
      * 生成状态机诊断报告
      */
@@ -792,13 +691,13 @@ public class SegmentStateMachine {
         report.append("=== 路段 ").append(variables.getSegmentId()).append(" 状态机诊断报告 ===\n");
         report.append("当前状态: ").append(currentState.getChineseName()).append("\n");
         report.append("运行状态: ").append(isRunning ? "运行中" : "已停止").append("\n");
-        report.append("事件队列大小: ").append(eventQueue.size()).append("\n");
+        report.append("事件队列大小: ").append(eventQueue.size()).append(" ").append(eventQueue.depthByPriority()).append("\n");
         report.append("最后事件处理时间: ").append(lastEventProcessTime).append("\n");
         report.append("当前清空决策: ").append(variables.getOverallClearanceDecision()).append("\n");
         report.append("健康度评分: ").append(variables.getSegmentHealthScore()).append("\n");
         report.append("故障状态: ").append(variables.isFaultDetected() ? "是" : "否").append("\n");
-        report.append("上行车辆数: ").append(variables.getUpstreamVehicleIds().size()).append("\n");
-        report.append("下行车辆数: ").append(variables.getDownstreamVehicleIds().size()).append("\n");
+        report.append("上行车辆数: ").append(variables.getUpstreamVehicleCount()).append("\n");
+        report.append("下行车辆数: ").append(variables.getDownstreamVehicleCount()).append("\n");
         report.append("状态转换次数: ").append(transitionHistory.size()).append("\n");
 
         return report.toString();
@@ -0,0 +1,182 @@
+package com.traffic.config.statemachinev3.core;
+
+import com.traffic.config.statemachinev3.actions.SegmentActions;
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.enums.segment.SegmentState;
+import com.traffic.config.statemachinev3.guards.SegmentGuards;
+import com.traffic.config.statemachinev3.transition.TransitionTable;
+import com.traffic.config.statemachinev3.transition.TransitionTable.Guard;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.traffic.config.statemachinev3.enums.segment.SegmentState.*;
+
+/**
+ * 路段状态机转换表
+ *
+ * 把目标状态、守护条件和动作的判断规则在类加载时逐个 (状态, 事件) 展开成 {@link TransitionTable}，
+ * 只有依赖运行变量的部分（强制切换请求、全红后放行方向、守护条件本身）保留为函数在运行时求值。
+ */
+final class SegmentTransitions {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentTransitions.class);
+
+    private static final Guard<SegmentState, SegmentEvent, SegmentStateMachine> ALLOW = TransitionTable.allow();
+    private static final Guard<SegmentState, SegmentEvent, SegmentStateMachine> DENY = TransitionTable.deny();
+
+    // 须在守护条件常量之后初始化，恒真/恒假守护条件在表中按常量判断
+    static final TransitionTable<SegmentState, SegmentEvent, SegmentStateMachine> TABLE = compile();
+
+    private SegmentTransitions() {
+    }
+
+    private static TransitionTable<SegmentState, SegmentEvent, SegmentStateMachine> compile() {
+        TransitionTable.Builder<SegmentState, SegmentEvent, SegmentStateMachine> builder =
+                TransitionTable.builder(SegmentState.class, SegmentEvent.class);
+        for (SegmentState state : SegmentState.values()) {
+            for (SegmentEvent event : SegmentEvent.values()) {
+                TransitionTable.EntryBuilder<SegmentState, SegmentEvent, SegmentStateMachine> entry = builder.entry(state, event);
+                compileTarget(entry, state, event);
+                for (SegmentState target : SegmentState.values()) {
+                    compileGuard(entry, state, event, target);
+                }
+                compileAction(entry, event);
+                entry.add();
+            }
+        }
+        // 状态进入动作
+        builder.entryAction(UPSTREAM_GREEN, "executeEnterGreenState",
+                (m, from, to, e, d) -> SegmentActions.executeEnterGreenState(from, to, e, m.getVariables()));
+        builder.entryAction(DOWNSTREAM_GREEN, "executeEnterGreenState",
+                (m, from, to, e, d) -> SegmentActions.executeEnterGreenState(from, to, e, m.getVariables()));
+        builder.entryAction(ALL_RED_CLEAR, "executeEnterAllRedClear",
+                (m, from, to, e, d) -> SegmentActions.executeEnterAllRedClear(from, to, e, m.getVariables()));
+        return builder.build();
+    }
+
+    /**
+     * 目标状态：人工控制最高，黄闪保持，其余按事件确定
+     */
+    private static void compileTarget(TransitionTable.EntryBuilder<SegmentState, SegmentEvent, SegmentStateMachine> entry,
+                                      SegmentState state, SegmentEvent event) {
+        if (event == SegmentEvent.FORCE_SWITCH || event == SegmentEvent.SYSTEM_RESET) {
+            // 无强制请求时，黄闪保持黄闪，其它状态不转换
+            SegmentState fallback = state == ALL_YELLOWFLASH_MANUAL ? ALL_YELLOWFLASH_MANUAL : null;
+            entry.target("forceSwitchTarget", (m, s, e) -> {
+                SegmentState forced = m.forceSwitchTarget();
+                return forced != null ? forced : fallback;
+            }, ALL_RED_CLEAR, ALL_YELLOWFLASH_MANUAL, UPSTREAM_GREEN, DOWNSTREAM_GREEN);
+            return;
+        }
+        if (state == ALL_YELLOWFLASH_MANUAL) {
+            entry.target(ALL_YELLOWFLASH_MANUAL);
+            return;
+        }
+        switch (event) {
+            case TIMER_TICK -> {
+                if (state == ALL_RED_CLEAR) {
+                    greenFromRed(entry);
+                } else if (state.isGreenState()) {
+                    entry.target(ALL_RED_CLEAR);
+                } else {
+                    entry.target(state);
+                }
+            }
+            case GREEN_TIMEOUT -> entry.target(ALL_RED_CLEAR);
+            case VEHICLE_ENTER_UPSTREAM, VEHICLE_EXIT_UPSTREAM, VEHICLE_ENTER_DOWNSTREAM, VEHICLE_EXIT_DOWNSTREAM,
+                 CLEARANCE_STATUS_UPDATE, CONSERVATIVE_CLEAR_TRIGGERED, SENSOR_FAULT, COMMUNICATION_FAULT, COUNTER_MISMATCH_DETECTED,
+                 ID_LOGIC_ERROR_DETECTED, DATA_INCONSISTENCY_FOUND, SYSTEM_STATE_MACHINE_COMMAND, CONFIG_UPDATE ->
+                    entry.target(state);   // 需要action处理，保持当前状态
+            case EMERGENCY_OVERRIDE -> entry.target(state.isGreenState() ? ALL_RED_CLEAR : null);
+            case CLEARANCE_COMPLETE -> greenFromRed(entry);
+            case CLEAR_TIMEOUT -> entry.target("clearTimeout", (m, s, e) -> {
+                // 黄闪，停止感应，需人工介入
+                logger.info("Event:{} 处理流程缺失", e.getChineseName());
+                return ALL_YELLOWFLASH_MANUAL;
+            }, ALL_YELLOWFLASH_MANUAL);
+            default -> entry.target(null);
+        }
+    }
+
+    private static void greenFromRed(TransitionTable.EntryBuilder<SegmentState, SegmentEvent, SegmentStateMachine> entry) {
+        entry.target("determineGreenStateFromRed", (m, s, e) -> m.determineGreenStateFromRed(),
+                ALL_YELLOWFLASH_MANUAL, ALL_RED_CLEAR, UPSTREAM_GREEN, DOWNSTREAM_GREEN);
+    }
+
+    /**
+     * 守护条件，人工控制不检查
+     */
+    private static void compileGuard(TransitionTable.EntryBuilder<SegmentState, SegmentEvent, SegmentStateMachine> entry,
+                                     SegmentState state, SegmentEvent event, SegmentState target) {
+        if (event == SegmentEvent.FORCE_SWITCH) {
+            entry.guard(target, "true", ALLOW);
+            return;
+        }
+        switch (state) {
+            case ALL_RED_CLEAR -> {
+                if (target == ALL_NOCTRL) {
+                    entry.guard(target, "checkRedToNoCtrl",
+                            (m, s, t, e) -> SegmentGuards.checkRedToNoCtrl(s, t, e, m.getVariables()));
+                } else if (target == ALL_YELLOWFLASH_MANUAL) {
+                    entry.guard(target, "checkRedToYellowFlash",
+                            (m, s, t, e) -> SegmentGuards.checkRedToYellowFlash(s, t, e, m.getVariables()));
+                } else if (target == ALL_RED_CLEAR) {
+                    entry.guard(target, "true", ALLOW);
+                } else {
+                    entry.guard(target, "checkRedToGreenTransition",
+                            (m, s, t, e) -> SegmentGuards.checkRedToGreenTransition(s, t, e, m.getVariables()));
+                }
+            }
+            // 黄闪必须人工解除，感应模式无效
+            case ALL_YELLOWFLASH_MANUAL -> entry.guard(target, "false", DENY);
+            // 非管控必须上级上位机解除，期间只检测入车和出车是否平衡
+            case ALL_NOCTRL -> {
+                if (target == ALL_NOCTRL && (event.isUpstreamVehicleEvent() || event.isDownstreamVehicleEvent())) {
+                    entry.guard(target, "true", ALLOW);
+                } else {
+                    entry.guard(target, "false", DENY);
+                }
+            }
+            case UPSTREAM_GREEN, DOWNSTREAM_GREEN -> {
+                if (target == ALL_NOCTRL || target == ALL_YELLOWFLASH_MANUAL || target == state) {
+                    entry.guard(target, "true", ALLOW);
+                } else {
+                    entry.guard(target, "checkGreenToRedTransition",
+                            (m, s, t, e) -> SegmentGuards.checkGreenToRedTransition(s, e, m.getVariables()));
+                }
+            }
+            default -> entry.guard(target, "true", ALLOW);
+        }
+    }
+
+    /**
+     * 事件动作，状态进入动作由状态机在转换时另行执行
+     */
+    private static void compileAction(TransitionTable.EntryBuilder<SegmentState, SegmentEvent, SegmentStateMachine> entry,
+                                      SegmentEvent event) {
+        switch (event) {
+            case TIMER_TICK -> entry.action("executeTimerTick",
+                    (m, s, t, e, d) -> SegmentActions.executeTimerTick(s, e, m.getVariables()));
+            case GREEN_TIMEOUT -> entry.action("executeGreenTimeout",
+                    (m, s, t, e, d) -> SegmentActions.executeGreenTimeout(s, t, e, m.getVariables()));
+            case CLEARANCE_COMPLETE -> entry.action("executeEnterIdleState",    // 切换状态前准备
+                    (m, s, t, e, d) -> SegmentActions.executeEnterIdleState(s, t, e, m.getVariables()));
+            case FORCE_SWITCH, EMERGENCY_OVERRIDE, MAINTENANCE_MODE -> entry.action("executeForceSwitch",
+                    (m, s, t, e, d) -> SegmentActions.executeForceSwitch(s, e, m.getVariables()));
+            case VEHICLE_ENTER_UPSTREAM, VEHICLE_ENTER_DOWNSTREAM -> entry.action("executeVehicleEnter",
+                    (m, s, t, e, d) -> SegmentActions.executeVehicleEnter(s, e, m.getVariables(),
+                            SegmentStateMachine.plateIdOf(d), (SegmentVariables.Direction) d.get("direction")));
+            case VEHICLE_EXIT_UPSTREAM, VEHICLE_EXIT_DOWNSTREAM -> entry.action("executeVehicleExit",
+                    (m, s, t, e, d) -> SegmentActions.executeVehicleExit(s, e, m.getVariables(),
+                            SegmentStateMachine.plateIdOf(d), (SegmentVariables.Direction) d.get("direction")));
+            case SENSOR_FAULT, DATA_INCONSISTENCY_FOUND, ID_LOGIC_ERROR_DETECTED, COUNTER_MISMATCH_DETECTED,
+                 COMMUNICATION_FAULT -> entry.action("executeEnterFaultMode",
+                    (m, s, t, e, d) -> SegmentActions.executeEnterFaultMode(s, t, e, m.getVariables()));
+            case SYSTEM_RESET -> entry.action("executeRecoveryFromFault",
+                    (m, s, t, e, d) -> SegmentActions.executeRecoveryFromFault(s, e, m.getVariables()));
+            default -> {
+                // SYSTEM_STATE_MACHINE_COMMAND, CONFIG_UPDATE, CONSERVATIVE_CLEAR_TRIGGERED, CLEARANCE_STATUS_UPDATE, CLEAR_TIMEOUT 无动作
+            }
+        }
+    }
+}
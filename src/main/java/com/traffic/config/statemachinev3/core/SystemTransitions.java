@@ -0,0 +1,157 @@
+package com.traffic.config.statemachinev3.core;
+
+import com.traffic.config.statemachinev3.actions.SystemActions;
+import com.traffic.config.statemachinev3.enums.system.SystemEventV3;
+import com.traffic.config.statemachinev3.enums.system.SystemStateV3;
+import com.traffic.config.statemachinev3.guards.SystemGuards;
+import com.traffic.config.statemachinev3.transition.TransitionTable;
+import com.traffic.config.statemachinev3.transition.TransitionTable.Guard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.traffic.config.statemachinev3.enums.system.SystemStateV3.*;
+
+/**
+ * 系统状态机转换表
+ *
+ * 与 {@link SegmentTransitions} 相同，类加载时把顶层状态机的目标状态、守护条件和动作展开成 {@link TransitionTable}，
+ * 定时器事件按当前状态拆成各自的目标函数。
+ */
+final class SystemTransitions {
+    private static final Logger logger = LoggerFactory.getLogger(SystemTransitions.class);
+
+    private static final Guard<SystemStateV3, SystemEventV3, TopLevelStateMachine> ALLOW = TransitionTable.allow();
+
+    // 须在守护条件常量之后初始化，恒真/恒假守护条件在表中按常量判断
+    static final TransitionTable<SystemStateV3, SystemEventV3, TopLevelStateMachine> TABLE = compile();
+
+    private SystemTransitions() {
+    }
+
+    private static TransitionTable<SystemStateV3, SystemEventV3, TopLevelStateMachine> compile() {
+        TransitionTable.Builder<SystemStateV3, SystemEventV3, TopLevelStateMachine> builder =
+                TransitionTable.builder(SystemStateV3.class, SystemEventV3.class);
+        for (SystemStateV3 state : SystemStateV3.values()) {
+            for (SystemEventV3 event : SystemEventV3.values()) {
+                TransitionTable.EntryBuilder<SystemStateV3, SystemEventV3, TopLevelStateMachine> entry = builder.entry(state, event);
+                compileTarget(entry, state, event);
+                for (SystemStateV3 target : SystemStateV3.values()) {
+                    compileGuard(entry, event, target);
+                }
+                compileAction(entry, event);
+                entry.add();
+            }
+        }
+        // 状态进入动作
+        builder.entryAction(SYSTEM_INIT, "executeEnterSystemInit",
+                (m, from, to, e, d) -> SystemActions.executeEnterSystemInit(from, e, m.getVariables()));
+        builder.entryAction(ALL_RED_TRANSITION, "executeEnterTransition",
+                (m, from, to, e, d) -> SystemActions.executeEnterTransition(from, e, m.getVariables()));
+        builder.entryAction(INDUCTIVE_MODE, "executeEnterInductiveMode",
+                (m, from, to, e, d) -> SystemActions.executeEnterInductiveMode(from, e, m.getVariables()));
+        builder.entryAction(DEGRADED_MODE, "executeEnterDegradedMode",
+                (m, from, to, e, d) -> SystemActions.executeEnterDegradedMode(from, e, m.getVariables()));
+        builder.entryAction(MAINTENANCE_MODE, "executeEnterMaintenanceMode",
+                (m, from, to, e, d) -> SystemActions.executeEnterMaintenanceMode(from, e, m.getVariables()));
+        builder.entryAction(EMERGENCY_MODE, "executeEnterEmergencyMode",
+                (m, from, to, e, d) -> SystemActions.executeEnterEmergencyMode(from, e, m.getVariables()));
+        return builder.build();
+    }
+
+    /**
+     * 目标状态，null表示无状态变化且不执行动作
+     */
+    private static void compileTarget(TransitionTable.EntryBuilder<SystemStateV3, SystemEventV3, TopLevelStateMachine> entry,
+                                      SystemStateV3 state, SystemEventV3 event) {
+        switch (event) {
+            case TIMER_TICK -> {
+                switch (state) {
+                    case SYSTEM_INIT -> entry.target("initTickTarget",
+                            (m, s, e) -> m.initTickTarget(), ALL_RED_TRANSITION);
+                    case ALL_RED_TRANSITION -> entry.target("transitionTickTarget",
+                            (m, s, e) -> m.transitionTickTarget(), INDUCTIVE_MODE, DEGRADED_MODE);
+                    case INDUCTIVE_MODE -> entry.target("inductiveTickTarget",
+                            (m, s, e) -> m.inductiveTickTarget(), EMERGENCY_MODE, ALL_RED_TRANSITION);
+                    case DEGRADED_MODE -> entry.target("degradedTickTarget",
+                            (m, s, e) -> m.degradedTickTarget(), EMERGENCY_MODE, ALL_RED_TRANSITION);
+                    default -> entry.target(null);   // 保持当前状态
+                }
+            }
+            case SYSTEM_INIT_COMPLETE -> entry.target(state == SYSTEM_INIT ? ALL_RED_TRANSITION : null);
+            case TRANSITION_COMPLETE, RECOVERY_VERIFIED -> entry.target(state == ALL_RED_TRANSITION ? INDUCTIVE_MODE : null);
+            case TRANSITION_TIMEOUT -> entry.target(state == ALL_RED_TRANSITION ? DEGRADED_MODE : null);
+            case SEGMENT_FAULT_DETECTED, SYSTEM_FAULT_DETECTED -> entry.target(state == INDUCTIVE_MODE ? ALL_RED_TRANSITION : null);
+            case CRITICAL_FAULT -> entry.target(EMERGENCY_MODE);
+            case CONDITIONS_RESTORED -> entry.target(state == DEGRADED_MODE ? ALL_RED_TRANSITION : null);
+            case MAINTENANCE_REQUEST -> entry.target(state == INDUCTIVE_MODE || state == DEGRADED_MODE ? MAINTENANCE_MODE : null);
+            case MAINTENANCE_COMPLETE -> entry.target(state == MAINTENANCE_MODE ? SYSTEM_INIT : null);
+            case SYSTEM_RESET -> entry.target(SYSTEM_INIT);
+            case HEALTH_SCORE_UPDATE -> entry.target(state);
+            default -> entry.target(null);   // SEGMENT_CLEARANCE_UPDATE, ALL_SEGMENTS_CLEARED, CLEARANCE_TIMEOUT, CONSERVATIVE_CLEAR_TRIGGERED
+        }
+    }
+
+    /**
+     * 守护条件，按事件确定；定时器事件按目标状态确定
+     */
+    private static void compileGuard(TransitionTable.EntryBuilder<SystemStateV3, SystemEventV3, TopLevelStateMachine> entry,
+                                     SystemEventV3 event, SystemStateV3 target) {
+        switch (event) {
+            case TIMER_TICK -> {
+                switch (target) {
+                    case ALL_RED_TRANSITION -> entry.guard(target, "checkInitializationComplete|checkSegmentFaultDetected|checkConditionsRestored",
+                            (m, s, t, e) -> SystemGuards.checkInitializationComplete(s, e, m.getVariables()) ||
+                                    SystemGuards.checkSegmentFaultDetected(s, e, m.getVariables()) ||
+                                    SystemGuards.checkConditionsRestored(s, e, m.getVariables()));
+                    case INDUCTIVE_MODE -> entry.guard(target, "checkTransitionComplete|checkRecoveryVerified",
+                            (m, s, t, e) -> SystemGuards.checkTransitionComplete(s, e, m.getVariables()) ||
+                                    SystemGuards.checkRecoveryVerified(s, e, m.getVariables()));
+                    case DEGRADED_MODE -> entry.guard(target, "checkTransitionTimeout",
+                            (m, s, t, e) -> SystemGuards.checkTransitionTimeout(s, e, m.getVariables()));
+                    case EMERGENCY_MODE -> entry.guard(target, "checkCriticalFaultDetected",
+                            (m, s, t, e) -> SystemGuards.checkCriticalFaultDetected(s, e, m.getVariables()));
+                    default -> entry.guard(target, "true", ALLOW);
+                }
+            }
+            case SYSTEM_INIT_COMPLETE -> entry.guard(target, "checkInitializationComplete",
+                    (m, s, t, e) -> SystemGuards.checkInitializationComplete(s, e, m.getVariables()));
+            case TRANSITION_COMPLETE -> entry.guard(target, "checkTransitionComplete",
+                    (m, s, t, e) -> SystemGuards.checkTransitionComplete(s, e, m.getVariables()));
+            case TRANSITION_TIMEOUT -> entry.guard(target, "checkTransitionTimeout",
+                    (m, s, t, e) -> SystemGuards.checkTransitionTimeout(s, e, m.getVariables()));
+            case SEGMENT_FAULT_DETECTED -> entry.guard(target, "checkSegmentFaultDetected",
+                    (m, s, t, e) -> SystemGuards.checkSegmentFaultDetected(s, e, m.getVariables()));
+            case SYSTEM_FAULT_DETECTED -> entry.guard(target, "checkSystemFaultDetected",
+                    (m, s, t, e) -> SystemGuards.checkSystemFaultDetected(s, e, m.getVariables()));
+            case CRITICAL_FAULT -> entry.guard(target, "checkCriticalFaultDetected",
+                    (m, s, t, e) -> SystemGuards.checkCriticalFaultDetected(s, e, m.getVariables()));
+            case CONDITIONS_RESTORED -> entry.guard(target, "checkConditionsRestored",
+                    (m, s, t, e) -> SystemGuards.checkConditionsRestored(s, e, m.getVariables()));
+            case RECOVERY_VERIFIED -> entry.guard(target, "checkRecoveryVerified",
+                    (m, s, t, e) -> SystemGuards.checkRecoveryVerified(s, e, m.getVariables()));
+            case MAINTENANCE_REQUEST -> entry.guard(target, "checkMaintenanceRequestAllowed",
+                    (m, s, t, e) -> SystemGuards.checkMaintenanceRequestAllowed(s, e, m.getVariables()));
+            case MAINTENANCE_COMPLETE -> entry.guard(target, "checkMaintenanceComplete",
+                    (m, s, t, e) -> SystemGuards.checkMaintenanceComplete(s, e, m.getVariables()));
+            default -> entry.guard(target, "true", ALLOW);   // 默认允许
+        }
+    }
+
+    /**
+     * 事件动作，状态进入动作由状态机在转换时另行执行
+     */
+    private static void compileAction(TransitionTable.EntryBuilder<SystemStateV3, SystemEventV3, TopLevelStateMachine> entry,
+                                      SystemEventV3 event) {
+        switch (event) {
+            case TIMER_TICK -> {
+                // 定时器事件的动作在状态进入时执行
+            }
+            case SYSTEM_RESET -> entry.action("executeEnterSystemInit",
+                    (m, s, t, e, d) -> SystemActions.executeEnterSystemInit(s, e, m.getVariables()));
+            case HEALTH_SCORE_UPDATE -> entry.action("updateSystemHealth",
+                    (m, s, t, e, d) -> m.updateSystemHealth());
+            default -> entry.action("-",
+                    (m, s, t, e, d) -> logger.debug("事件 {} 无需特殊动作处理", e.getChineseName()));
+        }
+    }
+}
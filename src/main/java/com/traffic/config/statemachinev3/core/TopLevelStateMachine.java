@@ -1,9 +1,11 @@
 package com.traffic.config.statemachinev3.core;
 
 import com.traffic.config.entity.Segment;
+import com.traffic.config.entity.SingleLane;
 import com.traffic.config.entity.WaitingArea;
 import com.traffic.config.entity.WaitingAreas;
 import com.traffic.config.service.ConfigService;
+import com.traffic.config.service.event.ConfigReloadEvent;
 import com.traffic.config.service.event.EventBusService;
 import com.traffic.config.signalplatform.platformbase.CrossInfoManager;
 import com.traffic.config.statemachinev3.enums.segment.SegmentState;
@@ -11,21 +13,27 @@ import com.traffic.config.statemachinev3.enums.system.SystemStateV3;
 import com.traffic.config.statemachinev3.enums.system.SystemEventV3;
 import com.traffic.config.statemachinev3.enums.segment.ClearanceDecision;
 import com.traffic.config.statemachinev3.events.CustomControlEvent;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
 import com.traffic.config.statemachinev3.variables.SystemVariables;
 import com.traffic.config.statemachinev3.constants.SystemConstants;
-import com.traffic.config.statemachinev3.guards.SystemGuards;
-import com.traffic.config.statemachinev3.actions.SystemActions;
+import com.traffic.config.statemachinev3.constants.SegmentConstants;
+import com.traffic.config.statemachinev3.threading.PriorityMailbox;
+import com.traffic.config.statemachinev3.threading.SegmentTickExecutor;
+import com.traffic.config.statemachinev3.transition.TransitionTable;
 import com.traffic.config.statemachinev3.variables.objects.CrossMettingZoneManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 顶层系统状态机核心引擎
@@ -62,14 +70,25 @@ public class TopLevelStateMachine {
     private final SystemVariables variables;
 
     /**
-     * 路段状态机集合
+     * 路段状态机集合，拓扑变化时整体替换
      */
-    private final List<SegmentStateMachine> segmentStateMachines;
+    private volatile SegmentSet segmentSet;
 
     /**
-     * 事件队列
+     * 路段集合替换、系统状态转换及随之而来的路段启停都在此锁内进行，
+     * 新增路段是否启动与系统状态的判断因此不会与状态转换交错
      */
-    private final BlockingQueue<PrioritizedSystemEvent> eventQueue;
+    private final Object segmentLock = new Object();
+
+    /**
+     * 路段增减监听
+     */
+    private final List<SegmentLifecycleListener> segmentListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 事件队列，按事件优先级分级，高优先级事件先处理
+     */
+    private final PriorityMailbox<SystemEventV3.EventPriority, PrioritizedSystemEvent> eventQueue;
 
     /**
      * 系统运行状态
@@ -87,6 +106,29 @@ public class TopLevelStateMachine {
     @Autowired
     private ConfigService configService;
 
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 路段定时滴答并行度：0-按CPU核心数，1-在调度线程上依次处理
+    @Value("${traffic.segment.tick-parallelism:0}")
+    private int tickParallelism = 0;
+
+    // 单次滴答耗时预算，超出时告警
+    @Value("${traffic.segment.tick-budget-ms:1000}")
+    private long tickBudgetMs = 1000;
+
+    // 离开车牌近似匹配可接受的最大加权编辑距离
+    @Value("${traffic.segment.fuzzy-plate-max-cost:0.5}")
+    private double fuzzyPlateMaxCost = SegmentConstants.FUZZY_PLATE_MAX_COST;
+
+    private volatile SegmentTickExecutor tickExecutor;
+    private Timer tickTimer;
+
+    /**
+     * 最近一次滴答屏障处统计的故障路段数
+     */
+    private volatile int faultySegmentCount;
+
     // ==================== 构造函数和初始化 ====================
 
     /**
@@ -94,8 +136,7 @@ public class TopLevelStateMachine {
      */
     public TopLevelStateMachine() {
         this.variables = new SystemVariables();
-        this.segmentStateMachines = new CopyOnWriteArrayList<>();
-        this.eventQueue = new LinkedBlockingQueue<>();
+        this.eventQueue = new PriorityMailbox<>(SystemEventV3.EventPriority.class);
         this.transitionHistory = Collections.synchronizedList(new ArrayList<>());
         this.currentState = SystemStateV3.SYSTEM_INIT;
         this.isRunning = false;
@@ -104,17 +145,224 @@ public class TopLevelStateMachine {
         initializeSegmentStateMachines();
 
         logger.info("顶层系统状态机初始化完成 - 初始状态: {}, 路段数量: {}",
-                currentState.getChineseName(), segmentStateMachines.size());
+                currentState.getChineseName(), segments().size());
     }
 
     /**
-     * 初始化路段状态机
+     * 初始化路段状态机，配置加载前按默认路段数建立，配置加载后由 {@link #applySegmentConfig} 按配置重建
      */
     private void initializeSegmentStateMachines() {
+        List<SegmentStateMachine> segments = new ArrayList<>();
         for (int i = 1; i <= SystemConstants.TOTAL_SEGMENT_COUNT; i++) {
             SegmentStateMachine segment = new SegmentStateMachine(i);
             //logger.debug("初始化路段状态机 - 路段ID: {}", i);
-            segmentStateMachines.add(segment);
+            segments.add(segment);
+        }
+        this.segmentSet = new SegmentSet(segments, Collections.emptyMap());
+    }
+
+    // ==================== 路段拓扑 ====================
+
+    /**
+     * 路段增减监听，新增路段在启动前通知，撤销路段在停止后通知
+     */
+    public interface SegmentLifecycleListener {
+        void segmentAdded(SegmentStateMachine segment);
+
+        void segmentRemoved(SegmentStateMachine segment);
+    }
+
+    /**
+     * 当前路段集合，创建后不再修改
+     *
+     * 路段ID可能稀疏（如 1、1000），按升序ID数组二分查找位置，各数组与 ordered 按位置对应，
+     * 占用只与路段数有关。
+     */
+    private static final class SegmentSet {
+        final List<SegmentStateMachine> ordered;    // 按路段ID升序，即路段顺序
+        final int[] ids;                            // 与 ordered 对应的路段ID
+        final String[] upSigids;                    // 与 ordered 对应
+        final String[] downSigids;
+
+        SegmentSet(List<SegmentStateMachine> ordered, Map<Integer, Segment> configs) {
+            this.ordered = List.copyOf(ordered);
+            this.ids = new int[ordered.size()];
+            this.upSigids = new String[ordered.size()];
+            this.downSigids = new String[ordered.size()];
+            for (int i = 0; i < ids.length; i++) {
+                int segmentId = ordered.get(i).getSegmentId();
+                ids[i] = segmentId;
+                Segment config = configs.get(segmentId);
+                if (config != null) {
+                    upSigids[i] = config.getUpsigid();
+                    downSigids[i] = config.getDownsigid();
+                }
+            }
+        }
+
+        /**
+         * @return 路段在 ordered 中的位置，不存在时为负数
+         */
+        int indexOf(int segmentId) {
+            return Arrays.binarySearch(ids, segmentId);
+        }
+
+        SegmentStateMachine get(int segmentId) {
+            int index = indexOf(segmentId);
+            return index >= 0 ? ordered.get(index) : null;
+        }
+
+        String sigid(int segmentId, boolean isUpstream) {
+            int index = indexOf(segmentId);
+            if (index < 0) return null;
+            return isUpstream ? upSigids[index] : downSigids[index];
+        }
+
+        int lastSegmentId() {
+            return ordered.isEmpty() ? 0 : ordered.get(ordered.size() - 1).getSegmentId();
+        }
+    }
+
+    private List<SegmentStateMachine> segments() {
+        return segmentSet.ordered;
+    }
+
+    public void addSegmentLifecycleListener(SegmentLifecycleListener listener) {
+        segmentListeners.add(listener);
+    }
+
+    @EventListener
+    public void handleConfigReload(ConfigReloadEvent event) {
+        SingleLane config = event.getConfig();
+        if (config == null || config.getSegments() == null) {
+            return;
+        }
+        applySegmentConfig(config.getSegments().getSegmentList(),
+                config.getWaitingAreas() != null ? config.getWaitingAreas().getWaitingAreas() : null);
+    }
+
+    /**
+     * 按配置重建路段集合和会车区
+     *
+     * 配置中仍存在的路段沿用原状态机，只更新绿灯、红灯和路段长度参数，运行中的状态和车辆不受影响；
+     * 新增路段新建状态机，系统处于感应模式时直接启动，从全红清空开始自行过渡，其它路段不需要重新全红；
+     * 配置中已删除的路段停止并移出，不再接收事件。路段按ID升序构成走廊，相邻路段之间为会车区。
+     * 等待区容量按 index 与会车区编号对应，对应不上的等待区告警并忽略，该会车区保持默认容量。
+     * 路段集合的发布和新增路段的启动与系统状态转换互斥。
+     */
+    public void applySegmentConfig(List<Segment> segmentConfigs, List<WaitingArea> waitingAreas) {
+        if (segmentConfigs == null || segmentConfigs.isEmpty()) {
+            logger.warn("路段配置为空，保持当前路段拓扑");
+            return;
+        }
+        synchronized (segmentLock) {
+            applySegmentTopology(segmentConfigs, waitingAreas);
+        }
+    }
+
+    private void applySegmentTopology(List<Segment> segmentConfigs, List<WaitingArea> waitingAreas) {
+        Map<Integer, Segment> configs = new TreeMap<>();
+        for (Segment config : segmentConfigs) {
+            if (config.getSegmentId() <= 0) {
+                logger.warn("忽略路段ID无效的路段配置: {}", config.getName());
+            } else if (configs.putIfAbsent(config.getSegmentId(), config) != null) {
+                logger.warn("路段ID {} 重复，忽略后一条配置", config.getSegmentId());
+            }
+        }
+        if (configs.isEmpty()) {
+            return;
+        }
+
+        SegmentSet current = segmentSet;
+        List<SegmentStateMachine> ordered = new ArrayList<>(configs.size());
+        List<SegmentStateMachine> added = new ArrayList<>();
+        for (Segment config : configs.values()) {
+            SegmentStateMachine segment = current.get(config.getSegmentId());
+            if (segment == null) {
+                // 新路段发布前不会被其它线程访问
+                segment = new SegmentStateMachine(config.getSegmentId());
+                applySegmentParameters(segment.getVariables(), config);
+                added.add(segment);
+            } else {
+                // 运行中的路段与定时滴答、信箱线程并发，须在路段处理锁内更新
+                segment.updateVariables(v -> applySegmentParameters(v, config));
+            }
+            ordered.add(segment);
+        }
+        List<SegmentStateMachine> removed = new ArrayList<>();
+        for (SegmentStateMachine segment : current.ordered) {
+            if (!configs.containsKey(segment.getSegmentId())) {
+                removed.add(segment);
+            }
+        }
+
+        // 会车区先于路段集合更新，新路段开始处理事件时两侧会车区已经存在
+        int[] segmentIds = configs.keySet().stream().mapToInt(Integer::intValue).toArray();
+        CrossMettingZoneManager zoneManager = CrossMettingZoneManager.getInstance();
+        zoneManager.applyTopology(segmentIds);
+        applyWaitingAreaCapacities(zoneManager, segmentIds, waitingAreas);
+        for (SegmentStateMachine segment : ordered) {
+            segment.updateVariables(SegmentVariables::updateMeetingZones);
+        }
+
+        segmentSet = new SegmentSet(ordered, configs);
+        variables.applySegmentIds(segmentIds);
+
+        for (SegmentStateMachine segment : removed) {
+            segment.stop();
+            for (SegmentLifecycleListener listener : segmentListeners) {
+                listener.segmentRemoved(segment);
+            }
+            logger.warn("路段 {} 已从配置中删除，状态机停止，该路段信号机不再受控", segment.getSegmentId());
+        }
+        for (SegmentStateMachine segment : added) {
+            for (SegmentLifecycleListener listener : segmentListeners) {
+                listener.segmentAdded(segment);
+            }
+            if (isRunning && currentState == SystemStateV3.INDUCTIVE_MODE) {
+                segment.start();
+            }
+            logger.info("路段 {} 已按配置新增，状态机{}", segment.getSegmentId(), segment.isRunning() ? "已启动" : "待感应模式启动");
+        }
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            logger.info("路段拓扑已更新: {}", Arrays.toString(segmentIds));
+        }
+    }
+
+    private void applySegmentParameters(SegmentVariables segmentVariables, Segment config) {
+        segmentVariables.setMinGreen(config.getMinGreen());
+        segmentVariables.setMaxGreen(config.getMaxGreen());
+        segmentVariables.setMinRed(config.getMinRed());
+        segmentVariables.setMaxRed(config.getMaxRed());
+        segmentVariables.setRoadLength(config.getLength());
+        segmentVariables.setFuzzyPlateMaxCost(fuzzyPlateMaxCost);
+    }
+
+    private void applyWaitingAreaCapacities(CrossMettingZoneManager zoneManager, int[] segmentIds, List<WaitingArea> waitingAreas) {
+        if (waitingAreas == null || waitingAreas.isEmpty()) {
+            return;
+        }
+        Map<Integer, WaitingArea> byIndex = new HashMap<>();
+        for (int i = 0; i < waitingAreas.size(); i++) {
+            WaitingArea waitingArea = waitingAreas.get(i);
+            if (waitingArea.getIndex() <= 0) {
+                logger.warn("第 {} 条等待区配置未指定有效的 index，无法确定对应的会车区，忽略其容量配置", i + 1);
+            } else if (byIndex.putIfAbsent(waitingArea.getIndex(), waitingArea) != null) {
+                logger.warn("等待区 index {} 重复，忽略后一条配置", waitingArea.getIndex());
+            }
+        }
+        // 会车区编号为其上游路段ID，最后一个路段之后没有会车区
+        for (int i = 0; i < segmentIds.length - 1; i++) {
+            int zoneId = segmentIds[i];
+            WaitingArea waitingArea = byIndex.remove(zoneId);
+            if (waitingArea == null) {
+                logger.warn("会车区 {} 没有对应 index 的等待区配置，保持容量 {}", zoneId, CrossMettingZoneManager.DEFAULT_CAPACITY);
+                continue;
+            }
+            zoneManager.updateCrossMeetingCapacity(zoneId, waitingArea.getUpCapacity(), waitingArea.getDownCapacity());
+        }
+        for (Integer index : byIndex.keySet()) {
+            logger.warn("等待区 index {} 不对应任何会车区（会车区编号为其上游路段ID），忽略其容量配置", index);
         }
     }
 
@@ -125,17 +373,23 @@ public class TopLevelStateMachine {
      */
     public void start() {
         if (!isRunning) {
+            tickExecutor = new SegmentTickExecutor(tickParallelism);
+            if (meterRegistry != null && tickTimer == null) {
+                tickTimer = Timer.builder("traffic.statemachine.tick")
+                        .description("系统定时滴答耗时（路段并行处理 + 系统级处理）")
+                        .register(meterRegistry);
+            }
             isRunning = true;
 
             // 启动所有路段状态机
-//            for (SegmentStateMachine segment : segmentStateMachines) {
+//            for (SegmentStateMachine segment : segments()) {
 //                segment.start();
 //            }
 
             // 发送系统启动事件
             postEvent(SystemEventV3.TIMER_TICK, null);
 
-            logger.info("顶层系统状态机启动完成");
+            logger.info("顶层系统状态机启动完成 - 路段滴答并行度: {}", tickExecutor.getParallelism());
         }
     }
 
@@ -144,14 +398,19 @@ public class TopLevelStateMachine {
      */
     public void stop() {
         if (isRunning) {
-            isRunning = false;
+            synchronized (segmentLock) {
+                isRunning = false;
 
-            // 停止所有路段状态机
-            for (SegmentStateMachine segment : segmentStateMachines) {
-                segment.stop();
+                // 停止所有路段状态机
+                for (SegmentStateMachine segment : segments()) {
+                    segment.stop();
+                }
             }
 
             eventQueue.clear();
+            if (tickExecutor != null) {
+                tickExecutor.shutdown();
+            }
             logger.info("顶层系统状态机停止");
         }
     }
@@ -166,12 +425,14 @@ public class TopLevelStateMachine {
             return false;
         }
 
+        long start = System.nanoTime();
         try {
-            // 1. 处理路段状态机
-            processSegmentStateMachines();
+            // 1. 并行处理路段状态机，全部完成后才继续
+            SegmentTickExecutor.Result[] results = tickExecutor.tick(segments());
+            processSegmentStateMachines(results);
 
             // 2. 更新路段清空状态
-            updateSegmentClearanceStates();
+            updateSegmentClearanceStates(results);
 
             // 3. 发送定时器事件到系统状态机
             postEvent(SystemEventV3.TIMER_TICK, null);
@@ -191,36 +452,56 @@ public class TopLevelStateMachine {
             logger.warn("系统状态机处理定时器事件异常: {}", e.getMessage());
             variables.incrementConsecutiveFaults();
             return false;
+        } finally {
+            recordTickDuration(System.nanoTime() - start);
         }
     }
 
     /**
-     * 处理所有路段状态机
+     * 汇总路段处理结果，按路段顺序登记故障，结果与各路段的完成先后无关
      */
-    private void processSegmentStateMachines() {
-        for (SegmentStateMachine segment : segmentStateMachines) {
-            try {
-                segment.processTimerTick();
-            } catch (Exception e) {
-                logger.warn("处理路段 {} 状态机异常: {}", segment.getSegmentId(), e.getMessage());
+    private void processSegmentStateMachines(SegmentTickExecutor.Result[] results) {
+        int faulty = 0;
+        for (SegmentTickExecutor.Result result : results) {
+            if (result.getTickError() != null) {
+                logger.warn("处理路段 {} 状态机异常: {}", result.getSegmentId(), result.getTickError());
                 // 标记路段故障
-                markSegmentFaulty(segment.getSegmentId(), e.getMessage());
+                markSegmentFaulty(result.getSegmentId(), result.getTickError());
+            }
+            if (result.isFaultDetected()) {
+                faulty++;
             }
         }
+        faultySegmentCount = faulty;
+    }
+
+    private void recordTickDuration(long nanos) {
+        SegmentTickExecutor executor = tickExecutor;
+        if (executor == null) {
+            return;
+        }
+        if (tickTimer != null) {
+            tickTimer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+        if (executor.recordTick(nanos, TimeUnit.MILLISECONDS.toNanos(tickBudgetMs))) {
+            logger.warn("系统定时滴答耗时 {} ms 超出预算 {} ms（路段阶段 {} ms，路段数 {}）",
+                    nanos / 1_000_000, tickBudgetMs, executor.getLastSegmentPhaseNanos() / 1_000_000, segments().size());
+        }
     }
 
     /**
-     * 处理所有信号机状态
+     * 处理所有信号机状态，按路段顺序发布各路口的控制状态，走廊末端路段另发布其下游路口
      */
-    private void processSegmentStateCtrlInfo() {
+    void processSegmentStateCtrlInfo() {
         SegmentStateMachine lastSegment = null;
         if (!EventBusService.isReady()) return;
-        for (SegmentStateMachine segment : segmentStateMachines) {
+        SegmentSet set = segmentSet;
+        for (SegmentStateMachine segment : set.ordered) {
             try {
                 if(!segment.isRunning()) continue;
                 if(lastSegment == null) {
                     EventBusService.publishStatic(new CustomControlEvent("CustomControlEvent", segment.getCurrentState(), null,
-                            getSigidBySegmentId(segment.getSegmentId(), true)));
+                            getSigidBySegmentId(set, segment.getSegmentId(), true)));
 
 //                    else if(segment.getCurrentState().isUpstreamState()) {
 //                        EventBusService.publishStatic(new CustomControlEvent("CustomControlEvent", segment.getCurrentState(), null,
@@ -228,7 +509,7 @@ public class TopLevelStateMachine {
 //                    }
                 }else{
                     EventBusService.publishStatic(new CustomControlEvent("CustomControlEvent", lastSegment.getCurrentState(), segment.getCurrentState(),
-                            getSigidBySegmentId(segment.getSegmentId(), true)));
+                            getSigidBySegmentId(set, segment.getSegmentId(), true)));
                 }
                 lastSegment = segment;
             } catch (Exception e) {
@@ -237,9 +518,9 @@ public class TopLevelStateMachine {
             }
         }
         if(lastSegment != null) {
-            if(lastSegment.getSegmentId()!=4) return;
+            if(lastSegment.getSegmentId()!=set.lastSegmentId()) return;   // 走廊末端路段
             EventBusService.publishStatic(new CustomControlEvent("CustomControlEvent", null, lastSegment.getCurrentState(),
-                    getSigidBySegmentId(lastSegment.getSegmentId(), false)));
+                    getSigidBySegmentId(set, lastSegment.getSegmentId(), false)));
 //            logger.info("[last cross]segmentId: {}, sigid: {}, run: {}", lastSegment.getSegmentId(), getSigidBySegmentId(lastSegment.getSegmentId(), false), lastSegment.getCurrentState().getDescription());
 //            if(lastSegment.getCurrentState().isDownstreamState()){
 //                EventBusService.publishStatic(new CustomControlEvent("CustomControlEvent", null, lastSegment.getCurrentState(),
@@ -251,7 +532,12 @@ public class TopLevelStateMachine {
         }
     }
 
-    private String getSigidBySegmentId(int segmentId, boolean isUpstream) {
+    private String getSigidBySegmentId(SegmentSet set, int segmentId, boolean isUpstream) {
+        String sigid = set.sigid(segmentId, isUpstream);
+        if (sigid != null) {
+            return sigid;
+        }
+        // 配置尚未应用到路段集合时查询配置
         Optional<Segment> segment = configService.getSegmentBySegmentId(segmentId);
         if(segment.isEmpty()) return "";
         Segment seg = segment.get();
@@ -285,21 +571,27 @@ public class TopLevelStateMachine {
         LocalDateTime eventTime = LocalDateTime.now();
 
         try {
+            TransitionTable.Entry<SystemStateV3, SystemEventV3, TopLevelStateMachine> transition =
+                    SystemTransitions.TABLE.entry(currentState, event);
             // 1. 确定目标状态
-            SystemStateV3 targetState = determineSystemTargetState(event);
+            SystemStateV3 targetState = transition.target(this);
             if (targetState == null) {
                 return true; // 无状态变化, 有些无状态变化，也需要执行一些动作，这里只处理不需要任何动作的情况
             }
 
             // 2. 检查守护条件 G_sys(q, σ, v)
-            if (!checkSystemGuardCondition(event, targetState)) {
+            if (!transition.guard(this, targetState)) {
                 logger.debug("系统状态转换被守护条件阻止: {} -> {} (事件: {})",
                         currentState.getChineseName(), targetState.getChineseName(), event.getChineseName());
                 return false;
             }
 
             // 3. 执行动作函数 A_sys(q, σ, v)
-            executeSystemAction(event, targetState, eventData);
+            transition.execute(this, targetState, eventData);
+            // 如果有状态转换，执行状态进入动作
+            if (targetState != currentState) {
+                SystemTransitions.TABLE.enter(this, currentState, targetState, event);
+            }
 
             // 4. 状态转换
             if (targetState != currentState) {
@@ -320,222 +612,74 @@ public class TopLevelStateMachine {
     // ==================== 系统状态转换逻辑 ====================
 
     /**
-     * 确定系统目标状态
+     * 系统初始化状态下的定时器事件：完成自检和配置检查，初始化超时后进入全红过渡
      */
-    private SystemStateV3 determineSystemTargetState(SystemEventV3 event) {
-        switch (event) {
-            case TIMER_TICK -> {
-                return determineTimerTickSystemTargetState();
-            }
-            case SYSTEM_INIT_COMPLETE -> {
-                if (currentState == SystemStateV3.SYSTEM_INIT) {
-                    return SystemStateV3.ALL_RED_TRANSITION;
-                }
-            }
-            case TRANSITION_COMPLETE, RECOVERY_VERIFIED -> {
-                if (currentState == SystemStateV3.ALL_RED_TRANSITION) {
-                    return SystemStateV3.INDUCTIVE_MODE;
-                }
-            }
-            case TRANSITION_TIMEOUT -> {
-                if (currentState == SystemStateV3.ALL_RED_TRANSITION) {
-                    return SystemStateV3.DEGRADED_MODE;
-                }
-            }
-            case SEGMENT_FAULT_DETECTED, SYSTEM_FAULT_DETECTED -> {
-                if (currentState == SystemStateV3.INDUCTIVE_MODE) {
-                    return SystemStateV3.ALL_RED_TRANSITION;
-                }
-            }
-            case CRITICAL_FAULT -> {
-                return SystemStateV3.EMERGENCY_MODE;
-            }
-            case CONDITIONS_RESTORED -> {
-                if (currentState == SystemStateV3.DEGRADED_MODE) {
-                    return SystemStateV3.ALL_RED_TRANSITION;
-                }
-            }
-            case MAINTENANCE_REQUEST -> {
-                if (currentState == SystemStateV3.INDUCTIVE_MODE || currentState == SystemStateV3.DEGRADED_MODE) {
-                    return SystemStateV3.MAINTENANCE_MODE;
-                }
-            }
-            case MAINTENANCE_COMPLETE -> {
-                if (currentState == SystemStateV3.MAINTENANCE_MODE) {
-                    return SystemStateV3.SYSTEM_INIT;
-                }
-            }
-            case SYSTEM_RESET -> {
-                return SystemStateV3.SYSTEM_INIT;
-            }
-            case HEALTH_SCORE_UPDATE -> {
-                return currentState;
-            }
-            default -> {// SEGMENT_CLEARANCE_UPDATE, ALL_SEGMENTS_CLEARED, CLEARANCE_TIMEOUT, CONSERVATIVE_CLEAR_TRIGGERED
-
-            }
+    SystemStateV3 initTickTarget() {
+        if(!variables.isCommunicationNormal()){
+            variables.setCommunicationNormal(performSystemSelfCheck());
         }
-        return null;
-    }
-
-    /**
-     * 基于定时器事件确定系统目标状态
-     */
-    private SystemStateV3 determineTimerTickSystemTargetState() {
-        switch (currentState) {
-            case SYSTEM_INIT -> {
-                // 检查初始化是否完成
-                if(!variables.isCommunicationNormal()){
-                    variables.setCommunicationNormal(performSystemSelfCheck());
-                }
-                if(!variables.isConfigurationLoaded()) {
-                    if(verifyConfigurationLoaded()) {
-                        variables.setCommunicationStatus(SystemVariables.CommunicationStatus.NORMAL);
-                    }
-                }
-                if (variables.isSystemInitTimeout()) {
-                    return SystemStateV3.ALL_RED_TRANSITION;
-                }
-            }
-            case ALL_RED_TRANSITION -> {
-                // 检查过渡是否完成或超时
-                if (variables.isTransitionComplete()) {
-                    variables.setSegmentsAllReady(true);
-                    return SystemStateV3.INDUCTIVE_MODE;
-                } else if (variables.isTransitionTimeout()) {
-                    return SystemStateV3.DEGRADED_MODE;
-                }
-            }
-            case INDUCTIVE_MODE -> {
-                // 检查是否需要降级或进入紧急模式
-                if (shouldEnterEmergencyMode()) {
-                    return SystemStateV3.EMERGENCY_MODE;
-                } else if (shouldEnterDegradedMode()) {
-                    return SystemStateV3.ALL_RED_TRANSITION;
-                }
-            }
-            case DEGRADED_MODE -> {
-                // 检查是否可以恢复或需要紧急模式
-                if (shouldEnterEmergencyMode()) {
-                    return SystemStateV3.EMERGENCY_MODE;
-                } else if (shouldRecoverFromDegradedMode()) {
-                    return SystemStateV3.ALL_RED_TRANSITION;
-                }
+        if(!variables.isConfigurationLoaded()) {
+            if(verifyConfigurationLoaded()) {
+                variables.setCommunicationStatus(SystemVariables.CommunicationStatus.NORMAL);
             }
         }
+        if (variables.isSystemInitTimeout()) {
+            return SystemStateV3.ALL_RED_TRANSITION;
+        }
         return null; // 保持当前状态
     }
 
     /**
-     * 检查系统守护条件
+     * 全红过渡状态下的定时器事件：检查过渡是否完成或超时
      */
-    private boolean checkSystemGuardCondition(SystemEventV3 event, SystemStateV3 targetState) {
-        switch (event) {
-            case TIMER_TICK -> {
-                if (targetState == SystemStateV3.ALL_RED_TRANSITION) {
-                    return SystemGuards.checkInitializationComplete(currentState, event, variables) ||
-                            SystemGuards.checkSegmentFaultDetected(currentState, event, variables) ||
-                            SystemGuards.checkConditionsRestored(currentState, event, variables);
-                } else if (targetState == SystemStateV3.INDUCTIVE_MODE) {
-                    return SystemGuards.checkTransitionComplete(currentState, event, variables) ||
-                            SystemGuards.checkRecoveryVerified(currentState, event, variables);
-                } else if (targetState == SystemStateV3.DEGRADED_MODE) {
-                    return SystemGuards.checkTransitionTimeout(currentState, event, variables);
-                } else if (targetState == SystemStateV3.EMERGENCY_MODE) {
-                    return SystemGuards.checkCriticalFaultDetected(currentState, event, variables);
-                }
-            }
-            case SYSTEM_INIT_COMPLETE -> {
-                return SystemGuards.checkInitializationComplete(currentState, event, variables);
-            }
-            case TRANSITION_COMPLETE -> {
-                return SystemGuards.checkTransitionComplete(currentState, event, variables);
-            }
-            case TRANSITION_TIMEOUT -> {
-                return SystemGuards.checkTransitionTimeout(currentState, event, variables);
-            }
-            case SEGMENT_FAULT_DETECTED -> {
-                return SystemGuards.checkSegmentFaultDetected(currentState, event, variables);
-            }
-            case SYSTEM_FAULT_DETECTED -> {
-                return SystemGuards.checkSystemFaultDetected(currentState, event, variables);
-            }
-            case CRITICAL_FAULT -> {
-                return SystemGuards.checkCriticalFaultDetected(currentState, event, variables);
-            }
-            case CONDITIONS_RESTORED -> {
-                return SystemGuards.checkConditionsRestored(currentState, event, variables);
-            }
-            case RECOVERY_VERIFIED -> {
-                return SystemGuards.checkRecoveryVerified(currentState, event, variables);
-            }
-            case MAINTENANCE_REQUEST -> {
-                return SystemGuards.checkMaintenanceRequestAllowed(currentState, event, variables);
-            }
-            case MAINTENANCE_COMPLETE -> {
-                return SystemGuards.checkMaintenanceComplete(currentState, event, variables);
-            }
+    SystemStateV3 transitionTickTarget() {
+        if (variables.isTransitionComplete()) {
+            variables.setSegmentsAllReady(true);
+            return SystemStateV3.INDUCTIVE_MODE;
+        } else if (variables.isTransitionTimeout()) {
+            return SystemStateV3.DEGRADED_MODE;
         }
-        return true; // 默认允许
+        return null;
     }
 
     /**
-     * 执行系统动作函数
+     * 感应模式下的定时器事件：检查是否需要降级或进入紧急模式
      */
-    private void executeSystemAction(SystemEventV3 event, SystemStateV3 targetState, Map<String, Object> eventData) {
-        switch (event) {
-            case TIMER_TICK -> {
-                // 定时器事件的动作在状态进入时执行
-            }
-            case SYSTEM_RESET -> {
-                SystemActions.executeEnterSystemInit(currentState, event, variables);
-            }
-            case HEALTH_SCORE_UPDATE -> {
-                updateSystemHealth();
-            }
-            default -> {
-                logger.debug("事件 {} 无需特殊动作处理", event.getChineseName());
-            }
-        }
-
-        // 如果有状态转换，执行状态进入动作
-        if (targetState != currentState) {
-            executeSystemStateEntryAction(targetState, event);
+    SystemStateV3 inductiveTickTarget() {
+        if (shouldEnterEmergencyMode()) {
+            return SystemStateV3.EMERGENCY_MODE;
+        } else if (shouldEnterDegradedMode()) {
+            return SystemStateV3.ALL_RED_TRANSITION;
         }
+        return null;
     }
 
     /**
-     * 执行系统状态进入动作
+     * 降级模式下的定时器事件：检查是否可以恢复或需要紧急模式
      */
-    private void executeSystemStateEntryAction(SystemStateV3 newState, SystemEventV3 triggerEvent) {
-        switch (newState) {
-            case SYSTEM_INIT ->
-                    SystemActions.executeEnterSystemInit(currentState, triggerEvent, variables);
-            case ALL_RED_TRANSITION ->
-                    SystemActions.executeEnterTransition(currentState, triggerEvent, variables);
-            case INDUCTIVE_MODE ->
-                    SystemActions.executeEnterInductiveMode(currentState, triggerEvent, variables);
-            case DEGRADED_MODE ->
-                    SystemActions.executeEnterDegradedMode(currentState, triggerEvent, variables);
-            case MAINTENANCE_MODE ->
-                    SystemActions.executeEnterMaintenanceMode(currentState, triggerEvent, variables);
-            case EMERGENCY_MODE ->
-                    SystemActions.executeEnterEmergencyMode(currentState, triggerEvent, variables);
+    SystemStateV3 degradedTickTarget() {
+        if (shouldEnterEmergencyMode()) {
+            return SystemStateV3.EMERGENCY_MODE;
+        } else if (shouldRecoverFromDegradedMode()) {
+            return SystemStateV3.ALL_RED_TRANSITION;
         }
+        return null;
     }
 
     /**
      * 状态转换
      */
     private void transitionToSystemState(SystemStateV3 newState, SystemEventV3 triggerEvent) {
-        SystemStateV3 oldState = currentState;
-        currentState = newState;
+        synchronized (segmentLock) {
+            SystemStateV3 oldState = currentState;
+            currentState = newState;
 
-        logger.info("系统状态转换: {} -> {} (触发事件: {})",
-                oldState.getChineseName(), newState.getChineseName(), triggerEvent.getChineseName());
+            logger.info("系统状态转换: {} -> {} (触发事件: {})",
+                    oldState.getChineseName(), newState.getChineseName(), triggerEvent.getChineseName());
 
-        // 通知路段状态机系统状态变化
-        notifySegmentsOfSystemStateChange(newState);
+            // 通知路段状态机系统状态变化
+            notifySegmentsOfSystemStateChange(newState);
+        }
     }
 
     // ==================== 路段清空状态管理 ====================
@@ -543,14 +687,16 @@ public class TopLevelStateMachine {
     /**
      * 更新路段清空状态
      */
-    private void updateSegmentClearanceStates() {
-        for (SegmentStateMachine segment : segmentStateMachines) {
+    private void updateSegmentClearanceStates(SegmentTickExecutor.Result[] results) {
+        for (SegmentTickExecutor.Result result : results) {
             try {
-                ClearanceDecision decision = segment.getCurrentClearanceDecision();
-                updateSegmentClearanceState(segment.getSegmentId(), decision);
+                if (result.getClearanceError() != null) {
+                    throw new IllegalStateException(result.getClearanceError());
+                }
+                updateSegmentClearanceState(result.getSegmentId(), result.getClearanceDecision());
             } catch (Exception e) {
-                logger.warn("更新路段 {} 清空状态异常: {}", segment.getSegmentId(), e.getMessage());
-                markSegmentFaulty(segment.getSegmentId(), "清空状态更新异常");
+                logger.warn("更新路段 {} 清空状态异常: {}", result.getSegmentId(), e.getMessage());
+                markSegmentFaulty(result.getSegmentId(), "清空状态更新异常");
             }
         }
     }
@@ -607,7 +753,7 @@ public class TopLevelStateMachine {
     private boolean shouldEnterDegradedMode() {
         return variables.getSystemHealthScore() < SystemConstants.NORMAL_HEALTH_THRESHOLD ||
                 variables.getConsecutiveFaults() >= 2 ||
-                getFaultySegmentCount() > SystemConstants.TOTAL_SEGMENT_COUNT / 2;
+                getFaultySegmentCount() > segments().size() / 2;
     }
 
     /**
@@ -621,12 +767,10 @@ public class TopLevelStateMachine {
     }
 
     /**
-     * 获取故障路段数量
+     * 获取故障路段数量，取最近一次滴答屏障处的统计，不再逐个遍历路段
      */
     private int getFaultySegmentCount() {
-        return (int) segmentStateMachines.stream()
-                .mapToLong(segment -> segment.isFaultDetected() ? 1 : 0)
-                .sum();
+        return faultySegmentCount;
     }
 
     // ==================== 自动事件触发 ====================
@@ -702,14 +846,14 @@ public class TopLevelStateMachine {
     private boolean shouldTriggerCriticalFault() {
         return variables.getSystemHealthScore() < SystemConstants.CRITICAL_HEALTH_THRESHOLD ||
                 variables.getConsecutiveFaults() >= SystemConstants.CONSECUTIVE_TIMEOUT_LIMIT ||
-                getFaultySegmentCount() >= SystemConstants.TOTAL_SEGMENT_COUNT;
+                getFaultySegmentCount() >= segments().size();
     }
 
     /**
      * 检查所有路段是否准备就绪
      */
     private boolean allSegmentsReady() {
-        return segmentStateMachines.stream()
+        return segments().stream()
                 .allMatch(segment -> segment.isRunning() && !segment.isFaultDetected());
     }
 
@@ -718,15 +862,14 @@ public class TopLevelStateMachine {
     /**
      * 更新系统健康度
      */
-    private void updateSystemHealth() {
+    void updateSystemHealth() {
         int baseScore = variables.getSystemHealthScore();
 
         // 基于路段状态调整健康度
-        int healthySegments = (int) segmentStateMachines.stream()
-                .mapToLong(segment -> segment.isFaultDetected() ? 0 : 1)
-                .sum();
+        int segmentCount = segments().size();
+        int healthySegments = segmentCount - getFaultySegmentCount();
 
-        double segmentHealthRatio = (double) healthySegments / SystemConstants.TOTAL_SEGMENT_COUNT;
+        double segmentHealthRatio = segmentCount > 0 ? (double) healthySegments / segmentCount : 0;
         int segmentBonus = (int) (segmentHealthRatio * 10);
 
         // 基于连续故障调整
@@ -749,7 +892,7 @@ public class TopLevelStateMachine {
     private void notifySegmentsOfSystemStateChange(SystemStateV3 newState) {
         // 在感应控制模式下，确保所有路段状态机都在运行
         if (newState == SystemStateV3.INDUCTIVE_MODE) {
-            for (SegmentStateMachine segment : segmentStateMachines) {
+            for (SegmentStateMachine segment : segments()) {
                 if (!segment.isRunning()) {
                     segment.start();
                 }
@@ -759,7 +902,7 @@ public class TopLevelStateMachine {
         // 在非感应模式下，可以考虑暂停某些路段状态机
         else if (newState == SystemStateV3.EMERGENCY_MODE || newState == SystemStateV3.MAINTENANCE_MODE) {
             // 这里可以根据需要暂停或调整路段状态机
-            for (SegmentStateMachine segment : segmentStateMachines) {
+            for (SegmentStateMachine segment : segments()) {
                 if (segment.isRunning()) {
                     segment.stop();
                 }
@@ -780,7 +923,7 @@ public class TopLevelStateMachine {
 
         PrioritizedSystemEvent prioritizedEvent = new PrioritizedSystemEvent(event, eventData, LocalDateTime.now());
         try {
-            eventQueue.offer(prioritizedEvent);
+            eventQueue.offer(event.getPriority(), prioritizedEvent);
         } catch (Exception e) {
             logger.error("添加系统事件到队列失败: {}", e.getMessage());
         }
@@ -814,17 +957,14 @@ public class TopLevelStateMachine {
      * 获取路段状态机
      */
     public List<SegmentStateMachine> getSegmentStateMachines() {
-        return new ArrayList<>(segmentStateMachines);
+        return new ArrayList<>(segments());
     }
 
     /**
      * 获取指定路段状态机
      */
     public SegmentStateMachine getSegmentStateMachine(int segmentId) {
-        return segmentStateMachines.stream()
-                .filter(segment -> segment.getSegmentId() == segmentId)
-                .findFirst()
-                .orElse(null);
+        return segmentSet.get(segmentId);
     }
 
     /**
@@ -836,6 +976,28 @@ public class TopLevelStateMachine {
 
     // ==================== 调试和监控方法 ====================
 
+    /**
+     * 系统状态转换表，用于导出和校验转换模型
+     */
+    public static TransitionTable<SystemStateV3, SystemEventV3, TopLevelStateMachine> transitionTable() {
+        return SystemTransitions.TABLE;
+    }
+
+    /**
+     * 定时滴答耗时统计
+     */
+    public Map<String, Object> getTickStats() {
+        SegmentTickExecutor executor = tickExecutor;
+        return executor != null ? executor.snapshot() : new LinkedHashMap<>();
+    }
+
+    /**
+     * 事件队列各优先级深度
+     */
+    public Map<String, Integer> getEventQueueDepths() {
+        return eventQueue.depthByPriority();
+    }
+
     /**
      * 生成系统诊断报告
      */
@@ -846,17 +1008,18 @@ public class TopLevelStateMachine {
         report.append("运行状态: ").append(isRunning ? "运行中" : "已停止").append("\n");
         report.append("系统健康度: ").append(variables.getSystemHealthScore()).append("/100\n");
         report.append("连续故障次数: ").append(variables.getConsecutiveFaults()).append("\n");
-        report.append("路段总数: ").append(SystemConstants.TOTAL_SEGMENT_COUNT).append("\n");
+        report.append("路段总数: ").append(segments().size()).append("\n");
         report.append("故障路段数: ").append(getFaultySegmentCount()).append("\n");
         report.append("清空完成率: ").append(String.format("%.1f%%", variables.getClearanceCompletionPercentage() * 100)).append("\n");
         report.append("通信状态: ").append(variables.getCommunicationStatus().getDescription()).append("\n");
         report.append("电源状态: ").append(variables.getPowerStatus().getDescription()).append("\n");
-        report.append("事件队列大小: ").append(eventQueue.size()).append("\n");
+        report.append("事件队列大小: ").append(eventQueue.size()).append(" ").append(eventQueue.depthByPriority()).append("\n");
         report.append("状态转换次数: ").append(transitionHistory.size()).append("\n");
+        report.append("定时滴答: ").append(getTickStats()).append("\n");
 
         // 添加路段状态摘要
         report.append("\n=== 路段状态摘要 ===\n");
-        for (SegmentStateMachine segment : segmentStateMachines) {
+        for (SegmentStateMachine segment : segments()) {
             report.append("路段 ").append(segment.getSegmentId())
                     .append(": ").append(segment.getCurrentState().getChineseName())
                     .append(" (健康度: ").append(segment.getVariables().getSegmentHealthScore())
@@ -901,20 +1064,8 @@ public class TopLevelStateMachine {
             try {
                 variables.setAllRedTime(configService.getGlobalConfig().getAllRed());
                 variables.setMaxAllRedTime(configService.getGlobalConfig().getMaxAllRed());
-                List<WaitingArea> waitingAreas = configService.getAllWaitingAreas();
-                for (int i = 1; i <= SystemConstants.TOTAL_SEGMENT_COUNT; i++) {
-                    SegmentStateMachine segmentStateMachine = getSegmentStateMachine(i);
-                    Segment segment = configService.getAllSegments().get(i - 1);
-                    segmentStateMachine.getVariables().setMinGreen(segment.getMinGreen());
-                    segmentStateMachine.getVariables().setMaxGreen(segment.getMaxGreen());
-                    segmentStateMachine.getVariables().setMinRed(segment.getMinRed());
-                    segmentStateMachine.getVariables().setMaxRed(segment.getMaxRed());
-                    segmentStateMachine.getVariables().setRoadLength(segment.getLength());
-                }
-                for(int i = 1; i <= 3;i++){
-                    WaitingArea waitingArea = waitingAreas.get(i-1);
-                    CrossMettingZoneManager.getInstance().updateCrossMeetingCapacity(i, waitingArea.getUpCapacity(), waitingArea.getDownCapacity());
-                }
+                // 按配置建立路段集合和会车区，并加载各路段参数
+                applySegmentConfig(configService.getAllSegments(), configService.getAllWaitingAreas());
                 return true; // 简化实现
             }catch (Exception e){
                 logger.error("配置文件不完整", e);
@@ -182,8 +182,8 @@ public class SegmentGuards {
 
         // 检查车辆是否在对应的方向集合中
         boolean vehicleExists = switch (direction) {
-            case UPSTREAM -> variables.getUpstreamVehicleIds().contains(vehicleId);
-            case DOWNSTREAM -> variables.getDownstreamVehicleIds().contains(vehicleId);
+            case UPSTREAM -> variables.containsUpstreamVehicle(vehicleId);
+            case DOWNSTREAM -> variables.containsDownstreamVehicle(vehicleId);
             case NONE -> false;
         };
 
@@ -234,8 +234,8 @@ public class SegmentGuards {
 
         // 检查该方向是否已经没有车辆
         boolean noVehicles = switch (direction) {
-            case UPSTREAM -> variables.getUpstreamVehicleIds().isEmpty();
-            case DOWNSTREAM -> variables.getDownstreamVehicleIds().isEmpty();
+            case UPSTREAM -> variables.getUpstreamVehicleCount() == 0;
+            case DOWNSTREAM -> variables.getDownstreamVehicleCount() == 0;
             case NONE -> false;
         };
 
@@ -327,11 +327,11 @@ public class SegmentGuards {
                                                SegmentVariables variables) {
         // 检查上行计数器不匹配
         boolean upstreamMismatch = (variables.getUpstreamInCounter() != variables.getUpstreamOutCounter()) &&
-                variables.getUpstreamVehicleIds().isEmpty();
+                variables.getUpstreamVehicleCount() == 0;
 
         // 检查下行计数器不匹配
         boolean downstreamMismatch = (variables.getDownstreamInCounter() != variables.getDownstreamOutCounter()) &&
-                variables.getDownstreamVehicleIds().isEmpty();
+                variables.getDownstreamVehicleCount() == 0;
 
         return upstreamMismatch || downstreamMismatch;
     }
@@ -362,8 +362,8 @@ public class SegmentGuards {
         if (event.isVehicleExitEvent()) {
             SegmentVariables.Direction direction = getVehicleDirection(event);
             unregisteredExit = switch (direction) {
-                case UPSTREAM -> !variables.getUpstreamVehicleIds().contains(vehicleId);
-                case DOWNSTREAM -> !variables.getDownstreamVehicleIds().contains(vehicleId);
+                case UPSTREAM -> !variables.containsUpstreamVehicle(vehicleId);
+                case DOWNSTREAM -> !variables.containsDownstreamVehicle(vehicleId);
                 case NONE -> false;
             };
         }
@@ -599,8 +599,8 @@ public class SegmentGuards {
 
         // 检查是否有车辆可以离开
         boolean hasVehiclesToExit = switch (direction) {
-            case UPSTREAM -> !variables.getUpstreamVehicleIds().isEmpty();
-            case DOWNSTREAM -> !variables.getDownstreamVehicleIds().isEmpty();
+            case UPSTREAM -> variables.getUpstreamVehicleCount() > 0;
+            case DOWNSTREAM -> variables.getDownstreamVehicleCount() > 0;
             case NONE -> false;
         };
 
@@ -261,7 +261,8 @@ public class SystemGuards {
         boolean systemSelfCheckPassed = variables.getSystemHealthScore() >= SystemConstants.RECOVERY_HEALTH_THRESHOLD;
 
         // 检查配置一致性（简化实现）
-        boolean configConsistencyVerified = variables.getSegmentCount() == SystemConstants.TOTAL_SEGMENT_COUNT;
+        boolean configConsistencyVerified = variables.getSegmentCount() > 0 &&
+                variables.getSegmentCount() == variables.getSegmentClearanceStates().size();
 
         // 检查所有路段状态机是否正常
         boolean allSegmentsNormal = variables.getSegmentClearanceStates().values().stream()
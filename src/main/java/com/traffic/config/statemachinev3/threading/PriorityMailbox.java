@@ -0,0 +1,108 @@
+package com.traffic.config.statemachinev3.threading;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多级优先级信箱
+ *
+ * 每个优先级一条无锁队列：入队O(1)，出队严格按优先级从高到低，同一优先级内先进先出。
+ * 优先级枚举须按由低到高的顺序声明（与 EventPriority 一致），级数固定，出队最多扫描一遍各级队列，
+ * 因此高优先级事件的等待时间与低优先级队列中积压的事件数无关。
+ * 支持多生产者多消费者；各级深度单独计数，读取深度不遍历队列。
+ *
+ * @param <P> 优先级枚举
+ * @param <E> 元素类型
+ */
+public class PriorityMailbox<P extends Enum<P>, E> {
+
+    private final P[] levels;
+    private final ConcurrentLinkedQueue<E>[] queues;
+    private final AtomicInteger[] depths;
+
+    @SuppressWarnings("unchecked")
+    public PriorityMailbox(Class<P> priorityType) {
+        this.levels = priorityType.getEnumConstants();
+        this.queues = (ConcurrentLinkedQueue<E>[]) new ConcurrentLinkedQueue<?>[levels.length];
+        this.depths = new AtomicInteger[levels.length];
+        for (int i = 0; i < levels.length; i++) {
+            queues[i] = new ConcurrentLinkedQueue<>();
+            depths[i] = new AtomicInteger();
+        }
+    }
+
+    public void offer(P priority, E element) {
+        int level = priority.ordinal();
+        // 先计数后入队，深度不会被出队减成负数
+        depths[level].incrementAndGet();
+        queues[level].offer(element);
+    }
+
+    /**
+     * 移除指定优先级中的某个元素（按 equals 比较）
+     * @return 元素已被取出或不存在时返回false
+     */
+    public boolean remove(P priority, E element) {
+        int level = priority.ordinal();
+        if (queues[level].remove(element)) {
+            depths[level].decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 取出优先级最高的元素
+     * @return 信箱为空时返回null
+     */
+    public E poll() {
+        for (int level = queues.length - 1; level >= 0; level--) {
+            E element = queues[level].poll();
+            if (element != null) {
+                depths[level].decrementAndGet();
+                return element;
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        for (ConcurrentLinkedQueue<E> queue : queues) {
+            if (!queue.isEmpty()) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        int total = 0;
+        for (AtomicInteger depth : depths) {
+            total += depth.get();
+        }
+        return total;
+    }
+
+    public int size(P priority) {
+        return depths[priority.ordinal()].get();
+    }
+
+    public void clear() {
+        for (int level = 0; level < queues.length; level++) {
+            while (queues[level].poll() != null) {
+                depths[level].decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 各优先级队列深度，按优先级从高到低排列
+     */
+    public Map<String, Integer> depthByPriority() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int level = levels.length - 1; level >= 0; level--) {
+            result.put(levels[level].name(), depths[level].get());
+        }
+        return result;
+    }
+}
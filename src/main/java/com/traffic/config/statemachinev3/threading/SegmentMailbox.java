@@ -0,0 +1,208 @@
+package com.traffic.config.statemachinev3.threading;
+
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路段事件信箱
+ *
+ * 每个路段状态机一个，多生产者投递、单消费者处理：
+ * 有事件时向共享线程池提交一次排空任务，同一时刻最多一个线程在处理本信箱，
+ * 不同路段的事件可在不同线程上并行处理。
+ * 事件按优先级分级排队，高优先级先处理，同一优先级内严格先进先出（车辆事件同属一级，顺序不变）。
+ * 容量只限制 HIGH 以下的非车辆事件：车辆驶入驶出决定等待区车辆数，丢弃任何一条都会使路段计数失准，
+ * 因此信箱满时车辆事件仍然入队（计入 overCapacity 并告警），被丢弃的只有定时滴答等可再生的低优先级事件；
+ * 信箱被车辆事件占满时超时、故障和控制事件仍可投递。
+ * 每次最多处理 {@link #DRAIN_BATCH} 个事件后让出线程，避免繁忙路段占住工作线程。
+ *
+ * 即时处理模式下，信箱同时负责状态机内部事件队列：{@link #wakeup()} 安排一次排空，
+ * 每次排空后调用 {@link SegmentStateMachine#processEvents()} 处理内部队列并更新清空决策、检查自动事件，
+ * 车辆进出后无需等待下一次定时滴答即可结束绿灯。
+ */
+public class SegmentMailbox implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentMailbox.class);
+
+    static final int DRAIN_BATCH = 64;
+
+    private static final class Envelope {
+        final SegmentEvent event;
+        final Map<String, Object> data;
+        final long enqueueNanos;
+
+        Envelope(SegmentEvent event, Map<String, Object> data, long enqueueNanos) {
+            this.event = event;
+            this.data = data;
+            this.enqueueNanos = enqueueNanos;
+        }
+    }
+
+    private final SegmentStateMachine machine;
+    private final Executor executor;
+    private final int capacity;
+    private final boolean immediate;
+
+    private final PriorityMailbox<SegmentEvent.EventPriority, Envelope> queue =
+            new PriorityMailbox<>(SegmentEvent.EventPriority.class);
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overCapacity = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder wakeups = new LongAdder();
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0L);
+
+    public SegmentMailbox(SegmentStateMachine machine, Executor executor, int capacity) {
+        this(machine, executor, capacity, false);
+    }
+
+    /**
+     * @param immediate 是否即时处理模式
+     */
+    public SegmentMailbox(SegmentStateMachine machine, Executor executor, int capacity, boolean immediate) {
+        this.machine = machine;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.immediate = immediate;
+    }
+
+    /**
+     * 投递事件，只入队不处理
+     * @return 事件未入队时返回false：信箱已满（仅限可丢弃的事件）或线程池已关闭
+     */
+    public boolean offer(SegmentEvent event, Map<String, Object> eventData) {
+        boolean bounded = event.getPriority().compareTo(SegmentEvent.EventPriority.HIGH) < 0;
+        if (depth.incrementAndGet() > capacity && bounded) {
+            if (!event.isVehicleEvent()) {
+                depth.decrementAndGet();
+                dropped.increment();
+                if (dropped.sum() % 1000 == 1) {
+                    logger.warn("路段 {} 事件信箱已满（{}），丢弃事件: {}",
+                            machine.getSegmentId(), capacity, event.getChineseName());
+                }
+                return false;
+            }
+            overCapacity.increment();
+            if (overCapacity.sum() % 1000 == 1) {
+                logger.warn("路段 {} 事件信箱已满（{}），车辆事件仍入队，当前积压 {}",
+                        machine.getSegmentId(), capacity, depth.get());
+            }
+        }
+        Envelope envelope = new Envelope(event, eventData, System.nanoTime());
+        queue.offer(event.getPriority(), envelope);
+        if (schedule()) {
+            return true;
+        }
+        // 线程池已关闭，事件不会被处理：撤回本次投递，调用方据返回值得知失败
+        if (queue.remove(event.getPriority(), envelope)) {
+            depth.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 状态机内部队列有新事件，安排一次处理；已有待处理的唤醒时合并
+     */
+    public void wakeup() {
+        if (wakeupPending.compareAndSet(false, true)) {
+            wakeups.increment();
+            schedule();
+        }
+    }
+
+    private boolean schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                logger.warn("路段 {} 事件处理线程池已关闭，信箱中剩余 {} 个事件未处理",
+                        machine.getSegmentId(), depth.get());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        int drained = 0;
+        try {
+            for (int i = 0; i < DRAIN_BATCH; i++) {
+                Envelope envelope = queue.poll();
+                if (envelope == null) {
+                    break;
+                }
+                depth.decrementAndGet();
+                drained++;
+                maxLatencyNanos.accumulate(System.nanoTime() - envelope.enqueueNanos);
+                try {
+                    machine.processSegmentEvent(envelope.event, envelope.data);
+                    processed.increment();
+                } catch (Exception e) {
+                    failed.increment();
+                    logger.error("路段 {} 处理事件异常: {}", machine.getSegmentId(), envelope.event.getChineseName(), e);
+                }
+            }
+            if (immediate && (wakeupPending.getAndSet(false) || drained > 0)) {
+                try {
+                    machine.processEvents();
+                } catch (Exception e) {
+                    failed.increment();
+                    logger.error("路段 {} 处理内部事件队列异常", machine.getSegmentId(), e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // 排空期间新到的事件或唤醒，或因批量上限留下的事件，重新提交
+            if (!queue.isEmpty() || wakeupPending.get()) {
+                schedule();
+            }
+        }
+    }
+
+    public SegmentStateMachine getMachine() {
+        return machine;
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * 没有排队的事件、待处理的唤醒，也没有线程正在处理
+     */
+    public boolean isIdle() {
+        return depth.get() == 0 && !wakeupPending.get() && !scheduled.get();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("depth", depth.get());
+        result.put("depthByPriority", queue.depthByPriority());
+        result.put("capacity", capacity);
+        result.put("processed", processed.sum());
+        result.put("dropped", dropped.sum());
+        result.put("overCapacity", overCapacity.sum());
+        result.put("failed", failed.sum());
+        if (immediate) {
+            result.put("wakeups", wakeups.sum());
+        }
+        result.put("maxLatencyMs", maxLatencyNanos.get() / 1_000_000.0);
+        return result;
+    }
+}
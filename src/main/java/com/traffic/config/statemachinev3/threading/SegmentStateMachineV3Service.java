@@ -6,20 +6,100 @@ import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
-public class SegmentStateMachineV3Service {
+public class SegmentStateMachineV3Service implements TopLevelStateMachine.SegmentLifecycleListener {
 
     private static final Logger logger = LoggerFactory.getLogger(SegmentStateMachineV3Service.class);
 
     @Autowired
     private TopLevelStateMachine topLevelStateMachine;
 
+    // 路段事件处理线程数，各路段信箱共享
+    @Value("${traffic.segment.dispatch-threads:4}")
+    private int dispatchThreads = 4;
+
+    // 单个路段信箱容量，超出时丢弃新事件
+    @Value("${traffic.segment.mailbox-capacity:10000}")
+    private int mailboxCapacity = 10000;
+
+    // 路段事件处理方式：tick-内部队列随每秒定时滴答处理；immediate-投递即唤醒路段信箱处理，定时滴答只做时间条件检查
+    @Value("${traffic.segment.dispatch-mode:tick}")
+    private String dispatchMode = "tick";
+
+    // 路段ID -> 事件信箱
+    private final ConcurrentHashMap<Integer, SegmentMailbox> mailboxes = new ConcurrentHashMap<>();
+    private volatile ExecutorService dispatchExecutor;
+
+    public SegmentStateMachineV3Service() {
+    }
+
+    public SegmentStateMachineV3Service(TopLevelStateMachine topLevelStateMachine, int dispatchThreads,
+                                        int mailboxCapacity, String dispatchMode) {
+        this.topLevelStateMachine = topLevelStateMachine;
+        this.dispatchThreads = dispatchThreads;
+        this.mailboxCapacity = mailboxCapacity;
+        this.dispatchMode = dispatchMode;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (isImmediateMode()) {
+            for (SegmentStateMachine segmentMachine : topLevelStateMachine.getSegmentStateMachines()) {
+                enableImmediateDispatch(segmentMachine);
+            }
+            logger.info("路段事件即时处理模式已启用");
+        }
+        topLevelStateMachine.addSegmentLifecycleListener(this);
+    }
+
+    /**
+     * 按配置新增的路段，即时处理模式下同样安装唤醒
+     */
+    @Override
+    public void segmentAdded(SegmentStateMachine segmentMachine) {
+        if (isImmediateMode()) {
+            enableImmediateDispatch(segmentMachine);
+        }
+    }
+
+    /**
+     * 撤销路段的信箱，未处理的事件随之丢弃
+     */
+    @Override
+    public void segmentRemoved(SegmentStateMachine segmentMachine) {
+        segmentMachine.setEventWakeup(null);
+        SegmentMailbox mailbox = mailboxes.get(segmentMachine.getSegmentId());
+        if (mailbox != null && mailbox.getMachine() == segmentMachine
+                && mailboxes.remove(segmentMachine.getSegmentId(), mailbox)) {
+            logger.info("路段 {} 信箱已撤销，丢弃未处理事件 {} 个", segmentMachine.getSegmentId(), mailbox.getDepth());
+        }
+    }
+
+    public boolean isImmediateMode() {
+        return "immediate".equalsIgnoreCase(dispatchMode);
+    }
+
+    /**
+     * 路段状态机投递事件后唤醒其信箱，由信箱线程处理内部队列
+     */
+    public void enableImmediateDispatch(SegmentStateMachine segmentMachine) {
+        segmentMachine.setEventWakeup(() -> mailboxOf(segmentMachine).wakeup());
+    }
+
     /**
      * 注册路段状态机
      */
@@ -48,6 +128,91 @@ public class SegmentStateMachineV3Service {
             return CompletableFuture.completedFuture(false);
         }
     }
+    /**
+     * 投递路段事件到该路段的信箱，由路段事件线程按投递顺序处理，调用线程只入队
+     * @return 路段不存在或信箱已满时返回false
+     */
+    public boolean dispatchSegmentEvent(int segmentId, SegmentEvent event, Map<String, Object> eventData) {
+        SegmentStateMachine segmentMachine = topLevelStateMachine.getSegmentStateMachine(segmentId);
+        if (segmentMachine == null) {
+            logger.warn("路段状态机不存在: {}", segmentId);
+            return false;
+        }
+        return mailboxOf(segmentMachine).offer(event, eventData);
+    }
+
+    private SegmentMailbox mailboxOf(SegmentStateMachine segmentMachine) {
+        SegmentMailbox mailbox = mailboxes.get(segmentMachine.getSegmentId());
+        if (mailbox != null && mailbox.getMachine() == segmentMachine) {
+            return mailbox;
+        }
+        // 首次投递，或路段状态机已被替换
+        return mailboxes.compute(segmentMachine.getSegmentId(), (id, existing) ->
+                existing != null && existing.getMachine() == segmentMachine
+                        ? existing : new SegmentMailbox(segmentMachine, executor(), mailboxCapacity, isImmediateMode()));
+    }
+
+    private ExecutorService executor() {
+        ExecutorService executor = dispatchExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = dispatchExecutor;
+                if (executor == null) {
+                    AtomicInteger counter = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(Math.max(1, dispatchThreads), r -> {
+                        Thread thread = new Thread(r, "SegmentDispatch-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    dispatchExecutor = executor;
+                    logger.info("路段事件处理线程池启动: {} 个线程", Math.max(1, dispatchThreads));
+                }
+            }
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ExecutorService executor = dispatchExecutor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 等待全部路段信箱处理完已投递的事件
+     * @return 超时前全部空闲返回true
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true) {
+            boolean idle = true;
+            for (SegmentMailbox mailbox : mailboxes.values()) {
+                if (!mailbox.isIdle()) {
+                    idle = false;
+                    break;
+                }
+            }
+            if (idle) {
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+    }
+
+    /**
+     * 各路段信箱状态
+     */
+    public Map<Integer, Object> mailboxSnapshot() {
+        Map<Integer, Object> result = new TreeMap<>();
+        mailboxes.forEach((segmentId, mailbox) -> result.put(segmentId, mailbox.snapshot()));
+        return result;
+    }
+
     /*
      * 同步处理关键系统事件
      */
@@ -0,0 +1,192 @@
+package com.traffic.config.statemachinev3.threading;
+
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.enums.segment.ClearanceDecision;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 路段定时滴答执行器
+ *
+ * 把各路段的定时器处理（内部事件队列、清空决策、自动事件）分发到专用 fork-join 线程池并行执行，
+ * {@link #tick(List)} 在全部路段完成后才返回，相当于一道屏障。
+ * 每个路段的结果（清空决策、故障标志、异常）写入按路段顺序排列的结果数组，
+ * 由调用方在屏障之后按路段顺序汇总，系统级的故障登记和事件投递因此与线程调度无关。
+ * 并行度为1时在调用线程上依次执行，不创建线程池。
+ */
+public class SegmentTickExecutor {
+
+    /**
+     * 单个路段在一次滴答中的结果
+     */
+    public static final class Result {
+        private final SegmentStateMachine segment;
+        private ClearanceDecision clearanceDecision;
+        private boolean faultDetected;
+        private String tickError;
+        private String clearanceError;
+
+        Result(SegmentStateMachine segment) {
+            this.segment = segment;
+        }
+
+        public SegmentStateMachine getSegment() { return segment; }
+        public int getSegmentId() { return segment.getSegmentId(); }
+        public ClearanceDecision getClearanceDecision() { return clearanceDecision; }
+        public boolean isFaultDetected() { return faultDetected; }
+        /** 定时器处理异常信息，无异常为null */
+        public String getTickError() { return tickError; }
+        /** 读取清空决策异常信息，无异常为null */
+        public String getClearanceError() { return clearanceError; }
+    }
+
+    private final int parallelism;
+    private final ForkJoinPool pool;
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder overBudgetTicks = new LongAdder();
+    private final AtomicLong maxTickNanos = new AtomicLong();
+    private volatile long lastTickNanos;
+    private volatile long lastSegmentPhaseNanos;
+    private volatile int lastSegmentCount;
+
+    /**
+     * @param parallelism 并行度，小于等于0时取CPU核心数
+     */
+    public SegmentTickExecutor(int parallelism) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = this.parallelism > 1
+                ? new ForkJoinPool(this.parallelism, this::newThread, null, false)
+                : null;
+    }
+
+    private ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        // 工厂调用时线程尚未注册，getPoolIndex() 都是0，自行编号
+        thread.setName("SegmentTick-" + threadIndex.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 执行所有路段的定时器处理，全部完成后返回
+     * @return 与 segments 顺序一致的结果
+     */
+    public Result[] tick(List<SegmentStateMachine> segments) {
+        long start = System.nanoTime();
+        Result[] results = new Result[segments.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = new Result(segments.get(i));
+        }
+        if (pool == null || results.length <= 1) {
+            for (Result result : results) {
+                tickSegment(result);
+            }
+        } else {
+            pool.invoke(new TickTask(results, 0, results.length));
+        }
+        lastSegmentPhaseNanos = System.nanoTime() - start;
+        lastSegmentCount = results.length;
+        return results;
+    }
+
+    private static void tickSegment(Result result) {
+        SegmentStateMachine segment = result.segment;
+        try {
+            segment.processTimerTick();
+        } catch (Exception e) {
+            result.tickError = String.valueOf(e.getMessage());
+        }
+        try {
+            result.clearanceDecision = segment.getCurrentClearanceDecision();
+        } catch (Exception e) {
+            result.clearanceError = String.valueOf(e.getMessage());
+        }
+        result.faultDetected = segment.isFaultDetected();
+    }
+
+    /**
+     * 二分路段区间，单个路段为最小任务
+     */
+    private static final class TickTask extends RecursiveAction {
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        TickTask(Result[] results, int from, int to) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                tickSegment(results[from]);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new TickTask(results, from, mid), new TickTask(results, mid, to));
+        }
+    }
+
+    /**
+     * 记录一次完整滴答（路段阶段 + 系统阶段）的耗时
+     * @return 是否超出预算
+     */
+    public boolean recordTick(long tickNanos, long budgetNanos) {
+        ticks.increment();
+        lastTickNanos = tickNanos;
+        maxTickNanos.accumulateAndGet(tickNanos, Math::max);
+        if (tickNanos > budgetNanos) {
+            overBudgetTicks.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getLastTickNanos() {
+        return lastTickNanos;
+    }
+
+    public long getLastSegmentPhaseNanos() {
+        return lastSegmentPhaseNanos;
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("parallelism", parallelism);
+        snapshot.put("segments", lastSegmentCount);
+        snapshot.put("ticks", ticks.sum());
+        snapshot.put("overBudgetTicks", overBudgetTicks.sum());
+        snapshot.put("lastTickMs", lastTickNanos / 1_000_000.0);
+        snapshot.put("lastSegmentPhaseMs", lastSegmentPhaseNanos / 1_000_000.0);
+        snapshot.put("maxTickMs", maxTickNanos.get() / 1_000_000.0);
+        return snapshot;
+    }
+}
@@ -0,0 +1,327 @@
+package com.traffic.config.statemachinev3.transition;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 状态转换表
+ *
+ * 启动时把 (状态, 事件) 上的目标状态函数、按目标状态区分的守护条件和动作编译成按序号寻址的稠密数组，
+ * 运行时一次数组下标即可取得转换项，不再逐层 switch 判断。
+ * 目标状态依赖运行变量时由目标函数在运行时求值，函数需声明可能的目标状态，
+ * 守护条件按目标状态序号预先展开，转换模型因此可以整体导出和校验。
+ *
+ * @param <S> 状态枚举
+ * @param <E> 事件枚举
+ * @param <C> 状态机上下文
+ */
+public final class TransitionTable<S extends Enum<S>, E extends Enum<E>, C> {
+
+    @FunctionalInterface
+    public interface TargetFunction<S, E, C> {
+        /**
+         * @return 目标状态，null表示该事件在当前条件下不引起转换
+         */
+        S resolve(C context, S state, E event);
+    }
+
+    @FunctionalInterface
+    public interface Guard<S, E, C> {
+        boolean test(C context, S state, S target, E event);
+    }
+
+    @FunctionalInterface
+    public interface Action<S, E, C> {
+        void execute(C context, S state, S target, E event, Map<String, Object> eventData);
+    }
+
+    /**
+     * 恒为真/恒为假的守护条件，登记后直接按常量判断，不经函数调用
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, E, C> Guard<S, E, C> allow() {
+        return (Guard<S, E, C>) ALLOW;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <S, E, C> Guard<S, E, C> deny() {
+        return (Guard<S, E, C>) DENY;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final Guard ALLOW = (context, state, target, event) -> true;
+    @SuppressWarnings("rawtypes")
+    private static final Guard DENY = (context, state, target, event) -> false;
+
+    private static final byte GUARD_CALL = 0;
+    private static final byte GUARD_ALLOW = 1;
+    private static final byte GUARD_DENY = 2;
+
+    /**
+     * 转换项
+     */
+    public static final class Entry<S extends Enum<S>, E extends Enum<E>, C> {
+        private final S state;
+        private final E event;
+        private final TargetFunction<S, E, C> target;
+        // 固定目标时直接返回，不调用目标函数
+        private final boolean fixedTarget;
+        private final S fixed;
+        private final String targetName;
+        private final List<S> possibleTargets;
+        private final Guard<S, E, C>[] guards;
+        private final byte[] guardModes;
+        private final String[] guardNames;
+        private final Action<S, E, C> action;
+        private final String actionName;
+
+        Entry(EntryBuilder<S, E, C> builder) {
+            this.state = builder.state;
+            this.event = builder.event;
+            this.target = builder.target;
+            this.fixedTarget = builder.fixedTarget;
+            this.fixed = builder.fixed;
+            this.targetName = builder.targetName;
+            this.possibleTargets = List.copyOf(builder.possibleTargets);
+            this.guards = builder.guards.clone();
+            this.guardModes = new byte[guards.length];
+            for (int i = 0; i < guards.length; i++) {
+                guardModes[i] = guards[i] == ALLOW ? GUARD_ALLOW : guards[i] == DENY ? GUARD_DENY : GUARD_CALL;
+            }
+            this.guardNames = builder.guardNames.clone();
+            this.action = builder.action;
+            this.actionName = builder.actionName;
+        }
+
+        public S target(C context) {
+            return fixedTarget ? fixed : target.resolve(context, state, event);
+        }
+
+        public boolean guard(C context, S targetState) {
+            int index = targetState.ordinal();
+            switch (guardModes[index]) {
+                case GUARD_ALLOW -> { return true; }
+                case GUARD_DENY -> { return false; }
+                default -> { return guards[index].test(context, state, targetState, event); }
+            }
+        }
+
+        public void execute(C context, S targetState, Map<String, Object> eventData) {
+            if (action != null) {
+                action.execute(context, state, targetState, event, eventData);
+            }
+        }
+
+        public S getState() { return state; }
+        public E getEvent() { return event; }
+        public List<S> getPossibleTargets() { return possibleTargets; }
+    }
+
+    private final S[] states;
+    private final E[] events;
+    private final Entry<S, E, C>[] entries;
+    private final Action<S, E, C>[] entryActions;
+    private final String[] entryActionNames;
+
+    private TransitionTable(Builder<S, E, C> builder) {
+        this.states = builder.states;
+        this.events = builder.events;
+        this.entries = builder.entries.clone();
+        this.entryActions = builder.entryActions.clone();
+        this.entryActionNames = builder.entryActionNames.clone();
+    }
+
+    public Entry<S, E, C> entry(S state, E event) {
+        return entries[state.ordinal() * events.length + event.ordinal()];
+    }
+
+    /**
+     * 执行目标状态的进入动作
+     */
+    public void enter(C context, S from, S to, E event) {
+        Action<S, E, C> action = entryActions[to.ordinal()];
+        if (action != null) {
+            action.execute(context, from, to, event, null);
+        }
+    }
+
+    /**
+     * 导出转换模型，每个 (状态, 事件) 一行
+     */
+    public List<Map<String, Object>> export() {
+        List<Map<String, Object>> rows = new ArrayList<>(entries.length);
+        for (Entry<S, E, C> entry : entries) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("state", entry.state.name());
+            row.put("event", entry.event.name());
+            row.put("target", entry.targetName);
+            Map<String, String> guards = new LinkedHashMap<>();
+            for (S target : entry.possibleTargets) {
+                guards.put(target.name(), entry.guardNames[target.ordinal()]);
+            }
+            row.put("guards", guards);
+            row.put("action", entry.actionName);
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    public Map<String, String> exportEntryActions() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (S state : states) {
+            if (entryActions[state.ordinal()] != null) {
+                result.put(state.name(), entryActionNames[state.ordinal()]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 校验转换模型：每个可能的目标状态都有守护条件，且不存在只能被守护条件拒绝的目标
+     * @return 发现的问题，空列表表示通过
+     */
+    public List<String> validate() {
+        List<String> problems = new ArrayList<>();
+        for (Entry<S, E, C> entry : entries) {
+            for (S target : entry.possibleTargets) {
+                if (entry.guards[target.ordinal()] == null) {
+                    problems.add(entry.state + " x " + entry.event + " -> " + target + ": 缺少守护条件");
+                }
+            }
+            if (entry.target == null) {
+                problems.add(entry.state + " x " + entry.event + ": 缺少目标状态函数");
+            }
+        }
+        return problems;
+    }
+
+    public static <S extends Enum<S>, E extends Enum<E>, C> Builder<S, E, C> builder(Class<S> stateType, Class<E> eventType) {
+        return new Builder<>(stateType, eventType);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static final class Builder<S extends Enum<S>, E extends Enum<E>, C> {
+        private final S[] states;
+        private final E[] events;
+        private final Entry<S, E, C>[] entries;
+        private final Action<S, E, C>[] entryActions;
+        private final String[] entryActionNames;
+
+        private Builder(Class<S> stateType, Class<E> eventType) {
+            this.states = stateType.getEnumConstants();
+            this.events = eventType.getEnumConstants();
+            this.entries = (Entry<S, E, C>[]) new Entry<?, ?, ?>[states.length * events.length];
+            this.entryActions = (Action<S, E, C>[]) new Action<?, ?, ?>[states.length];
+            this.entryActionNames = new String[states.length];
+        }
+
+        public EntryBuilder<S, E, C> entry(S state, E event) {
+            return new EntryBuilder<>(this, state, event, states.length);
+        }
+
+        public Builder<S, E, C> entryAction(S state, String name, Action<S, E, C> action) {
+            entryActions[state.ordinal()] = action;
+            entryActionNames[state.ordinal()] = name;
+            return this;
+        }
+
+        public S[] states() {
+            return states.clone();
+        }
+
+        public E[] events() {
+            return events.clone();
+        }
+
+        void add(Entry<S, E, C> entry) {
+            entries[entry.state.ordinal() * events.length + entry.event.ordinal()] = entry;
+        }
+
+        public TransitionTable<S, E, C> build() {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] == null) {
+                    throw new IllegalStateException("缺少转换项: " + states[i / events.length] + " x " + events[i % events.length]);
+                }
+            }
+            return new TransitionTable<>(this);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static final class EntryBuilder<S extends Enum<S>, E extends Enum<E>, C> {
+        private final Builder<S, E, C> owner;
+        private final S state;
+        private final E event;
+        private TargetFunction<S, E, C> target;
+        private boolean fixedTarget;
+        private S fixed;
+        private String targetName;
+        private List<S> possibleTargets = List.of();
+        private final Guard<S, E, C>[] guards;
+        private final String[] guardNames;
+        private Action<S, E, C> action;
+        private String actionName = "-";
+
+        private EntryBuilder(Builder<S, E, C> owner, S state, E event, int stateCount) {
+            this.owner = owner;
+            this.state = state;
+            this.event = event;
+            this.guards = (Guard<S, E, C>[]) new Guard<?, ?, ?>[stateCount];
+            this.guardNames = new String[stateCount];
+        }
+
+        /**
+         * 固定目标状态，null表示不转换
+         */
+        public EntryBuilder<S, E, C> target(S fixed) {
+            this.target = (context, s, e) -> fixed;
+            this.fixedTarget = true;
+            this.fixed = fixed;
+            this.targetName = fixed != null ? fixed.name() : "-";
+            this.possibleTargets = fixed != null ? List.of(fixed) : List.of();
+            return this;
+        }
+
+        /**
+         * 运行时求值的目标状态
+         * @param possible 函数可能返回的全部非null目标
+         */
+        @SafeVarargs
+        public final EntryBuilder<S, E, C> target(String name, TargetFunction<S, E, C> function, S... possible) {
+            this.target = function;
+            this.fixedTarget = false;
+            this.fixed = null;
+            this.targetName = name;
+            // 逐个复制，数组本身不外泄
+            List<S> targets = new ArrayList<>(possible.length);
+            for (S s : possible) {
+                targets.add(s);
+            }
+            this.possibleTargets = targets;
+            return this;
+        }
+
+        public EntryBuilder<S, E, C> guard(S targetState, String name, Guard<S, E, C> guard) {
+            guards[targetState.ordinal()] = guard;
+            guardNames[targetState.ordinal()] = name;
+            return this;
+        }
+
+        public EntryBuilder<S, E, C> action(String name, Action<S, E, C> action) {
+            this.action = action;
+            this.actionName = name;
+            return this;
+        }
+
+        public S getState() { return state; }
+        public E getEvent() { return event; }
+        public List<S> getPossibleTargets() { return possibleTargets; }
+
+        public Builder<S, E, C> add() {
+            owner.add(new Entry<>(this));
+            return owner;
+        }
+    }
+}
@@ -5,6 +5,11 @@ import com.traffic.config.statemachinev3.enums.segment.SegmentState;
 import com.traffic.config.statemachinev3.constants.SegmentConstants;
 import com.traffic.config.statemachinev3.variables.objects.CrossMettingZoneManager;
 import com.traffic.config.statemachinev3.variables.objects.MeetingArea;
+import com.traffic.config.statemachinev3.variables.objects.PlateDictionary;
+import com.traffic.config.statemachinev3.variables.objects.PlateFuzzyIndex;
+import com.traffic.config.statemachinev3.variables.objects.PlateIdSet;
+import com.traffic.config.statemachinev3.variables.objects.PlateTimeMap;
+import com.traffic.config.util.NanoClock;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -62,14 +67,19 @@ public class SegmentVariables {
     // ==================== 分方向车辆管理变量 (Directional Vehicle Management Variables) ====================
 
     /**
-     * 上行车辆ID集合
+     * 车牌字典，车辆集合与进入时间只保存车牌编号
      */
-    private final Set<String> upstreamVehicleIds = ConcurrentHashMap.newKeySet();
+    private final PlateDictionary plateDictionary = PlateDictionary.getInstance();
 
     /**
-     * 下行车辆ID集合
+     * 上行车辆ID集合（车牌编号），带近似匹配索引
      */
-    private final Set<String> downstreamVehicleIds = ConcurrentHashMap.newKeySet();
+    private final PlateIdSet upstreamVehicleIds = new PlateIdSet(plateDictionary, SegmentConstants.FUZZY_PLATE_MAX_DISTANCE);
+
+    /**
+     * 下行车辆ID集合（车牌编号），带近似匹配索引
+     */
+    private final PlateIdSet downstreamVehicleIds = new PlateIdSet(plateDictionary, SegmentConstants.FUZZY_PLATE_MAX_DISTANCE);
 
     /**
      * 上行进入计数器
@@ -220,6 +230,16 @@ public class SegmentVariables {
      */
     private final AtomicLong totalVehiclesServed = new AtomicLong(0);
 
+    /**
+     * 离开车牌按近似匹配对上的次数
+     */
+    private final AtomicLong fuzzyPlateMatches = new AtomicLong(0);
+
+    /**
+     * 近似匹配可接受的最大加权编辑距离
+     */
+    private volatile double fuzzyPlateMaxCost = SegmentConstants.FUZZY_PLATE_MAX_COST;
+
     /**
      * 平均等待时间（秒）
      */
@@ -241,9 +261,9 @@ public class SegmentVariables {
     // ==================== 车辆进入时间记录 (Vehicle Entry Time Records) ====================
 
     /**
-     * 车辆进入时间记录
+     * 车辆进入时间记录（车牌编号 -> 纪元纳秒）
      */
-    private final Map<String, LocalDateTime> vehicleEntryTimes = new ConcurrentHashMap<>();
+    private final PlateTimeMap vehicleEntryTimes = new PlateTimeMap(plateDictionary);
 
     // ==================== 枚举定义 ====================
 
@@ -294,25 +314,28 @@ public class SegmentVariables {
     public SegmentVariables(int segmentId) {
         this.segmentId = segmentId;
         this.crossMeetingZoneManager = CrossMettingZoneManager.getInstance();
-        switch (segmentId){
-            case 1->{
-                this.upMeetingZoneCrossId.set(1);
-            }
-            case 2->{
-                this.upMeetingZoneCrossId.set(2);
-                this.downMeetingZoneCrossId.set(1);
-            }
-            case 3->{
-                this.upMeetingZoneCrossId.set(3);
-                this.downMeetingZoneCrossId.set(2);
-            }
-            case 4->{
-                this.downMeetingZoneCrossId.set(3);
-            }
-        }
+        updateMeetingZones();
         initializeVariables();
     }
 
+    /**
+     * 按当前路段拓扑确定两侧会车区：上行会车区在路段下游一侧，下行会车区在路段上游一侧，0表示没有
+     */
+    public void updateMeetingZones() {
+        this.upMeetingZoneCrossId.set(crossMeetingZoneManager.zoneAfter(segmentId));
+        this.downMeetingZoneCrossId.set(crossMeetingZoneManager.zoneBefore(segmentId));
+    }
+
+    /**
+     * 本路段之后的会车区（上行方向），0表示没有
+     */
+    public int getUpMeetingZoneCrossId() { return upMeetingZoneCrossId.get(); }
+
+    /**
+     * 本路段之前的会车区（下行方向），0表示没有
+     */
+    public int getDownMeetingZoneCrossId() { return downMeetingZoneCrossId.get(); }
+
     /**
      * 初始化所有变量
      */
@@ -362,11 +385,6 @@ public class SegmentVariables {
         this.averageWaitingTime = 0.0;
         this.throughputRate = 0.0;
         this.congestionLevel = 0.0;
-
-        this.crossMeetingZoneManager.registerCrossing(1, 2);
-        this.crossMeetingZoneManager.registerCrossing(2, 2);
-        this.crossMeetingZoneManager.registerCrossing(3, 2);
-        //this.crossMeetingZoneManager.registerCrossing(4, SegmentConstants.DEFAULT_DOWNSTREAM_CAPACITY);
     }
     // ==================== 配置参数 =======================
 
@@ -692,11 +710,17 @@ public class SegmentVariables {
      * @param vehicleId 车辆ID
      */
     public void addUpstreamVehicle(String vehicleId) {
+        addUpstreamVehicle(plateDictionary.intern(vehicleId));
+    }
 
-        if(vehicleId==null || vehicleId.trim().isEmpty());
-        else {
-            upstreamVehicleIds.add(vehicleId);
-            vehicleEntryTimes.put(vehicleId, LocalDateTime.now());
+    /**
+     * 添加上行车辆
+     * @param plateId 车牌编号，无车牌为 {@link PlateDictionary#NO_PLATE}
+     */
+    public void addUpstreamVehicle(int plateId) {
+        if (plateId != PlateDictionary.NO_PLATE) {
+            upstreamVehicleIds.add(plateId);
+            vehicleEntryTimes.put(plateId, NanoClock.epochNanos());
         }
         upstreamInCounter.incrementAndGet();
         totalVehiclesServed.incrementAndGet();
@@ -708,10 +732,18 @@ public class SegmentVariables {
      * @param vehicleId 车辆ID
      */
     public void removeUpstreamVehicle(String vehicleId) {
-        if(vehicleId!=null && !vehicleId.trim().isEmpty())upstreamVehicleIds.remove(vehicleId);
+        removeUpstreamVehicle(plateDictionary.lookup(vehicleId));
+    }
+
+    /**
+     * 移除上行车辆
+     * @param plateId 车牌编号，无车牌为 {@link PlateDictionary#NO_PLATE}
+     */
+    public void removeUpstreamVehicle(int plateId) {
+        upstreamVehicleIds.remove(plateId);
         upstreamOutCounter.incrementAndGet();
-        updateVehicleWaitingTime(vehicleId);
-        vehicleEntryTimes.remove(vehicleId);
+        updateVehicleWaitingTime(plateId);
+        vehicleEntryTimes.remove(plateId);
         updateClearanceDecisions();
     }
 
@@ -720,9 +752,19 @@ public class SegmentVariables {
      * @param vehicleId 车辆ID
      */
     public void addDownstreamVehicle(String vehicleId) {
-        if(vehicleId!=null&&!vehicleId.trim().isEmpty()){downstreamVehicleIds.add(vehicleId);}
+        addDownstreamVehicle(plateDictionary.intern(vehicleId));
+    }
+
+    /**
+     * 添加下行车辆
+     * @param plateId 车牌编号，无车牌为 {@link PlateDictionary#NO_PLATE}
+     */
+    public void addDownstreamVehicle(int plateId) {
+        if (plateId != PlateDictionary.NO_PLATE) {
+            downstreamVehicleIds.add(plateId);
+            vehicleEntryTimes.put(plateId, NanoClock.epochNanos());
+        }
         downstreamInCounter.incrementAndGet();
-        vehicleEntryTimes.put(vehicleId, LocalDateTime.now());
         totalVehiclesServed.incrementAndGet();
         updateClearanceDecisions();
     }
@@ -732,22 +774,29 @@ public class SegmentVariables {
      * @param vehicleId 车辆ID
      */
     public void removeDownstreamVehicle(String vehicleId) {
-        if(vehicleId!=null && !vehicleId.trim().isEmpty()){downstreamVehicleIds.remove(vehicleId);}
+        removeDownstreamVehicle(plateDictionary.lookup(vehicleId));
+    }
 
+    /**
+     * 移除下行车辆
+     * @param plateId 车牌编号，无车牌为 {@link PlateDictionary#NO_PLATE}
+     */
+    public void removeDownstreamVehicle(int plateId) {
+        downstreamVehicleIds.remove(plateId);
         downstreamOutCounter.incrementAndGet();
-        updateVehicleWaitingTime(vehicleId);
-        vehicleEntryTimes.remove(vehicleId);
+        updateVehicleWaitingTime(plateId);
+        vehicleEntryTimes.remove(plateId);
         updateClearanceDecisions();
     }
 
     /**
      * 更新车辆等待时间统计
-     * @param vehicleId 车辆ID
+     * @param plateId 车牌编号
      */
-    private void updateVehicleWaitingTime(String vehicleId) {
-        LocalDateTime entryTime = vehicleEntryTimes.get(vehicleId);
-        if (entryTime != null) {
-            long waitingSeconds = java.time.Duration.between(entryTime, LocalDateTime.now()).getSeconds();
+    private void updateVehicleWaitingTime(int plateId) {
+        long entryNanos = vehicleEntryTimes.get(plateId);
+        if (entryNanos != PlateTimeMap.MISSING) {
+            long waitingSeconds = secondsBetween(entryNanos, NanoClock.epochNanos());
             // 使用移动平均更新平均等待时间
             averageWaitingTime = averageWaitingTime * SegmentConstants.WAITING_TIME_SMOOTH_FACTOR +
                     waitingSeconds * (1 - SegmentConstants.WAITING_TIME_SMOOTH_FACTOR);
@@ -760,7 +809,61 @@ public class SegmentVariables {
      * @return 是否重复
      */
     public boolean isDuplicateVehicleId(String vehicleId) {
-        return upstreamVehicleIds.contains(vehicleId) || downstreamVehicleIds.contains(vehicleId);
+        int plateId = plateDictionary.lookup(vehicleId);
+        return upstreamVehicleIds.contains(plateId) || downstreamVehicleIds.contains(plateId);
+    }
+
+    /**
+     * 上行方向是否有该车
+     * @param vehicleId 车辆ID
+     */
+    public boolean containsUpstreamVehicle(String vehicleId) {
+        return upstreamVehicleIds.contains(plateDictionary.lookup(vehicleId));
+    }
+
+    /**
+     * 下行方向是否有该车
+     * @param vehicleId 车辆ID
+     */
+    public boolean containsDownstreamVehicle(String vehicleId) {
+        return downstreamVehicleIds.contains(plateDictionary.lookup(vehicleId));
+    }
+
+    public boolean containsUpstreamVehicle(int plateId) { return upstreamVehicleIds.contains(plateId); }
+    public boolean containsDownstreamVehicle(int plateId) { return downstreamVehicleIds.contains(plateId); }
+
+    /**
+     * 在上行车辆中查找与离开车牌最接近的车辆，用于识别误差导致精确匹配失败的情况
+     * @param plateId 离开车牌编号
+     * @return 没有足够接近的车辆时返回null
+     */
+    public PlateFuzzyIndex.Match matchUpstreamVehicle(int plateId) { return upstreamVehicleIds.findClosest(plateId); }
+
+    /**
+     * 在下行车辆中查找与离开车牌最接近的车辆
+     * @param plateId 离开车牌编号
+     * @return 没有足够接近的车辆时返回null
+     */
+    public PlateFuzzyIndex.Match matchDownstreamVehicle(int plateId) { return downstreamVehicleIds.findClosest(plateId); }
+
+    public void incrementFuzzyPlateMatches() { fuzzyPlateMatches.incrementAndGet(); }
+    public long getFuzzyPlateMatches() { return fuzzyPlateMatches.get(); }
+
+    public double getFuzzyPlateMaxCost() { return fuzzyPlateMaxCost; }
+    public void setFuzzyPlateMaxCost(double fuzzyPlateMaxCost) { this.fuzzyPlateMaxCost = fuzzyPlateMaxCost; }
+
+    /**
+     * 上行有车牌车辆数，不复制集合
+     */
+    public int getUpstreamVehicleCount() { return upstreamVehicleIds.size(); }
+
+    /**
+     * 下行有车牌车辆数，不复制集合
+     */
+    public int getDownstreamVehicleCount() { return downstreamVehicleIds.size(); }
+
+    private static long secondsBetween(long fromNanos, long toNanos) {
+        return (toNanos - fromNanos) / 1_000_000_000L;
     }
 
     /**
@@ -1260,7 +1363,7 @@ public class SegmentVariables {
             throw new IllegalArgumentException("Entry time cannot be null");
         }
 
-        vehicleEntryTimes.put(vehicleId, entryTime);
+        vehicleEntryTimes.put(plateDictionary.intern(vehicleId), NanoClock.toEpochNanos(entryTime));
         logVehicleTimeEvent("记录车辆进入时间", vehicleId, entryTime);
     }
 
@@ -1274,11 +1377,12 @@ public class SegmentVariables {
             return null;
         }
 
-        LocalDateTime removedTime = vehicleEntryTimes.remove(vehicleId);
-        if (removedTime != null) {
-            logVehicleTimeEvent("移除车辆进入时间记录", vehicleId, removedTime);
+        long removedNanos = vehicleEntryTimes.remove(plateDictionary.lookup(vehicleId));
+        if (removedNanos == PlateTimeMap.MISSING) {
+            return null;
         }
-
+        LocalDateTime removedTime = NanoClock.toLocalDateTime(removedNanos);
+        logVehicleTimeEvent("移除车辆进入时间记录", vehicleId, removedTime);
         return removedTime;
     }
 
@@ -1288,7 +1392,8 @@ public class SegmentVariables {
      * @return 车辆进入时间，如果不存在则返回null
      */
     public LocalDateTime getVehicleEntryTime(String vehicleId) {
-        return vehicleEntryTimes.get(vehicleId);
+        long entryNanos = vehicleEntryTimes.get(plateDictionary.lookup(vehicleId));
+        return entryNanos != PlateTimeMap.MISSING ? NanoClock.toLocalDateTime(entryNanos) : null;
     }
 
     /**
@@ -1297,7 +1402,7 @@ public class SegmentVariables {
      * @return 是否已记录
      */
     public boolean hasVehicleEntryTime(String vehicleId) {
-        return vehicleEntryTimes.containsKey(vehicleId);
+        return vehicleEntryTimes.containsKey(plateDictionary.lookup(vehicleId));
     }
 
     /**
@@ -1306,12 +1411,12 @@ public class SegmentVariables {
      * @return 停留时间，如果车辆不存在则返回0
      */
     public long calculateVehicleStayTime(String vehicleId) {
-        LocalDateTime entryTime = vehicleEntryTimes.get(vehicleId);
-        if (entryTime == null) {
+        long entryNanos = vehicleEntryTimes.get(plateDictionary.lookup(vehicleId));
+        if (entryNanos == PlateTimeMap.MISSING) {
             return 0;
         }
 
-        return java.time.Duration.between(entryTime, LocalDateTime.now()).getSeconds();
+        return secondsBetween(entryNanos, NanoClock.epochNanos());
     }
     /**
      * 增加上行进入计数器
@@ -1345,12 +1450,12 @@ public class SegmentVariables {
      * @return 停留时间，如果车辆不存在则返回0
      */
     public long calculateVehicleStayTime(String vehicleId, LocalDateTime exitTime) {
-        LocalDateTime entryTime = vehicleEntryTimes.get(vehicleId);
-        if (entryTime == null || exitTime == null) {
+        long entryNanos = vehicleEntryTimes.get(plateDictionary.lookup(vehicleId));
+        if (entryNanos == PlateTimeMap.MISSING || exitTime == null) {
             return 0;
         }
 
-        return java.time.Duration.between(entryTime, exitTime).getSeconds();
+        return secondsBetween(entryNanos, NanoClock.toEpochNanos(exitTime));
     }
 
     /**
@@ -1359,14 +1464,14 @@ public class SegmentVariables {
      */
     public Map<String, Long> getAllVehicleStayTimes() {
         Map<String, Long> stayTimes = new HashMap<>();
-        LocalDateTime now = LocalDateTime.now();
+        long now = NanoClock.epochNanos();
 
-        for (Map.Entry<String, LocalDateTime> entry : vehicleEntryTimes.entrySet()) {
-            String vehicleId = entry.getKey();
-            LocalDateTime entryTime = entry.getValue();
-            long stayTime = java.time.Duration.between(entryTime, now).getSeconds();
-            stayTimes.put(vehicleId, stayTime);
-        }
+        vehicleEntryTimes.forEach((plateId, entryNanos) -> {
+            String vehicleId = plateDictionary.plateOf(plateId);
+            if (vehicleId != null) {
+                stayTimes.put(vehicleId, secondsBetween(entryNanos, now));
+            }
+        });
 
         return stayTimes;
     }
@@ -1380,14 +1485,15 @@ public class SegmentVariables {
             return 0.0;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        long totalStayTime = 0;
+        long now = NanoClock.epochNanos();
+        long[] totals = new long[2];   // 停留秒数之和、车辆数
 
-        for (LocalDateTime entryTime : vehicleEntryTimes.values()) {
-            totalStayTime += java.time.Duration.between(entryTime, now).getSeconds();
-        }
+        vehicleEntryTimes.forEach((plateId, entryNanos) -> {
+            totals[0] += secondsBetween(entryNanos, now);
+            totals[1]++;
+        });
 
-        return (double) totalStayTime / vehicleEntryTimes.size();
+        return totals[1] > 0 ? (double) totals[0] / totals[1] : 0.0;
     }
 
     /**
@@ -1399,19 +1505,18 @@ public class SegmentVariables {
             return null;
         }
 
-        LocalDateTime now = LocalDateTime.now();
-        String longestStayVehicle = null;
-        long maxStayTime = 0;
-
-        for (Map.Entry<String, LocalDateTime> entry : vehicleEntryTimes.entrySet()) {
-            long stayTime = java.time.Duration.between(entry.getValue(), now).getSeconds();
-            if (stayTime > maxStayTime) {
-                maxStayTime = stayTime;
-                longestStayVehicle = entry.getKey();
+        long now = NanoClock.epochNanos();
+        long[] longest = {PlateDictionary.NO_PLATE, 0};   // 车牌编号、停留秒数
+
+        vehicleEntryTimes.forEach((plateId, entryNanos) -> {
+            long stayTime = secondsBetween(entryNanos, now);
+            if (stayTime > longest[1]) {
+                longest[0] = plateId;
+                longest[1] = stayTime;
             }
-        }
+        });
 
-        return longestStayVehicle;
+        return plateDictionary.plateOf((int) longest[0]);
     }
 
     /**
@@ -1421,14 +1526,14 @@ public class SegmentVariables {
      */
     public List<String> getVehiclesExceedingStayTime(long thresholdSeconds) {
         List<String> exceedingVehicles = new ArrayList<>();
-        LocalDateTime now = LocalDateTime.now();
+        long now = NanoClock.epochNanos();
 
-        for (Map.Entry<String, LocalDateTime> entry : vehicleEntryTimes.entrySet()) {
-            long stayTime = java.time.Duration.between(entry.getValue(), now).getSeconds();
-            if (stayTime > thresholdSeconds) {
-                exceedingVehicles.add(entry.getKey());
+        vehicleEntryTimes.forEach((plateId, entryNanos) -> {
+            if (secondsBetween(entryNanos, now) > thresholdSeconds) {
+                String vehicleId = plateDictionary.plateOf(plateId);
+                if (vehicleId != null) exceedingVehicles.add(vehicleId);
             }
-        }
+        });
 
         return exceedingVehicles;
     }
@@ -1439,20 +1544,19 @@ public class SegmentVariables {
      * @return 被清理的车辆数量
      */
     public int cleanupTimeoutVehicleRecords(long timeoutSeconds) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime cutoffTime = now.minusSeconds(timeoutSeconds);
+        long cutoffNanos = NanoClock.epochNanos() - timeoutSeconds * 1_000_000_000L;
 
-        List<String> vehiclesToRemove = new ArrayList<>();
+        List<Integer> vehiclesToRemove = new ArrayList<>();
 
-        for (Map.Entry<String, LocalDateTime> entry : vehicleEntryTimes.entrySet()) {
-            if (entry.getValue().isBefore(cutoffTime)) {
-                vehiclesToRemove.add(entry.getKey());
+        vehicleEntryTimes.forEach((plateId, entryNanos) -> {
+            if (entryNanos < cutoffNanos) {
+                vehiclesToRemove.add(plateId);
             }
-        }
+        });
 
-        for (String vehicleId : vehiclesToRemove) {
-            removeVehicleEntryTime(vehicleId);
-            logVehicleTimeEvent("清理超时车辆记录", vehicleId, vehicleEntryTimes.get(vehicleId));
+        for (int plateId : vehiclesToRemove) {
+            long entryNanos = vehicleEntryTimes.remove(plateId);
+            logVehicleTimeEvent("清理超时车辆记录", plateDictionary.plateOf(plateId), NanoClock.toLocalDateTime(entryNanos));
         }
 
         return vehiclesToRemove.size();
@@ -1493,13 +1597,13 @@ public class SegmentVariables {
      * @param exitTime 离开时间（可选，为null时使用当前时间）
      */
     public void updateVehicleWaitingTimeStatistics(String vehicleId, LocalDateTime exitTime) {
-        LocalDateTime entryTime = vehicleEntryTimes.get(vehicleId);
-        if (entryTime == null) {
+        long entryNanos = vehicleEntryTimes.get(plateDictionary.lookup(vehicleId));
+        if (entryNanos == PlateTimeMap.MISSING) {
             return;
         }
 
-        LocalDateTime actualExitTime = (exitTime != null) ? exitTime : LocalDateTime.now();
-        long waitingSeconds = java.time.Duration.between(entryTime, actualExitTime).getSeconds();
+        long exitNanos = (exitTime != null) ? NanoClock.toEpochNanos(exitTime) : NanoClock.epochNanos();
+        long waitingSeconds = secondsBetween(entryNanos, exitNanos);
 
         // 使用移动平均更新平均等待时间
         double smoothingFactor = SegmentConstants.WAITING_TIME_SMOOTH_FACTOR;
@@ -1583,7 +1687,7 @@ public class SegmentVariables {
      * @param entryTime 进入时间（可选，为null时使用当前时间）
      */
     public void addUpstreamVehicleWithTime(String vehicleId, LocalDateTime entryTime) {
-        upstreamVehicleIds.add(vehicleId);
+        upstreamVehicleIds.add(plateDictionary.intern(vehicleId));
         upstreamInCounter.incrementAndGet();
 
         // 使用新的时间记录方法
@@ -1599,7 +1703,7 @@ public class SegmentVariables {
      * @param entryTime 进入时间（可选，为null时使用当前时间）
      */
     public void addDownstreamVehicleWithTime(String vehicleId, LocalDateTime entryTime) {
-        downstreamVehicleIds.add(vehicleId);
+        downstreamVehicleIds.add(plateDictionary.intern(vehicleId));
         downstreamInCounter.incrementAndGet();
 
         // 使用新的时间记录方法
@@ -1615,7 +1719,7 @@ public class SegmentVariables {
      * @param exitTime 离开时间（可选，为null时使用当前时间）
      */
     public void removeUpstreamVehicleWithTime(String vehicleId, LocalDateTime exitTime) {
-        if (upstreamVehicleIds.remove(vehicleId)) {
+        if (upstreamVehicleIds.remove(plateDictionary.lookup(vehicleId))) {
             upstreamOutCounter.incrementAndGet();
 
             // 使用新的等待时间统计方法
@@ -1634,7 +1738,7 @@ public class SegmentVariables {
      * @param exitTime 离开时间（可选，为null时使用当前时间）
      */
     public void removeDownstreamVehicleWithTime(String vehicleId, LocalDateTime exitTime) {
-        if (downstreamVehicleIds.remove(vehicleId)) {
+        if (downstreamVehicleIds.remove(plateDictionary.lookup(vehicleId))) {
             downstreamOutCounter.incrementAndGet();
 
             // 使用新的等待时间统计方法
@@ -1965,7 +2069,7 @@ public class SegmentVariables {
      * @param vehicleId 车辆ID
      */
     public void addUpstreamVehicleOptimized(String vehicleId) {
-        upstreamVehicleIds.add(vehicleId);
+        upstreamVehicleIds.add(plateDictionary.intern(vehicleId));
         upstreamInCounter.incrementAndGet();
         recordVehicleEntryTime(vehicleId);
 
@@ -1980,7 +2084,7 @@ public class SegmentVariables {
      * @param vehicleId 车辆ID
      */
     public void addDownstreamVehicleOptimized(String vehicleId) {
-        downstreamVehicleIds.add(vehicleId);
+        downstreamVehicleIds.add(plateDictionary.intern(vehicleId));
         downstreamInCounter.incrementAndGet();
         recordVehicleEntryTime(vehicleId);
 
@@ -2764,8 +2868,8 @@ public class SegmentVariables {
     public void setConservativeTimerStart(LocalDateTime conservativeTimerStart) { this.conservativeTimerStart = conservativeTimerStart; }
 
     // 车辆相关
-    public Set<String> getUpstreamVehicleIds() { return new HashSet<>(upstreamVehicleIds); }
-    public Set<String> getDownstreamVehicleIds() { return new HashSet<>(downstreamVehicleIds); }
+    public Set<String> getUpstreamVehicleIds() { return upstreamVehicleIds.toPlates(); }
+    public Set<String> getDownstreamVehicleIds() { return downstreamVehicleIds.toPlates(); }
 
     public int getUpstreamInCounter() { return upstreamInCounter.get(); }
     public int getUpstreamOutCounter() { return upstreamOutCounter.get(); }
@@ -2817,5 +2921,12 @@ public class SegmentVariables {
     // 容量配置相关
 
     // 车辆进入时间记录
-    public Map<String, LocalDateTime> getVehicleEntryTimes() { return new HashMap<>(vehicleEntryTimes); }
+    public Map<String, LocalDateTime> getVehicleEntryTimes() {
+        Map<String, LocalDateTime> result = new HashMap<>();
+        vehicleEntryTimes.forEach((plateId, entryNanos) -> {
+            String vehicleId = plateDictionary.plateOf(plateId);
+            if (vehicleId != null) result.put(vehicleId, NanoClock.toLocalDateTime(entryNanos));
+        });
+        return result;
+    }
 }
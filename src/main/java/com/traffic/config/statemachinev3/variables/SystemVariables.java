@@ -525,6 +525,21 @@ public class SystemVariables {
             segmentClearanceStates.put(i, new ClearanceState(i));
         }
     }
+
+    /**
+     * 路段拓扑变化后更新路段集合，保留仍存在路段的清空状态
+     * @param segmentIds 当前全部路段ID
+     */
+    public void applySegmentIds(int[] segmentIds) {
+        Set<Integer> current = new HashSet<>();
+        for (int segmentId : segmentIds) {
+            current.add(segmentId);
+            segmentClearanceStates.computeIfAbsent(segmentId, ClearanceState::new);
+        }
+        segmentClearanceStates.keySet().retainAll(current);
+        this.segmentCount = segmentIds.length;
+        recalculateClearanceStatus();
+    }
     // ==================== 撇脂参数方法 ====================
 
     public int getAllRedTime() {
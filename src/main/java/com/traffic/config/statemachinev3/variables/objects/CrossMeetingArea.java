@@ -24,6 +24,10 @@ public class CrossMeetingArea {
         upMeetingArea.vehicleExited(vehicleId);
         downMeetingArea.vehicleExited(vehicleId);
     }
+    public void removeVehicleId(int plateId){
+        upMeetingArea.vehicleExited(plateId);
+        downMeetingArea.vehicleExited(plateId);
+    }
     public String toString(){
         return String.format("WaitAreaId:%d, Vehicles[UP]:%d, Vehicles[DOWN]:%d\r\n", crossMeetingAreaId, upMeetingArea.getCount(), downMeetingArea.getCount());
     }
@@ -1,63 +1,167 @@
 package com.traffic.config.statemachinev3.variables.objects;
 
+import com.traffic.config.statemachinev3.constants.SystemConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * 会车区管理
+ *
+ * 会车区位于相邻两个路段之间，编号取其上游路段的ID：路段按ID排序后，路段 a 与下一路段 b 之间的会车区编号为 a。
+ * 路段拓扑由配置决定，{@link #applyTopology(int[])} 时整体替换：仍然存在的会车区保留车辆，新出现的会车区新建，
+ * 不再存在的会车区丢弃。拓扑按升序路段ID二分查找，占用只与路段数有关，路段ID稀疏也不会放大；
+ * 车辆事件每次只读取一次拓扑引用，替换过程中的事件始终按同一份拓扑处理。
+ */
 public class CrossMettingZoneManager {
+    private static final Logger logger = LoggerFactory.getLogger(CrossMettingZoneManager.class);
     private static final CrossMettingZoneManager instance = new CrossMettingZoneManager();
-    private final Map<Integer, CrossMeetingArea> allCrossMeetingZone = new ConcurrentHashMap<>();
+
+    /** 未配置等待区容量时的会车区容量 */
+    public static final int DEFAULT_CAPACITY = 2;
+
+    /**
+     * 路段拓扑，创建后不再修改
+     */
+    private static final class Topology {
+        final int[] segmentIds;             // 按路段顺序（ID升序）
+        final CrossMeetingArea[] zoneList;  // 第i个为 segmentIds[i] 与 segmentIds[i+1] 之间的会车区
+
+        Topology(int[] segmentIds, CrossMeetingArea[] zoneList) {
+            this.segmentIds = segmentIds;
+            this.zoneList = zoneList;
+        }
+
+        /**
+         * 路段在 segmentIds 中的位置，不存在时为负数
+         */
+        private int indexOf(int segmentId) {
+            return Arrays.binarySearch(segmentIds, segmentId);
+        }
+
+        int before(int segmentId) {
+            int index = indexOf(segmentId);
+            return index > 0 ? segmentIds[index - 1] : 0;
+        }
+
+        int after(int segmentId) {
+            int index = indexOf(segmentId);
+            return index >= 0 && index < zoneList.length ? segmentIds[index] : 0;
+        }
+
+        CrossMeetingArea zone(int zoneId) {
+            int index = indexOf(zoneId);
+            return index >= 0 && index < zoneList.length ? zoneList[index] : null;
+        }
+    }
+
+    private volatile Topology topology;
 
     private CrossMettingZoneManager() {
-        // 私有构造函数，防止外部实例化
+        // 私有构造函数，防止外部实例化；配置加载前按默认路段数建立拓扑
+        int[] segmentIds = new int[SystemConstants.TOTAL_SEGMENT_COUNT];
+        for (int i = 0; i < segmentIds.length; i++) {
+            segmentIds[i] = i + 1;
+        }
+        applyTopology(segmentIds);
     }
     public static CrossMettingZoneManager getInstance() {
         return instance;
     }
-    /*
-     * 注册一个新的会车区
+
+    /**
+     * 按路段ID重建会车区
+     * @param segmentIds 路段ID，须大于0，按路段顺序（ID升序）排列
+     * @return 被丢弃的会车区编号
+     */
+    public synchronized List<Integer> applyTopology(int[] segmentIds) {
+        int[] ids = segmentIds.clone();
+        Arrays.sort(ids);
+        Topology old = topology;
+        CrossMeetingArea[] zoneList = new CrossMeetingArea[Math.max(0, ids.length - 1)];
+        for (int i = 0; i < ids.length - 1; i++) {
+            int zoneId = ids[i];
+            CrossMeetingArea zone = old != null ? old.zone(zoneId) : null;
+            if (zone == null) {
+                zone = new CrossMeetingArea(zoneId, DEFAULT_CAPACITY);
+                logger.info("会车区 {} 已注册，最大容量: {}", zoneId, DEFAULT_CAPACITY);
+            }
+            zoneList[i] = zone;
+        }
+        Topology current = new Topology(ids, zoneList);
+        topology = current;
+
+        List<Integer> retired = new ArrayList<>();
+        if (old != null) {
+            for (CrossMeetingArea zone : old.zoneList) {
+                int zoneId = zone.getCrossMeetingAreaId();
+                if (current.zone(zoneId) != zone) {
+                    retired.add(zoneId);
+                    logger.info("会车区 {} 已撤销，区内车辆 上行{} 下行{}", zoneId,
+                            zone.getUpMeetingArea().getCount(), zone.getDownMeetingArea().getCount());
+                }
+            }
+        }
+        return retired;
+    }
+
+    /**
+     * 路段上游一侧的会车区编号，0表示没有（首个路段）
      */
-    public void registerCrossing(int crossMeetingZoneId, int maxCapacity){
-        allCrossMeetingZone.put(crossMeetingZoneId, new CrossMeetingArea(crossMeetingZoneId, maxCapacity));
-        System.out.println("会车区 " + crossMeetingZoneId + " 已注册，最大容量: " + maxCapacity);
+    public int zoneBefore(int segmentId) {
+        return topology.before(segmentId);
+    }
+
+    /**
+     * 路段下游一侧的会车区编号，0表示没有（末个路段）
+     */
+    public int zoneAfter(int segmentId) {
+        return topology.after(segmentId);
+    }
+
+    public int[] getSegmentIds() {
+        return topology.segmentIds.clone();
     }
+
     public void updateCrossMeetingCapacity(int crossZoneId, int maxUpCapacity, int maxDownCapacity){
-        allCrossMeetingZone.get(crossZoneId).getDownMeetingArea().setMaxCapacity(maxUpCapacity);
-        allCrossMeetingZone.get(crossZoneId).getUpMeetingArea().setMaxCapacity(maxDownCapacity);
+        CrossMeetingArea zone = topology.zone(crossZoneId);
+        if (zone == null) {
+            logger.warn("会车区 {} 不存在，忽略容量配置", crossZoneId);
+            return;
+        }
+        zone.getDownMeetingArea().setMaxCapacity(maxUpCapacity);
+        zone.getUpMeetingArea().setMaxCapacity(maxDownCapacity);
     }
 
     public boolean hasUpstreamRequest(int segmentId){
-        if(segmentId == 1){ // 路段1没有上行请求，只有下行请求
-            return false;
-        }
-//        if(segmentId == allCrossMeetingZone.size()+1){  // 最后一个路段没有下行请求，只有上行请求
-//            if(!allCrossMeetingZone.get(segmentId-1).getUpMeetingArea().isEmpty()) return true;
-//        }
-        if(segmentId > 1){
-            if(!allCrossMeetingZone.get(segmentId-1).getUpMeetingArea().isEmpty()) return true;
-        }
-        return false;
+        // 首个路段没有上行请求，只有下行请求
+        Topology t = topology;
+        CrossMeetingArea zone = t.zone(t.before(segmentId));
+        return zone != null && !zone.getUpMeetingArea().isEmpty();
     }
     public boolean hasDownstreamRequest(int segmentId){
-        if(segmentId == allCrossMeetingZone.size()+1){  // 最后一个路段没有下行请求，只有上行请求
-            return false;
-        }
-        if(segmentId <= allCrossMeetingZone.size() && segmentId>0){
-            if(!allCrossMeetingZone.get(segmentId).getDownMeetingArea().isEmpty()) return true;
-        }
-        return false;
+        // 末个路段没有下行请求，只有上行请求
+        Topology t = topology;
+        CrossMeetingArea zone = t.zone(t.after(segmentId));
+        return zone != null && !zone.getDownMeetingArea().isEmpty();
     }
     /**
      * 检查指定会车区是否有容量
      */
     public boolean hasUpCapacity(int crossMeetingZoneId){
-        CrossMeetingArea meetingArea = allCrossMeetingZone.get(crossMeetingZoneId);
+        CrossMeetingArea meetingArea = topology.zone(crossMeetingZoneId);
         if(meetingArea != null){
             return meetingArea.getUpMeetingArea().canAcceptVehicle();
         }
         return false;
     }
     public boolean hasDownCapacity(int crossMeetingZoneId){
-        CrossMeetingArea meetingArea = allCrossMeetingZone.get(crossMeetingZoneId);
+        CrossMeetingArea meetingArea = topology.zone(crossMeetingZoneId);
         if(meetingArea != null){
             return meetingArea.getDownMeetingArea().canAcceptVehicle();
         }
@@ -65,78 +169,110 @@ public class CrossMettingZoneManager {
     }
     /**
      * 通知会车区有一辆车进入
-     * 上行，只有路段1到3会产生upVehicleEnter, 同一车牌不应当出现在其它会车区
-     * 下行，只有路段2到路段4会产生downVehicleEnter
+     * 上行，进入路段下游一侧的会车区，末个路段不会产生upVehicleEnter, 同一车牌不应当出现在其它会车区
+     * 下行，进入路段上游一侧的会车区，首个路段不会产生downVehicleEnter
      */
     public void upVehicleEnterV2(int segmentId, String vehicleId){
-        allCrossMeetingZone.forEach((zoneId, meetingArea) -> {
-            if(zoneId == segmentId){
-                //System.out.println("[upVehicleEnter] segmentId="+segmentId+", vehicleId="+vehicleId);
-                meetingArea.getUpMeetingArea().vehicleEntered(vehicleId);
+        upVehicleEnterV2(segmentId, PlateDictionary.getInstance().intern(vehicleId));
+    }
+    public void upVehicleEnterV2(int segmentId, int plateId){
+        Topology t = topology;
+        int target = t.after(segmentId);
+        for (CrossMeetingArea meetingArea : t.zoneList) {
+            if(meetingArea.getCrossMeetingAreaId() == target){
+                meetingArea.getUpMeetingArea().vehicleEntered(plateId);
             }else{
-                meetingArea.removeVehicleId(vehicleId);
+                meetingArea.removeVehicleId(plateId);
             }
-        });
+        }
     }
     public void downVehicleEnterV2(int segmentId, String vehicleId){
-        allCrossMeetingZone.forEach((zoneId, meetingArea) -> {
-            if(zoneId == segmentId-1){
-                meetingArea.getDownMeetingArea().vehicleEntered(vehicleId);
+        downVehicleEnterV2(segmentId, PlateDictionary.getInstance().intern(vehicleId));
+    }
+    public void downVehicleEnterV2(int segmentId, int plateId){
+        Topology t = topology;
+        int target = t.before(segmentId);
+        for (CrossMeetingArea meetingArea : t.zoneList) {
+            if(meetingArea.getCrossMeetingAreaId() == target){
+                meetingArea.getDownMeetingArea().vehicleEntered(plateId);
             }else{
-                meetingArea.removeVehicleId(vehicleId);
+                meetingArea.removeVehicleId(plateId);
             }
-        });
+        }
     }
 
     /**
      * 通知会车区有一辆车离开
-     * 上行，只有路段1到3会产生upVehicleExit
-     * 下行，只有路段2到4会产生downVehicleExit
+     * 上行，离开路段上游一侧的会车区，首个路段不会产生upVehicleExit
+     * 下行，离开路段下游一侧的会车区，末个路段不会产生downVehicleExit
      */
     public void upVehicleExitV2(int segmentId, String vehicleId){
-        if(segmentId < 2 || segmentId > allCrossMeetingZone.size()+1){ return; }
-        allCrossMeetingZone.get(segmentId-1).getUpMeetingArea().vehicleExited(vehicleId);
+        Topology t = topology;
+        CrossMeetingArea zone = t.zone(t.before(segmentId));
+        if(zone == null){ return; }
+        zone.getUpMeetingArea().vehicleExited(vehicleId);
+    }
+    public void upVehicleExitV2(int segmentId, int plateId){
+        Topology t = topology;
+        CrossMeetingArea zone = t.zone(t.before(segmentId));
+        if(zone == null){ return; }
+        zone.getUpMeetingArea().vehicleExited(plateId);
     }
     public void downVehicleExitV2(int segmentId, String vehicleId){
-        if(segmentId < 1 || segmentId> allCrossMeetingZone.size())return;
-        allCrossMeetingZone.get(segmentId).getDownMeetingArea().vehicleExited(vehicleId);
+        Topology t = topology;
+        CrossMeetingArea zone = t.zone(t.after(segmentId));
+        if(zone == null) return;
+        zone.getDownMeetingArea().vehicleExited(vehicleId);
+    }
+    public void downVehicleExitV2(int segmentId, int plateId){
+        Topology t = topology;
+        CrossMeetingArea zone = t.zone(t.after(segmentId));
+        if(zone == null) return;
+        zone.getDownMeetingArea().vehicleExited(plateId);
     }
     /**
      * 通知会车区清空
      */
     public void upVehicleClear(int crossMeetingZoneId){
-        CrossMeetingArea meetingArea = allCrossMeetingZone.get(crossMeetingZoneId);
+        CrossMeetingArea meetingArea = topology.zone(crossMeetingZoneId);
         if(meetingArea != null){
             meetingArea.getUpMeetingArea().clear();
         }
     }
     public void downVehicleClear(int crossMeetingZoneId){
-        CrossMeetingArea meetingArea = allCrossMeetingZone.get(crossMeetingZoneId);
+        CrossMeetingArea meetingArea = topology.zone(crossMeetingZoneId);
         if(meetingArea != null){
             meetingArea.getDownMeetingArea().clear();
         }
     }
     public MeetingArea getUpMeetingArea(int crossMeetingZoneId){
-        CrossMeetingArea meetingArea = allCrossMeetingZone.get(crossMeetingZoneId);
+        CrossMeetingArea meetingArea = topology.zone(crossMeetingZoneId);
         if(meetingArea != null){
             return meetingArea.getUpMeetingArea();
         }
         return null;
     }
     public MeetingArea getDownMeetingArea(int crossMeetingZoneId){
-        CrossMeetingArea meetingArea = allCrossMeetingZone.get(crossMeetingZoneId);
+        CrossMeetingArea meetingArea = topology.zone(crossMeetingZoneId);
         if(meetingArea != null){
             return meetingArea.getDownMeetingArea();
         }
         return null;
     }
 
+    /**
+     * 当前全部会车区，按路段顺序
+     */
     public Map<Integer, CrossMeetingArea> getAllCrossMeetingZone() {
-        return allCrossMeetingZone;
+        Map<Integer, CrossMeetingArea> result = new LinkedHashMap<>();
+        for (CrossMeetingArea zone : topology.zoneList) {
+            result.put(zone.getCrossMeetingAreaId(), zone);
+        }
+        return result;
     }
 
     public void printAllCrossMeetingZones() {
-        allCrossMeetingZone.forEach((zoneId, meetingArea) -> {
+        getAllCrossMeetingZone().forEach((zoneId, meetingArea) -> {
             System.out.println("会车区ID: " + zoneId + ", 信息: " + meetingArea.toString());
         });
     }
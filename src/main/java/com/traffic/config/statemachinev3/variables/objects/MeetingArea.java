@@ -1,16 +1,15 @@
 package com.traffic.config.statemachinev3.variables.objects;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class MeetingArea {
 
-    private final Set<String> licensePlates;
+    private final PlateIdSet licensePlates;     // 会车区内车辆的车牌编号
     private final AtomicInteger vehicleCount = new AtomicInteger(0);;
     private int maxCapacity;
 
     public MeetingArea(int maxCapacity) {
-        this.licensePlates = new HashSet<>();
+        this.licensePlates = new PlateIdSet();
         this.maxCapacity = maxCapacity;
     }
 
@@ -25,9 +24,16 @@ public class MeetingArea {
      * @param licensePlate 车辆车牌，可以为null
      */
     public void vehicleEntered(String licensePlate) {
-        if (licensePlate != null && !licensePlate.isEmpty()) {
-            if(this.licensePlates.contains(licensePlate)) return;   // 会车区已经有该车，不需要重复加入
-            this.licensePlates.add(licensePlate);
+        vehicleEntered(PlateDictionary.getInstance().intern(licensePlate));
+    }
+
+    /**
+     * 处理车辆进入会车区的事件
+     * @param plateId 车牌编号，无车牌为 {@link PlateDictionary#NO_PLATE}
+     */
+    public void vehicleEntered(int plateId) {
+        if (plateId != PlateDictionary.NO_PLATE) {
+            if(!this.licensePlates.add(plateId)) return;   // 会车区已经有该车，不需要重复加入
         }
         vehicleCount.incrementAndGet();
         //System.out.println("车辆进入会车区，当前车辆计数：" + this.vehicleCount);
@@ -39,10 +45,19 @@ public class MeetingArea {
      * @param licensePlate 车辆车牌，可以为null
      */
     public void vehicleExited(String licensePlate) {
+        int plateId = PlateDictionary.getInstance().lookup(licensePlate);
+        if (plateId == PlateDictionary.NO_PLATE && !PlateDictionary.isNoPlate(licensePlate)) return;  // 未登记的车牌不可能在会车区
+        vehicleExited(plateId);
+    }
+
+    /**
+     * 处理车辆离开会车区的事件
+     * @param plateId 车牌编号，无车牌为 {@link PlateDictionary#NO_PLATE}
+     */
+    public void vehicleExited(int plateId) {
         if (this.vehicleCount.get() > 0) {
-            if (licensePlate != null && !licensePlate.isEmpty()) {
-                if(!this.licensePlates.contains(licensePlate)) return;  // 会车区已经没有该车，不需要重复删除
-                this.licensePlates.remove(licensePlate);
+            if (plateId != PlateDictionary.NO_PLATE) {
+                if(!this.licensePlates.remove(plateId)) return;  // 会车区已经没有该车，不需要重复删除
             }
             this.vehicleCount.decrementAndGet();
 //            System.out.println("车辆离开会车区，当前车辆计数：" + this.vehicleCount);
@@ -78,6 +93,10 @@ public class MeetingArea {
     }
 
     public Set<String> getLicensePlates() {
-        return licensePlates;
+        return licensePlates.toPlates();
+    }
+
+    public boolean containsPlate(int plateId) {
+        return licensePlates.contains(plateId);
     }
 }
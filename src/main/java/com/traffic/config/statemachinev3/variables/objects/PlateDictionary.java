@@ -0,0 +1,203 @@
+package com.traffic.config.statemachinev3.variables.objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 车牌字典
+ *
+ * 接入时为每个车牌分配一个稳定的int编号，路段车辆集合、进入时间、会车区等状态只保存编号，
+ * 避免在每一跳上重复对车牌字符串做哈希和比较。编号0保留给“无车牌”。
+ *
+ * 路段状态持有编号期间通过 {@link #retain(int)}/{@link #release(int)} 计数；
+ * 无人持有且超过空闲时间的编号被回收，重新分配给新车牌，编号因此保持紧凑。
+ * 已分配车牌的查询不加锁，只有分配新编号和回收时在字典上同步。
+ */
+public final class PlateDictionary {
+    private static final Logger log = LoggerFactory.getLogger(PlateDictionary.class);
+
+    public static final int NO_PLATE = 0;
+
+    /** 编号容量（含保留的0号），不超过2^23，DataFilter 按23位拼接去重键 */
+    public static final int CAPACITY = 1 << 18;
+    /** 无人持有的编号空闲多久后回收 */
+    private static final long IDLE_EXPIRE_NANOS = TimeUnit.MINUTES.toNanos(30);
+    /** 分配新编号时顺带回收的最小间隔 */
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final PlateDictionary instance = new PlateDictionary(CAPACITY, IDLE_EXPIRE_NANOS);
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<String> plates;
+    private final AtomicLongArray lastSeenNanos;
+    private final AtomicIntegerArray refCounts;
+    private final long idleExpireNanos;
+
+    // 以下字段只在同步块内访问
+    private final int[] freeIds;
+    private int freeCount;
+    private int nextId = 1;
+    private long lastSweepNanos = System.nanoTime();
+    private long expired;
+    private long exhausted;
+
+    PlateDictionary(int capacity, long idleExpireNanos) {
+        this.plates = new AtomicReferenceArray<>(capacity);
+        this.lastSeenNanos = new AtomicLongArray(capacity);
+        this.refCounts = new AtomicIntegerArray(capacity);
+        this.freeIds = new int[capacity];
+        this.idleExpireNanos = idleExpireNanos;
+    }
+
+    public static PlateDictionary getInstance() {
+        return instance;
+    }
+
+    /**
+     * 取得车牌编号，首次出现时分配
+     * @return 车牌为空或“无车牌”时返回 {@link #NO_PLATE}；编号耗尽时同样返回 {@link #NO_PLATE}，该车按无车牌处理
+     */
+    public int intern(String plate) {
+        if (isNoPlate(plate)) {
+            return NO_PLATE;
+        }
+        long now = System.nanoTime();
+        Integer id = ids.get(plate);
+        if (id != null) {
+            int value = id;
+            lastSeenNanos.set(value, now);
+            // 回收线程先清空槽位再复核访问时间，这里读到车牌说明编号仍然有效
+            if (plate.equals(plates.get(value))) {
+                return value;
+            }
+        }
+        return allocate(plate, now);
+    }
+
+    /**
+     * 空车牌和“无车牌”都视为无车牌
+     */
+    public static boolean isNoPlate(String plate) {
+        return plate == null || plate.isBlank() || "无车牌".equals(plate);
+    }
+
+    /**
+     * 只查询不分配
+     * @return 未登记的车牌返回 {@link #NO_PLATE}
+     */
+    public int lookup(String plate) {
+        if (isNoPlate(plate)) {
+            return NO_PLATE;
+        }
+        Integer id = ids.get(plate);
+        return id != null && plate.equals(plates.get(id)) ? id : NO_PLATE;
+    }
+
+    /**
+     * 编号对应的车牌，已回收或无车牌时返回null
+     */
+    public String plateOf(int id) {
+        return id > NO_PLATE && id < plates.length() ? plates.get(id) : null;
+    }
+
+    public void retain(int id) {
+        if (id != NO_PLATE) {
+            refCounts.incrementAndGet(id);
+        }
+    }
+
+    public void release(int id) {
+        if (id != NO_PLATE && refCounts.decrementAndGet(id) == 0) {
+            lastSeenNanos.set(id, System.nanoTime());
+        }
+    }
+
+    private synchronized int allocate(String plate, long now) {
+        Integer existing = ids.get(plate);
+        if (existing != null && plate.equals(plates.get(existing))) {
+            lastSeenNanos.set(existing, now);
+            return existing;
+        }
+
+        if (now - lastSweepNanos > SWEEP_INTERVAL_NANOS) {
+            sweep(now);
+        }
+        int id = takeFreeId();
+        if (id == NO_PLATE) {
+            sweep(now);
+            id = takeFreeId();
+            if (id == NO_PLATE) {
+                if (exhausted++ % 10000 == 0) {
+                    log.warn("车牌字典已满（{}），新车牌按无车牌处理", plates.length() - 1);
+                }
+                return NO_PLATE;
+            }
+        }
+
+        lastSeenNanos.set(id, now);
+        refCounts.set(id, 0);
+        plates.set(id, plate);
+        ids.put(plate, id);
+        return id;
+    }
+
+    private int takeFreeId() {
+        if (freeCount > 0) {
+            return freeIds[--freeCount];
+        }
+        if (nextId < plates.length()) {
+            return nextId++;
+        }
+        return NO_PLATE;
+    }
+
+    /**
+     * 回收无人持有且空闲超时的编号
+     */
+    private void sweep(long now) {
+        lastSweepNanos = now;
+        int count = 0;
+        for (int id = 1; id < nextId; id++) {
+            String plate = plates.get(id);
+            if (plate == null || refCounts.get(id) > 0 || now - lastSeenNanos.get(id) < idleExpireNanos) {
+                continue;
+            }
+            plates.set(id, null);
+            // 清空后复核，期间被查询或持有的编号恢复原状
+            if (refCounts.get(id) > 0 || now - lastSeenNanos.get(id) < idleExpireNanos) {
+                plates.set(id, plate);
+                continue;
+            }
+            ids.remove(plate, id);
+            freeIds[freeCount++] = id;
+            count++;
+        }
+        expired += count;
+        if (count > 0) {
+            log.debug("回收车牌编号 {} 个，在用 {} 个", count, ids.size());
+        }
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capacity", plates.length() - 1);
+        result.put("size", ids.size());
+        result.put("highWaterMark", nextId - 1);
+        result.put("free", freeCount);
+        result.put("expired", expired);
+        result.put("exhausted", exhausted);
+        return result;
+    }
+}
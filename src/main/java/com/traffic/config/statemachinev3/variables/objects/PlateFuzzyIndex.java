@@ -0,0 +1,295 @@
+package com.traffic.config.statemachinev3.variables.objects;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 车牌近似匹配索引
+ *
+ * 出入口摄像机对同一车牌的识别结果可能相差一两个字符，按编号精确查找会匹配不到。
+ * 索引采用删除邻域哈希：车牌先做易混字符归一（O/0、B/8 等），再把删去至多 maxDistance 个字符后的
+ * 每个变体哈希为long，登记到变体对应的编号列表中。查询时对待查车牌生成同样的变体，
+ * 命中的编号即为编辑距离不超过 maxDistance 的候选（哈希碰撞产生的多余候选在校验时排除），
+ * 再按加权编辑距离（易混字符替换只计 {@link #CONFUSABLE_COST}）选出最接近的一个。
+ * 易混归一只作用于字母和数字都合法的序号位：省份简称之后的发牌机关代号只能是字母，
+ * 该位的 A、B 等不归一为数字，“京A…”与“京4…”不会被当作易混。
+ *
+ * 非线程安全，由 {@link PlateIdSet} 在自身锁内调用。
+ */
+public class PlateFuzzyIndex {
+
+    /** 易混字符替换的代价，普通的增删改和相邻交换代价为1 */
+    static final double CONFUSABLE_COST = 0.25;
+
+    private static final char[] FOLD = new char[128];
+
+    static {
+        for (char c = 0; c < FOLD.length; c++) {
+            FOLD[c] = Character.toUpperCase(c);
+        }
+        fold("OQD", '0');
+        fold("IL", '1');
+        fold("Z", '2');
+        fold("A", '4');
+        fold("S", '5');
+        fold("G", '6');
+        fold("B", '8');
+    }
+
+    private static void fold(String chars, char target) {
+        for (char c : chars.toCharArray()) {
+            FOLD[c] = target;
+            FOLD[Character.toLowerCase(c)] = target;
+        }
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static final class Match {
+        private final int plateId;
+        private final String plate;
+        private final double cost;
+        private final double confidence;
+        private final boolean unique;
+        private final boolean confusableOnly;
+
+        Match(int plateId, String plate, double cost, double confidence, boolean unique, boolean confusableOnly) {
+            this.plateId = plateId;
+            this.plate = plate;
+            this.cost = cost;
+            this.confidence = confidence;
+            this.unique = unique;
+            this.confusableOnly = confusableOnly;
+        }
+
+        public int getPlateId() { return plateId; }
+        public String getPlate() { return plate; }
+        /** 加权编辑距离 */
+        public double getCost() { return cost; }
+        /** 置信度 (0.0-1.0) */
+        public double getConfidence() { return confidence; }
+        /** 没有其他候选与其距离相同 */
+        public boolean isUnique() { return unique; }
+        /** 与待查车牌的差异全部是易混字符替换 */
+        public boolean isConfusableOnly() { return confusableOnly; }
+    }
+
+    private final int maxDistance;
+
+    // 变体哈希 -> 编号列表，列表首元素为元素个数
+    private final Map<Long, int[]> postings = new HashMap<>();
+    private final Map<Integer, String> plates = new HashMap<>();
+
+    public PlateFuzzyIndex(int maxDistance) {
+        if (maxDistance < 1 || maxDistance > 2) {
+            throw new IllegalArgumentException("maxDistance must be 1 or 2: " + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+    }
+
+    public void add(int plateId, String plate) {
+        if (plate == null || plate.isEmpty() || plates.putIfAbsent(plateId, plate) != null) {
+            return;
+        }
+        for (long key : variants(fold(plate))) {
+            int[] list = postings.get(key);
+            if (list == null) {
+                list = new int[4];
+                postings.put(key, list);
+            } else if (list[0] + 1 == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+                postings.put(key, list);
+            }
+            list[++list[0]] = plateId;
+        }
+    }
+
+    public void remove(int plateId) {
+        String plate = plates.remove(plateId);
+        if (plate == null) {
+            return;
+        }
+        for (long key : variants(fold(plate))) {
+            int[] list = postings.get(key);
+            if (list == null) continue;
+            int n = list[0];
+            for (int i = 1; i <= n; i++) {
+                if (list[i] == plateId) {
+                    list[i] = list[n];
+                    list[0] = --n;
+                    break;
+                }
+            }
+            if (n == 0) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        plates.clear();
+    }
+
+    public int size() {
+        return plates.size();
+    }
+
+    /**
+     * 查找与给定车牌最接近的已登记车牌
+     *
+     * 置信度 = 1 - 加权编辑距离 / 较长车牌长度；若另有候选距离相同，无法区分，置信度减半。
+     * @param excludeId 不参与匹配的编号，通常是待查车牌自身的编号
+     * @return 编辑距离超过 maxDistance 时无候选，返回null
+     */
+    public Match findClosest(String plate, int excludeId) {
+        if (plate == null || plate.isEmpty() || plates.isEmpty()) {
+            return null;
+        }
+        String folded = fold(plate);
+        int bestId = PlateDictionary.NO_PLATE;
+        String bestPlate = null;
+        double bestCost = Double.MAX_VALUE;
+        boolean tied = false;
+
+        int[] seen = new int[8];
+        int seenCount = 0;
+        for (long key : variants(folded)) {
+            int[] list = postings.get(key);
+            if (list == null) continue;
+            for (int i = 1; i <= list[0]; i++) {
+                int candidate = list[i];
+                if (candidate == excludeId || contains(seen, seenCount, candidate)) continue;
+                if (seenCount == seen.length) {
+                    seen = Arrays.copyOf(seen, seenCount * 2);
+                }
+                seen[seenCount++] = candidate;
+
+                String candidatePlate = plates.get(candidate);
+                // 变体哈希只给出候选，按归一后的编辑距离复核
+                if (distance(folded, fold(candidatePlate), false) > maxDistance) continue;
+                double cost = distance(plate, candidatePlate, true);
+                if (cost < bestCost) {
+                    tied = false;
+                    bestCost = cost;
+                    bestId = candidate;
+                    bestPlate = candidatePlate;
+                } else if (cost == bestCost) {
+                    tied = true;
+                }
+            }
+        }
+        if (bestPlate == null) {
+            return null;
+        }
+        double confidence = Math.max(0.0, 1.0 - bestCost / Math.max(plate.length(), bestPlate.length()));
+        if (tied) {
+            confidence /= 2;
+        }
+        return new Match(bestId, bestPlate, bestCost, confidence, !tied, folded.equals(fold(bestPlate)));
+    }
+
+    private static boolean contains(int[] values, int count, int value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) return true;
+        }
+        return false;
+    }
+
+    static String fold(String plate) {
+        char[] chars = plate.toCharArray();
+        int from = foldStart(plate);
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = i >= from ? foldChar(chars[i]) : Character.toUpperCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 第一个字母、数字均合法的位置：有省份简称时跳过简称和发牌机关代号，识别漏掉简称时只跳过代号
+     */
+    static int foldStart(String plate) {
+        return !plate.isEmpty() && plate.charAt(0) >= 128 ? 2 : 1;
+    }
+
+    /**
+     * 删去至多 maxDistance 个字符得到的全部变体的哈希，已去重
+     */
+    private long[] variants(String s) {
+        int n = s.length();
+        int count = 1 + n + (maxDistance >= 2 ? n * (n - 1) / 2 : 0);
+        long[] keys = new long[count];
+        int k = 0;
+        keys[k++] = hash(s, -1, -1);
+        for (int i = 0; i < n; i++) {
+            keys[k++] = hash(s, i, -1);
+            if (maxDistance >= 2) {
+                for (int j = i + 1; j < n; j++) {
+                    keys[k++] = hash(s, i, j);
+                }
+            }
+        }
+        Arrays.sort(keys);
+        int unique = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                keys[unique++] = keys[i];
+            }
+        }
+        return unique == keys.length ? keys : Arrays.copyOf(keys, unique);
+    }
+
+    /**
+     * 跳过 skip1/skip2 位置字符后的64位FNV-1a哈希
+     */
+    private static long hash(String s, int skip1, int skip2) {
+        long h = 0xcbf29ce484222325L;
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (i == skip1 || i == skip2) continue;
+            h = (h ^ s.charAt(i)) * 0x100000001b3L;
+            length++;
+        }
+        return (h ^ length) * 0x100000001b3L;
+    }
+
+    /**
+     * 最优字符串对齐距离（含相邻交换）
+     * @param weighted 为true时易混字符替换按 {@link #CONFUSABLE_COST} 计
+     */
+    static double distance(String a, String b, boolean weighted) {
+        int n = a.length();
+        int m = b.length();
+        int foldA = foldStart(a);
+        int foldB = foldStart(b);
+        double[][] d = new double[n + 1][m + 1];
+        for (int i = 0; i <= n; i++) d[i][0] = i;
+        for (int j = 0; j <= m; j++) d[0][j] = j;
+        for (int i = 1; i <= n; i++) {
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                double substitution;
+                if (ca == cb) {
+                    substitution = 0;
+                } else if (weighted && i > foldA && j > foldB && foldChar(ca) == foldChar(cb)) {
+                    substitution = CONFUSABLE_COST;
+                } else {
+                    substitution = 1;
+                }
+                double best = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + substitution);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    best = Math.min(best, d[i - 2][j - 2] + 1);
+                }
+                d[i][j] = best;
+            }
+        }
+        return d[n][m];
+    }
+
+    private static char foldChar(char c) {
+        return c < FOLD.length ? FOLD[c] : c;
+    }
+}
@@ -0,0 +1,162 @@
+package com.traffic.config.statemachinev3.variables.objects;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 车牌编号集合
+ *
+ * 以int开放寻址表保存 {@link PlateDictionary} 分配的编号，加入时持有编号、移除或清空时释放。
+ * 方法均为同步方法，同一集合只被所属路段和相邻路段访问，竞争很少。
+ * 启用近似匹配时同步维护一个 {@link PlateFuzzyIndex}，用于按识别有误差的车牌找回集合中的车辆。
+ */
+public class PlateIdSet {
+
+    private static final int EMPTY = PlateDictionary.NO_PLATE;
+
+    private final PlateDictionary dictionary;
+    private final PlateFuzzyIndex fuzzyIndex;
+    private int[] slots;
+    private int size;
+
+    public PlateIdSet() {
+        this(PlateDictionary.getInstance());
+    }
+
+    public PlateIdSet(PlateDictionary dictionary) {
+        this(dictionary, 0);
+    }
+
+    /**
+     * @param fuzzyMaxDistance 近似匹配的最大编辑距离（1或2），0表示不建近似匹配索引
+     */
+    public PlateIdSet(PlateDictionary dictionary, int fuzzyMaxDistance) {
+        this.dictionary = dictionary;
+        this.fuzzyIndex = fuzzyMaxDistance > 0 ? new PlateFuzzyIndex(fuzzyMaxDistance) : null;
+        this.slots = new int[16];
+    }
+
+    /**
+     * @return 编号原先不在集合中时返回true
+     */
+    public synchronized boolean add(int id) {
+        if (id == EMPTY) return false;
+        int index = indexOf(slots, id);
+        if (slots[index] == id) return false;
+        slots[index] = id;
+        dictionary.retain(id);
+        if (fuzzyIndex != null) {
+            fuzzyIndex.add(id, dictionary.plateOf(id));
+        }
+        if (++size * 2 > slots.length) {
+            resize(slots.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * @return 编号原先在集合中时返回true
+     */
+    public synchronized boolean remove(int id) {
+        if (id == EMPTY) return false;
+        int mask = slots.length - 1;
+        int index = indexOf(slots, id);
+        if (slots[index] != id) return false;
+
+        // 线性探测的后移删除，保持探测链连续
+        int hole = index;
+        for (int i = (hole + 1) & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+            int home = mix(slots[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = EMPTY;
+        size--;
+        if (fuzzyIndex != null) {
+            fuzzyIndex.remove(id);
+        }
+        dictionary.release(id);
+        return true;
+    }
+
+    public synchronized boolean contains(int id) {
+        return id != EMPTY && slots[indexOf(slots, id)] == id;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized void clear() {
+        if (fuzzyIndex != null) {
+            fuzzyIndex.clear();
+        }
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != EMPTY) {
+                dictionary.release(slots[i]);
+                slots[i] = EMPTY;
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * 在集合中查找与给定车牌最接近的车辆，车牌本身在集合中时不返回自身
+     * @return 未启用近似匹配或没有足够接近的车辆时返回null
+     */
+    public synchronized PlateFuzzyIndex.Match findClosest(int id) {
+        if (fuzzyIndex == null || id == EMPTY) return null;
+        return fuzzyIndex.findClosest(dictionary.plateOf(id), id);
+    }
+
+    public synchronized int[] toArray() {
+        int[] result = new int[size];
+        int n = 0;
+        for (int id : slots) {
+            if (id != EMPTY) result[n++] = id;
+        }
+        return result;
+    }
+
+    /**
+     * 解析为车牌集合，供展示和兼容旧接口使用
+     */
+    public Set<String> toPlates() {
+        int[] ids = toArray();
+        Set<String> result = new HashSet<>(ids.length * 2);
+        for (int id : ids) {
+            String plate = dictionary.plateOf(id);
+            if (plate != null) result.add(plate);
+        }
+        return result;
+    }
+
+    private void resize(int capacity) {
+        int[] old = slots;
+        int[] resized = new int[capacity];
+        for (int id : old) {
+            if (id != EMPTY) resized[indexOf(resized, id)] = id;
+        }
+        slots = resized;
+    }
+
+    private static int indexOf(int[] table, int id) {
+        int mask = table.length - 1;
+        int index = mix(id) & mask;
+        while (table[index] != EMPTY && table[index] != id) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    static int mix(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,146 @@
+package com.traffic.config.statemachinev3.variables.objects;
+
+/**
+ * 车牌编号到时间（纪元纳秒）的映射
+ *
+ * 与 {@link PlateIdSet} 相同的开放寻址布局，键和值分别保存在int、long数组中；
+ * 新增键时持有编号，移除或清空时释放。方法均为同步方法。
+ */
+public class PlateTimeMap {
+
+    /** 键不存在时 {@link #get(int)} 的返回值 */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    private static final int EMPTY = PlateDictionary.NO_PLATE;
+
+    /**
+     * 遍历回调
+     */
+    public interface Visitor {
+        void visit(int id, long epochNanos);
+    }
+
+    private final PlateDictionary dictionary;
+    private int[] keys;
+    private long[] values;
+    private int size;
+
+    public PlateTimeMap() {
+        this(PlateDictionary.getInstance());
+    }
+
+    public PlateTimeMap(PlateDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.keys = new int[16];
+        this.values = new long[16];
+    }
+
+    /**
+     * @return 原先的值，不存在时返回 {@link #MISSING}
+     */
+    public synchronized long put(int id, long epochNanos) {
+        if (id == EMPTY) return MISSING;
+        int index = indexOf(keys, id);
+        if (keys[index] == id) {
+            long previous = values[index];
+            values[index] = epochNanos;
+            return previous;
+        }
+        keys[index] = id;
+        values[index] = epochNanos;
+        dictionary.retain(id);
+        if (++size * 2 > keys.length) {
+            resize(keys.length << 1);
+        }
+        return MISSING;
+    }
+
+    public synchronized long get(int id) {
+        if (id == EMPTY) return MISSING;
+        int index = indexOf(keys, id);
+        return keys[index] == id ? values[index] : MISSING;
+    }
+
+    public synchronized boolean containsKey(int id) {
+        return id != EMPTY && keys[indexOf(keys, id)] == id;
+    }
+
+    /**
+     * @return 被移除的值，不存在时返回 {@link #MISSING}
+     */
+    public synchronized long remove(int id) {
+        if (id == EMPTY) return MISSING;
+        int mask = keys.length - 1;
+        int index = indexOf(keys, id);
+        if (keys[index] != id) return MISSING;
+        long removed = values[index];
+
+        int hole = index;
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = PlateIdSet.mix(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        dictionary.release(id);
+        return removed;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                dictionary.release(keys[i]);
+                keys[i] = EMPTY;
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * 在持锁状态下遍历，回调中不要修改本映射
+     */
+    public synchronized void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) visitor.visit(keys[i], values[i]);
+        }
+    }
+
+    public PlateDictionary getDictionary() {
+        return dictionary;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new int[capacity];
+        values = new long[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(keys, oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int indexOf(int[] table, int id) {
+        int mask = table.length - 1;
+        int index = PlateIdSet.mix(id) & mask;
+        while (table[index] != EMPTY && table[index] != id) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+}
@@ -1,5 +1,7 @@
 package com.traffic.config.util;
 
+import java.net.InetAddress;
+
 public class DataUtil {
     public static String formatBytes(byte[] bytes) {
         if (bytes.length == 0) return "[]";
@@ -16,4 +18,53 @@ public class DataUtil {
         sb.append("]");
         return sb.toString();
     }
+
+    /**
+     * 读取大端序4字节IPv4地址为int
+     */
+    public static int ipv4ToInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xFF) << 24)
+                | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8)
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    /**
+     * IPv4地址转int，非IPv4地址返回0
+     */
+    public static int ipv4ToInt(InetAddress address) {
+        if (address == null) return 0;
+        byte[] bytes = address.getAddress();
+        return bytes.length == 4 ? ipv4ToInt(bytes, 0) : 0;
+    }
+
+    public static byte[] ipv4ToBytes(int ip) {
+        return new byte[]{(byte) (ip >>> 24), (byte) (ip >>> 16), (byte) (ip >>> 8), (byte) ip};
+    }
+
+    /**
+     * int形式的IPv4地址格式化为点分十进制
+     */
+    public static String formatIpv4(int ip) {
+        return (ip >>> 24) + "." + ((ip >>> 16) & 0xFF) + "." + ((ip >>> 8) & 0xFF) + "." + (ip & 0xFF);
+    }
+
+    /**
+     * 点分十进制IPv4地址解析为int，格式不正确时抛出 IllegalArgumentException
+     */
+    public static int parseIpv4(String text) {
+        String[] parts = text.trim().split("\\.");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("不是IPv4地址: " + text);
+        }
+        int ip = 0;
+        for (String part : parts) {
+            int value = Integer.parseInt(part);
+            if (value < 0 || value > 255) {
+                throw new IllegalArgumentException("不是IPv4地址: " + text);
+            }
+            ip = (ip << 8) | value;
+        }
+        return ip;
+    }
 }
@@ -0,0 +1,37 @@
+package com.traffic.config.util;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 纳秒精度的纪元时钟
+ * 以 System.nanoTime() 推算纪元纳秒，热路径上无对象分配；需要展示时再转换为 LocalDateTime
+ */
+public final class NanoClock {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long EPOCH_OFFSET_NANOS = System.currentTimeMillis() * 1_000_000L - System.nanoTime();
+
+    private NanoClock() {
+    }
+
+    /**
+     * 当前时间（自1970-01-01起的纳秒数）
+     */
+    public static long epochNanos() {
+        return System.nanoTime() + EPOCH_OFFSET_NANOS;
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochNanos) {
+        Instant instant = Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                Math.floorMod(epochNanos, NANOS_PER_SECOND));
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    public static long toEpochNanos(LocalDateTime time) {
+        if (time == null) return 0L;
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+}
@@ -71,9 +71,9 @@ public class TrafficMessagePublisher {
             if (segmentMachine != null) {
                 SegmentVariables variables = segmentMachine.getVariables();
                 if ("UPSTREAM".equals(direction)) {
-                    segmentMessage.setVehicleCount(variables.getUpstreamVehicleIds().size());
+                    segmentMessage.setVehicleCount(variables.getUpstreamVehicleCount());
                 } else {
-                    segmentMessage.setVehicleCount(variables.getDownstreamVehicleIds().size());
+                    segmentMessage.setVehicleCount(variables.getDownstreamVehicleCount());
                 }
             }
 
@@ -106,9 +106,9 @@ public class TrafficMessagePublisher {
             if (segmentMachine != null) {
                 SegmentVariables variables = segmentMachine.getVariables();
                 if ("UPSTREAM".equals(direction)) {
-                    segmentMessage.setVehicleCount(variables.getUpstreamVehicleIds().size());
+                    segmentMessage.setVehicleCount(variables.getUpstreamVehicleCount());
                 } else {
-                    segmentMessage.setVehicleCount(variables.getDownstreamVehicleIds().size());
+                    segmentMessage.setVehicleCount(variables.getDownstreamVehicleCount());
                 }
             }
 
@@ -351,7 +351,7 @@ public class TrafficMessagePublisher {
             Set<String> downstreamIds = variables.getDownstreamVehicleIds();
 
             for (String vehicleId : upstreamIds) {
-                LocalDateTime enterTime = variables.getVehicleEntryTimes().get(vehicleId);
+                LocalDateTime enterTime = variables.getVehicleEntryTime(vehicleId);
                 if (enterTime == null) {
                     enterTime = LocalDateTime.now(); // 默认当前时间
                 }
@@ -359,7 +359,7 @@ public class TrafficMessagePublisher {
             }
 
             for (String vehicleId : downstreamIds) {
-                LocalDateTime enterTime = variables.getVehicleEntryTimes().get(vehicleId);
+                LocalDateTime enterTime = variables.getVehicleEntryTime(vehicleId);
                 if (enterTime == null) {
                     enterTime = LocalDateTime.now(); // 默认当前时间
                 }
@@ -0,0 +1,112 @@
+package com.traffic.config.cardetector.cache;
+
+import com.traffic.config.cardetector.model.VehicleData;
+import com.traffic.config.common.enums.VehicleDirection;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneRingTest {
+
+    private static VehicleData vehicle(long timestampNanos) {
+        VehicleData data = new VehicleData();
+        data.setSignalIpInt(0x0A000001);
+        data.setLaneNumber(2);
+        data.setLicensePlate("京A" + timestampNanos);
+        data.setDirection(VehicleDirection.IN);
+        data.setSpeed(40);
+        data.setTimestampNanos(timestampNanos);
+        return data;
+    }
+
+    private static long[] timestamps(LaneRing ring, long from, long to) {
+        List<VehicleData> out = new ArrayList<>();
+        ring.collect(from, to, out);
+        return out.stream().mapToLong(VehicleData::getTimestampNanos).toArray();
+    }
+
+    @Test
+    void keepsRecordsSortedWhenArrivingOutOfOrder() {
+        LaneRing ring = new LaneRing(0x0A000001, 2, 8);
+        for (long ts : new long[]{10, 30, 20, 40, 5}) {
+            assertEquals(LaneRing.APPENDED, ring.add(vehicle(ts)));
+        }
+        assertArrayEquals(new long[]{5, 10, 20, 30, 40}, timestamps(ring, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(40, ring.latest().getTimestampNanos());
+    }
+
+    @Test
+    void overwritesOldestAcrossWrap() {
+        LaneRing ring = new LaneRing(0x0A000001, 2, 3);
+        ring.add(vehicle(10));
+        ring.add(vehicle(20));
+        ring.add(vehicle(30));
+        assertEquals(LaneRing.OVERWROTE, ring.add(vehicle(40)));
+        assertEquals(LaneRing.OVERWROTE, ring.add(vehicle(35)));
+        assertEquals(3, ring.size());
+        assertArrayEquals(new long[]{30, 35, 40}, timestamps(ring, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void fullRingReportsRecordsOlderThanHeadAsStale() {
+        LaneRing ring = new LaneRing(0x0A000001, 2, 2);
+        ring.add(vehicle(10));
+        ring.add(vehicle(20));
+        assertEquals(LaneRing.STALE, ring.add(vehicle(5)));
+        assertArrayEquals(new long[]{10, 20}, timestamps(ring, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+
+    @Test
+    void collectUsesHalfOpenRange() {
+        LaneRing ring = new LaneRing(0x0A000001, 2, 4);
+        for (long ts = 10; ts <= 40; ts += 10) {
+            ring.add(vehicle(ts));
+        }
+        assertArrayEquals(new long[]{20, 30}, timestamps(ring, 20, 40));
+        assertArrayEquals(new long[0], timestamps(ring, 41, 100));
+    }
+
+    @Test
+    void restoresAllStoredFields() {
+        LaneRing ring = new LaneRing(0x0A000001, 2, 4);
+        VehicleData stored = vehicle(10);
+        stored.setPlateId(7);
+        stored.setQueueLength(12);
+        stored.setRunDirection(2);
+        ring.add(stored);
+
+        VehicleData restored = ring.latest();
+        assertEquals(0x0A000001, restored.getSignalIpInt());
+        assertEquals(2, restored.getLaneNumber());
+        assertEquals("京A10", restored.getLicensePlate());
+        assertEquals(7, restored.getPlateId());
+        assertEquals(VehicleDirection.IN, restored.getDirection());
+        assertEquals(stored.getDataType(), restored.getDataType());
+        assertEquals(12, restored.getQueueLength());
+        assertEquals(40, restored.getSpeed());
+        assertEquals(2, restored.getRunDirection());
+    }
+
+    @Test
+    void retiredRingRejectsWrites() {
+        LaneRing ring = new LaneRing(0x0A000001, 2, 4);
+        ring.add(vehicle(10));
+        ring.add(vehicle(20));
+        assertEquals(2, ring.retire());
+        assertEquals(LaneRing.RETIRED, ring.add(vehicle(30)));
+        assertEquals(0, ring.size());
+        assertNull(ring.latest());
+    }
+
+    @Test
+    void referencedFlagTracksWritesSinceLastCheck() {
+        LaneRing ring = new LaneRing(0x0A000001, 2, 4);
+        assertFalse(ring.testAndClearReferenced());
+        ring.add(vehicle(10));
+        assertTrue(ring.testAndClearReferenced());
+        assertFalse(ring.testAndClearReferenced());
+    }
+}
@@ -0,0 +1,79 @@
+package com.traffic.config.cardetector.cache;
+
+import com.traffic.config.cardetector.model.VehicleData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleDataCacheTest {
+
+    private static final int IP = 0x0A000001;
+
+    private static VehicleData vehicle(int lane, long timestampNanos) {
+        VehicleData data = new VehicleData();
+        data.setSignalIpInt(IP);
+        data.setLaneNumber(lane);
+        data.setTimestampNanos(timestampNanos);
+        return data;
+    }
+
+    @Test
+    void sizeTracksAppendsOverwritesAndRemovals() {
+        VehicleDataCache cache = new VehicleDataCache(2, 100);
+        cache.add(vehicle(1, 10));
+        cache.add(vehicle(1, 20));
+        cache.add(vehicle(1, 30));
+        cache.add(vehicle(2, 10));
+        assertEquals(3, cache.size());
+        assertEquals(1L, cache.snapshot().get("overwritten"));
+
+        cache.remove("10.0.0.1_1");
+        assertEquals(1, cache.size());
+        assertNull(cache.get("10.0.0.1_1"));
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void countsRecordsOlderThanFullLane() {
+        VehicleDataCache cache = new VehicleDataCache(2, 100);
+        cache.add(vehicle(1, 20));
+        cache.add(vehicle(1, 30));
+        cache.add(vehicle(1, 10));
+        assertEquals(2, cache.size());
+        assertEquals(1L, cache.snapshot().get("staleDropped"));
+    }
+
+    @Test
+    void evictsOldestLaneNotWrittenSinceLastCheck() {
+        // 每车道2条、总共6条：最多3个车道
+        VehicleDataCache cache = new VehicleDataCache(2, 6);
+        cache.add(vehicle(1, 10));
+        cache.add(vehicle(2, 10));
+        cache.add(vehicle(3, 10));
+
+        // 第4个车道：三个车道都写入过，各获得一次二次机会后淘汰最早创建的车道1
+        cache.add(vehicle(4, 10));
+        assertNull(cache.get("10.0.0.1_1"));
+        assertEquals(3, cache.size());
+
+        // 车道2再次写入，第5个车道淘汰未写入的车道3
+        cache.add(vehicle(2, 20));
+        cache.add(vehicle(5, 10));
+        assertNotNull(cache.get("10.0.0.1_2"));
+        assertNull(cache.get("10.0.0.1_3"));
+        assertEquals(4, cache.size());
+        assertEquals(2L, cache.snapshot().get("evictedLanes"));
+        assertEquals(3, cache.snapshot().get("lanes"));
+    }
+
+    @Test
+    void writesAfterEvictionRecreateTheLane() {
+        VehicleDataCache cache = new VehicleDataCache(1, 1);
+        cache.add(vehicle(1, 10));
+        cache.add(vehicle(2, 10));
+        cache.add(vehicle(1, 20));
+        assertEquals(1, cache.size());
+        assertEquals(20, cache.get("10.0.0.1_1").getTimestampNanos());
+    }
+}
@@ -0,0 +1,145 @@
+package com.traffic.config.cardetector.capture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameCaptureLogTest {
+
+    private static final int SOURCE_IP = 0x0A000001;
+    private static final int PAYLOAD_BYTES = 16;
+    private static final int RECORD_BYTES = FrameCaptureLog.RECORD_HEADER_BYTES + PAYLOAD_BYTES;
+
+    @TempDir
+    File dir;
+
+    /**
+     * 载荷为 线程号(4) 序号(4) 填充(8)
+     */
+    private static byte[] payload(int thread, int seq) {
+        return ByteBuffer.allocate(PAYLOAD_BYTES).putInt(thread).putInt(seq).array();
+    }
+
+    private static int readAll(File[] files, boolean[][] seen) throws Exception {
+        int count = 0;
+        FrameCaptureReader reader = new FrameCaptureReader(files);
+        while (reader.next()) {
+            assertEquals(PAYLOAD_BYTES, reader.getPayloadLength());
+            assertEquals(SOURCE_IP, reader.getSourceIp());
+            ByteBuffer buffer = ByteBuffer.wrap(reader.getPayload(), 0, PAYLOAD_BYTES);
+            int thread = buffer.getInt();
+            int seq = buffer.getInt();
+            assertFalse(seen[thread][seq], "记录重复: " + thread + "/" + seq);
+            seen[thread][seq] = true;
+            count++;
+        }
+        reader.close();
+        return count;
+    }
+
+    @Test
+    void disabledByDefault() {
+        FrameCaptureLog captureLog = new FrameCaptureLog();
+        captureLog.init();
+        assertFalse(captureLog.isEnabled());
+        assertNull(captureLog.getCaptureDir());
+        captureLog.append(payload(0, 0), 0, PAYLOAD_BYTES, SOURCE_IP, 1L);
+        assertEquals(0L, captureLog.snapshot().get("records"));
+        captureLog.close();
+    }
+
+    @Test
+    void rotatesAtSegmentBoundaryWithoutSplittingRecords() throws Exception {
+        // 每个分段恰好容纳3条记录，第4条须写入下一分段
+        int segmentBytes = FrameCaptureLog.FILE_HEADER_BYTES + 3 * RECORD_BYTES + 4;
+        FrameCaptureLog captureLog = new FrameCaptureLog(dir.getPath(), segmentBytes, 16);
+        for (int i = 0; i < 4; i++) {
+            captureLog.append(payload(0, i), 0, PAYLOAD_BYTES, SOURCE_IP, i);
+        }
+
+        File[] sealed = captureLog.listSealedSegments();
+        assertEquals(1, sealed.length);
+        boolean[][] seen = new boolean[1][4];
+        assertEquals(3, readAll(sealed, seen));
+        assertFalse(seen[0][3]);
+        assertTrue(captureLog.isLiveSegment(FrameCaptureLog.listSegments(dir)[1]));
+        assertFalse(captureLog.isLiveSegment(sealed[0]));
+
+        Map<String, Object> snapshot = captureLog.snapshot();
+        assertEquals(4L, snapshot.get("records"));
+        assertEquals(1L, snapshot.get("rotations"));
+        assertEquals((long) RECORD_BYTES + FrameCaptureLog.FILE_HEADER_BYTES, ((Integer) snapshot.get("currentSegmentUsed")).longValue());
+
+        captureLog.close();
+        seen = new boolean[1][4];
+        assertEquals(4, readAll(FrameCaptureLog.listSegments(dir), seen));
+    }
+
+    @Test
+    void concurrentAppendsAcrossRotationsAreAllReadable() throws Exception {
+        int threads = 4;
+        int perThread = 2000;
+        FrameCaptureLog captureLog = new FrameCaptureLog(dir.getPath(), 4096, 1000);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    for (int seq = 0; seq < perThread; seq++) {
+                        byte[] data = payload(thread, seq);
+                        captureLog.append(data, 0, data.length, SOURCE_IP, seq);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        }
+        captureLog.close();
+
+        Map<String, Object> snapshot = captureLog.snapshot();
+        assertEquals(0L, snapshot.get("dropped"));
+        assertTrue((Long) snapshot.get("rotations") > 0);
+
+        boolean[][] seen = new boolean[threads][perThread];
+        assertEquals(threads * perThread, readAll(FrameCaptureLog.listSegments(dir), seen));
+    }
+
+    @Test
+    void purgeKeepsNewestSegments() throws Exception {
+        int segmentBytes = FrameCaptureLog.FILE_HEADER_BYTES + RECORD_BYTES + 4;
+        FrameCaptureLog captureLog = new FrameCaptureLog(dir.getPath(), segmentBytes, 3);
+        int frames = 10;
+        for (int i = 0; i < frames; i++) {
+            captureLog.append(payload(0, i), 0, PAYLOAD_BYTES, SOURCE_IP, i);
+        }
+        // 关闭时等待后台清理完成
+        captureLog.close();
+
+        File[] files = FrameCaptureLog.listSegments(dir);
+        assertEquals(3, files.length);
+        boolean[][] seen = new boolean[1][frames];
+        int count = readAll(files, seen);
+        // 保留的分段为最后两条记录所在分段和预建的空分段
+        assertEquals(2, count);
+        assertTrue(seen[0][frames - 2]);
+        assertTrue(seen[0][frames - 1]);
+    }
+}
@@ -0,0 +1,136 @@
+package com.traffic.config.cardetector.capture;
+
+import com.traffic.config.cardetector.codec.FrameDecoder;
+import com.traffic.config.cardetector.codec.FrameDecoderStats;
+import com.traffic.config.cardetector.codec.FrameEncoder;
+import com.traffic.config.cardetector.manager.DataAccessManager;
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FrameReplayerTest {
+
+    private static final int SOURCE_IP = 0x0A000001;
+
+    private static final byte[][] PAYLOADS = payloads();
+
+    @TempDir
+    File dir;
+
+    private FrameCaptureLog captureLog;
+
+    @BeforeEach
+    void capture() {
+        captureLog = new FrameCaptureLog(dir.getPath(), 1 << 16, 4);
+        long now = System.nanoTime();
+        for (byte[] payload : PAYLOADS) {
+            captureLog.append(payload, 0, payload.length, SOURCE_IP, now);
+        }
+    }
+
+    /**
+     * 心跳、含需要转义字节的车辆帧、组帧后长度字段需要转义的帧
+     */
+    private static byte[][] payloads() {
+        byte[] escapedLength = new byte[0x7C];
+        escapedLength[0] = 0x01;
+        escapedLength[1] = 0x7D;
+        return new byte[][]{
+                {0x00, 0x0A, 0x00, 0x00, 0x01},
+                {0x01, 0x7E, 0x7D, 0x5C, 0x10},
+                escapedLength,
+        };
+    }
+
+    @AfterEach
+    void close() {
+        captureLog.close();
+    }
+
+    @Test
+    void tcpReplayRoundTripsThroughFrameDecoder() throws Exception {
+        FrameDecoderStats stats = new FrameDecoderStats();
+        List<byte[]> received = new ArrayList<>();
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+                FrameDecoder decoder = new FrameDecoder(stats);
+                byte[] buffer = new byte[4096];
+                try (Socket socket = server.accept(); InputStream in = socket.getInputStream()) {
+                    int n;
+                    while ((n = in.read(buffer)) != -1) {
+                        decoder.decode(ByteBuffer.wrap(buffer, 0, n),
+                                (data, offset, length) -> received.add(Arrays.copyOfRange(data, offset, offset + length)));
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            FrameReplayer replayer = new FrameReplayer(null, null);
+            Map<String, Object> report = replayer.replay(dir, 0, FrameReplayer.Target.TCP,
+                    "127.0.0.1", server.getLocalPort());
+            reader.get(5, TimeUnit.SECONDS);
+
+            assertEquals((long) PAYLOADS.length, report.get("frames"));
+            assertEquals(0L, report.get("errors"));
+        }
+        assertEquals(PAYLOADS.length, received.size());
+        for (int i = 0; i < PAYLOADS.length; i++) {
+            assertArrayEquals(PAYLOADS[i], received.get(i), "第" + (i + 1) + "帧");
+        }
+        assertEquals(0, stats.getChecksumFailures());
+        assertEquals(0, stats.getLengthMismatches());
+    }
+
+    @Test
+    void dispatchReplayCarriesProtocolChecksum() throws Exception {
+        DataAccessManager dataAccessManager = mock(DataAccessManager.class);
+        List<byte[]> payloads = new ArrayList<>();
+        List<Byte> checksums = new ArrayList<>();
+        doAnswer(invocation -> {
+            ProtocolMessage message = invocation.getArgument(0);
+            payloads.add(Arrays.copyOfRange(message.getBuffer(), message.getOffset(), message.getOffset() + message.getLength()));
+            checksums.add(message.getChecksum());
+            return null;
+        }).when(dataAccessManager).processMessage(any());
+
+        new FrameReplayer(dataAccessManager, null).replay(dir, 0, FrameReplayer.Target.DISPATCH, null, 0);
+
+        assertEquals(PAYLOADS.length, payloads.size());
+        for (int i = 0; i < PAYLOADS.length; i++) {
+            assertArrayEquals(PAYLOADS[i], payloads.get(i));
+            byte[] frame = FrameEncoder.encode(PAYLOADS[i]);
+            // 帧中的校验字节即组帧器计算的值（位于结束字节之前，可能带转义）
+            assertEquals(frame[frame.length - 2], checksums.get(i), "第" + (i + 1) + "帧");
+        }
+    }
+
+    @Test
+    void sealedSegmentsExcludeTheSegmentBeingWritten() throws Exception {
+        File[] all = FrameCaptureLog.listSegments(dir);
+        assertTrue(all.length >= 1);
+        File[] sealed = captureLog.listSealedSegments();
+        assertEquals(0, sealed.length, "唯一的分段正在写入");
+        assertTrue(captureLog.isLiveSegment(all[0]));
+    }
+}
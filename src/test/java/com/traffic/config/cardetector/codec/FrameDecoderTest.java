@@ -0,0 +1,145 @@
+package com.traffic.config.cardetector.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameDecoderTest {
+
+    private final FrameDecoderStats stats = new FrameDecoderStats();
+    private final FrameDecoder decoder = new FrameDecoder(stats);
+    private final List<byte[]> frames = new ArrayList<>();
+
+    private int feed(byte[] bytes) throws Exception {
+        // 解码会原地改写缓冲区，每次传入副本
+        return decoder.decode(ByteBuffer.wrap(bytes.clone()),
+                (buffer, offset, length) -> frames.add(Arrays.copyOfRange(buffer, offset, offset + length)));
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void decodesSingleFrame() throws Exception {
+        byte[] data = {0x01, 0x02, 0x03};
+        assertEquals(1, feed(FrameEncoder.encode(data)));
+        assertArrayEquals(data, frames.get(0));
+        assertEquals(1, stats.getFrames());
+    }
+
+    @Test
+    void decodesEscapedBytesInLengthDataAndChecksum() throws Exception {
+        // 数据含全部三个特殊字节；长度 0x7D 本身也需要转义
+        byte[] data = new byte[0x7C];
+        data[0] = 0x7E;
+        data[1] = 0x7D;
+        data[2] = 0x5C;
+        data[3] = 0x7E ^ 0x7D ^ 0x5C ^ 0x7E;   // 使校验为 0x7E
+        byte[] frame = FrameEncoder.encode(data);
+        assertEquals(FrameDecoder.ESCAPE_BYTE, frame[2] & 0xFF, "长度低字节应被转义");
+        assertEquals(FrameDecoder.ESCAPE_BYTE, frame[frame.length - 3] & 0xFF, "校验字节应被转义");
+
+        assertEquals(1, feed(frame));
+        assertArrayEquals(data, frames.get(0));
+    }
+
+    @Test
+    void reassemblesFrameSplitAtEveryPosition() throws Exception {
+        byte[] data = {0x10, 0x7E, 0x20, 0x5C, 0x30, 0x7D};
+        byte[] frame = FrameEncoder.encode(data);
+        for (int split = 1; split < frame.length; split++) {
+            FrameDecoder decoder = new FrameDecoder(null);
+            List<byte[]> out = new ArrayList<>();
+            FrameDecoder.FrameHandler handler = (buffer, offset, length) -> out.add(Arrays.copyOfRange(buffer, offset, offset + length));
+            decoder.decode(ByteBuffer.wrap(Arrays.copyOfRange(frame, 0, split)), handler);
+            assertTrue(decoder.isInFrame(), "拆分点 " + split);
+            decoder.decode(ByteBuffer.wrap(Arrays.copyOfRange(frame, split, frame.length)), handler);
+            assertEquals(1, out.size(), "拆分点 " + split);
+            assertArrayEquals(data, out.get(0), "拆分点 " + split);
+        }
+    }
+
+    @Test
+    void reassemblesFrameDeliveredByteByByte() throws Exception {
+        byte[] data = new byte[600];   // 超过暂存区初始容量
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        for (byte b : FrameEncoder.encode(data)) {
+            feed(new byte[]{b});
+        }
+        assertEquals(1, frames.size());
+        assertArrayEquals(data, frames.get(0));
+    }
+
+    @Test
+    void decodesSeveralFramesInOneBuffer() throws Exception {
+        byte[] a = {0x01};
+        byte[] b = {0x02, 0x03};
+        assertEquals(2, feed(concat(FrameEncoder.encode(a), FrameEncoder.encode(b))));
+        assertArrayEquals(a, frames.get(0));
+        assertArrayEquals(b, frames.get(1));
+    }
+
+    @Test
+    void rejectsBadChecksumAndContinuesWithNextFrame() throws Exception {
+        byte[] bad = FrameEncoder.encode(new byte[]{0x01, 0x02});
+        bad[bad.length - 2] ^= 0x01;
+        byte[] good = {0x04};
+        assertEquals(1, feed(concat(bad, FrameEncoder.encode(good))));
+        assertArrayEquals(good, frames.get(0));
+        assertEquals(1, stats.getChecksumFailures());
+    }
+
+    @Test
+    void rejectsLengthMismatch() throws Exception {
+        byte[] frame = FrameEncoder.encode(new byte[]{0x01, 0x02});
+        frame[2] = 0x05;   // 长度改为5，实际为3
+        assertEquals(0, feed(frame));
+        assertEquals(1, stats.getLengthMismatches());
+    }
+
+    @Test
+    void resynchronizesOnGarbageAndUnterminatedFrame() throws Exception {
+        byte[] data = {0x09, 0x08};
+        byte[] truncated = Arrays.copyOf(FrameEncoder.encode(new byte[]{0x01, 0x02, 0x03}), 4);
+        assertEquals(1, feed(concat(new byte[]{0x11, 0x22}, truncated, FrameEncoder.encode(data))));
+        assertArrayEquals(data, frames.get(0));
+        assertEquals(2, stats.getInvalidStartBytes());
+        assertEquals(2, stats.getResyncs());
+    }
+
+    @Test
+    void resetDropsPartialFrame() throws Exception {
+        byte[] frame = FrameEncoder.encode(new byte[]{0x01, 0x02});
+        feed(Arrays.copyOf(frame, 3));
+        decoder.reset();
+        assertFalse(decoder.isInFrame());
+        assertEquals(0, feed(Arrays.copyOfRange(frame, 3, frame.length)));
+        assertTrue(frames.isEmpty());
+    }
+
+    @Test
+    void decodesFromBufferWithArrayOffset() throws Exception {
+        byte[] data = {0x05, 0x06};
+        byte[] frame = FrameEncoder.encode(data);
+        byte[] backing = new byte[frame.length + 8];
+        System.arraycopy(frame, 0, backing, 4, frame.length);
+        ByteBuffer slice = ByteBuffer.wrap(backing, 4, frame.length).slice();
+        assertEquals(1, decoder.decode(slice,
+                (buffer, offset, length) -> frames.add(Arrays.copyOfRange(buffer, offset, offset + length))));
+        assertArrayEquals(data, frames.get(0));
+        assertFalse(slice.hasRemaining());
+    }
+}
@@ -0,0 +1,95 @@
+package com.traffic.config.cardetector.codec;
+
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CyclicBarrier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProtocolMessagePoolTest {
+
+    private static final byte[] FRAME = {0x01, 0x0A, 0x00, 0x00, 0x01};
+
+    private static ProtocolMessage acquire(ProtocolMessagePool pool, byte[] data) {
+        return pool.acquire(data, 0, data.length, (byte) 0x5A, 1_000L, 7);
+    }
+
+    @Test
+    void releasedSlotIsReused() {
+        ProtocolMessagePool pool = new ProtocolMessagePool(2, 16);
+        ProtocolMessage first = acquire(pool, FRAME);
+        assertTrue(first.isPooled());
+        assertEquals(1, pool.getAvailable());
+        assertEquals(FRAME.length, first.getLength());
+        assertEquals(0x0A, first.getByte(1));
+        assertEquals((byte) 0x5A, first.getChecksum());
+
+        first.release();
+        assertEquals(2, pool.getAvailable());
+        ProtocolMessage second = acquire(pool, new byte[]{0x00, 0x0B});
+        ProtocolMessage third = acquire(pool, FRAME);
+        assertTrue(second == first || third == first, "归还的槽位应被再次借出");
+        assertEquals(0, pool.getAvailable());
+        assertEquals(0, pool.getOverflow());
+    }
+
+    @Test
+    void exhaustedOrOversizedFallsBackToHeapFrames() {
+        ProtocolMessagePool pool = new ProtocolMessagePool(1, 4);
+        ProtocolMessage oversized = acquire(pool, FRAME);
+        assertFalse(oversized.isPooled());
+        assertEquals(1, pool.getAvailable());
+
+        ProtocolMessage pooled = acquire(pool, new byte[]{0x00});
+        ProtocolMessage overflow = acquire(pool, new byte[]{0x00});
+        assertTrue(pooled.isPooled());
+        assertFalse(overflow.isPooled());
+        assertEquals(0x00, overflow.getByte(0));
+        assertEquals(2, pool.getOverflow());
+        assertEquals(3, pool.getAcquired());
+
+        // 临时分配的帧归还时不进入池
+        overflow.release();
+        oversized.release();
+        assertEquals(0, pool.getAvailable());
+        pooled.release();
+        assertEquals(1, pool.getAvailable());
+    }
+
+    @Test
+    void doubleReleaseReturnsSlotOnce() {
+        ProtocolMessagePool pool = new ProtocolMessagePool(1, 16);
+        ProtocolMessage message = acquire(pool, FRAME);
+        message.release();
+        message.release();
+        assertEquals(1, pool.getAvailable());
+
+        ProtocolMessage again = acquire(pool, FRAME);
+        assertSame(message, again);
+        assertNotSame(again, acquire(pool, FRAME), "同一槽位不能被借出两次");
+    }
+
+    @Test
+    void concurrentDoubleReleaseReturnsSlotOnce() throws Exception {
+        ProtocolMessagePool pool = new ProtocolMessagePool(1, 16);
+        for (int round = 0; round < 2000; round++) {
+            ProtocolMessage message = acquire(pool, FRAME);
+            assertTrue(message.isPooled());
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            Runnable release = () -> {
+                try {
+                    barrier.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                message.release();
+            };
+            Thread other = new Thread(release);
+            other.start();
+            release.run();
+            other.join();
+            assertEquals(1, pool.getAvailable(), "第" + round + "轮");
+        }
+    }
+}
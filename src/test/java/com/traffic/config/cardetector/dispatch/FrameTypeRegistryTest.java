@@ -0,0 +1,103 @@
+package com.traffic.config.cardetector.dispatch;
+
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import com.traffic.config.cardetector.parser.DataParser;
+import com.traffic.config.exception.DataParseException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameTypeRegistryTest {
+
+    private static ProtocolMessage frame(int... bytes) {
+        byte[] data = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            data[i] = (byte) bytes[i];
+        }
+        ProtocolMessage message = new ProtocolMessage();
+        message.setData(data);
+        return message;
+    }
+
+    @Test
+    void dispatchesByTypeCode() throws Exception {
+        FrameTypeRegistry registry = new FrameTypeRegistry();
+        List<ProtocolMessage> handled = new ArrayList<>();
+        registry.register(0x10, handled::add);
+
+        ProtocolMessage message = frame(0x10, 0x01);
+        assertTrue(registry.dispatch(message));
+        assertEquals(List.of(message), handled);
+        assertEquals(0L, registry.getUnknownFrames());
+        assertEquals("0x10", registry.snapshot().get("registeredTypes"));
+    }
+
+    @Test
+    void unknownTypeIsCountedNotHandled() throws Exception {
+        FrameTypeRegistry registry = new FrameTypeRegistry();
+        List<ProtocolMessage> handled = new ArrayList<>();
+        registry.register(0x10, handled::add);
+
+        assertFalse(registry.dispatch(frame(0x11)));
+        assertFalse(registry.dispatch(frame()), "空帧类型码为-1");
+        assertFalse(registry.dispatchBatch(0x12, new ProtocolMessage[]{frame(0x12), frame(0x12)}, 0, 2));
+        assertTrue(handled.isEmpty());
+        assertEquals(4L, registry.getUnknownFrames());
+
+        registry.unregister(0x10);
+        assertFalse(registry.dispatch(frame(0x10)));
+        assertNull(registry.getHandler(0x10));
+        assertNull(registry.getHandler(256));
+        assertThrows(IllegalArgumentException.class, () -> registry.register(256, handled::add));
+        assertThrows(IllegalArgumentException.class, () -> registry.register(-1, handled::add));
+    }
+
+    @Test
+    void registerReplacesExistingHandler() throws Exception {
+        FrameTypeRegistry registry = new FrameTypeRegistry();
+        List<String> calls = new ArrayList<>();
+        registry.register(0x10, message -> calls.add("old"));
+        registry.register(0x10, message -> calls.add("new"));
+
+        registry.dispatch(frame(0x10));
+        assertEquals(List.of("new"), calls);
+    }
+
+    @Test
+    void parserAndProcessorAreChained() throws Exception {
+        FrameTypeRegistry registry = new FrameTypeRegistry();
+        List<Integer> processed = new ArrayList<>();
+        registry.register(0x20, new DataParser<Integer>() {
+            @Override
+            public Integer parse(ProtocolMessage message) throws DataParseException {
+                if (message.getLength() < 2) {
+                    throw new DataParseException("数据长度不足");
+                }
+                return message.getByte(1) & 0xFF;
+            }
+
+            @Override
+            public boolean canParse(ProtocolMessage message) {
+                return message.getDataType() == 0x20;
+            }
+        }, processed::add);
+
+        assertTrue(registry.dispatch(frame(0x20, 0x7F)));
+        assertEquals(List.of(0x7F), processed);
+        assertThrows(DataParseException.class, () -> registry.dispatch(frame(0x20)));
+    }
+
+    @Test
+    void defaultBatchHandlesEachFrameInRange() throws Exception {
+        FrameTypeRegistry registry = new FrameTypeRegistry();
+        List<ProtocolMessage> handled = new ArrayList<>();
+        registry.register(0x10, handled::add);
+        ProtocolMessage[] messages = {frame(0x10), frame(0x10), frame(0x10), frame(0x10)};
+
+        assertTrue(registry.dispatchBatch(0x10, messages, 1, 3));
+        assertEquals(List.of(messages[1], messages[2]), handled);
+    }
+}
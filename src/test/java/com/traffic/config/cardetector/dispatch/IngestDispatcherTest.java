@@ -0,0 +1,30 @@
+package com.traffic.config.cardetector.dispatch;
+
+import com.traffic.config.cardetector.manager.DataAccessManager;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class IngestDispatcherTest {
+
+    @Test
+    void heartbeatDropPolicyFallsBackToBlockUnderFastPath() {
+        assertEquals(OverflowPolicy.BLOCK, IngestDispatcher.effectivePolicy(OverflowPolicy.DROP_OLDEST_HEARTBEAT, true));
+        assertEquals(OverflowPolicy.DROP_OLDEST_HEARTBEAT, IngestDispatcher.effectivePolicy(OverflowPolicy.DROP_OLDEST_HEARTBEAT, false));
+        assertEquals(OverflowPolicy.DROP_NEWEST, IngestDispatcher.effectivePolicy(OverflowPolicy.DROP_NEWEST, true));
+        assertEquals(OverflowPolicy.BLOCK, IngestDispatcher.effectivePolicy(OverflowPolicy.BLOCK, true));
+    }
+
+    @Test
+    void startAppliesEffectivePolicy() {
+        IngestDispatcher dispatcher = new IngestDispatcher(mock(DataAccessManager.class), 4, OverflowPolicy.DROP_OLDEST_HEARTBEAT);
+        dispatcher.start();
+        try {
+            assertEquals(OverflowPolicy.BLOCK, dispatcher.getRingBuffer().getPolicy());
+            assertEquals("BLOCK", dispatcher.snapshot().get("policy"));
+        } finally {
+            dispatcher.stop();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.traffic.config.cardetector.dispatch;
+
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestRingBufferTest {
+
+    private static final int HEARTBEAT = 0;
+    private static final int VEHICLE = 1;
+
+    private final List<ProtocolMessage> released = new ArrayList<>();
+
+    private ProtocolMessage message(int type, int seq) {
+        ProtocolMessage message = new ProtocolMessage(released::add);
+        message.wrap(new byte[]{(byte) type, (byte) seq}, 0, 2, (byte) 0, 0L, 0);
+        return message;
+    }
+
+    private static int seq(ProtocolMessage message) {
+        return message.getByte(1);
+    }
+
+    private static int[] drainSeqs(IngestRingBuffer ring) throws InterruptedException {
+        ProtocolMessage[] batch = new ProtocolMessage[ring.getCapacity()];
+        int n = ring.drainTo(batch, 0, TimeUnit.MILLISECONDS);
+        int[] seqs = new int[n];
+        for (int i = 0; i < n; i++) {
+            seqs[i] = seq(batch[i]);
+        }
+        return seqs;
+    }
+
+    @Test
+    void drainsInFifoOrderAcrossWrap() throws Exception {
+        IngestRingBuffer ring = new IngestRingBuffer(3, OverflowPolicy.DROP_NEWEST);
+        ring.offer(message(VEHICLE, 1));
+        ring.offer(message(VEHICLE, 2));
+        assertArrayEquals(new int[]{1, 2}, drainSeqs(ring));
+        for (int i = 3; i <= 5; i++) {
+            assertTrue(ring.offer(message(VEHICLE, i)));
+        }
+        assertArrayEquals(new int[]{3, 4, 5}, drainSeqs(ring));
+        assertEquals(0, ring.size());
+        assertEquals(3, ring.getHighWaterMark());
+        assertEquals(5, ring.getPublished());
+    }
+
+    @Test
+    void drainRespectsBatchSizeAndTimesOutWhenEmpty() throws Exception {
+        IngestRingBuffer ring = new IngestRingBuffer(4, OverflowPolicy.DROP_NEWEST);
+        for (int i = 1; i <= 3; i++) {
+            ring.offer(message(VEHICLE, i));
+        }
+        ProtocolMessage[] batch = new ProtocolMessage[2];
+        assertEquals(2, ring.drainTo(batch, 0, TimeUnit.MILLISECONDS));
+        assertEquals(1, seq(batch[0]));
+        assertEquals(1, ring.drainTo(batch, 0, TimeUnit.MILLISECONDS));
+        assertEquals(3, seq(batch[0]));
+        assertEquals(0, ring.drainTo(batch, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void dropNewestReleasesRejectedFrame() throws Exception {
+        IngestRingBuffer ring = new IngestRingBuffer(2, OverflowPolicy.DROP_NEWEST);
+        ring.offer(message(VEHICLE, 1));
+        ring.offer(message(VEHICLE, 2));
+        ProtocolMessage rejected = message(VEHICLE, 3);
+        assertFalse(ring.offer(rejected));
+        assertEquals(List.of(rejected), released);
+        assertEquals(1, ring.getDroppedNewest());
+        assertArrayEquals(new int[]{1, 2}, drainSeqs(ring));
+    }
+
+    @Test
+    void dropOldestHeartbeatEvictsHeartbeatAndKeepsOrder() throws Exception {
+        IngestRingBuffer ring = new IngestRingBuffer(3, OverflowPolicy.DROP_OLDEST_HEARTBEAT);
+        ring.offer(message(VEHICLE, 1));
+        ProtocolMessage heartbeat = message(HEARTBEAT, 2);
+        ring.offer(heartbeat);
+        ring.offer(message(VEHICLE, 3));
+        assertTrue(ring.offer(message(VEHICLE, 4)));
+        assertEquals(List.of(heartbeat), released);
+        assertEquals(1, ring.getDroppedHeartbeats());
+        assertArrayEquals(new int[]{1, 3, 4}, drainSeqs(ring));
+    }
+
+    @Test
+    void dropOldestHeartbeatEvictsAcrossWrap() throws Exception {
+        IngestRingBuffer ring = new IngestRingBuffer(3, OverflowPolicy.DROP_OLDEST_HEARTBEAT);
+        ring.offer(message(VEHICLE, 0));
+        ring.offer(message(VEHICLE, 0));
+        drainSeqs(ring);
+        // head=2：槽位依次为 [2]=1, [0]=心跳2, [1]=3
+        ring.offer(message(VEHICLE, 1));
+        ring.offer(message(HEARTBEAT, 2));
+        ring.offer(message(VEHICLE, 3));
+        assertTrue(ring.offer(message(VEHICLE, 4)));
+        assertArrayEquals(new int[]{1, 3, 4}, drainSeqs(ring));
+    }
+
+    @Test
+    void dropOldestHeartbeatDropsNewestWhenNoHeartbeatQueued() throws Exception {
+        IngestRingBuffer ring = new IngestRingBuffer(1, OverflowPolicy.DROP_OLDEST_HEARTBEAT);
+        ring.offer(message(VEHICLE, 1));
+        ProtocolMessage rejected = message(VEHICLE, 2);
+        assertFalse(ring.offer(rejected));
+        assertEquals(List.of(rejected), released);
+        assertEquals(1, ring.getDroppedNewest());
+        assertEquals(0, ring.getDroppedHeartbeats());
+    }
+
+    @Test
+    void dropOldestHeartbeatDropsNewVehicleFramesWhenQueueHoldsOnlyVehicles() throws Exception {
+        // 心跳快速路径开启时队列中只有车辆帧：该策略无心跳可丢，新到的车辆帧被丢弃
+        IngestRingBuffer ring = new IngestRingBuffer(3, OverflowPolicy.DROP_OLDEST_HEARTBEAT);
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(ring.offer(message(VEHICLE, i)));
+        }
+        for (int i = 4; i <= 5; i++) {
+            assertFalse(ring.offer(message(VEHICLE, i)));
+        }
+        assertEquals(2, ring.getDroppedNewest());
+        assertEquals(0, ring.getDroppedHeartbeats());
+        assertEquals(2, released.size());
+        assertArrayEquals(new int[]{1, 2, 3}, drainSeqs(ring));
+    }
+
+    @Test
+    void blockWaitsForSpace() throws Exception {
+        IngestRingBuffer ring = new IngestRingBuffer(1, OverflowPolicy.BLOCK);
+        ring.offer(message(VEHICLE, 1));
+
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean accepted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            started.countDown();
+            try {
+                accepted.set(ring.offer(message(VEHICLE, 2)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+        started.await();
+        producer.join(100);
+        assertTrue(producer.isAlive(), "队列满时应阻塞");
+
+        assertArrayEquals(new int[]{1}, drainSeqs(ring));
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        assertTrue(accepted.get());
+        assertEquals(1, ring.getBlockedOffers());
+        assertArrayEquals(new int[]{2}, drainSeqs(ring));
+    }
+
+    @Test
+    void blockNeverParksNonBlockingProducer() throws Exception {
+        IngestRingBuffer ring = new IngestRingBuffer(1, OverflowPolicy.BLOCK);
+        ring.offer(message(VEHICLE, 1));
+        ProtocolMessage rejected = message(VEHICLE, 2);
+        assertFalse(ring.offer(rejected, false));
+        assertEquals(List.of(rejected), released);
+        assertEquals(1, ring.getDroppedNewest());
+        assertEquals(0, ring.getBlockedOffers());
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new IngestRingBuffer(0, OverflowPolicy.BLOCK));
+    }
+}
@@ -0,0 +1,129 @@
+package com.traffic.config.cardetector.heartbeat;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetectorLivenessTableTest {
+
+    private static final int BASE_IP = 0xC0A80100;     // 192.168.1.0
+
+    @Test
+    void concurrentInsertsClaimOneSlotPerDetector() throws Exception {
+        DetectorLivenessTable table = new DetectorLivenessTable(64);
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            for (int t = 0; t < threads; t++) {
+                pool.execute(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    // 各线程以相同顺序争抢插入同一批检测器
+                    for (int i = 1; i <= 64; i++) {
+                        table.recordHeartbeat(BASE_IP + i, 1L);
+                    }
+                });
+            }
+            start.countDown();
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(64, table.size());
+        for (int i = 1; i <= 64; i++) {
+            int index = table.find(BASE_IP + i);
+            assertTrue(index >= 0, "检测器应可查到: " + i);
+            assertEquals(BASE_IP + i, table.keyAt(index));
+            assertEquals(1L, table.lastHeartbeatAt(index));
+        }
+        assertEquals(-1, table.find(BASE_IP + 65));
+        assertEquals(-1, table.find(DetectorLivenessTable.EMPTY));
+    }
+
+    @Test
+    void fullTableRejectsNewDetectors() {
+        DetectorLivenessTable table = new DetectorLivenessTable(2);
+        for (int i = 1; i <= table.capacity(); i++) {
+            table.recordHeartbeat(BASE_IP + i, 1L);
+        }
+        assertEquals(table.capacity(), table.size());
+
+        assertFalse(table.recordHeartbeat(BASE_IP + 100, 2L));
+        table.associateSegment(BASE_IP + 100, 1, 2L);
+        assertEquals(-1, table.find(BASE_IP + 100));
+
+        // 已有检测器仍可更新
+        table.recordHeartbeat(BASE_IP + 1, 3L);
+        assertEquals(3L, table.lastHeartbeatAt(table.find(BASE_IP + 1)));
+    }
+
+    @Test
+    void segmentBitmapIsCopiedOnWrite() {
+        DetectorLivenessTable table = new DetectorLivenessTable(4);
+        int ip = BASE_IP + 1;
+        table.associateSegment(ip, 2, 1L);
+        int index = table.find(ip);
+        BitSet before = table.segmentsAt(index);
+
+        table.associateSegment(ip, 1000, 2L);
+        table.associateSegment(ip, 2, 3L);
+        table.associateSegment(ip, 0, 4L);
+
+        assertEquals(BitSet.valueOf(new long[] {1L << 2}), before, "已取得的快照不受后续关联影响");
+        BitSet after = table.segmentsAt(index);
+        assertEquals(2, after.cardinality());
+        assertTrue(after.get(2));
+        assertTrue(after.get(1000));
+        assertEquals(1L, table.lastHeartbeatAt(index), "关联路段不刷新心跳时间");
+    }
+
+    @Test
+    void concurrentAssociationsAreAllRetained() throws Exception {
+        DetectorLivenessTable table = new DetectorLivenessTable(4);
+        int ip = BASE_IP + 1;
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                pool.execute(() -> {
+                    for (int segmentId = 1 + offset; segmentId <= 256; segmentId += threads) {
+                        table.associateSegment(ip, segmentId, 1L);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        assertEquals(256, table.segmentsAt(table.find(ip)).cardinality());
+    }
+
+    @Test
+    void faultIsMarkedOnceAndClearedByHeartbeat() {
+        DetectorLivenessTable table = new DetectorLivenessTable(4);
+        int ip = BASE_IP + 1;
+        table.recordHeartbeat(ip, 1L);
+        int index = table.find(ip);
+
+        assertTrue(table.markFaulted(index));
+        assertFalse(table.markFaulted(index));
+        assertTrue(table.isFaulted(index));
+
+        assertTrue(table.recordHeartbeat(ip, 2L), "故障后的首次心跳报告恢复");
+        assertFalse(table.recordHeartbeat(ip, 3L));
+        assertFalse(table.isFaulted(index));
+    }
+}
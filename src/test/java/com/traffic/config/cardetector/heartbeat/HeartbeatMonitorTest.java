@@ -0,0 +1,96 @@
+package com.traffic.config.cardetector.heartbeat;
+
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.core.TopLevelStateMachine;
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.threading.SegmentStateMachineV3Service;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import com.traffic.config.util.DataUtil;
+import com.traffic.config.util.NanoClock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HeartbeatMonitorTest {
+
+    private static final int SEGMENT_ID = 1;
+
+    private final int ip = DataUtil.parseIpv4("192.168.1.101");
+    private final String sensorId = HeartbeatMonitor.sensorId(ip);
+    private final SegmentVariables variables = new SegmentVariables(SEGMENT_ID);
+
+    private SegmentStateMachine segment;
+    private SegmentStateMachineV3Service service;
+    private HeartbeatMonitor monitor;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        segment = mock(SegmentStateMachine.class);
+        doAnswer(invocation -> {
+            ((Consumer<SegmentVariables>) invocation.getArgument(0)).accept(variables);
+            return null;
+        }).when(segment).updateVariables(any());
+
+        TopLevelStateMachine topLevel = mock(TopLevelStateMachine.class);
+        when(topLevel.getSegmentStateMachine(SEGMENT_ID)).thenReturn(segment);
+
+        service = mock(SegmentStateMachineV3Service.class);
+        when(service.dispatchSegmentEvent(anyInt(), any(), anyMap())).thenReturn(true);
+
+        monitor = new HeartbeatMonitor(16, 1, true, topLevel, service);
+    }
+
+    @Test
+    void missedDeadlineRaisesFaultOnce() {
+        long stale = NanoClock.epochNanos() - TimeUnit.SECONDS.toNanos(5);
+        monitor.getTable().associateSegment(ip, SEGMENT_ID, stale);
+
+        monitor.checkDeadlines();
+        monitor.checkDeadlines();
+
+        verify(service, times(1)).dispatchSegmentEvent(eq(SEGMENT_ID), eq(SegmentEvent.SENSOR_FAULT), anyMap());
+        verify(service, never()).processSegmentEventAsync(anyInt(), any(), anyMap());
+        verify(segment, never()).getVariables();
+        assertEquals(SegmentVariables.SensorState.FAILED, variables.getSensorStatus().get(sensorId));
+        assertTrue(monitor.getTable().isFaulted(monitor.getTable().find(ip)));
+    }
+
+    @Test
+    void heartbeatAfterFaultRestoresNormal() {
+        long stale = NanoClock.epochNanos() - TimeUnit.SECONDS.toNanos(5);
+        monitor.getTable().associateSegment(ip, SEGMENT_ID, stale);
+        monitor.checkDeadlines();
+
+        monitor.onHeartbeat(ip, NanoClock.epochNanos());
+        monitor.checkDeadlines();
+
+        assertEquals(SegmentVariables.SensorState.NORMAL, variables.getSensorStatus().get(sensorId));
+        assertFalse(monitor.getTable().isFaulted(monitor.getTable().find(ip)));
+        verify(service, times(1)).dispatchSegmentEvent(eq(SEGMENT_ID), eq(SegmentEvent.SENSOR_FAULT), anyMap());
+    }
+
+    @Test
+    void detectorWithinDeadlineIsNotFaulted() {
+        monitor.getTable().associateSegment(ip, SEGMENT_ID, NanoClock.epochNanos());
+
+        monitor.checkDeadlines();
+
+        verify(service, never()).dispatchSegmentEvent(anyInt(), any(), anyMap());
+        assertNull(variables.getSensorStatus().get(sensorId));
+    }
+}
@@ -0,0 +1,123 @@
+package com.traffic.config.cardetector.manager;
+
+import com.traffic.config.util.NanoClock;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConnectionManagerTest {
+
+    private static Socket socket(SocketAddress remote) {
+        Socket socket = mock(Socket.class);
+        when(socket.getRemoteSocketAddress()).thenReturn(remote);
+        return socket;
+    }
+
+    private static Socket socket(String ip, int port) throws Exception {
+        return socket(new InetSocketAddress(InetAddress.getByName(ip), port));
+    }
+
+    @Test
+    void addAndRemoveByEndpointId() throws Exception {
+        ConnectionManager manager = new ConnectionManager();
+        ConnectionManager.ClientConnection connection = manager.addConnection(socket("10.0.0.1", 5000));
+        long id = ConnectionManager.endpointId(0x0A000001, 5000);
+        assertEquals(id, connection.getEndpointId());
+        assertSame(connection, manager.getConnection(id));
+        assertEquals(1, manager.getConnectionCount());
+
+        manager.removeConnection(connection);
+        assertFalse(manager.hasConnection(id));
+        assertEquals(0, manager.getConnectionCount());
+    }
+
+    @Test
+    void reconnectFromSameEndpointReplacesAndStaleRemoveKeepsNewer() throws Exception {
+        ConnectionManager manager = new ConnectionManager();
+        Socket first = socket("10.0.0.1", 5000);
+        Socket second = socket("10.0.0.1", 5000);
+        ConnectionManager.ClientConnection stale = manager.addConnection(first);
+        ConnectionManager.ClientConnection current = manager.addConnection(second);
+
+        verify(first).close();
+        assertSame(current, manager.getConnection(current.getEndpointId()));
+
+        // 旧连接的读线程随后退出，不能移除新连接
+        manager.removeConnection(stale);
+        assertSame(current, manager.getConnection(current.getEndpointId()));
+        verify(second, never()).close();
+    }
+
+    @Test
+    void ipv6PeersGetDistinctIdsAndAreNotEvicted() throws Exception {
+        ConnectionManager manager = new ConnectionManager();
+        Socket a = socket("2001:db8::1", 5000);
+        Socket b = socket("2001:db8::2", 5000);
+        ConnectionManager.ClientConnection ca = manager.addConnection(a);
+        ConnectionManager.ClientConnection cb = manager.addConnection(b);
+
+        assertNotEquals(ca.getEndpointId(), cb.getEndpointId());
+        assertTrue(ca.getEndpointId() < 0, "IPv6 端点ID最高位为1，与IPv4不重叠");
+        assertEquals(2, manager.getConnectionCount());
+        verify(a, never()).close();
+        verify(b, never()).close();
+    }
+
+    @Test
+    void collidingEndpointIdsNeverEvictEachOther() throws Exception {
+        ConnectionManager manager = new ConnectionManager();
+        Socket a = socket("2001:db8::1", 5000);
+        Socket b = socket("2001:db8::2", 6000);
+        ConnectionManager.ClientConnection ca = manager.addConnection(a, 42L);
+        ConnectionManager.ClientConnection cb = manager.addConnection(b, 42L);
+
+        assertEquals(42L, ca.getEndpointId());
+        assertNotEquals(42L, cb.getEndpointId());
+        assertEquals(2, manager.getConnectionCount());
+        assertEquals(1, manager.getRelocatedConnections());
+        verify(a, never()).close();
+
+        manager.removeConnection(cb);
+        assertSame(ca, manager.getConnection(42L));
+        assertEquals(1, manager.getConnectionCount());
+    }
+
+    @Test
+    void peersWithoutInetAddressAreRegisteredSeparately() throws Exception {
+        ConnectionManager manager = new ConnectionManager();
+        Socket a = socket(mock(SocketAddress.class));
+        Socket b = socket(mock(SocketAddress.class));
+        ConnectionManager.ClientConnection ca = manager.addConnection(a);
+        ConnectionManager.ClientConnection cb = manager.addConnection(b);
+        assertNotEquals(ca.getEndpointId(), cb.getEndpointId());
+        assertEquals(2, manager.getConnectionCount());
+        verify(a, never()).close();
+    }
+
+    @Test
+    void reaperClosesOnlyIdleConnections() throws Exception {
+        ConnectionManager manager = new ConnectionManager(30);
+        Socket idleSocket = socket("10.0.0.1", 5000);
+        Socket activeSocket = socket("10.0.0.2", 5000);
+        ConnectionManager.ClientConnection idle = manager.addConnection(idleSocket);
+        ConnectionManager.ClientConnection active = manager.addConnection(activeSocket);
+        idle.updateLastActivity(NanoClock.epochNanos() - TimeUnit.SECONDS.toNanos(31));
+
+        manager.reapIdleConnections();
+
+        verify(idleSocket).close();
+        verify(activeSocket, never()).close();
+        assertFalse(manager.hasConnection(idle.getEndpointId()));
+        assertTrue(manager.hasConnection(active.getEndpointId()));
+    }
+}
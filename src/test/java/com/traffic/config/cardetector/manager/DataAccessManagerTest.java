@@ -0,0 +1,76 @@
+package com.traffic.config.cardetector.manager;
+
+import com.traffic.config.cardetector.dispatch.FrameTypeRegistry;
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import com.traffic.config.exception.DataParseException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataAccessManagerTest {
+
+    private static ProtocolMessage frame(int type, int seq) {
+        ProtocolMessage message = new ProtocolMessage();
+        message.setData(new byte[]{(byte) type, (byte) seq});
+        return message;
+    }
+
+    /**
+     * 记录每次批量调用的类型和帧序号
+     */
+    private static FrameTypeRegistry.Handler recorder(int type, List<String> calls) {
+        return new FrameTypeRegistry.Handler() {
+            @Override
+            public void handle(ProtocolMessage message) {
+                calls.add(type + ":" + message.getByte(1));
+            }
+
+            @Override
+            public void handleBatch(ProtocolMessage[] messages, int from, int to) {
+                StringBuilder batch = new StringBuilder().append(type).append(':');
+                for (int i = from; i < to; i++) {
+                    if (i > from) batch.append(',');
+                    batch.append(messages[i].getByte(1));
+                }
+                calls.add(batch.toString());
+            }
+        };
+    }
+
+    @Test
+    void processBatchGroupsConsecutiveFramesOfSameType() {
+        DataAccessManager manager = new DataAccessManager();
+        List<String> calls = new ArrayList<>();
+        manager.registerFrameType(0x10, recorder(0x10, calls));
+        manager.registerFrameType(0x11, recorder(0x11, calls));
+
+        ProtocolMessage[] messages = {
+                frame(0x10, 1), frame(0x10, 2), frame(0x11, 3), frame(0x10, 4),
+                frame(0x20, 5), frame(0x20, 6), frame(0x11, 7), frame(0x10, 8),
+        };
+        manager.processBatch(messages, 7);
+
+        // 帧间顺序保持不变，未知类型整组计数后跳过，count之后的帧不处理
+        assertEquals(List.of("16:1,2", "17:3", "16:4", "17:7"), calls);
+        assertEquals(2L, manager.getFrameTypes().getUnknownFrames());
+    }
+
+    @Test
+    void processBatchContinuesAfterHandlerFailure() {
+        DataAccessManager manager = new DataAccessManager();
+        List<String> calls = new ArrayList<>();
+        manager.registerFrameType(0x10, message -> {
+            throw new DataParseException("解析失败");
+        });
+        manager.registerFrameType(0x11, recorder(0x11, calls));
+
+        manager.processBatch(new ProtocolMessage[]{frame(0x10, 1), frame(0x11, 2)}, 2);
+        manager.processMessage(frame(0x10, 3));
+        manager.processMessage(frame(0x11, 4));
+
+        assertEquals(List.of("17:2", "17:4"), calls);
+    }
+}
@@ -0,0 +1,122 @@
+package com.traffic.config.cardetector.metrics;
+
+import com.traffic.config.cardetector.codec.FrameDecoder;
+import com.traffic.config.cardetector.codec.FrameDecoderStats;
+import com.traffic.config.cardetector.codec.FrameEncoder;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestMetricsTest {
+
+    private static final int DETECTOR_1 = 0x0A000001;   // 10.0.0.1
+    private static final int DETECTOR_2 = 0x0A000002;
+    private static final int DETECTOR_3 = 0x0A000003;
+    private static final int DETECTOR_4 = 0x0A000004;
+
+    private final FrameDecoderStats total = new FrameDecoderStats();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final IngestMetrics metrics = new IngestMetrics(total, registry, 2);
+
+    private static byte[] heartbeat() {
+        return FrameEncoder.encode(new byte[]{0x00, 0x0A, 0x00, 0x00, 0x01});
+    }
+
+    private double functionCount(String name, String detector) {
+        return registry.get(name).tag("detector", detector).functionCounter().count();
+    }
+
+    private Set<String> detectorTags(String name) {
+        return registry.find(name).meters().stream()
+                .map(meter -> meter.getId().getTag("detector"))
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    void detectorMetersAreTaggedAndCounted() throws Exception {
+        IngestMetrics.DetectorMetrics detector = metrics.forDetector(DETECTOR_1);
+        assertSame(detector, metrics.forDetector(DETECTOR_1), "同一IP复用同一组指标");
+
+        byte[] frame = heartbeat();
+        byte[] corrupted = heartbeat();
+        corrupted[corrupted.length - 2] ^= 0x01;    // 校验字节
+        ByteBuffer in = ByteBuffer.allocate(4 * frame.length);
+        in.put(frame).put(frame).put(corrupted).put(frame).flip();
+        FrameDecoder decoder = new FrameDecoder(detector.getDecoderStats());
+        assertEquals(3, decoder.decode(in, (buffer, offset, length) -> { }));
+        detector.recordDecode(1_000);
+        detector.recordDecode(3_000);
+        detector.recordHeartbeatReply(2_000);
+
+        assertEquals(3.0, functionCount("traffic.ingest.frames", "10.0.0.1"));
+        assertEquals(1.0, functionCount("traffic.ingest.checksum.failures", "10.0.0.1"));
+        assertEquals(4.0 * frame.length, functionCount("traffic.ingest.bytes", "10.0.0.1"));
+        assertEquals(0.0, functionCount("traffic.ingest.oversized", "10.0.0.1"));
+        assertEquals(3L, total.getFrames(), "检测器计数同时累加到全局统计");
+
+        assertEquals(2L, registry.get("traffic.ingest.decode.latency").tag("detector", "10.0.0.1").timer().count());
+        assertEquals(1L, registry.get("traffic.ingest.heartbeat.reply.latency").tag("detector", "10.0.0.1").timer().count());
+
+        for (Meter meter : registry.getMeters()) {
+            Set<String> keys = meter.getId().getTags().stream().map(tag -> tag.getKey()).collect(Collectors.toSet());
+            assertEquals(Set.of("detector"), keys, meter.getId().getName());
+        }
+    }
+
+    @Test
+    void vehicleCountersAreTaggedByDetectorLaneAndSource() {
+        metrics.recordVehicle(DETECTOR_1, 3, true);
+        metrics.recordVehicle(DETECTOR_1, 3, true);
+        metrics.recordVehicle(DETECTOR_1, 3, false);
+        metrics.recordVehicle(DETECTOR_1, 4, true);
+
+        assertEquals(2.0, registry.get("traffic.detector.vehicles")
+                .tags("detector", "10.0.0.1", "lane", "3", "source", "video").counter().count());
+        assertEquals(1.0, registry.get("traffic.detector.vehicles")
+                .tags("detector", "10.0.0.1", "lane", "3", "source", "radar").counter().count());
+        assertEquals(1.0, registry.get("traffic.detector.vehicles")
+                .tags("detector", "10.0.0.1", "lane", "4", "source", "video").counter().count());
+        assertEquals(3, registry.find("traffic.detector.vehicles").counters().size());
+        assertEquals(3L, metrics.getVideoVehicles());
+        assertEquals(1L, metrics.getRadarVehicles());
+    }
+
+    @Test
+    void detectorsBeyondLimitShareOtherTag() {
+        IngestMetrics.DetectorMetrics first = metrics.forDetector(DETECTOR_1);
+        metrics.forDetector(DETECTOR_2);
+        IngestMetrics.DetectorMetrics third = metrics.forDetector(DETECTOR_3);
+        IngestMetrics.DetectorMetrics fourth = metrics.forDetector(DETECTOR_4);
+
+        assertSame(third, fourth, "超出上限的检测器共用一组指标");
+        assertNotSame(first, third);
+        assertEquals(Set.of("10.0.0.1", "10.0.0.2", IngestMetrics.OTHER_DETECTORS), detectorTags("traffic.ingest.frames"));
+        assertEquals(3, registry.find("traffic.ingest.decode.latency").timers().size());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> perDetector = (Map<String, Object>) metrics.snapshot().get("detectors");
+        assertEquals(Set.of("10.0.0.1", "10.0.0.2", IngestMetrics.OTHER_DETECTORS), perDetector.keySet());
+    }
+
+    @Test
+    void signalIpsBeyondLimitShareOtherTag() {
+        metrics.recordVehicle(DETECTOR_1, 1, true);
+        metrics.recordVehicle(DETECTOR_2, 1, true);
+        metrics.recordVehicle(DETECTOR_3, 1, true);
+        metrics.recordVehicle(DETECTOR_4, 1, true);
+        metrics.recordVehicle(DETECTOR_1, 1, true);
+
+        assertEquals(Set.of("10.0.0.1", "10.0.0.2", IngestMetrics.OTHER_DETECTORS), detectorTags("traffic.detector.vehicles"));
+        assertEquals(2.0, registry.get("traffic.detector.vehicles")
+                .tags("detector", IngestMetrics.OTHER_DETECTORS, "lane", "1", "source", "video").counter().count());
+        assertEquals(2.0, registry.get("traffic.detector.vehicles")
+                .tags("detector", "10.0.0.1", "lane", "1", "source", "video").counter().count());
+    }
+}
@@ -0,0 +1,76 @@
+package com.traffic.config.cardetector.parser;
+
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import com.traffic.config.cardetector.model.VehicleData;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleDataParserTest {
+
+    private final VehicleDataParser parser = new VehicleDataParser();
+
+    private static ProtocolMessage frame(int lane, String plate, long receiveNanos) {
+        byte[] data = new byte[26];
+        data[0] = 0x01;
+        data[1] = 10;
+        data[4] = 1;
+        data[5] = (byte) lane;
+        byte[] plateBytes = plate.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(plateBytes, 0, data, 6, plateBytes.length);
+        data[22] = 1;   // 车入
+        data[23] = 12;
+        data[24] = 40;
+        data[25] = 1;
+        ProtocolMessage message = new ProtocolMessage();
+        message.wrap(data, 0, data.length, (byte) 0, receiveNanos, 0);
+        return message;
+    }
+
+    @Test
+    void parsesAllFields() throws Exception {
+        VehicleData vehicle = parser.parseInto(frame(3, "京A12345", 1_000L), new VehicleData());
+        assertEquals(0x0A000001, vehicle.getSignalIpInt());
+        assertEquals(3, vehicle.getLaneNumber());
+        assertEquals("京A12345", vehicle.getLicensePlate());
+        assertEquals(1, vehicle.getDirection().getCode());
+        assertEquals(12, vehicle.getQueueLength());
+        assertEquals(40, vehicle.getSpeed());
+        assertEquals(1, vehicle.getRunDirection());
+        assertEquals(1_000L, vehicle.getTimestampNanos());
+    }
+
+    @Test
+    void reusedInstanceKeepsNothingFromPreviousVehicle() throws Exception {
+        VehicleData vehicle = parser.parseInto(frame(3, "京A12345", 1_000L), new VehicleData());
+        vehicle.setPlateId(42);
+
+        parser.parseInto(frame(4, "", 0L), vehicle);
+        assertEquals(4, vehicle.getLaneNumber());
+        assertEquals(0, vehicle.getPlateId());
+        assertFalse(vehicle.isValidLicensePlate());
+        assertNotEquals(1_000L, vehicle.getTimestampNanos(), "未记录接收时间时不应沿用上一辆车的时间戳");
+        assertTrue(vehicle.getTimestampNanos() > 0);
+    }
+
+    @Test
+    void rejectsShortFrame() {
+        ProtocolMessage message = new ProtocolMessage();
+        message.wrap(new byte[10], 0, 10, (byte) 0, 0L, 0);
+        assertThrows(Exception.class, () -> parser.parseInto(message, new VehicleData()));
+    }
+
+    @Test
+    void blankPlatesAreInvalid() {
+        VehicleData vehicle = new VehicleData();
+        assertFalse(vehicle.isValidLicensePlate());
+        vehicle.setLicensePlate("");
+        assertFalse(vehicle.isValidLicensePlate());
+        vehicle.setLicensePlate(" \t\u0000 ");
+        assertFalse(vehicle.isValidLicensePlate());
+        vehicle.setLicensePlate(" 京A1 ");
+        assertTrue(vehicle.isValidLicensePlate());
+    }
+}
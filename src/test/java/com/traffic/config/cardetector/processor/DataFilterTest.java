@@ -0,0 +1,35 @@
+package com.traffic.config.cardetector.processor;
+
+import com.traffic.config.cardetector.model.VehicleData;
+import com.traffic.config.common.enums.VehicleDirection;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataFilterTest {
+
+    private final DataFilter filter = new DataFilter(5, 5, 100);
+
+    private static VehicleData vehicle(int lane, VehicleDirection direction) {
+        VehicleData data = new VehicleData();
+        data.setSignalIpInt(0x0A000001);
+        data.setLaneNumber(lane);
+        data.setDirection(direction);
+        return data;
+    }
+
+    @Test
+    void filtersRepeatWithinWindow() {
+        assertTrue(filter.shouldProcessVehicleData(vehicle(3, VehicleDirection.IN)));
+        assertFalse(filter.shouldProcessVehicleData(vehicle(3, VehicleDirection.IN)));
+        assertTrue(filter.shouldProcessVehicleData(vehicle(3, VehicleDirection.OUT)));
+    }
+
+    @Test
+    void lanesAbove127DoNotCollideWithLowLanes() {
+        assertTrue(filter.shouldProcessVehicleData(vehicle(1, VehicleDirection.IN)));
+        assertTrue(filter.shouldProcessVehicleData(vehicle(129, VehicleDirection.IN)));
+        assertTrue(filter.shouldProcessVehicleData(vehicle(255, VehicleDirection.IN)));
+        assertTrue(filter.shouldProcessVehicleData(vehicle(127, VehicleDirection.IN)));
+    }
+}
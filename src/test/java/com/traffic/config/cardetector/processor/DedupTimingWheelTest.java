@@ -0,0 +1,102 @@
+package com.traffic.config.cardetector.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DedupTimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final long START = 1_000_000L;
+
+    @Test
+    void rejectsDuplicatesUntilWindowExpires() {
+        DedupTimingWheel wheel = new DedupTimingWheel(TICK, 100, START);
+        assertTrue(wheel.admit(1L, 100, START));
+        assertFalse(wheel.admit(1L, 100, START + 50));
+        // 窗口内的重复不延长窗口
+        assertFalse(wheel.admit(1L, 100, START + 99));
+        assertTrue(wheel.admit(1L, 100, START + 100));
+        assertTrue(wheel.admit(2L, 100, START + 100));
+        assertEquals(2, wheel.size());
+    }
+
+    @Test
+    void advanceRemovesExpiredKeys() {
+        DedupTimingWheel wheel = new DedupTimingWheel(TICK, 100, START);
+        for (long key = 1; key <= 200; key++) {
+            assertTrue(wheel.admit(key, 100, START + key % 50));
+        }
+        assertEquals(200, wheel.size());
+
+        wheel.advance(START + 60);
+        assertEquals(200, wheel.size(), "均未到期");
+
+        // 到期时刻所在轮槽的下一格才清理
+        wheel.advance(START + 100 + 50 + TICK);
+        assertEquals(0, wheel.size());
+        assertEquals(200, wheel.getExpired());
+    }
+
+    @Test
+    void jumpLongerThanOneRevolutionClearsEverySlot() {
+        DedupTimingWheel wheel = new DedupTimingWheel(TICK, 100, START);
+        for (long key = 1; key <= 64; key++) {
+            wheel.admit(key, 100, START + key);
+        }
+        wheel.advance(START + 1_000 * TICK * wheel.getWheelSlots());
+        assertEquals(0, wheel.size());
+        assertEquals(64, wheel.getExpired());
+    }
+
+    @Test
+    void windowSpanningSeveralRevolutionsSurvivesWrap() {
+        // 窗口20：仅4个轮槽，窗口200需绕5圈
+        DedupTimingWheel wheel = new DedupTimingWheel(TICK, 20, START);
+        assertEquals(4, wheel.getWheelSlots());
+        assertTrue(wheel.admit(7L, 200, START));
+        for (long now = START + 1; now < START + 200; now += 3) {
+            assertFalse(wheel.admit(7L, 200, now), "第" + (now - START) + "纳秒仍在窗口内");
+            assertEquals(1, wheel.size());
+        }
+        wheel.advance(START + 200 + TICK);
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.admit(7L, 200, START + 200 + TICK));
+    }
+
+    @Test
+    void matchesReferenceModelAcrossManyRevolutions() {
+        DedupTimingWheel wheel = new DedupTimingWheel(TICK, 100, START);
+        Map<Long, Long> expiries = new HashMap<>();
+        Random random = new Random(11);
+        long now = START;
+        for (int i = 0; i < 50_000; i++) {
+            now += random.nextInt(8);
+            long key = random.nextInt(500);
+            long window = 1 + random.nextInt(100);
+            Long expiry = expiries.get(key);
+            boolean expected = expiry == null || expiry <= now;
+            assertEquals(expected, wheel.admit(key, window, now), "键 " + key);
+            if (expected) {
+                expiries.put(key, now + window);
+            }
+        }
+        // 当前时刻未到期的键不能被提前清理
+        long end = now;
+        long live = expiries.values().stream().filter(expiry -> expiry > end).count();
+        assertTrue(wheel.size() >= live);
+
+        wheel.advance(end + 200);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rejectsNonPositiveTickOrWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new DedupTimingWheel(0, 100, START));
+        assertThrows(IllegalArgumentException.class, () -> new DedupTimingWheel(TICK, 0, START));
+    }
+}
@@ -0,0 +1,57 @@
+package com.traffic.config.cardetector.routing;
+
+import com.traffic.config.entity.DetectPoint;
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentRoutingTableTest {
+
+    private static DetectPoint point(int index) {
+        DetectPoint point = new DetectPoint();
+        point.setIndex(index);
+        return point;
+    }
+
+    @Test
+    void routesByPointAndRunDirection() {
+        SegmentRoutingTable table = SegmentRoutingTable.compile(List.of(point(1), point(2)), null, null);
+
+        SegmentRoute enter = table.route(1, 2);
+        assertEquals(1, enter.getSegmentId());
+        assertEquals(SegmentEvent.VEHICLE_ENTER_UPSTREAM, enter.getEvent());
+        assertEquals(SegmentEvent.VEHICLE_EXIT_UPSTREAM, table.route(2, 1).getEvent());
+        assertNull(table.route(1, 0));
+        assertNull(table.route(3, 2));
+        assertEquals(1, table.segmentOf(2));
+        assertEquals(0, table.segmentOf(3));
+    }
+
+    @Test
+    void skipsInvalidPoints() {
+        List<String> skipped = new ArrayList<>();
+        SegmentRoutingTable table = SegmentRoutingTable.compile(List.of(point(0), point(1)), List.of(), skipped);
+        assertEquals(2, skipped.size());
+        assertNull(table.route(1, 2));
+    }
+
+    @Test
+    void eventDataExposesVehicleFieldsAsReadOnlyMap() {
+        SegmentRoute route = SegmentRoutingTable.compile(List.of(point(1)), null, null).route(1, 2);
+        Map<String, Object> data = route.eventData("京A12345", 42);
+
+        assertEquals("京A12345", data.get("vehicleId"));
+        assertEquals(SegmentVariables.Direction.UPSTREAM, data.get("direction"));
+        assertEquals(42, data.get("plateId"));
+        assertNull(data.get("ctrlPhase"));
+        assertEquals(3, data.size());
+        assertEquals(Map.of("vehicleId", "京A12345", "direction", SegmentVariables.Direction.UPSTREAM, "plateId", 42), data);
+        assertThrows(UnsupportedOperationException.class, () -> data.put("plateId", 1));
+    }
+}
@@ -0,0 +1,104 @@
+package com.traffic.config.cardetector.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingTrafficWindowTest {
+
+    // 窗口100纳秒，10个桶，每桶10纳秒
+    private static final long WINDOW = 100;
+    private static final long START = 1_000_000L;
+
+    private final RollingTrafficWindow window = new RollingTrafficWindow(WINDOW, 10);
+
+    @Test
+    void aggregatesFlowSpeedAndQueue() {
+        window.record(START, true, 30, 16);
+        window.record(START + 1, true, 50, 0);
+        window.record(START + 2, false, 0, 40);
+
+        assertEquals(2, window.getFlow(START + 2));
+        assertEquals(2, window.getSpeedSamples(START + 2));
+        assertEquals(40.0, window.getMeanSpeed(START + 2), 1e-9);
+        assertEquals(56.0 / 3, window.getMeanQueueLength(START + 2), 1e-9);
+        assertEquals(40, window.snapshot(START + 2).get("lastQueueLength"));
+    }
+
+    @Test
+    void percentilesInterpolateWithinBins() {
+        for (int i = 0; i < 100; i++) {
+            window.record(START, false, 8 + (i % 4), -1);
+        }
+        // 全部样本落在 8-12 km/h 档
+        double p50 = window.getSpeedPercentile(START, 50);
+        assertTrue(p50 >= 8 && p50 <= 12, "p50=" + p50);
+        assertEquals(12.0, window.getSpeedPercentile(START, 100), 1e-9);
+        assertEquals(0.0, window.getQueuePercentile(START, 95), "无排队样本");
+    }
+
+    @Test
+    void expiresBucketsAsWindowSlides() {
+        window.record(START, true, 20, 8);
+        window.record(START + 50, true, 40, 8);
+        assertEquals(2, window.getFlow(START + 50));
+
+        // 第一条所在的桶滑出窗口
+        assertEquals(1, window.getFlow(START + WINDOW));
+        assertEquals(40.0, window.getMeanSpeed(START + WINDOW), 1e-9);
+        assertEquals(1, window.getSpeedSamples(START + WINDOW));
+
+        assertEquals(0, window.getFlow(START + 50 + WINDOW));
+        assertEquals(0, window.getSpeedSamples(START + 50 + WINDOW));
+        assertEquals(0.0, window.getMeanQueueLength(START + 50 + WINDOW));
+    }
+
+    @Test
+    void bucketsAreReusedAcrossManyRevolutions() {
+        long now = START;
+        for (int i = 0; i < 1_000; i++) {
+            window.record(now, true, 40, 8);
+            now += 7;
+        }
+        // 窗口100纳秒内、间隔7纳秒：当前桶起点之后的约100纳秒内的样本
+        long flow = window.getFlow(now - 7);
+        assertTrue(flow >= 13 && flow <= 15, "flow=" + flow);
+        assertEquals(flow, window.getSpeedSamples(now - 7));
+        assertEquals(40.0, window.getMeanSpeed(now - 7), 1e-9);
+    }
+
+    @Test
+    void gapLongerThanWindowClearsEverything() {
+        window.record(START, true, 40, 8);
+        window.record(START + 30, true, 40, 8);
+        assertEquals(0, window.getFlow(START + 100 * WINDOW));
+        window.record(START + 100 * WINDOW, true, 60, 16);
+        assertEquals(1, window.getFlow(START + 100 * WINDOW));
+        assertEquals(60.0, window.getMeanSpeed(START + 100 * WINDOW), 1e-9);
+    }
+
+    @Test
+    void lateSampleCountsInCurrentBucket() {
+        window.record(START + 50, true, 40, 8);
+        window.record(START, true, 40, 8);
+        assertEquals(2, window.getFlow(START + 50));
+        // 迟到的样本计入当前桶，随当前桶一起过期
+        assertEquals(2, window.getFlow(START + WINDOW));
+        assertEquals(0, window.getFlow(START + 50 + WINDOW));
+    }
+
+    @Test
+    void hourlyFlowScalesByWindowLength() {
+        RollingTrafficWindow minute = new RollingTrafficWindow(60_000_000_000L, 6);
+        for (int i = 0; i < 10; i++) {
+            minute.record(START + i, true, 0, -1);
+        }
+        assertEquals(600.0, minute.getHourlyFlow(START + 10), 1e-9);
+    }
+
+    @Test
+    void rejectsNonPositiveArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RollingTrafficWindow(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new RollingTrafficWindow(WINDOW, 0));
+    }
+}
@@ -0,0 +1,145 @@
+package com.traffic.config.cardetector.tcp;
+
+import com.traffic.config.cardetector.capture.FrameCaptureLog;
+import com.traffic.config.cardetector.codec.FrameDecoderStats;
+import com.traffic.config.cardetector.codec.FrameEncoder;
+import com.traffic.config.cardetector.codec.ProtocolMessagePool;
+import com.traffic.config.cardetector.dispatch.IngestDispatcher;
+import com.traffic.config.cardetector.heartbeat.HeartbeatMonitor;
+import com.traffic.config.cardetector.manager.ConnectionManager;
+import com.traffic.config.cardetector.metrics.IngestMetrics;
+import com.traffic.config.cardetector.model.ProtocolMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class NioTcpServerTest {
+
+    private static final int EVENT_LOOPS = 2;
+
+    private final IngestDispatcher dispatcher = mock(IngestDispatcher.class);
+    private final ConnectionManager connectionManager = new ConnectionManager();
+    private final HeartbeatMonitor heartbeatMonitor = new HeartbeatMonitor(16, 30, true);
+    private final List<byte[]> dispatched = Collections.synchronizedList(new ArrayList<>());
+    private final List<Socket> clients = new ArrayList<>();
+    private NioTcpServer server;
+
+    private void startServer() {
+        server = new NioTcpServer(0, EVENT_LOOPS, connectionManager, dispatcher,
+                new IngestMetrics(new FrameDecoderStats(), new SimpleMeterRegistry()),
+                new ProtocolMessagePool(16, 256), heartbeatMonitor, mock(FrameCaptureLog.class));
+        server.startServer();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        for (Socket client : clients) {
+            client.close();
+        }
+        if (server != null) {
+            server.stopServer();
+        }
+    }
+
+    private Socket connect() throws Exception {
+        Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        client.setSoTimeout(5000);
+        clients.add(client);
+        return client;
+    }
+
+    private static byte[] heartbeat(int lastOctet) {
+        return new byte[]{0x00, 0x0A, 0x00, 0x00, (byte) lastOctet};
+    }
+
+    private static byte[] vehicle(int lastOctet) {
+        byte[] payload = new byte[26];
+        payload[0] = 0x01;
+        payload[1] = 0x0A;
+        payload[4] = (byte) lastOctet;
+        payload[5] = 1;
+        payload[22] = 1;
+        return payload;
+    }
+
+    private static void awaitCondition(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void roundTripsHeartbeatsAndVehicleFramesAcrossEventLoops() throws Exception {
+        doAnswer(invocation -> {
+            ProtocolMessage message = invocation.getArgument(0);
+            dispatched.add(Arrays.copyOfRange(message.getBuffer(), message.getOffset(), message.getOffset() + message.getLength()));
+            message.release();
+            return true;
+        }).when(dispatcher).tryDispatch(any());
+        startServer();
+
+        // 连接数多于事件循环数，轮询分配后每个事件循环都服务多个连接
+        int connections = EVENT_LOOPS * 2 + 1;
+        for (int i = 1; i <= connections; i++) {
+            Socket client = connect();
+            OutputStream out = client.getOutputStream();
+            byte[] heartbeatFrame = FrameEncoder.encode(heartbeat(i));
+            out.write(heartbeatFrame);
+            out.flush();
+
+            byte[] reply = new byte[heartbeatFrame.length];
+            new DataInputStream(client.getInputStream()).readFully(reply);
+            assertArrayEquals(heartbeatFrame, reply, "心跳应答应原样返回，第" + i + "个连接");
+
+            out.write(FrameEncoder.encode(vehicle(i)));
+            out.flush();
+        }
+
+        awaitCondition(() -> dispatched.size() == connections);
+        List<Integer> sources = new ArrayList<>();
+        for (byte[] payload : dispatched) {
+            assertEquals(0x01, payload[0], "心跳走快速路径，不进入接入队列");
+            sources.add((int) payload[4]);
+        }
+        Collections.sort(sources);
+        assertEquals(List.of(1, 2, 3, 4, 5), sources);
+        assertEquals(connections, connectionManager.getConnectionCount());
+        assertEquals(EVENT_LOOPS, server.getEventLoopCount());
+    }
+
+    @Test
+    void connectionIsClosedWhenHandlingKeepsFailing() throws Exception {
+        doAnswer(invocation -> {
+            ProtocolMessage message = invocation.getArgument(0);
+            message.release();
+            throw new IllegalStateException("模拟处理异常");
+        }).when(dispatcher).tryDispatch(any());
+        startServer();
+
+        Socket client = connect();
+        client.getOutputStream().write(FrameEncoder.encode(vehicle(1)));
+        client.getOutputStream().flush();
+
+        // 出错的连接被服务端关闭，不再留在选择器中
+        InputStream in = client.getInputStream();
+        assertEquals(-1, in.read());
+        awaitCondition(() -> connectionManager.getConnectionCount() == 0);
+    }
+}
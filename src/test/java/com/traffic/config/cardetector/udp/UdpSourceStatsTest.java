@@ -0,0 +1,92 @@
+package com.traffic.config.cardetector.udp;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UdpSourceStatsTest {
+
+    private final UdpSourceStats stats = new UdpSourceStats("10.0.0.1:9000", 1024);
+
+    @Test
+    void countsLossReorderAndDuplicates() {
+        for (int sequence : new int[]{1, 2, 4, 5, 3, 3, 8}) {
+            stats.onSequence(sequence);
+        }
+        // 期望1-8共8个，收到1、2、3、4、5、8
+        assertEquals(2, stats.getLost());
+        assertEquals(1, stats.getReordered());
+        assertEquals(1, stats.getDuplicates());
+    }
+
+    @Test
+    void duplicateIsRejected() {
+        assertTrue(stats.onSequence(10));
+        assertTrue(stats.onSequence(11));
+        assertFalse(stats.onSequence(10));
+    }
+
+    @Test
+    void lateArrivalBeyondWindowIsStillCounted() {
+        stats.onSequence(1);
+        stats.onSequence(200);
+        assertEquals(198, stats.getLost());
+        stats.onSequence(50);
+        assertEquals(197, stats.getLost());
+        assertEquals(1L, stats.snapshot().get("tooLate"));
+    }
+
+    @Test
+    void sequencesBeforeTheFirstAreIgnored() {
+        stats.onSequence(100);
+        stats.onSequence(98);
+        stats.onSequence(101);
+        assertEquals(0, stats.getLost());
+        assertEquals(0, stats.getReordered());
+    }
+
+    @Test
+    void wrapsAround32Bits() {
+        stats.onSequence(-2);   // 0xFFFFFFFE
+        stats.onSequence(-1);
+        stats.onSequence(1);
+        assertEquals(1, stats.getLost());
+        assertEquals(1L, stats.snapshot().get("highestSequence"));
+    }
+
+    @Test
+    void lossCountIsNotLimitedTo32Bits() {
+        stats.onSequence(0);
+        // 每次前进2^30，跨过两圈回绕
+        for (int i = 1; i <= 8; i++) {
+            stats.onSequence(i << 30);
+        }
+        assertEquals(8L * (1 << 30) + 1 - 9, stats.getLost());
+    }
+
+    @Test
+    void senderRestartReestablishesBaseline() {
+        for (int sequence = 5000; sequence < 5010; sequence++) {
+            stats.onSequence(sequence);
+        }
+        stats.onSequence(5012);
+        assertEquals(2, stats.getLost());
+
+        // 发送端重启从0开始：回退超过阈值，重新建立基线，结转此前的丢失
+        assertTrue(stats.onSequence(0));
+        stats.onSequence(1);
+        stats.onSequence(2);
+        assertEquals(2, stats.getLost());
+        assertEquals(1, stats.getResets());
+        assertEquals(0, stats.getDuplicates());
+        assertEquals(0, stats.getReordered());
+    }
+
+    @Test
+    void smallBackwardJumpIsReorderNotReset() {
+        stats.onSequence(5000);
+        stats.onSequence(4500);
+        assertEquals(0, stats.getResets());
+        assertEquals(0, stats.getLost());
+    }
+}
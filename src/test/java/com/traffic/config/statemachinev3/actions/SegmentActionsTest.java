@@ -0,0 +1,65 @@
+package com.traffic.config.statemachinev3.actions;
+
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import com.traffic.config.statemachinev3.variables.objects.PlateDictionary;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentActionsTest {
+
+    private static int plate(String plate) {
+        return PlateDictionary.getInstance().intern(plate);
+    }
+
+    private static int reconcile(SegmentVariables variables, String exitPlate) {
+        return SegmentActions.reconcileExitPlate(variables, plate(exitPlate), SegmentVariables.Direction.UPSTREAM);
+    }
+
+    @Test
+    void confusableExitPlateMatchesVehicleInSegment() {
+        SegmentVariables variables = new SegmentVariables(1);
+        int entered = plate("京A12045");
+        variables.addUpstreamVehicle(entered);
+        assertEquals(entered, reconcile(variables, "京A12O45"));
+        assertEquals(1, variables.getFuzzyPlateMatches());
+    }
+
+    @Test
+    void realSubstitutionIsNotMatched() {
+        SegmentVariables variables = new SegmentVariables(1);
+        variables.addUpstreamVehicle(plate("京A12345"));
+        int exit = plate("京A12346");
+        assertEquals(exit, reconcile(variables, "京A12346"), "真实的字符差异不应移除另一辆在途车辆");
+        assertEquals(0, variables.getFuzzyPlateMatches());
+    }
+
+    @Test
+    void tiedCandidatesAreNotMatched() {
+        SegmentVariables variables = new SegmentVariables(1);
+        variables.addUpstreamVehicle(plate("京A22045"));
+        variables.addUpstreamVehicle(plate("京A22D45"));
+        int exit = plate("京A22O45");
+        assertEquals(exit, reconcile(variables, "京A22O45"));
+        assertEquals(0, variables.getFuzzyPlateMatches());
+    }
+
+    @Test
+    void maxCostIsConfigurable() {
+        SegmentVariables variables = new SegmentVariables(1);
+        int entered = plate("京A32345");
+        variables.addUpstreamVehicle(entered);
+        variables.setFuzzyPlateMaxCost(1.0);
+        assertEquals(entered, reconcile(variables, "京A32346"));
+    }
+
+    @Test
+    void knownPlateIsReturnedAsIs() {
+        SegmentVariables variables = new SegmentVariables(1);
+        int entered = plate("京A42345");
+        variables.addUpstreamVehicle(entered);
+        assertEquals(entered, reconcile(variables, "京A42345"));
+        assertEquals(PlateDictionary.NO_PLATE,
+                SegmentActions.reconcileExitPlate(variables, PlateDictionary.NO_PLATE, SegmentVariables.Direction.UPSTREAM));
+    }
+}
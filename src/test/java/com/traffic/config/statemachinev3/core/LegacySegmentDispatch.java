@@ -0,0 +1,130 @@
+package com.traffic.config.statemachinev3.core;
+
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.enums.segment.SegmentState;
+import com.traffic.config.statemachinev3.guards.SegmentGuards;
+import com.traffic.config.statemachinev3.transition.TransitionTable;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+
+/**
+ * 转换表之前的 switch 分派，原样保留，供一致性测试和基准对比
+ *
+ * 全红后放行方向的判断与状态机共用同一函数，因此两种实现的差别只来自分派本身。
+ */
+final class LegacySegmentDispatch {
+
+    private final TransitionTable<SegmentState, SegmentEvent, SegmentStateMachine> table;
+    private final SegmentStateMachine machine;
+    private final SegmentVariables variables;
+
+    LegacySegmentDispatch(TransitionTable<SegmentState, SegmentEvent, SegmentStateMachine> table, SegmentStateMachine machine) {
+        this.table = table;
+        this.machine = machine;
+        this.variables = machine.getVariables();
+    }
+
+    SegmentState target(SegmentEvent event, SegmentState currentState) {
+        // 最高优先级 - 人工控制, 强控可以控制管控方向
+        if(event == SegmentEvent.FORCE_SWITCH || event == SegmentEvent.SYSTEM_RESET) {
+            if(variables.getForceSwitchReq()==1) return SegmentState.ALL_RED_CLEAR;
+            if(variables.getForceSwitchReq()==2) return SegmentState.ALL_YELLOWFLASH_MANUAL;
+            if(variables.getForceSwitchReq()==3) return SegmentState.UPSTREAM_GREEN;
+            if(variables.getForceSwitchReq()==4) return SegmentState.DOWNSTREAM_GREEN;
+        }
+        // 自动运行的最高优先级
+        switch (currentState){
+            case ALL_YELLOWFLASH_MANUAL -> {
+                return SegmentState.ALL_YELLOWFLASH_MANUAL;
+            }
+        }
+        // 正常功能优先级
+        switch (event) {
+            case TIMER_TICK -> {
+                return timerTickTarget(currentState);
+            }
+            case GREEN_TIMEOUT -> {
+                return SegmentState.ALL_RED_CLEAR;
+            }
+            case VEHICLE_ENTER_UPSTREAM, VEHICLE_EXIT_UPSTREAM, VEHICLE_ENTER_DOWNSTREAM, VEHICLE_EXIT_DOWNSTREAM,
+                 CLEARANCE_STATUS_UPDATE, CONSERVATIVE_CLEAR_TRIGGERED, SENSOR_FAULT, COMMUNICATION_FAULT, COUNTER_MISMATCH_DETECTED,
+                 ID_LOGIC_ERROR_DETECTED, DATA_INCONSISTENCY_FOUND, SYSTEM_STATE_MACHINE_COMMAND, CONFIG_UPDATE-> {
+                return currentState;
+            }
+            case EMERGENCY_OVERRIDE -> {
+                if (currentState.isGreenState()) {
+                    return SegmentState.ALL_RED_CLEAR;
+                }
+            }
+            case CLEARANCE_COMPLETE -> {
+                return greenStateFromRed();
+            }
+            case CLEAR_TIMEOUT -> {
+                return SegmentState.ALL_YELLOWFLASH_MANUAL;
+            }
+            default -> {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private SegmentState timerTickTarget(SegmentState currentState) {
+        switch (currentState) {
+            case ALL_RED_CLEAR -> {
+                return greenStateFromRed();
+            }
+            case UPSTREAM_GREEN -> {
+                return SegmentState.ALL_RED_CLEAR;
+            }
+            case DOWNSTREAM_GREEN -> {
+                return SegmentState.ALL_RED_CLEAR;
+            }
+            default -> {
+                return currentState;
+            }
+        }
+    }
+
+    boolean guard(SegmentEvent event, SegmentState currentState, SegmentState targetState) {
+        if(event == SegmentEvent.FORCE_SWITCH) {
+            return true;
+        }
+        switch (currentState) {
+            case ALL_RED_CLEAR -> {
+                if(targetState == SegmentState.ALL_NOCTRL)  return SegmentGuards.checkRedToNoCtrl(currentState, targetState, event, variables);
+                if(targetState == SegmentState.ALL_YELLOWFLASH_MANUAL) return SegmentGuards.checkRedToYellowFlash(currentState, targetState, event, variables);
+                if(targetState == SegmentState.ALL_RED_CLEAR) return true;
+                return SegmentGuards.checkRedToGreenTransition(currentState, targetState, event, variables);
+            }
+            case ALL_YELLOWFLASH_MANUAL -> {
+                if(currentState.isYellowFlashState()) return false;
+                return true;
+            }
+            case ALL_NOCTRL -> {
+                if(!currentState.isNoCtrlState()){
+                    return true;
+                }
+                if(targetState == SegmentState.ALL_NOCTRL) {
+                    if(event.isDownstreamVehicleEvent() || event.isUpstreamVehicleEvent()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            case UPSTREAM_GREEN, DOWNSTREAM_GREEN ->{
+                if(targetState == SegmentState.ALL_NOCTRL) return true;
+                if(targetState == SegmentState.ALL_YELLOWFLASH_MANUAL) return true;
+                if(targetState == currentState) return true;
+                return SegmentGuards.checkGreenToRedTransition(currentState, event, variables);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 全红后的放行方向，与状态机共用同一实现
+     */
+    private SegmentState greenStateFromRed() {
+        return table.entry(SegmentState.ALL_RED_CLEAR, SegmentEvent.TIMER_TICK).target(machine);
+    }
+}
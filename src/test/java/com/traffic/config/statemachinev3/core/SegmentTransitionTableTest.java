@@ -0,0 +1,62 @@
+package com.traffic.config.statemachinev3.core;
+
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.enums.segment.SegmentState;
+import com.traffic.config.statemachinev3.transition.TransitionTable;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentTransitionTableTest {
+
+    private static final TransitionTable<SegmentState, SegmentEvent, SegmentStateMachine> TABLE =
+            SegmentStateMachine.transitionTable();
+
+    @Test
+    void tableIsComplete() {
+        assertEquals(List.of(), TABLE.validate());
+    }
+
+    /**
+     * 在全部 (状态, 事件, 强制切换请求) 组合上核对转换表与原 switch 分派的目标状态和守护条件
+     */
+    @Test
+    void matchesLegacySwitchDispatch() {
+        SegmentStateMachine machine = new SegmentStateMachine(1);
+        SegmentVariables variables = machine.getVariables();
+        LegacySegmentDispatch legacy = new LegacySegmentDispatch(TABLE, machine);
+        List<String> mismatches = new ArrayList<>();
+
+        for (int forceReq = 0; forceReq <= 4; forceReq++) {
+            variables.setForceSwitchReq(forceReq);
+            for (SegmentState state : SegmentState.values()) {
+                for (SegmentEvent event : SegmentEvent.values()) {
+                    SegmentState legacyTarget = legacy.target(event, state);
+                    TransitionTable.Entry<SegmentState, SegmentEvent, SegmentStateMachine> entry = TABLE.entry(state, event);
+                    SegmentState tableTarget = entry.target(machine);
+                    if (legacyTarget != tableTarget) {
+                        mismatches.add(String.format("目标不一致 req=%d %s x %s: 原 %s, 表 %s", forceReq, state, event, legacyTarget, tableTarget));
+                        continue;
+                    }
+                    if (tableTarget == null) continue;
+                    if (!entry.getPossibleTargets().contains(tableTarget)) {
+                        mismatches.add(String.format("目标未声明 req=%d %s x %s: %s", forceReq, state, event, tableTarget));
+                    }
+                    // 守护条件按全部目标状态核对，不只是当前变量下实际得到的目标
+                    for (SegmentState target : SegmentState.values()) {
+                        boolean expected = legacy.guard(event, state, target);
+                        boolean actual = entry.guard(machine, target);
+                        if (expected != actual) {
+                            mismatches.add(String.format("守护不一致 req=%d %s x %s -> %s: 原 %s, 表 %s", forceReq, state, event, target, expected, actual));
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(List.of(), mismatches);
+    }
+}
@@ -0,0 +1,148 @@
+package com.traffic.config.statemachinev3.core;
+
+import com.traffic.config.entity.Segment;
+import com.traffic.config.service.event.EventBusService;
+import com.traffic.config.statemachinev3.constants.SystemConstants;
+import com.traffic.config.statemachinev3.events.CustomControlEvent;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import com.traffic.config.statemachinev3.variables.objects.CrossMettingZoneManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopLevelStateMachineTopologyTest {
+
+    private final List<CustomControlEvent> published = new ArrayList<>();
+    private TopLevelStateMachine machine;
+
+    @BeforeEach
+    void setUp() {
+        new EventBusService(event -> {
+            if (event instanceof CustomControlEvent) {
+                published.add((CustomControlEvent) event);
+            }
+        }).init();
+        machine = new TopLevelStateMachine();
+    }
+
+    @AfterEach
+    void tearDown() {
+        machine.getSegmentStateMachines().forEach(SegmentStateMachine::stop);
+        int[] segmentIds = new int[SystemConstants.TOTAL_SEGMENT_COUNT];
+        for (int i = 0; i < segmentIds.length; i++) {
+            segmentIds[i] = i + 1;
+        }
+        CrossMettingZoneManager.getInstance().applyTopology(segmentIds);
+    }
+
+    private static Segment segment(int segmentId, int minGreen) {
+        Segment segment = new Segment();
+        segment.setSegmentId(segmentId);
+        segment.setName("路段" + segmentId);
+        segment.setUpsigid("up-" + segmentId);
+        segment.setDownsigid("down-" + segmentId);
+        segment.setLength(100 * segmentId);
+        segment.setMinGreen(minGreen);
+        segment.setMaxGreen(minGreen * 4);
+        segment.setMinRed(5);
+        segment.setMaxRed(120);
+        return segment;
+    }
+
+    private List<Integer> segmentIds() {
+        return machine.getSegmentStateMachines().stream()
+                .map(SegmentStateMachine::getSegmentId).collect(Collectors.toList());
+    }
+
+    /**
+     * 发布一轮信号机控制状态，返回发布的路口
+     */
+    private List<String> publishCtrlInfo() {
+        published.clear();
+        machine.processSegmentStateCtrlInfo();
+        return published.stream().map(CustomControlEvent::getSigid).collect(Collectors.toList());
+    }
+
+    @Test
+    void reloadAddsRemovesAndUpdatesSegments() {
+        machine.applySegmentConfig(List.of(segment(1, 10), segment(2, 10), segment(3, 10)), null);
+        machine.getSegmentStateMachines().forEach(SegmentStateMachine::start);
+        SegmentStateMachine first = machine.getSegmentStateMachine(1);
+        SegmentStateMachine second = machine.getSegmentStateMachine(2);
+        SegmentStateMachine third = machine.getSegmentStateMachine(3);
+
+        assertEquals(List.of("up-1", "up-2", "up-3", "down-3"), publishCtrlInfo(), "走廊末端为路段3");
+
+        // 修改路段1、删除路段2、新增路段7
+        machine.applySegmentConfig(List.of(segment(7, 20), segment(1, 15), segment(3, 10)), null);
+
+        assertEquals(List.of(1, 3, 7), segmentIds());
+        assertSame(first, machine.getSegmentStateMachine(1), "仍存在的路段沿用原状态机");
+        assertSame(third, machine.getSegmentStateMachine(3));
+        assertNull(machine.getSegmentStateMachine(2));
+        assertFalse(second.isRunning(), "删除的路段停止");
+        SegmentStateMachine added = machine.getSegmentStateMachine(7);
+        assertNotNull(added);
+        assertFalse(added.isRunning(), "未进入感应模式时新增路段不启动");
+
+        SegmentVariables changed = first.getVariables();
+        assertEquals(15, changed.getMinGreen());
+        assertEquals(60, changed.getMaxGreen());
+        assertEquals(700, added.getVariables().getRoadLength());
+
+        // 会车区为相邻路段之间：1-3 之间为3号之前、1号之后，3-7 之间同理
+        CrossMettingZoneManager zones = CrossMettingZoneManager.getInstance();
+        assertArrayEquals(new int[]{1, 3, 7}, zones.getSegmentIds());
+        assertEquals(1, first.getVariables().getUpMeetingZoneCrossId());
+        assertEquals(0, first.getVariables().getDownMeetingZoneCrossId());
+        assertEquals(3, third.getVariables().getUpMeetingZoneCrossId());
+        assertEquals(1, third.getVariables().getDownMeetingZoneCrossId());
+        assertEquals(0, added.getVariables().getUpMeetingZoneCrossId());
+        assertEquals(3, added.getVariables().getDownMeetingZoneCrossId());
+
+        // 路段7尚未运行，路段3不再是走廊末端，不发布末端信号机
+        assertEquals(List.of("up-1", "up-3"), publishCtrlInfo());
+
+        added.start();
+        assertEquals(List.of("up-1", "up-3", "up-7", "down-7"), publishCtrlInfo());
+    }
+
+    @Test
+    void parametersOfExistingSegmentsChangeUnderProcessLock() throws Exception {
+        machine.applySegmentConfig(List.of(segment(1, 10), segment(2, 10)), null);
+        SegmentStateMachine first = machine.getSegmentStateMachine(1);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> first.updateVariables(v -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        Thread reload = new Thread(() -> machine.applySegmentConfig(List.of(segment(1, 30), segment(2, 10)), null));
+        reload.start();
+        reload.join(200);
+        assertTrue(reload.isAlive(), "路段处理中，参数更新须等待处理锁");
+        assertEquals(10, first.getVariables().getMinGreen());
+
+        release.countDown();
+        reload.join(5000);
+        holder.join(5000);
+        assertFalse(reload.isAlive());
+        assertEquals(30, first.getVariables().getMinGreen());
+    }
+}
@@ -0,0 +1,92 @@
+package com.traffic.config.statemachinev3.core;
+
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.enums.segment.SegmentState;
+import com.traffic.config.statemachinev3.transition.TransitionTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路段状态机转换表与原 switch 分派的 JMH 对比
+ *
+ * 每次调用遍历一遍全部 (状态, 事件) 组合；两种实现的一致性由 {@link SegmentTransitionTableTest} 保证。
+ * 运行：mvn test-compile 后以测试类路径执行本类的 main，或 java -cp ... org.openjdk.jmh.Main TransitionTableBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TransitionTableBenchmark {
+
+    private TransitionTable<SegmentState, SegmentEvent, SegmentStateMachine> table;
+    private SegmentStateMachine machine;
+    private LegacySegmentDispatch legacy;
+    private SegmentState[] states;
+    private SegmentEvent[] events;
+
+    @Setup
+    public void setUp() {
+        table = SegmentStateMachine.transitionTable();
+        machine = new SegmentStateMachine(1);
+        legacy = new LegacySegmentDispatch(table, machine);
+        states = SegmentState.values();
+        // CLEAR_TIMEOUT 的目标函数会写日志，不参与计时
+        List<SegmentEvent> timed = new ArrayList<>();
+        for (SegmentEvent event : SegmentEvent.values()) {
+            if (event != SegmentEvent.CLEAR_TIMEOUT) timed.add(event);
+        }
+        events = timed.toArray(new SegmentEvent[0]);
+    }
+
+    @Benchmark
+    public long legacySwitch() {
+        long sink = 0;
+        for (SegmentState state : states) {
+            for (SegmentEvent event : events) {
+                SegmentState target = legacy.target(event, state);
+                if (target != null && legacy.guard(event, state, target)) {
+                    sink += target.ordinal();
+                }
+            }
+        }
+        return sink;
+    }
+
+    @Benchmark
+    public long transitionTable() {
+        long sink = 0;
+        for (SegmentState state : states) {
+            for (SegmentEvent event : events) {
+                TransitionTable.Entry<SegmentState, SegmentEvent, SegmentStateMachine> entry = table.entry(state, event);
+                SegmentState target = entry.target(machine);
+                if (target != null && entry.guard(machine, target)) {
+                    sink += target.ordinal();
+                }
+            }
+        }
+        return sink;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TransitionTableBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
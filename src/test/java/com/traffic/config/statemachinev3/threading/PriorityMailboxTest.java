@@ -0,0 +1,131 @@
+package com.traffic.config.statemachinev3.threading;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriorityMailboxTest {
+
+    /** 按由低到高的顺序声明 */
+    private enum Level { LOW, NORMAL, HIGH }
+
+    private static List<String> drain(PriorityMailbox<Level, String> mailbox) {
+        List<String> result = new ArrayList<>();
+        String element;
+        while ((element = mailbox.poll()) != null) {
+            result.add(element);
+        }
+        return result;
+    }
+
+    @Test
+    void pollsHighestPriorityFirstAndFifoWithinLevel() {
+        PriorityMailbox<Level, String> mailbox = new PriorityMailbox<>(Level.class);
+        mailbox.offer(Level.LOW, "low-1");
+        mailbox.offer(Level.NORMAL, "normal-1");
+        mailbox.offer(Level.LOW, "low-2");
+        mailbox.offer(Level.HIGH, "high-1");
+        mailbox.offer(Level.NORMAL, "normal-2");
+        mailbox.offer(Level.HIGH, "high-2");
+
+        assertEquals(List.of("high-1", "high-2", "normal-1", "normal-2", "low-1", "low-2"), drain(mailbox));
+        assertTrue(mailbox.isEmpty());
+        assertNull(mailbox.poll());
+    }
+
+    @Test
+    void lateHighPriorityOvertakesQueuedLowPriority() {
+        PriorityMailbox<Level, String> mailbox = new PriorityMailbox<>(Level.class);
+        for (int i = 0; i < 1000; i++) {
+            mailbox.offer(Level.LOW, "low");
+        }
+        assertEquals("low", mailbox.poll());
+        mailbox.offer(Level.HIGH, "high");
+        assertEquals("high", mailbox.poll());
+        assertEquals(999, mailbox.size());
+    }
+
+    @Test
+    void tracksDepthPerPriority() {
+        PriorityMailbox<Level, String> mailbox = new PriorityMailbox<>(Level.class);
+        mailbox.offer(Level.LOW, "a");
+        mailbox.offer(Level.HIGH, "b");
+        mailbox.offer(Level.HIGH, "c");
+        assertEquals(3, mailbox.size());
+        assertEquals(2, mailbox.size(Level.HIGH));
+        assertEquals(0, mailbox.size(Level.NORMAL));
+
+        Map<String, Integer> depths = mailbox.depthByPriority();
+        assertEquals(List.of("HIGH", "NORMAL", "LOW"), new ArrayList<>(depths.keySet()));
+        assertEquals(List.of(2, 0, 1), new ArrayList<>(depths.values()));
+
+        mailbox.clear();
+        assertTrue(mailbox.isEmpty());
+        assertEquals(0, mailbox.size());
+        assertEquals(0, mailbox.size(Level.HIGH));
+    }
+
+    @Test
+    void removeWithdrawsOnlyFromGivenPriority() {
+        PriorityMailbox<Level, String> mailbox = new PriorityMailbox<>(Level.class);
+        mailbox.offer(Level.NORMAL, "x");
+        mailbox.offer(Level.NORMAL, "y");
+        assertFalse(mailbox.remove(Level.HIGH, "x"));
+        assertTrue(mailbox.remove(Level.NORMAL, "x"));
+        assertFalse(mailbox.remove(Level.NORMAL, "x"));
+        assertEquals(1, mailbox.size(Level.NORMAL));
+        assertEquals(List.of("y"), drain(mailbox));
+    }
+
+    @Test
+    void concurrentProducersAndConsumersLoseNothing() throws Exception {
+        PriorityMailbox<Level, String> mailbox = new PriorityMailbox<>(Level.class);
+        int producers = 4;
+        int perProducer = 5000;
+        Level[] levels = Level.values();
+        CountDownLatch produced = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    mailbox.offer(levels[i % levels.length], producer + "-" + i);
+                }
+                produced.countDown();
+            }).start();
+        }
+
+        Map<String, Boolean> consumed = new ConcurrentHashMap<>();
+        AtomicInteger duplicates = new AtomicInteger();
+        Thread[] consumers = new Thread[2];
+        for (int c = 0; c < consumers.length; c++) {
+            consumers[c] = new Thread(() -> {
+                while (produced.getCount() > 0 || !mailbox.isEmpty()) {
+                    String element = mailbox.poll();
+                    if (element != null) {
+                        if (consumed.put(element, Boolean.TRUE) != null) {
+                            duplicates.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            consumers[c].start();
+        }
+        assertTrue(produced.await(10, TimeUnit.SECONDS));
+        for (Thread consumer : consumers) {
+            consumer.join(10_000);
+        }
+
+        assertEquals(0, duplicates.get(), "元素被重复取出");
+        assertEquals(producers * perProducer, consumed.size());
+        assertEquals(0, mailbox.size());
+        assertTrue(mailbox.isEmpty());
+    }
+}
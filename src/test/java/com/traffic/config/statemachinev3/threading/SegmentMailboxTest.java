@@ -0,0 +1,130 @@
+package com.traffic.config.statemachinev3.threading;
+
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SegmentMailboxTest {
+
+    private final SegmentStateMachine machine = mock(SegmentStateMachine.class);
+    private final List<SegmentEvent> handled = new ArrayList<>();
+
+    /**
+     * 手动执行的线程池：提交的任务排队，由测试逐个运行
+     */
+    private static final class ManualExecutor implements Executor {
+        final Queue<Runnable> tasks = new ArrayDeque<>();
+        boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("shutdown");
+            }
+            tasks.add(command);
+        }
+
+        void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+
+    private final ManualExecutor executor = new ManualExecutor();
+
+    SegmentMailboxTest() {
+        when(machine.getSegmentId()).thenReturn(1);
+        doAnswer(invocation -> handled.add(invocation.getArgument(0)))
+                .when(machine).processSegmentEvent(any(), any());
+    }
+
+    @Test
+    void processesByPriorityThenArrivalOrder() {
+        SegmentMailbox mailbox = new SegmentMailbox(machine, executor, 100);
+        mailbox.offer(SegmentEvent.VEHICLE_ENTER_UPSTREAM, null);
+        mailbox.offer(SegmentEvent.TIMER_TICK, null);
+        mailbox.offer(SegmentEvent.VEHICLE_EXIT_UPSTREAM, null);
+        mailbox.offer(SegmentEvent.FORCE_SWITCH, null);
+        assertEquals(1, executor.tasks.size(), "同一时刻只提交一次排空任务");
+
+        executor.runAll();
+        assertEquals(List.of(SegmentEvent.FORCE_SWITCH, SegmentEvent.VEHICLE_ENTER_UPSTREAM,
+                SegmentEvent.VEHICLE_EXIT_UPSTREAM, SegmentEvent.TIMER_TICK), handled);
+        assertTrue(mailbox.isIdle());
+    }
+
+    @Test
+    void fullMailboxDropsOnlyNonVehicleLowPriorityEvents() {
+        SegmentMailbox mailbox = new SegmentMailbox(machine, executor, 2);
+        assertTrue(mailbox.offer(SegmentEvent.VEHICLE_ENTER_UPSTREAM, null));
+        assertTrue(mailbox.offer(SegmentEvent.VEHICLE_ENTER_UPSTREAM, null));
+
+        assertFalse(mailbox.offer(SegmentEvent.TIMER_TICK, null));
+        assertTrue(mailbox.offer(SegmentEvent.VEHICLE_EXIT_UPSTREAM, null), "车辆事件不丢弃");
+        assertTrue(mailbox.offer(SegmentEvent.GREEN_TIMEOUT, null), "HIGH及以上不受容量限制");
+        assertEquals(4, mailbox.getDepth());
+        assertEquals(1L, mailbox.snapshot().get("dropped"));
+        assertEquals(1L, mailbox.snapshot().get("overCapacity"));
+
+        executor.runAll();
+        assertEquals(4, handled.size());
+        assertEquals(0, mailbox.getDepth());
+    }
+
+    @Test
+    void rejectedSchedulingWithdrawsTheEvent() {
+        SegmentMailbox mailbox = new SegmentMailbox(machine, executor, 10);
+        executor.shutdown = true;
+        assertFalse(mailbox.offer(SegmentEvent.VEHICLE_ENTER_UPSTREAM, null));
+        assertEquals(0, mailbox.getDepth());
+        assertTrue(mailbox.isIdle());
+    }
+
+    @Test
+    void drainsInBatchesAndReschedulesRemainder() {
+        SegmentMailbox mailbox = new SegmentMailbox(machine, executor, 1000);
+        for (int i = 0; i < SegmentMailbox.DRAIN_BATCH + 5; i++) {
+            mailbox.offer(SegmentEvent.VEHICLE_ENTER_UPSTREAM, null);
+        }
+        executor.tasks.poll().run();
+        assertEquals(SegmentMailbox.DRAIN_BATCH, handled.size());
+        assertEquals(1, executor.tasks.size(), "剩余事件重新提交");
+        executor.runAll();
+        assertEquals(SegmentMailbox.DRAIN_BATCH + 5, handled.size());
+    }
+
+    @Test
+    void processingFailuresAreContained() {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("event");
+        }).when(machine).processSegmentEvent(any(), any());
+        when(machine.processEvents()).thenThrow(new IllegalStateException("internal"));
+        SegmentMailbox mailbox = new SegmentMailbox(machine, executor, 10, true);
+
+        mailbox.offer(SegmentEvent.VEHICLE_ENTER_UPSTREAM, null);
+        assertDoesNotThrow(executor::runAll);
+        assertEquals(2L, mailbox.snapshot().get("failed"));
+        assertTrue(mailbox.isIdle());
+
+        // 异常之后仍可继续投递和处理
+        mailbox.offer(SegmentEvent.VEHICLE_EXIT_UPSTREAM, null);
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals(4L, mailbox.snapshot().get("failed"));
+    }
+}
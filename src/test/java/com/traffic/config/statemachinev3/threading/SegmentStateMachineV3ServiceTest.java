@@ -0,0 +1,97 @@
+package com.traffic.config.statemachinev3.threading;
+
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.core.TopLevelStateMachine;
+import com.traffic.config.statemachinev3.enums.segment.ClearanceDecision;
+import com.traffic.config.statemachinev3.enums.segment.SegmentEvent;
+import com.traffic.config.statemachinev3.variables.SegmentVariables;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SegmentStateMachineV3ServiceTest {
+
+    private static final int SEGMENT_ID = 1;
+    private static final Map<String, Object> VEHICLE =
+            Map.of("vehicleId", "京A12345", "direction", SegmentVariables.Direction.UPSTREAM);
+
+    private SegmentStateMachineV3Service service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    private SegmentStateMachineV3Service start(SegmentStateMachine segment, String dispatchMode) {
+        TopLevelStateMachine topLevel = mock(TopLevelStateMachine.class);
+        when(topLevel.getSegmentStateMachine(SEGMENT_ID)).thenReturn(segment);
+        when(topLevel.getSegmentStateMachines()).thenReturn(List.of(segment));
+        service = new SegmentStateMachineV3Service(topLevel, 2, 100, dispatchMode);
+        service.init();
+        return service;
+    }
+
+    @Test
+    void immediateModeUpdatesClearanceWithoutTick() throws Exception {
+        SegmentStateMachine segment = new SegmentStateMachine(SEGMENT_ID);
+        start(segment, "immediate");
+        segment.start();
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(ClearanceDecision.SAFE, segment.getCurrentClearanceDecision());
+
+        // 不调用 processTimerTick，清空决策由信箱排空后直接更新
+        assertTrue(service.dispatchSegmentEvent(SEGMENT_ID, SegmentEvent.VEHICLE_ENTER_UPSTREAM, VEHICLE));
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(ClearanceDecision.WAIT, segment.getCurrentClearanceDecision());
+
+        assertTrue(service.dispatchSegmentEvent(SEGMENT_ID, SegmentEvent.VEHICLE_EXIT_UPSTREAM, VEHICLE));
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(ClearanceDecision.SAFE, segment.getCurrentClearanceDecision());
+    }
+
+    @Test
+    void awaitIdleWaitsForDrainToFinish() throws Exception {
+        SegmentStateMachine segment = mock(SegmentStateMachine.class);
+        when(segment.getSegmentId()).thenReturn(SEGMENT_ID);
+        CountDownLatch eventStarted = new CountDownLatch(1);
+        CountDownLatch releaseEvent = new CountDownLatch(1);
+        CountDownLatch releaseInternal = new CountDownLatch(1);
+        AtomicBoolean internalDone = new AtomicBoolean();
+        doAnswer(invocation -> {
+            eventStarted.countDown();
+            releaseEvent.await();
+            return true;
+        }).when(segment).processSegmentEvent(any(), any());
+        doAnswer(invocation -> {
+            releaseInternal.await();
+            internalDone.set(true);
+            return true;
+        }).when(segment).processEvents();
+        start(segment, "immediate");
+
+        assertTrue(service.dispatchSegmentEvent(SEGMENT_ID, SegmentEvent.VEHICLE_ENTER_UPSTREAM, VEHICLE));
+        assertTrue(eventStarted.await(5, TimeUnit.SECONDS));
+        assertFalse(service.awaitIdle(50, TimeUnit.MILLISECONDS), "事件处理中不是空闲");
+
+        // 信箱事件处理完，但内部队列尚未处理完
+        releaseEvent.countDown();
+        assertFalse(service.awaitIdle(50, TimeUnit.MILLISECONDS), "内部事件队列处理中不是空闲");
+
+        releaseInternal.countDown();
+        assertTrue(service.awaitIdle(5, TimeUnit.SECONDS));
+        assertTrue(internalDone.get());
+    }
+}
@@ -0,0 +1,168 @@
+package com.traffic.config.statemachinev3.threading;
+
+import com.traffic.config.statemachinev3.core.SegmentStateMachine;
+import com.traffic.config.statemachinev3.enums.segment.ClearanceDecision;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SegmentTickExecutorTest {
+
+    private SegmentTickExecutor executor;
+
+    @AfterEach
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static SegmentStateMachine segment(int id, ClearanceDecision decision, Runnable onTick) {
+        SegmentStateMachine segment = mock(SegmentStateMachine.class);
+        when(segment.getSegmentId()).thenReturn(id);
+        when(segment.getCurrentClearanceDecision()).thenReturn(decision);
+        doAnswer(invocation -> {
+            onTick.run();
+            return null;
+        }).when(segment).processTimerTick();
+        return segment;
+    }
+
+    @Test
+    void tickReturnsOnlyAfterEverySegmentFinished() {
+        executor = new SegmentTickExecutor(4);
+        AtomicInteger finished = new AtomicInteger();
+        List<SegmentStateMachine> segments = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            int delay = i % 4;
+            segments.add(segment(i + 1, ClearanceDecision.SAFE, () -> {
+                try {
+                    Thread.sleep(5L * delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.incrementAndGet();
+            }));
+        }
+
+        SegmentTickExecutor.Result[] results = executor.tick(segments);
+        assertEquals(16, finished.get(), "屏障返回时所有路段都应已处理完");
+        assertEquals(16, results.length);
+        assertEquals(16, executor.snapshot().get("segments"));
+    }
+
+    @Test
+    void segmentsRunConcurrentlyOnPoolThreads() {
+        executor = new SegmentTickExecutor(4);
+        // 四个路段互相等待，只有并行执行才能全部通过
+        CountDownLatch together = new CountDownLatch(4);
+        AtomicInteger met = new AtomicInteger();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<SegmentStateMachine> segments = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            segments.add(segment(i + 1, ClearanceDecision.SAFE, () -> {
+                threads.add(Thread.currentThread().getName());
+                together.countDown();
+                try {
+                    if (together.await(5, TimeUnit.SECONDS)) {
+                        met.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        executor.tick(segments);
+        assertEquals(4, met.get());
+        assertEquals(4, threads.size());
+        assertTrue(threads.stream().allMatch(name -> name.startsWith("SegmentTick-")), threads.toString());
+    }
+
+    @Test
+    void resultsFollowSegmentOrderAndIsolateFailures() {
+        executor = new SegmentTickExecutor(3);
+        SegmentStateMachine failingTick = segment(2, ClearanceDecision.WAIT, () -> {
+            throw new IllegalStateException("滴答异常");
+        });
+        SegmentStateMachine failingDecision = segment(3, ClearanceDecision.SAFE, () -> { });
+        doThrow(new IllegalStateException("决策异常")).when(failingDecision).getCurrentClearanceDecision();
+        SegmentStateMachine faulty = segment(4, ClearanceDecision.CONSERVATIVE, () -> { });
+        when(faulty.isFaultDetected()).thenReturn(true);
+        List<SegmentStateMachine> segments = List.of(
+                segment(1, ClearanceDecision.SAFE, () -> { }), failingTick, failingDecision, faulty);
+
+        SegmentTickExecutor.Result[] results = executor.tick(segments);
+
+        for (int i = 0; i < segments.size(); i++) {
+            assertSame(segments.get(i), results[i].getSegment());
+            assertEquals(i + 1, results[i].getSegmentId());
+        }
+        assertNull(results[0].getTickError());
+        assertEquals(ClearanceDecision.SAFE, results[0].getClearanceDecision());
+
+        assertEquals("滴答异常", results[1].getTickError());
+        // 滴答失败仍读取决策
+        assertEquals(ClearanceDecision.WAIT, results[1].getClearanceDecision());
+
+        assertNull(results[2].getTickError());
+        assertEquals("决策异常", results[2].getClearanceError());
+        assertNull(results[2].getClearanceDecision());
+
+        assertTrue(results[3].isFaultDetected());
+        assertFalse(results[0].isFaultDetected());
+    }
+
+    @Test
+    void parallelismOneRunsOnCallingThread() {
+        executor = new SegmentTickExecutor(1);
+        Thread caller = Thread.currentThread();
+        List<Thread> seen = new ArrayList<>();
+        List<Integer> order = new ArrayList<>();
+        List<SegmentStateMachine> segments = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int id = i + 1;
+            segments.add(segment(id, ClearanceDecision.SAFE, () -> {
+                seen.add(Thread.currentThread());
+                order.add(id);
+            }));
+        }
+
+        executor.tick(segments);
+        assertEquals(1, executor.getParallelism());
+        assertEquals(List.of(1, 2, 3), order);
+        assertTrue(seen.stream().allMatch(thread -> thread == caller));
+    }
+
+    @Test
+    void emptySegmentListReturnsImmediately() {
+        executor = new SegmentTickExecutor(4);
+        assertEquals(0, executor.tick(List.of()).length);
+    }
+
+    @Test
+    void recordTickCountsOverBudget() {
+        executor = new SegmentTickExecutor(1);
+        assertFalse(executor.recordTick(5_000_000L, 10_000_000L));
+        assertTrue(executor.recordTick(20_000_000L, 10_000_000L));
+        assertFalse(executor.recordTick(1_000_000L, 10_000_000L));
+
+        assertEquals(1_000_000L, executor.getLastTickNanos());
+        assertEquals(3L, executor.snapshot().get("ticks"));
+        assertEquals(1L, executor.snapshot().get("overBudgetTicks"));
+        assertEquals(20.0, executor.snapshot().get("maxTickMs"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.traffic.config.statemachinev3.variables.objects;
+
+import com.traffic.config.statemachinev3.constants.SystemConstants;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrossMettingZoneManagerTest {
+
+    private final CrossMettingZoneManager manager = CrossMettingZoneManager.getInstance();
+
+    @AfterEach
+    void restoreDefaultTopology() {
+        int[] segmentIds = new int[SystemConstants.TOTAL_SEGMENT_COUNT];
+        for (int i = 0; i < segmentIds.length; i++) {
+            segmentIds[i] = i + 1;
+        }
+        manager.applyTopology(segmentIds);
+    }
+
+    @Test
+    void sparseSegmentIdsMapToAdjacentZones() {
+        manager.applyTopology(new int[]{1_000_000, 1, 5});
+
+        assertArrayEquals(new int[]{1, 5, 1_000_000}, manager.getSegmentIds());
+        assertEquals(0, manager.zoneBefore(1));
+        assertEquals(1, manager.zoneAfter(1));
+        assertEquals(1, manager.zoneBefore(5));
+        assertEquals(5, manager.zoneAfter(5));
+        assertEquals(5, manager.zoneBefore(1_000_000));
+        assertEquals(0, manager.zoneAfter(1_000_000));
+        // 不在拓扑中的路段没有会车区
+        assertEquals(0, manager.zoneBefore(3));
+        assertEquals(0, manager.zoneAfter(3));
+        // 末个路段之后没有会车区
+        assertFalse(manager.hasUpCapacity(1_000_000));
+        assertTrue(manager.hasUpCapacity(5));
+    }
+
+    @Test
+    void retainedZonesKeepVehiclesAndDroppedZonesAreReported() {
+        manager.applyTopology(new int[]{1, 2, 3});
+        manager.upVehicleEnterV2(2, 77);
+        assertTrue(manager.hasUpstreamRequest(3));
+
+        List<Integer> retired = manager.applyTopology(new int[]{2, 3, 9});
+        assertEquals(List.of(1), retired);
+        assertTrue(manager.hasUpstreamRequest(3), "仍存在的会车区保留车辆");
+        assertEquals(3, manager.zoneAfter(3));
+        assertEquals(3, manager.zoneBefore(9));
+    }
+}
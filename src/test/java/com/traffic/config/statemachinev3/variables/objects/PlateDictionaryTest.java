@@ -0,0 +1,77 @@
+package com.traffic.config.statemachinev3.variables.objects;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlateDictionaryTest {
+
+    @Test
+    void internAssignsStableIdsAndSkipsNoPlate() {
+        PlateDictionary dictionary = new PlateDictionary(16, Long.MAX_VALUE);
+        int a = dictionary.intern("京A12345");
+        int b = dictionary.intern("京B23456");
+        assertNotEquals(PlateDictionary.NO_PLATE, a);
+        assertNotEquals(a, b);
+        assertEquals(a, dictionary.intern("京A12345"));
+        assertEquals(a, dictionary.lookup("京A12345"));
+        assertEquals("京B23456", dictionary.plateOf(b));
+
+        assertEquals(PlateDictionary.NO_PLATE, dictionary.intern(null));
+        assertEquals(PlateDictionary.NO_PLATE, dictionary.intern("  "));
+        assertEquals(PlateDictionary.NO_PLATE, dictionary.intern("无车牌"));
+        assertNull(dictionary.plateOf(PlateDictionary.NO_PLATE));
+    }
+
+    @Test
+    void lookupDoesNotAllocate() {
+        PlateDictionary dictionary = new PlateDictionary(16, Long.MAX_VALUE);
+        assertEquals(PlateDictionary.NO_PLATE, dictionary.lookup("京A12345"));
+        assertEquals(0, dictionary.size());
+    }
+
+    @Test
+    void exhaustedDictionaryTreatsNewPlatesAsNoPlate() {
+        // 容量3：可分配编号1、2
+        PlateDictionary dictionary = new PlateDictionary(3, Long.MAX_VALUE);
+        assertNotEquals(PlateDictionary.NO_PLATE, dictionary.intern("A1"));
+        assertNotEquals(PlateDictionary.NO_PLATE, dictionary.intern("A2"));
+        assertEquals(PlateDictionary.NO_PLATE, dictionary.intern("A3"));
+        assertEquals(1L, dictionary.snapshot().get("exhausted"));
+    }
+
+    @Test
+    void recyclesOnlyUnreferencedIdleIds() {
+        PlateDictionary dictionary = new PlateDictionary(3, 0L);
+        int held = dictionary.intern("A1");
+        int idle = dictionary.intern("A2");
+        dictionary.retain(held);
+
+        // 编号用尽时回收：A1 被持有，A2 无人持有且已超过空闲时间（0）
+        int recycled = dictionary.intern("A3");
+        assertEquals(idle, recycled);
+        assertEquals("A3", dictionary.plateOf(recycled));
+        assertEquals(PlateDictionary.NO_PLATE, dictionary.lookup("A2"));
+        assertEquals(held, dictionary.lookup("A1"));
+
+        // 释放后 A1 同样可以回收；A3 无人持有，一并回收
+        dictionary.release(held);
+        int reused = dictionary.intern("A4");
+        assertNotEquals(PlateDictionary.NO_PLATE, reused);
+        assertEquals("A4", dictionary.plateOf(reused));
+        assertEquals(PlateDictionary.NO_PLATE, dictionary.lookup("A1"));
+        assertEquals(1, dictionary.size());
+    }
+
+    @Test
+    void retainedIdsSurviveSweep() {
+        PlateDictionary dictionary = new PlateDictionary(3, 0L);
+        int a = dictionary.intern("A1");
+        int b = dictionary.intern("A2");
+        dictionary.retain(a);
+        dictionary.retain(b);
+        assertEquals(PlateDictionary.NO_PLATE, dictionary.intern("A3"));
+        assertEquals(a, dictionary.lookup("A1"));
+        assertEquals(b, dictionary.lookup("A2"));
+    }
+}
@@ -0,0 +1,71 @@
+package com.traffic.config.statemachinev3.variables.objects;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlateFuzzyIndexTest {
+
+    private static PlateFuzzyIndex index(String... plates) {
+        PlateFuzzyIndex index = new PlateFuzzyIndex(2);
+        for (int i = 0; i < plates.length; i++) {
+            index.add(i + 1, plates[i]);
+        }
+        return index;
+    }
+
+    @Test
+    void confusableSubstitutionIsCheapAndUnique() {
+        PlateFuzzyIndex.Match match = index("京A12045", "京B77777").findClosest("京A12O45", 0);
+        assertNotNull(match);
+        assertEquals(1, match.getPlateId());
+        assertEquals(PlateFuzzyIndex.CONFUSABLE_COST, match.getCost());
+        assertTrue(match.isUnique());
+        assertTrue(match.isConfusableOnly());
+    }
+
+    @Test
+    void realSubstitutionCostsOne() {
+        // 7位车牌错一位时置信度仍有0.857，只能按代价区分
+        PlateFuzzyIndex.Match match = index("京A12345").findClosest("京A12346", 0);
+        assertNotNull(match);
+        assertEquals(1.0, match.getCost());
+        assertTrue(match.isUnique());
+        assertFalse(match.isConfusableOnly());
+    }
+
+    @Test
+    void equallyCloseCandidatesAreNotUnique() {
+        // O 与 0、D 均易混
+        PlateFuzzyIndex.Match match = index("京A12045", "京A12D45").findClosest("京A12O45", 0);
+        assertNotNull(match);
+        assertEquals(PlateFuzzyIndex.CONFUSABLE_COST, match.getCost());
+        assertFalse(match.isUnique());
+    }
+
+    @Test
+    void authorityLetterIsNotFolded() {
+        // 发牌机关代号只能是字母，A 与 4 在该位不算易混
+        PlateFuzzyIndex.Match match = index("京412345").findClosest("京A12345", 0);
+        assertNotNull(match);
+        assertEquals(1.0, match.getCost());
+        assertFalse(match.isConfusableOnly());
+        assertEquals("京A82045", PlateFuzzyIndex.fold("京ABZO4S"));
+        // 识别漏掉省份简称时只跳过代号
+        assertEquals("A12345", PlateFuzzyIndex.fold("a1Z34S"));
+    }
+
+    @Test
+    void excludesSelfAndRemovedPlates() {
+        PlateFuzzyIndex index = index("京A12345", "京A12346");
+        assertEquals(2, index.findClosest("京A12345", 1).getPlateId());
+        index.remove(2);
+        assertNull(index.findClosest("京A12345", 1));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void candidatesBeyondMaxDistanceAreIgnored() {
+        assertNull(index("京A12345").findClosest("京A19875", 0));
+    }
+}
@@ -0,0 +1,119 @@
+package com.traffic.config.statemachinev3.variables.objects;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlateIdSetTest {
+
+    private final PlateDictionary dictionary = new PlateDictionary(1 << 12, Long.MAX_VALUE);
+
+    /**
+     * 在初始16个槽位中落到同一位置的编号
+     */
+    private static List<Integer> collidingIds(int count) {
+        List<Integer> ids = new ArrayList<>();
+        int home = PlateIdSet.mix(1) & 15;
+        for (int id = 1; ids.size() < count; id++) {
+            if ((PlateIdSet.mix(id) & 15) == home) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void addRemoveContains() {
+        PlateIdSet set = new PlateIdSet(dictionary);
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertFalse(set.add(PlateDictionary.NO_PLATE));
+        assertTrue(set.contains(5));
+        assertEquals(1, set.size());
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5));
+        assertFalse(set.contains(5));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void removingFromCollisionChainKeepsLaterEntriesReachable() {
+        List<Integer> ids = collidingIds(5);
+        PlateIdSet set = new PlateIdSet(dictionary);
+        ids.forEach(set::add);
+
+        // 删除链头、链中，后续元素必须仍可找到
+        assertTrue(set.remove(ids.get(0)));
+        assertTrue(set.remove(ids.get(2)));
+        assertFalse(set.contains(ids.get(0)));
+        assertFalse(set.contains(ids.get(2)));
+        assertTrue(set.contains(ids.get(1)));
+        assertTrue(set.contains(ids.get(3)));
+        assertTrue(set.contains(ids.get(4)));
+        assertEquals(3, set.size());
+
+        int[] remaining = set.toArray();
+        Arrays.sort(remaining);
+        assertArrayEquals(new int[]{ids.get(1), ids.get(3), ids.get(4)}, remaining);
+    }
+
+    @Test
+    void matchesHashSetUnderRandomOperations() {
+        PlateIdSet set = new PlateIdSet(dictionary);
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            int id = 1 + random.nextInt(300);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), set.remove(id));
+            } else {
+                assertEquals(expected.add(id), set.add(id));
+            }
+            if (i % 1000 == 0) {
+                for (int probe = 1; probe <= 300; probe++) {
+                    assertEquals(expected.contains(probe), set.contains(probe), "编号 " + probe);
+                }
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        Set<Integer> actual = new HashSet<>();
+        for (int id : set.toArray()) {
+            actual.add(id);
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void holdsDictionaryReferencesWhileMember() {
+        PlateDictionary recycling = new PlateDictionary(3, 0L);
+        int a = recycling.intern("A1");
+        int b = recycling.intern("A2");
+        PlateIdSet set = new PlateIdSet(recycling);
+        set.add(a);
+        set.add(b);
+        // 集合持有期间不能回收
+        assertEquals(PlateDictionary.NO_PLATE, recycling.intern("A3"));
+
+        set.remove(a);
+        assertEquals(a, recycling.intern("A3"));
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertNotEquals(PlateDictionary.NO_PLATE, recycling.intern("A4"));
+    }
+
+    @Test
+    void resolvesPlates() {
+        PlateIdSet set = new PlateIdSet(dictionary);
+        set.add(dictionary.intern("京A12345"));
+        set.add(dictionary.intern("京B23456"));
+        assertEquals(Set.of("京A12345", "京B23456"), set.toPlates());
+    }
+}